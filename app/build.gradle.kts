@@ -36,8 +36,8 @@ dependencies {
     // The following dependency was in your file but not in the version catalog
     implementation("androidx.cardview:cardview:1.0.0")
 
+    testImplementation(libs.junit)
     // Example test dependencies from your catalog (if you need them)
-    // testImplementation(libs.junit)
     // androidTestImplementation(libs.ext.junit)
     // androidTestImplementation(libs.espresso.core)
 }
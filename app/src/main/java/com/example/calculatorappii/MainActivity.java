@@ -1,67 +1,176 @@
 package com.example.calculatorappii;
 
+import android.animation.Animator;
+import android.animation.Keyframe;
 import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
+import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.os.Debug;
 import android.os.Vibrator;
+import android.text.InputType;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.animation.DecelerateInterpolator;
 import android.widget.Button;
+import android.widget.EditText;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.DisplayFormatter;
+import com.example.calculatorappii.engine.FormulaRegistry;
+import com.example.calculatorappii.engine.HistoryEntry;
+import com.example.calculatorappii.engine.HistoryStore;
+import com.example.calculatorappii.engine.Key;
+import com.example.calculatorappii.engine.LivePreview;
+import com.example.calculatorappii.engine.MemoryBank;
+import com.example.calculatorappii.engine.Metrics;
+import com.example.calculatorappii.engine.Precision;
+import com.example.calculatorappii.engine.RunningStatistics;
+import com.example.calculatorappii.engine.StartupTrace;
+import com.example.calculatorappii.engine.StateSnapshot;
+import com.example.calculatorappii.engine.StateStore;
+import com.example.calculatorappii.engine.UndoHistory;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class MainActivity extends AppCompatActivity
+        implements View.OnClickListener, CalculatorEngine.Listener {
+
+    private TextView tvDisplay, tvHistory, tvMemoryIndicator, tvPreview;
+    private final CalculatorEngine engine = new CalculatorEngine();
+    private final DisplayFormatter displayFormatter = new DisplayFormatter();
+
+    // Every keypad state since launch, for undo (long-press CE) and redo (long-press ±).
+    private final UndoHistory undoHistory = new UndoHistory();
+
+    // Live preview of the pending result, calculated off the main thread once typing pauses.
+    private static final long PREVIEW_DELAY_MS = 120;
+    private final ScheduledExecutorService previewExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final DisplayFormatter previewFormatter = new DisplayFormatter();
+    private final LivePreview livePreview = new LivePreview(previewExecutor, PREVIEW_DELAY_MS,
+            this::onPreview);
+
+    // NEW: Calculation history, persisted in the app's files directory. Disk work runs on a
+    // single background thread, so appends keep their order.
+    private HistoryStore historyStore;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    // How many entries back from the newest the history line shows.
+    private int historyBack = 0;
+
+    // Saved state, read in the background while the layout inflates. Until it has been applied
+    // (or a key was pressed first) nothing is saved, so defaults never overwrite it.
+    private static final String TAG = "Calculator";
+    private StateStore stateStore;
+    private Future<StateSnapshot> pendingState;
+    private boolean stateSettled;
+    private final StartupTrace startupTrace = new StartupTrace();
+
+    // Per-stage latency of each key press, logged when the activity pauses.
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Timer hapticTimer = metrics.timer(Metrics.HAPTIC);
+    private final Metrics.Timer animationTimer = metrics.timer(Metrics.ANIMATION);
+    private final Metrics.Timer arithmeticTimer = metrics.timer(Metrics.ARITHMETIC);
+    private final Metrics.Timer formatTimer = metrics.timer(Metrics.FORMAT);
+    private final Metrics.Timer displayTimer = metrics.timer(Metrics.DISPLAY);
+    private final Metrics.Counter keyCounter = metrics.counter("keys");
+    private final Metrics.Counter errorCounter = metrics.counter("errors");
+    private final Metrics.Timer frameTimer = metrics.timer("frame");
+    // Objects allocated on the main thread per press; debuggable builds only.
+    private final Metrics.Counter allocationCounter = metrics.counter("allocations");
+    private boolean countAllocations;
+
+    // View ID -> key, built once so a click is a lookup instead of a chain of comparisons.
+    private final SparseArray<Key> keys = new SparseArray<>();
+
+    // Frame intervals are recorded for a short while after each press, while the press
+    // animation runs, rather than for the whole session.
+    private static final int FRAMES_PER_PRESS = 30;
+    private int framesToWatch;
+    private long lastFrameNanos;
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (lastFrameNanos != 0) frameTimer.record(frameTimeNanos - lastFrameNanos);
+            lastFrameNanos = frameTimeNanos;
+            if (--framesToWatch > 0) {
+                Choreographer.getInstance().postFrameCallback(this);
+            } else {
+                lastFrameNanos = 0;
+            }
+        }
+    };
 
-public class MainActivity extends AppCompatActivity implements View.OnClickListener {
-
-    private TextView tvDisplay, tvHistory, tvMemoryIndicator;
-    private String currentInput = "0";
-    private String operator = "";
-    private String firstOperand = "";
-    private boolean isNewInput = true;
-    private boolean isDecimalAdded = false;
-    private boolean isResultDisplayed = false;
-    private double memoryValue = 0.0;
-    private boolean hasMemory = false;
-    private String lastOperation = "";
-    private String lastOperand = "";
-
-    // NEW: Calculation history
-    private List<String> calculationHistory = new ArrayList<>();
-    private int historyPosition = -1;
-
-    private MathContext mathContext = new MathContext(15, RoundingMode.HALF_UP);
-    private DecimalFormat scientificFormatter = new DecimalFormat("0.#####E0");
     private SharedPreferences preferences;
     private Vibrator vibrator;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        preferences = getSharedPreferences("CalculatorPrefs", MODE_PRIVATE);
+        stateStore = new StateStore(new File(getFilesDir(), "state.bin"), ioExecutor);
+        pendingState = ioExecutor.submit(this::readState);
+
         setContentView(R.layout.activity_main);
+        startupTrace.mark("layout");
 
         tvDisplay = findViewById(R.id.tvDisplay);
         tvHistory = findViewById(R.id.tvHistory);
         tvMemoryIndicator = findViewById(R.id.tvMemoryIndicator);
+        tvPreview = findViewById(R.id.tvPreview);
 
-        preferences = getSharedPreferences("CalculatorPrefs", MODE_PRIVATE);
         vibrator = (Vibrator) getSystemService(VIBRATOR_SERVICE);
+        engine.setListener(this);
+        countAllocations = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (countAllocations) {
+            startAllocationCounting();
+        }
 
-        // NEW: Load saved state
-        loadState();
+        historyStore = new HistoryStore(new File(getFilesDir(), "history"));
+        // Open the store and load the recent entries off the main thread.
+        ioExecutor.execute(() -> {
+            try {
+                historyStore.recent();
+            } catch (IOException ignored) {}
+        });
 
         initializeButtons();
+        addLongClickListeners();
         updateDisplay();
         updateMemoryIndicator();
-        addLongClickListeners();
+        undoHistory.record(engine);
+
+        // NEW: Restore saved state. Usually the read is done by now and the first frame shows
+        // it; otherwise it is applied as soon as it arrives instead of blocking here.
+        if (pendingState.isDone()) {
+            applyState(awaitState());
+        } else {
+            ioExecutor.execute(() -> {
+                StateSnapshot snapshot = awaitState();
+                runOnUiThread(() -> applyState(snapshot));
+            });
+        }
+        traceFirstFrame();
     }
 
     private void initializeButtons() {
@@ -74,18 +183,50 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 R.id.btnSqrt, R.id.btnOneOverX, R.id.btnMC, R.id.btnMR,
                 R.id.btnMPlus, R.id.btnMMinus, R.id.btnMS, R.id.btnMTilde
         };
+        Key[] buttonKeys = {
+                Key.DIGIT_0, Key.DIGIT_1, Key.DIGIT_2, Key.DIGIT_3, Key.DIGIT_4,
+                Key.DIGIT_5, Key.DIGIT_6, Key.DIGIT_7, Key.DIGIT_8, Key.DIGIT_9,
+                Key.PLUS, Key.MINUS, Key.MULTIPLY, Key.DIVIDE,
+                Key.EQUALS, Key.CLEAR_ALL, Key.CLEAR_ENTRY, Key.DECIMAL_POINT,
+                Key.PLUS_MINUS, Key.PERCENT, Key.SQUARE,
+                Key.SQRT, Key.RECIPROCAL, Key.MEMORY_CLEAR, Key.MEMORY_RECALL,
+                Key.MEMORY_ADD, Key.MEMORY_SUBTRACT, Key.MEMORY_STORE, Key.MEMORY_TOGGLE
+        };
 
-        for (int id : buttonIds) {
-            findViewById(id).setOnClickListener(this);
+        for (int i = 0; i < buttonIds.length; i++) {
+            View button = findViewById(buttonIds[i]);
+            button.setOnClickListener(this);
+            button.setTag(R.id.press_animator, createPressAnimator(button));
+            keys.put(buttonIds[i], buttonKeys[i]);
         }
     }
 
+    /** One animator per button, scaling X and Y down and back in a single 100ms run. */
+    private static Animator createPressAnimator(View button) {
+        Keyframe pressed = Keyframe.ofFloat(0.5f, 0.95f);
+        pressed.setInterpolator(new DecelerateInterpolator());
+        PropertyValuesHolder scaleX = PropertyValuesHolder.ofKeyframe(View.SCALE_X,
+                Keyframe.ofFloat(0f, 1f), pressed, Keyframe.ofFloat(1f, 1f));
+        PropertyValuesHolder scaleY = PropertyValuesHolder.ofKeyframe(View.SCALE_Y,
+                Keyframe.ofFloat(0f, 1f), pressed.clone(), Keyframe.ofFloat(1f, 1f));
+        ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(button, scaleX, scaleY);
+        animator.setDuration(100);
+        return animator;
+    }
+
     private void addLongClickListeners() {
         // Long press C to clear all including history
         findViewById(R.id.btnC).setOnLongClickListener(v -> {
-            clearAll();
-            calculationHistory.clear();
-            historyPosition = -1;
+            engine.clearAll();
+            undoHistory.record(engine);
+            updateDisplay();
+            updatePreview();
+            ioExecutor.execute(() -> {
+                try {
+                    historyStore.clear();
+                } catch (IOException ignored) {}
+            });
+            historyBack = 0;
             performHapticFeedback();
             showToast("Everything cleared");
             return true;
@@ -93,6 +234,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         // Long press display to copy
         tvDisplay.setOnLongClickListener(v -> {
+            String currentInput = engine.getDisplay();
             copyToClipboard(currentInput);
             performHapticFeedback();
             showToast("Copied: " + currentInput);
@@ -101,7 +243,10 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         // NEW: Long press equals to repeat last calculation
         findViewById(R.id.btnEquals).setOnLongClickListener(v -> {
-            repeatLastCalculation();
+            engine.repeatLastCalculation();
+            undoHistory.record(engine);
+            updateDisplay();
+            updatePreview();
             return true;
         });
 
@@ -111,15 +256,134 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             return true;
         });
 
+        // Long press CE to undo and ± to redo; either can step back over a clear
+        findViewById(R.id.btnCE).setOnLongClickListener(v -> {
+            stepHistory(undoHistory.undo(engine), "Nothing to undo");
+            return true;
+        });
+        findViewById(R.id.btnPlusMinus).setOnLongClickListener(v -> {
+            stepHistory(undoHistory.redo(engine), "Nothing to redo");
+            return true;
+        });
+
+        // Long press % to switch between immediate and expression (precedence) mode
+        findViewById(R.id.btnPercent).setOnLongClickListener(v -> {
+            engine.setExpressionMode(!engine.isExpressionMode());
+            undoHistory.record(engine);
+            updateHistory("");
+            updatePreview();
+            performHapticFeedback();
+            showToast(engine.isExpressionMode() ? "Expression mode on" : "Expression mode off");
+            return true;
+        });
+
+        // Long press 1/x to switch exact fractions on or off; the display is rounded as usual
+        findViewById(R.id.btnOneOverX).setOnLongClickListener(v -> {
+            engine.setRationalMode(!engine.isRationalMode());
+            undoHistory.record(engine);
+            updatePreview();
+            performHapticFeedback();
+            showToast(engine.isRationalMode() ? "Exact fractions on" : "Exact fractions off");
+            return true;
+        });
+
+        // Long press √ to cycle the working precision: 15, 34, 100, 1000 digits
+        findViewById(R.id.btnSqrt).setOnLongClickListener(v -> {
+            engine.setPrecision(engine.getPrecision().next());
+            updatePreview();
+            performHapticFeedback();
+            showToast("Precision: " + engine.getPrecision().getDigits() + " digits");
+            return true;
+        });
+
         // NEW: Long press memory recall to show memory value
         findViewById(R.id.btnMR).setOnLongClickListener(v -> {
-            if (hasMemory) {
-                showToast("Memory: " + formatResult(new BigDecimal(memoryValue)));
+            MemoryBank bank = engine.getMemoryBank();
+            int register = engine.getMemoryRegister();
+            if (engine.hasMemory()) {
+                showToast(bank.getName(register) + ": " + engine.formatResult(bank.get(register)));
             } else {
-                showToast("Memory is empty");
+                showToast(bank.getName(register) + " is empty");
             }
             return true;
         });
+
+        // Long press MS to switch to the next memory register
+        findViewById(R.id.btnMS).setOnLongClickListener(v -> {
+            MemoryBank bank = engine.getMemoryBank();
+            engine.selectMemoryRegister((engine.getMemoryRegister() + 1) % bank.size());
+            updateMemoryIndicator();
+            performHapticFeedback();
+            showToast("Memory register " + bank.getName(engine.getMemoryRegister()));
+            return true;
+        });
+
+        // Long press M+ to show the running total of every result
+        findViewById(R.id.btnMPlus).setOnLongClickListener(v -> {
+            MemoryBank bank = engine.getMemoryBank();
+            showToast("Total: " + engine.formatResult(bank.getTally())
+                    + " (" + bank.getTallyCount() + " results)");
+            return true;
+        });
+
+        // Long press M~ to pick a scientific function; angles are in radians
+        findViewById(R.id.btnMTilde).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            showScientificKeys();
+            return true;
+        });
+
+        // Long press M- for statistics: Σ+ the display, paste a list, or clear
+        findViewById(R.id.btnMMinus).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            showStatistics();
+            return true;
+        });
+
+        // Long press MC to open the programmer keypad (hex, octal, binary) on the displayed value
+        findViewById(R.id.btnMC).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            startActivity(new Intent(this, ProgrammerActivity.class)
+                    .putExtra(ProgrammerActivity.EXTRA_VALUE, engine.getDisplay()));
+            return true;
+        });
+
+        // Long press × for saved constants and formulas, such as net = price × 1.15 − discount
+        findViewById(R.id.btnMultiply).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            showFormulas();
+            return true;
+        });
+
+        // Long press + to open the adding-machine tape, starting from the displayed value
+        findViewById(R.id.btnPlus).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            startActivity(new Intent(this, TapeActivity.class)
+                    .putExtra(TapeActivity.EXTRA_VALUE, engine.getDisplay()));
+            return true;
+        });
+
+        // Long press x² to open loan and unit-conversion tables for the displayed amount
+        findViewById(R.id.btnSquare).setOnLongClickListener(v -> {
+            performHapticFeedback();
+            startActivity(new Intent(this, TablesActivity.class)
+                    .putExtra(TablesActivity.EXTRA_AMOUNT, engine.getDisplay()));
+            return true;
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        livePreview.cancel();
+        previewExecutor.shutdownNow();
+        ioExecutor.execute(() -> {
+            try {
+                historyStore.close();
+            } catch (IOException ignored) {}
+        });
+        ioExecutor.shutdown();
     }
 
     // NEW: Save state when app is paused
@@ -127,399 +391,337 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     protected void onPause() {
         super.onPause();
         saveState();
+        if (keyCounter.get() > 0) {
+            Log.i(TAG, "Keystroke latency\n" + metrics);
+        }
     }
 
-    // NEW: Save calculator state
+    // NEW: Save calculator state. Capturing is cheap; the store writes in the background, and
+    // only if something changed since the last write.
     private void saveState() {
-        SharedPreferences.Editor editor = preferences.edit();
-        editor.putLong("memory_value", Double.doubleToLongBits(memoryValue));
-        editor.putBoolean("has_memory", hasMemory);
-        editor.putString("last_display", currentInput);
-        editor.putString("last_operator", operator);
-        editor.putString("first_operand", firstOperand);
-        editor.putBoolean("is_new_input", isNewInput);
-        editor.apply();
-    }
-
-    // NEW: Load calculator state
-    private void loadState() {
-        memoryValue = Double.longBitsToDouble(preferences.getLong("memory_value", 0));
-        hasMemory = preferences.getBoolean("has_memory", false);
-        currentInput = preferences.getString("last_display", "0");
-        operator = preferences.getString("last_operator", "");
-        firstOperand = preferences.getString("first_operand", "");
-        isNewInput = preferences.getBoolean("is_new_input", true);
+        if (!stateSettled) return;
+        CharSequence historyLine = tvHistory != null ? tvHistory.getText() : "";
+        stateStore.save(StateSnapshot.capture(engine, historyLine.toString(), historyBack));
+    }
+
+    /** Runs on the I/O thread: the snapshot file, or the older SharedPreferences keys. */
+    private StateSnapshot readState() {
+        long start = System.nanoTime();
+        StateSnapshot snapshot = stateStore.read();
+        if (snapshot == null && preferences.contains("last_display")) {
+            snapshot = new StateSnapshot(
+                    preferences.getString("last_display", "0"),
+                    preferences.getString("last_operator", ""),
+                    preferences.getString("first_operand", ""),
+                    preferences.getBoolean("is_new_input", true),
+                    Double.longBitsToDouble(preferences.getLong("memory_value", 0)),
+                    preferences.getBoolean("has_memory", false),
+                    Precision.fromDigits(preferences.getInt("precision_digits", 15)),
+                    false, "", 0);
+        }
+        Log.d(TAG, "State read in " + (System.nanoTime() - start) / 1000 + "us");
+        return snapshot;
+    }
+
+    private StateSnapshot awaitState() {
+        try {
+            return pendingState.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {}
+        return null;
+    }
+
+    private void applyState(StateSnapshot snapshot) {
+        if (stateSettled) return;
+        stateSettled = true;
+        startupTrace.mark("stateApplied");
+        if (snapshot == null) return;
+        snapshot.applyTo(engine);
+        undoHistory.clear();
+        undoHistory.record(engine);
+        historyBack = snapshot.getHistoryBack();
+        updateHistory(snapshot.getHistoryLine());
+        updateDisplay();
+        updateMemoryIndicator();
+        updatePreview();
+        reportFullyDrawn();
+    }
+
+    /** Logs the cold-start marks once the first frame is about to draw. */
+    private void traceFirstFrame() {
+        tvDisplay.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                tvDisplay.getViewTreeObserver().removeOnPreDrawListener(this);
+                startupTrace.mark("firstFrame");
+                Log.i(TAG, "Cold start: " + startupTrace);
+                return true;
+            }
+        });
     }
 
     @Override
     public void onClick(View v) {
+        // A key pressed before the saved state arrived wins over it.
+        stateSettled = true;
+        keyCounter.increment();
+        int allocations = countAllocations ? threadAllocationCount() : 0;
+        watchFrames();
+        long t = hapticTimer.start();
         performHapticFeedback();
+        t = hapticTimer.stop(t);
         animateButtonPress(v);
+        t = animationTimer.stop(t);
 
-        int id = v.getId();
-
-        if (id == R.id.btn0) numberPressed("0");
-        else if (id == R.id.btn1) numberPressed("1");
-        else if (id == R.id.btn2) numberPressed("2");
-        else if (id == R.id.btn3) numberPressed("3");
-        else if (id == R.id.btn4) numberPressed("4");
-        else if (id == R.id.btn5) numberPressed("5");
-        else if (id == R.id.btn6) numberPressed("6");
-        else if (id == R.id.btn7) numberPressed("7");
-        else if (id == R.id.btn8) numberPressed("8");
-        else if (id == R.id.btn9) numberPressed("9");
-        else if (id == R.id.btnDot) dotPressed();
-        else if (id == R.id.btnPlus) operatorPressed("+");
-        else if (id == R.id.btnMinus) operatorPressed("-");
-        else if (id == R.id.btnMultiply) operatorPressed("*");
-        else if (id == R.id.btnDivide) operatorPressed("/");
-        else if (id == R.id.btnEquals) equalsPressed();
-        else if (id == R.id.btnC) clearAll();
-        else if (id == R.id.btnCE) clearEntry();
-        else if (id == R.id.btnPlusMinus) plusMinusPressed();
-        else if (id == R.id.btnPercent) percentPressed();
-        else if (id == R.id.btnSquare) squarePressed();
-        else if (id == R.id.btnSqrt) sqrtPressed();
-        else if (id == R.id.btnOneOverX) oneOverXPressed();
-        else if (id == R.id.btnMC) memoryClear();
-        else if (id == R.id.btnMR) memoryRecall();
-        else if (id == R.id.btnMPlus) memoryAdd();
-        else if (id == R.id.btnMMinus) memorySubtract();
-        else if (id == R.id.btnMS) memoryStore();
-        else if (id == R.id.btnMTilde) memoryToggle();
+        Key key = keys.get(v.getId());
+        if (key != null) key.press(engine);
+        arithmeticTimer.stop(t);
+        undoHistory.record(engine);
 
         updateDisplay();
         updateMemoryIndicator();
+        updatePreview();
+        if (countAllocations) {
+            allocationCounter.add(threadAllocationCount() - allocations);
+        }
     }
 
-    private void performHapticFeedback() {
+    private void showStatistics() {
+        RunningStatistics statistics = engine.getMemoryBank().getStatistics();
+        StringBuilder summary = new StringBuilder(160);
+        summary.append("n = ").append(statistics.getCount());
+        if (statistics.getCount() > 0) {
+            summary.append("\nSum ").append(formatStatistic(statistics.getSum()))
+                    .append("\nMean ").append(formatStatistic(statistics.getMean()))
+                    .append("\nStd dev ").append(formatStatistic(statistics.getStandardDeviation()))
+                    .append("\nMin ").append(formatStatistic(statistics.getMin()))
+                    .append("\nMedian ").append(formatStatistic(statistics.getMedian()))
+                    .append("\n90th ").append(formatStatistic(statistics.getQuantile(0.9)))
+                    .append("\nMax ").append(formatStatistic(statistics.getMax()));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Statistics")
+                .setMessage(summary)
+                .setPositiveButton("Σ+", (dialog, which) -> {
+                    Key.STATISTICS_ADD.press(engine);
+                    undoHistory.record(engine);
+                    updateDisplay();
+                    updatePreview();
+                })
+                .setNeutralButton("Paste list", (dialog, which) -> pasteStatistics(statistics))
+                .setNegativeButton("Clear", (dialog, which) -> {
+                    statistics.clear();
+                    showToast("Statistics cleared");
+                })
+                .show();
+    }
+
+    /** Adds every number on the clipboard, e.g. a column copied from a spreadsheet. */
+    private void pasteStatistics(RunningStatistics statistics) {
+        ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+        ClipData clip = clipboard != null ? clipboard.getPrimaryClip() : null;
+        if (clip == null || clip.getItemCount() == 0) {
+            showToast("Clipboard is empty");
+            return;
+        }
+        long before = statistics.getCount();
         try {
-            if (vibrator != null && vibrator.hasVibrator()) {
-                vibrator.vibrate(10);
-            }
-        } catch (Exception ignored) {}
+            statistics.addAll(new StringReader(clip.getItemAt(0).coerceToText(this).toString()));
+            showToast("Added " + (statistics.getCount() - before) + " values");
+        } catch (IOException | NumberFormatException e) {
+            showToast("Added " + (statistics.getCount() - before) + " values, then: " + e.getMessage());
+        }
     }
 
-    private void animateButtonPress(View button) {
-        ObjectAnimator scaleDown = ObjectAnimator.ofFloat(button, "scaleX", 1f, 0.95f);
-        scaleDown.setDuration(50);
-        scaleDown.setInterpolator(new DecelerateInterpolator());
-        scaleDown.start();
-
-        ObjectAnimator scaleUp = ObjectAnimator.ofFloat(button, "scaleX", 0.95f, 1f);
-        scaleUp.setDuration(50);
-        scaleUp.setStartDelay(50);
-        scaleUp.start();
-
-        ObjectAnimator scaleDownY = ObjectAnimator.ofFloat(button, "scaleY", 1f, 0.95f);
-        scaleDownY.setDuration(50);
-        scaleDownY.start();
-
-        ObjectAnimator scaleUpY = ObjectAnimator.ofFloat(button, "scaleY", 0.95f, 1f);
-        scaleUpY.setDuration(50);
-        scaleUpY.setStartDelay(50);
-        scaleUpY.start();
-    }
-
-    private void numberPressed(String number) {
-        if (isNewInput || currentInput.equals("0") || currentInput.equals("Error") || isResultDisplayed) {
-            currentInput = number;
-            isNewInput = false;
-            isResultDisplayed = false;
-            isDecimalAdded = false;
+    private String formatStatistic(double value) {
+        if (Double.isNaN(value)) return "–";
+        if (Double.isInfinite(value)) return value > 0 ? "∞" : "-∞";
+        return engine.formatResult(BigDecimal.valueOf(value));
+    }
+
+    private void showScientificKeys() {
+        Key[] scientific = {Key.SIN, Key.COS, Key.TAN, Key.LN, Key.LOG, Key.EXP, Key.FACTORIAL, Key.POWER};
+        String[] labels = new String[scientific.length];
+        for (int i = 0; i < scientific.length; i++) labels[i] = scientific[i].getLabel();
+        new AlertDialog.Builder(this)
+                .setItems(labels, (dialog, which) -> {
+                    stateSettled = true;
+                    performHapticFeedback();
+                    scientific[which].press(engine);
+                    undoHistory.record(engine);
+                    updateDisplay();
+                    updateMemoryIndicator();
+                    updatePreview();
+                })
+                .show();
+    }
+
+    private void showFormulas() {
+        FormulaRegistry formulas = engine.getFormulas();
+        String[] names = formulas.getNames();
+        String[] labels = new String[names.length];
+        for (int i = 0; i < names.length; i++) labels[i] = formulas.getDefinition(names[i]);
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                .setTitle("Formulas")
+                .setNeutralButton("New", (dialog, which) -> defineFormula())
+                .setNegativeButton("Close", null);
+        if (names.length == 0) {
+            builder.setMessage("None yet. Tap New and enter e.g. tax = 1.15 or net = price × tax − discount");
         } else {
-            if (currentInput.length() < 15) {
-                currentInput += number;
-            } else {
-                showToast("Maximum 15 digits");
-            }
+            builder.setItems(labels, (dialog, which) -> callFormula(names[which]));
         }
-    }
-
-    private void dotPressed() {
-        if (isNewInput || isResultDisplayed) {
-            currentInput = "0.";
-            isNewInput = false;
-            isResultDisplayed = false;
-            isDecimalAdded = true;
-        } else if (!isDecimalAdded && !currentInput.contains(".")) {
-            currentInput += ".";
-            isDecimalAdded = true;
+        builder.show();
+    }
+
+    private void defineFormula() {
+        EditText field = new EditText(this);
+        field.setHint("name = expression");
+        field.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+        new AlertDialog.Builder(this)
+                .setTitle("New formula")
+                .setView(field)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    try {
+                        String name = engine.getFormulas().define(field.getText().toString(), engine.getMathContext());
+                        showToast("Saved " + name);
+                    } catch (IllegalArgumentException | ArithmeticException e) {
+                        showToast(e.getMessage());
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /** A constant is recalled at once; a formula first asks for its arguments, the first from the display. */
+    private void callFormula(String name) {
+        FormulaRegistry formulas = engine.getFormulas();
+        String[] parameters = formulas.getParameters(name);
+        LinearLayout fields = new LinearLayout(this);
+        fields.setOrientation(LinearLayout.VERTICAL);
+        EditText[] arguments = new EditText[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i] = new EditText(this);
+            arguments[i].setHint(parameters[i]);
+            arguments[i].setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL
+                    | InputType.TYPE_NUMBER_FLAG_SIGNED);
+            fields.addView(arguments[i]);
         }
-    }
-
-    private void operatorPressed(String op) {
-        if (!operator.isEmpty() && !isNewInput && !isResultDisplayed) {
-            calculate();
+        if (arguments.length > 0 && !engine.getDisplay().equals(CalculatorEngine.ERROR)) {
+            arguments[0].setText(engine.getDisplay());
         }
-
-        updateHistory(currentInput + " " + getOperatorSymbol(op));
-        firstOperand = currentInput;
-        operator = op;
-        lastOperation = op;
-        lastOperand = currentInput;
-        isNewInput = true;
-        isResultDisplayed = false;
-        isDecimalAdded = false;
-    }
-
-    private void equalsPressed() {
-        if (!operator.isEmpty() && !isNewInput) {
-            String expression = firstOperand + " " + getOperatorSymbol(operator) + " " + currentInput;
-            lastOperand = currentInput;
-            calculate();
-
-            // NEW: Add to calculation history
-            String historyEntry = expression + " = " + currentInput;
-            calculationHistory.add(historyEntry);
-            if (calculationHistory.size() > 20) {
-                calculationHistory.remove(0);
-            }
-            historyPosition = calculationHistory.size() - 1;
-
-            updateHistory(expression + " =");
-            operator = "";
-            firstOperand = "";
-            isNewInput = true;
-            isResultDisplayed = true;
-            isDecimalAdded = false;
-        }
-    }
-
-    private void calculate() {
-        try {
-            BigDecimal first = new BigDecimal(firstOperand);
-            BigDecimal second = new BigDecimal(currentInput);
-            BigDecimal result;
-
-            switch (operator) {
-                case "+":
-                    result = first.add(second, mathContext);
-                    break;
-                case "-":
-                    result = first.subtract(second, mathContext);
-                    break;
-                case "*":
-                    result = first.multiply(second, mathContext);
-                    break;
-                case "/":
-                    if (second.compareTo(BigDecimal.ZERO) != 0) {
-                        result = first.divide(second, mathContext);
-                    } else {
-                        currentInput = "Error";
-                        showToast("Cannot divide by zero");
-                        performErrorVibration();
+        new AlertDialog.Builder(this)
+                .setTitle(formulas.getDefinition(name))
+                .setView(fields)
+                .setPositiveButton(parameters.length == 0 ? "Recall" : "Calculate", (dialog, which) -> {
+                    BigDecimal[] values = new BigDecimal[arguments.length];
+                    try {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = new BigDecimal(arguments[i].getText().toString().trim());
+                        }
+                    } catch (NumberFormatException e) {
+                        showToast("Enter a number for every value");
                         return;
                     }
-                    break;
-                default:
-                    return;
-            }
-            currentInput = formatResult(result);
-        } catch (Exception e) {
-            currentInput = "Error";
-            performErrorVibration();
-        }
+                    stateSettled = true;
+                    engine.formula(name, values);
+                    undoHistory.record(engine);
+                    updateDisplay();
+                    updateMemoryIndicator();
+                    updatePreview();
+                })
+                .setNeutralButton("Delete", (dialog, which) -> {
+                    formulas.remove(name);
+                    showToast("Deleted " + name);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
-    // NEW: Different vibration pattern for errors
-    private void performErrorVibration() {
+    private void performHapticFeedback() {
         try {
             if (vibrator != null && vibrator.hasVibrator()) {
-                vibrator.vibrate(new long[]{0, 100, 50, 100}, -1);
+                vibrator.vibrate(10);
             }
         } catch (Exception ignored) {}
     }
 
-    private String formatResult(BigDecimal result) {
-        double doubleResult = result.doubleValue();
-
-        if (Double.isInfinite(doubleResult) || Double.isNaN(doubleResult)) {
-            return "Error";
-        }
-
-        if (Math.abs(doubleResult) >= 1e12 || (Math.abs(doubleResult) < 1e-6 && doubleResult != 0)) {
-            return scientificFormatter.format(doubleResult);
-        }
-
-        result = result.stripTrailingZeros();
-        String formatted = result.toPlainString();
-
-        if (formatted.contains(".") && formatted.length() > 15) {
-            formatted = formatted.substring(0, 15);
-        }
-
-        return formatted;
-    }
-
-    private String getOperatorSymbol(String op) {
-        switch (op) {
-            case "+": return "+";
-            case "-": return "−";
-            case "*": return "×";
-            case "/": return "÷";
-            default: return op;
-        }
+    private void animateButtonPress(View button) {
+        // Restarting the button's own animator reuses it; a fast second press starts over.
+        Animator animator = (Animator) button.getTag(R.id.press_animator);
+        animator.cancel();
+        animator.start();
     }
 
-    private void updateHistory(String entry) {
-        if (tvHistory != null) {
-            tvHistory.setText(entry);
+    private void watchFrames() {
+        if (framesToWatch == 0) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
         }
+        framesToWatch = FRAMES_PER_PRESS;
     }
 
-    private void clearAll() {
-        currentInput = "0";
-        firstOperand = "";
-        operator = "";
-        lastOperation = "";
-        lastOperand = "";
-        isNewInput = true;
-        isResultDisplayed = false;
-        isDecimalAdded = false;
-        if (tvHistory != null) tvHistory.setText("");
+    @SuppressWarnings("deprecation")
+    private static void startAllocationCounting() {
+        Debug.startAllocCounting();
     }
 
-    private void clearEntry() {
-        currentInput = "0";
-        isNewInput = true;
-        isResultDisplayed = false;
-        isDecimalAdded = false;
+    @SuppressWarnings("deprecation")
+    private static int threadAllocationCount() {
+        return Debug.getThreadAllocCount();
     }
 
-    private void plusMinusPressed() {
-        if (!currentInput.equals("0") && !currentInput.equals("Error")) {
-            if (currentInput.startsWith("-")) {
-                currentInput = currentInput.substring(1);
-            } else {
-                currentInput = "-" + currentInput;
-            }
-            isResultDisplayed = false;
-        }
+    @Override
+    public void onHistoryChanged(String entry) {
+        updateHistory(entry);
     }
 
-    private void percentPressed() {
-        try {
-            BigDecimal value = new BigDecimal(currentInput);
-            BigDecimal result = value.divide(new BigDecimal("100"), mathContext);
-            currentInput = formatResult(result);
-            isNewInput = true;
-            isResultDisplayed = true;
-        } catch (Exception e) {
-            currentInput = "Error";
-        }
+    @Override
+    public void onCalculation(String expression, String result) {
+        // NEW: Add to calculation history
+        long timestamp = System.currentTimeMillis();
+        ioExecutor.execute(() -> {
+            try {
+                historyStore.append(expression, result, timestamp);
+            } catch (IOException ignored) {}
+        });
+        historyBack = 0;
     }
 
-    private void squarePressed() {
-        try {
-            BigDecimal value = new BigDecimal(currentInput);
-            BigDecimal result = value.multiply(value, mathContext);
-            updateHistory(currentInput + "²");
-            currentInput = formatResult(result);
-            isNewInput = true;
-            isResultDisplayed = true;
-        } catch (Exception e) {
-            currentInput = "Error";
-        }
+    @Override
+    public void onMessage(String message) {
+        showToast(message);
     }
 
-    private void sqrtPressed() {
-        try {
-            BigDecimal value = new BigDecimal(currentInput);
-            if (value.compareTo(BigDecimal.ZERO) >= 0) {
-                double result = Math.sqrt(value.doubleValue());
-                updateHistory("√(" + currentInput + ")");
-                currentInput = formatResult(new BigDecimal(result));
-            } else {
-                currentInput = "Error";
-                showToast("Cannot calculate √ of negative number");
-                performErrorVibration();
-            }
-            isNewInput = true;
-            isResultDisplayed = true;
-        } catch (Exception e) {
-            currentInput = "Error";
+    @Override
+    public void onError(String message) {
+        errorCounter.increment();
+        if (message != null) {
+            showToast(message);
         }
+        performErrorVibration();
     }
 
-    private void oneOverXPressed() {
+    // NEW: Different vibration pattern for errors
+    private void performErrorVibration() {
         try {
-            BigDecimal value = new BigDecimal(currentInput);
-            if (value.compareTo(BigDecimal.ZERO) != 0) {
-                BigDecimal result = BigDecimal.ONE.divide(value, mathContext);
-                updateHistory("1/(" + currentInput + ")");
-                currentInput = formatResult(result);
-            } else {
-                currentInput = "Error";
-                showToast("Cannot divide by zero");
-                performErrorVibration();
+            if (vibrator != null && vibrator.hasVibrator()) {
+                vibrator.vibrate(new long[]{0, 100, 50, 100}, -1);
             }
-            isNewInput = true;
-            isResultDisplayed = true;
-        } catch (Exception e) {
-            currentInput = "Error";
-        }
-    }
-
-    private void memoryClear() {
-        memoryValue = 0.0;
-        hasMemory = false;
-        showToast("Memory cleared");
-    }
-
-    private void memoryRecall() {
-        if (hasMemory) {
-            currentInput = formatResult(new BigDecimal(memoryValue));
-            isNewInput = true;
-            isResultDisplayed = true;
-            showToast("Memory recalled");
-        } else {
-            showToast("Memory is empty");
-        }
-    }
-
-    private void memoryStore() {
-        try {
-            memoryValue = Double.parseDouble(currentInput);
-            hasMemory = true;
-            showToast("Stored in memory");
-        } catch (Exception e) {
-            showToast("Cannot store");
-        }
-    }
-
-    private void memoryAdd() {
-        try {
-            memoryValue += Double.parseDouble(currentInput);
-            hasMemory = true;
-            showToast("Added to memory");
-        } catch (Exception ignored) {}
-    }
-
-    private void memorySubtract() {
-        try {
-            memoryValue -= Double.parseDouble(currentInput);
-            hasMemory = true;
-            showToast("Subtracted from memory");
         } catch (Exception ignored) {}
     }
 
-    private void memoryToggle() {
-        if (hasMemory) {
-            memoryValue = -memoryValue;
-            currentInput = formatResult(new BigDecimal(memoryValue));
-            isNewInput = true;
-            isResultDisplayed = true;
-            showToast("Memory sign toggled");
-        } else {
-            showToast("Memory is empty");
+    private void updateHistory(String entry) {
+        if (tvHistory != null) {
+            tvHistory.setText(entry);
         }
     }
 
     private void updateMemoryIndicator() {
         if (tvMemoryIndicator != null) {
-            if (hasMemory && memoryValue != 0.0) {
-                tvMemoryIndicator.setText("M");
+            int register = engine.getMemoryRegister();
+            if (engine.hasMemory() && engine.getMemoryBank().get(register).signum() != 0) {
+                // The first register shows as plain "M", as before there were several.
+                tvMemoryIndicator.setText(register == 0 ? "M" : engine.getMemoryBank().getName(register));
                 tvMemoryIndicator.setVisibility(View.VISIBLE);
             } else {
                 tvMemoryIndicator.setVisibility(View.GONE);
@@ -527,26 +729,28 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         }
     }
 
-    // NEW: Repeat last calculation
-    private void repeatLastCalculation() {
-        if (!lastOperation.isEmpty() && !lastOperand.isEmpty()) {
-            firstOperand = currentInput;
-            currentInput = lastOperand;
-            operator = lastOperation;
-            equalsPressed();
-            showToast("Repeated last calculation");
-        } else {
-            showToast("No previous calculation");
-        }
-    }
-
     // NEW: Show previous calculation from history
     private void showPreviousCalculation() {
-        if (!calculationHistory.isEmpty()) {
-            historyPosition = (historyPosition - 1 + calculationHistory.size()) % calculationHistory.size();
-            String history = calculationHistory.get(historyPosition);
-            updateHistory(history);
-            showToast("History " + (historyPosition + 1) + "/" + calculationHistory.size());
+        // Read after any append still queued, then shown back on the main thread, which never
+        // waits on the I/O executor.
+        ioExecutor.execute(() -> {
+            List<HistoryEntry> recent;
+            try {
+                recent = historyStore.recent();
+            } catch (IOException e) {
+                recent = Collections.emptyList();
+            }
+            List<HistoryEntry> loaded = recent;
+            runOnUiThread(() -> showPreviousCalculation(loaded));
+        });
+    }
+
+    private void showPreviousCalculation(List<HistoryEntry> recent) {
+        if (!recent.isEmpty()) {
+            historyBack = (historyBack + 1) % recent.size();
+            int position = recent.size() - 1 - historyBack;
+            updateHistory(recent.get(position).toString());
+            showToast("History " + (position + 1) + "/" + recent.size());
         } else {
             showToast("No calculation history");
         }
@@ -562,21 +766,52 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
 
-    private void updateDisplay() {
-        if (tvDisplay != null) {
-            String displayText = currentInput;
+    private void stepHistory(boolean moved, String otherwise) {
+        if (!moved) {
+            showToast(otherwise);
+            return;
+        }
+        stateSettled = true;
+        performHapticFeedback();
+        updateHistory(engine.isExpressionMode() ? engine.getPendingExpression() : "");
+        updateDisplay();
+        updatePreview();
+    }
 
-            // NEW: Add thousand separators for better readability
-            if (!displayText.contains("E") && !displayText.equals("Error") && !displayText.contains(".")) {
-                try {
-                    long number = Long.parseLong(displayText);
-                    if (Math.abs(number) > 999) {
-                        displayText = String.format("%,d", number);
-                    }
-                } catch (NumberFormatException ignored) {}
-            }
+    /** Schedules a preview of the pending operation, or hides the line when there is none. */
+    private void updatePreview() {
+        if (!livePreview.update(engine)) {
+            showPreview(null);
+        }
+    }
+
+    /** Runs on the preview thread; drops the text if the keypad has changed since. */
+    private void onPreview(long generation, String text) {
+        runOnUiThread(() -> {
+            if (livePreview.isCurrent(generation)) showPreview(text);
+        });
+    }
+
+    private void showPreview(String text) {
+        if (tvPreview == null) return;
+        if (text == null) {
+            tvPreview.setVisibility(View.INVISIBLE);
+            return;
+        }
+        previewFormatter.group(text);
+        tvPreview.setText(previewFormatter.getBuffer(), 0, previewFormatter.length());
+        tvPreview.setVisibility(View.VISIBLE);
+    }
 
-            tvDisplay.setText(displayText);
+    private void updateDisplay() {
+        if (tvDisplay != null) {
+            // NEW: Add thousand separators for better readability. The formatter's buffer is
+            // only rewritten right before the next setText, as TextView requires.
+            long t = formatTimer.start();
+            displayFormatter.format(engine);
+            t = formatTimer.stop(t);
+            tvDisplay.setText(displayFormatter.getBuffer(), 0, displayFormatter.length());
+            displayTimer.stop(t);
         }
     }
 }
\ No newline at end of file
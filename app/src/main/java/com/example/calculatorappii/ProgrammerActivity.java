@@ -0,0 +1,142 @@
+package com.example.calculatorappii;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.GridLayout;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.calculatorappii.engine.ProgrammerEngine;
+import com.example.calculatorappii.engine.RadixFormatter;
+
+/**
+ * Hex, decimal, octal and binary integers with bitwise operators, for the value on the
+ * calculator's display. The value is shown in all four radixes at once; keys act on a
+ * {@link ProgrammerEngine} and each text view has its own reused {@link RadixFormatter}: TextView
+ * keeps the {@code char[]} it is given, so a buffer is only rewritten for its own view's next
+ * setText.
+ */
+public class ProgrammerActivity extends AppCompatActivity {
+
+    public static final String EXTRA_VALUE = "value";
+
+    private static final String[] KEYS = {
+            "HEX", "DEC", "OCT", "BIN", "WORD",
+            "AND", "OR", "XOR", "NOT", "AC",
+            "<<", ">>", "MOD", "±", "⌫",
+            "A", "7", "8", "9", "÷",
+            "B", "4", "5", "6", "×",
+            "C", "1", "2", "3", "−",
+            "D", "E", "F", "0", "+",
+            "=",
+    };
+    private static final int[] RADIXES = {16, 10, 8, 2};
+
+    private final ProgrammerEngine engine = new ProgrammerEngine();
+    private final RadixFormatter valueFormatter = new RadixFormatter();
+    private final RadixFormatter[] radixFormatters = new RadixFormatter[RADIXES.length];
+
+    private TextView tvValue;
+    private final TextView[] radixViews = new TextView[RADIXES.length];
+    private final Button[] radixButtons = new Button[RADIXES.length];
+    private final Button[] digitButtons = new Button[16];
+    private Button btnWordSize;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_programmer);
+
+        tvValue = findViewById(R.id.tvValue);
+        radixViews[0] = findViewById(R.id.tvHex);
+        radixViews[1] = findViewById(R.id.tvDec);
+        radixViews[2] = findViewById(R.id.tvOct);
+        radixViews[3] = findViewById(R.id.tvBin);
+        for (int r = 0; r < RADIXES.length; r++) radixFormatters[r] = new RadixFormatter();
+
+        GridLayout grid = findViewById(R.id.gridKeys);
+        int columns = grid.getColumnCount();
+        for (int i = 0; i < KEYS.length; i++) {
+            String label = KEYS[i];
+            Button button = new Button(this);
+            button.setText(label);
+            button.setAllCaps(false);
+            button.setTextColor(0xFF1976D2);
+            // The last key (=) fills its row.
+            int span = i == KEYS.length - 1 ? columns : 1;
+            GridLayout.LayoutParams params = new GridLayout.LayoutParams(
+                    GridLayout.spec(GridLayout.UNDEFINED, 1f), GridLayout.spec(GridLayout.UNDEFINED, span, 1f));
+            params.width = 0;
+            params.height = 0;
+            grid.addView(button, params);
+            button.setOnClickListener(v -> press(label));
+
+            int digit = Character.digit(label.length() == 1 ? label.charAt(0) : ' ', 16);
+            if (digit >= 0) digitButtons[digit] = button;
+            if (label.equals("WORD")) btnWordSize = button;
+            for (int r = 0; r < RADIXES.length; r++) {
+                if (label.equals(radixLabel(RADIXES[r]))) radixButtons[r] = button;
+            }
+        }
+
+        String value = getIntent().getStringExtra(EXTRA_VALUE);
+        if (value != null) {
+            try {
+                engine.setValue(ProgrammerEngine.parse(value, 10, engine.getWordSize()));
+            } catch (NumberFormatException ignored) {
+                // Not a whole number that fits: start from 0.
+            }
+        }
+        update();
+    }
+
+    private void press(String label) {
+        switch (label) {
+            case "HEX": engine.setRadix(16); break;
+            case "DEC": engine.setRadix(10); break;
+            case "OCT": engine.setRadix(8); break;
+            case "BIN": engine.setRadix(2); break;
+            case "WORD": engine.setWordSize(engine.getWordSize().next()); break;
+            case "AND": engine.operator(ProgrammerEngine.AND); break;
+            case "OR": engine.operator(ProgrammerEngine.OR); break;
+            case "XOR": engine.operator(ProgrammerEngine.XOR); break;
+            case "NOT": engine.not(); break;
+            case "AC": engine.clear(); break;
+            case "<<": engine.operator(ProgrammerEngine.SHIFT_LEFT); break;
+            case ">>": engine.operator(ProgrammerEngine.SHIFT_RIGHT); break;
+            case "MOD": engine.operator(ProgrammerEngine.MOD); break;
+            case "±": engine.negate(); break;
+            case "⌫": engine.backspace(); break;
+            case "÷": engine.operator('/'); break;
+            case "×": engine.operator('*'); break;
+            case "−": engine.operator('-'); break;
+            case "+": engine.operator('+'); break;
+            case "=": engine.equals(); break;
+            default: engine.digit(Character.digit(label.charAt(0), 16)); break;
+        }
+        update();
+    }
+
+    private void update() {
+        if (engine.isError()) {
+            tvValue.setText("Error");
+        } else {
+            valueFormatter.format(engine);
+            tvValue.setText(valueFormatter.getBuffer(), valueFormatter.getOffset(), valueFormatter.length());
+        }
+        ProgrammerEngine.WordSize size = engine.getWordSize();
+        for (int r = 0; r < RADIXES.length; r++) {
+            RadixFormatter formatter = radixFormatters[r];
+            formatter.format(engine.getValue(), RADIXES[r], size);
+            radixViews[r].setText(formatter.getBuffer(), formatter.getOffset(), formatter.length());
+            radixButtons[r].setTextColor(RADIXES[r] == engine.getRadix() ? 0xFFFF4081 : 0xFF1976D2);
+        }
+        for (int d = 0; d < digitButtons.length; d++) {
+            digitButtons[d].setEnabled(d < engine.getRadix());
+        }
+        btnWordSize.setText(size.getBits() + "-bit");
+    }
+
+    private static String radixLabel(int radix) {
+        return radix == 16 ? "HEX" : radix == 10 ? "DEC" : radix == 8 ? "OCT" : "BIN";
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.calculatorappii;
+
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.calculatorappii.engine.AmortizationSchedule;
+import com.example.calculatorappii.engine.Unit;
+import com.example.calculatorappii.engine.UnitConverter;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Loan schedules and unit conversions for the amount on the calculator's display. Each table is
+ * computed in one pass into primitive arrays whenever an input changes. The list formats a row
+ * only when it scrolls into view, so a 360-row schedule costs one screenful of text.
+ */
+public class TablesActivity extends AppCompatActivity {
+
+    public static final String EXTRA_AMOUNT = "amount";
+
+    private static final MathContext SIGNIFICANT = new MathContext(12);
+
+    private EditText etAmount, etRate, etYears;
+    private Button btnDimension, btnUnit;
+    private TextView tvSummary;
+    private TableAdapter adapter;
+
+    private boolean loanMode = true;
+    private final AmortizationSchedule schedule = new AmortizationSchedule(2);
+    private boolean scheduleValid;
+
+    private Unit.Dimension dimension = Unit.Dimension.LENGTH;
+    private UnitConverter converter = UnitConverter.forDimension(dimension);
+    private Unit[] units = converter.getUnits();
+    private Unit source = units[0];
+    private double[] conversions = new double[units.length];
+    private boolean conversionsValid;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_tables);
+
+        etAmount = findViewById(R.id.etAmount);
+        etRate = findViewById(R.id.etRate);
+        etYears = findViewById(R.id.etYears);
+        btnDimension = findViewById(R.id.btnDimension);
+        btnUnit = findViewById(R.id.btnUnit);
+        tvSummary = findViewById(R.id.tvSummary);
+        ListView lvTable = findViewById(R.id.lvTable);
+
+        adapter = new TableAdapter();
+        lvTable.setAdapter(adapter);
+
+        String amount = getIntent().getStringExtra(EXTRA_AMOUNT);
+        etAmount.setText(amount != null && !amount.equals("0") ? amount : "100000");
+        etRate.setText("6.5");
+        etYears.setText("30");
+
+        TextWatcher recompute = new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                recompute();
+            }
+        };
+        etAmount.addTextChangedListener(recompute);
+        etRate.addTextChangedListener(recompute);
+        etYears.addTextChangedListener(recompute);
+
+        findViewById(R.id.btnLoanMode).setOnClickListener(v -> setLoanMode(true));
+        findViewById(R.id.btnUnitsMode).setOnClickListener(v -> setLoanMode(false));
+        btnDimension.setOnClickListener(v -> {
+            Unit.Dimension[] all = Unit.Dimension.values();
+            setDimension(all[(dimension.ordinal() + 1) % all.length]);
+        });
+        btnUnit.setOnClickListener(v -> {
+            source = units[(indexOf(source) + 1) % units.length];
+            recompute();
+        });
+
+        setLoanMode(true);
+    }
+
+    private void setLoanMode(boolean loan) {
+        loanMode = loan;
+        int loanVisibility = loan ? View.VISIBLE : View.GONE;
+        etRate.setVisibility(loanVisibility);
+        etYears.setVisibility(loanVisibility);
+        btnDimension.setVisibility(loan ? View.GONE : View.VISIBLE);
+        btnUnit.setVisibility(loan ? View.GONE : View.VISIBLE);
+        recompute();
+    }
+
+    private void setDimension(Unit.Dimension d) {
+        dimension = d;
+        converter = UnitConverter.forDimension(d);
+        units = converter.getUnits();
+        source = units[0];
+        conversions = new double[units.length];
+        recompute();
+    }
+
+    /** Rebuilds the current table from the inputs; rows are formatted later, by the adapter. */
+    private void recompute() {
+        BigDecimal amount = parse(etAmount);
+        if (loanMode) {
+            BigDecimal rate = parse(etRate);
+            BigDecimal years = parse(etYears);
+            scheduleValid = false;
+            if (amount != null && rate != null && years != null && amount.signum() > 0
+                    && rate.signum() >= 0 && years.signum() > 0 && years.compareTo(BigDecimal.valueOf(100)) <= 0) {
+                try {
+                    schedule.compute(amount, rate, 12, years.intValue() * 12);
+                    scheduleValid = schedule.getRows() > 0;
+                } catch (ArithmeticException | IllegalArgumentException ignored) {}
+            }
+            tvSummary.setText(scheduleValid ? loanSummary() : "Enter amount, rate and years");
+        } else {
+            btnDimension.setText(dimension.name().charAt(0) + dimension.name().substring(1).toLowerCase());
+            btnUnit.setText(source.getSymbol());
+            conversionsValid = amount != null;
+            if (conversionsValid) {
+                converter.convertToAll(amount.doubleValue(), source, conversions);
+            }
+            tvSummary.setText(conversionsValid ? amount.toPlainString() + " " + source.getSymbol() + " is" : "Enter an amount");
+        }
+        adapter.notifyDataSetChanged();
+    }
+
+    private String loanSummary() {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("Payment ");
+        schedule.appendAmount(sb, schedule.getPayments()[0]);
+        sb.append("  Interest ");
+        schedule.appendAmount(sb, schedule.getTotalInterest());
+        sb.append("  Total ");
+        schedule.appendAmount(sb, schedule.getTotalPaid());
+        return sb.toString();
+    }
+
+    private static BigDecimal parse(EditText field) {
+        String text = field.getText().toString().trim();
+        if (text.isEmpty()) return null;
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int indexOf(Unit unit) {
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] == unit) return i;
+        }
+        return 0;
+    }
+
+    /** Reads straight from the primitive columns; text is built only for rows on screen. */
+    private class TableAdapter extends BaseAdapter {
+        private final StringBuilder row = new StringBuilder(64);
+
+        @Override
+        public int getCount() {
+            if (loanMode) return scheduleValid ? schedule.getRows() : 0;
+            return conversionsValid ? units.length : 0;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            TextView view = (TextView) convertView;
+            if (view == null) {
+                view = (TextView) getLayoutInflater().inflate(android.R.layout.simple_list_item_1, parent, false);
+                view.setTypeface(android.graphics.Typeface.MONOSPACE);
+                view.setTextSize(13);
+            }
+            row.setLength(0);
+            if (loanMode) {
+                appendColumn(Integer.toString(position + 1), 4);
+                appendAmountColumn(schedule.getPayments()[position]);
+                appendAmountColumn(schedule.getInterest()[position]);
+                appendAmountColumn(schedule.getPrincipal()[position]);
+                appendAmountColumn(schedule.getBalances()[position]);
+            } else {
+                BigDecimal value = new BigDecimal(conversions[position]).round(SIGNIFICANT).stripTrailingZeros();
+                row.append(value.toPlainString()).append(' ').append(units[position].getSymbol());
+            }
+            view.setText(row);
+            return view;
+        }
+
+        private void appendAmountColumn(long minor) {
+            int start = row.length();
+            schedule.appendAmount(row, minor);
+            String cell = row.substring(start);
+            row.setLength(start);
+            appendColumn(cell, 12);
+        }
+
+        private void appendColumn(String text, int width) {
+            for (int i = text.length(); i < width; i++) row.append(' ');
+            row.append(text);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.calculatorappii;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.InputType;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.inputmethod.EditorInfo;
+import android.widget.BaseAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.calculatorappii.engine.Tape;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An adding-machine tape for long lists such as receipts or meter readings. Values go straight
+ * into a {@link Tape}'s primitive columns; the list formats a row only when it scrolls into view,
+ * and the total is kept up to date as rows are added, edited or deleted. The tape is saved to its
+ * own file and can be exported as CSV.
+ */
+public class TapeActivity extends AppCompatActivity {
+
+    public static final String EXTRA_VALUE = "value";
+
+    private static final int REQUEST_EXPORT = 1;
+    private static final MathContext SIGNIFICANT = new MathContext(15);
+
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private File tapeFile;
+    // Null until the saved tape has been read.
+    private Tape tape;
+
+    private TextView tvTotal, tvSummary;
+    private EditText etEntry;
+    private Button btnAdd;
+    private TapeAdapter adapter;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_tape);
+
+        tvTotal = findViewById(R.id.tvTotal);
+        tvSummary = findViewById(R.id.tvSummary);
+        etEntry = findViewById(R.id.etEntry);
+        btnAdd = findViewById(R.id.btnAdd);
+        ListView lvTape = findViewById(R.id.lvTape);
+
+        adapter = new TapeAdapter();
+        lvTape.setAdapter(adapter);
+        lvTape.setOnItemClickListener((parent, view, position, id) -> editRow(position));
+
+        String value = getIntent().getStringExtra(EXTRA_VALUE);
+        if (value != null && !value.equals("0")) etEntry.setText(value);
+
+        btnAdd.setOnClickListener(v -> addEntry());
+        etEntry.setOnEditorActionListener((v, actionId, event) -> {
+            if (actionId != EditorInfo.IME_ACTION_DONE) return false;
+            addEntry();
+            return true;
+        });
+        findViewById(R.id.btnClear).setOnClickListener(v -> {
+            if (tape == null || tape.size() == 0) return;
+            new AlertDialog.Builder(this)
+                    .setMessage("Clear all " + tape.size() + " rows?")
+                    .setPositiveButton("Clear", (dialog, which) -> {
+                        tape.clear();
+                        refresh();
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        });
+        findViewById(R.id.btnExport).setOnClickListener(v -> {
+            if (tape == null || tape.size() == 0) return;
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT)
+                    .addCategory(Intent.CATEGORY_OPENABLE)
+                    .setType("text/csv")
+                    .putExtra(Intent.EXTRA_TITLE, "tape.csv");
+            startActivityForResult(intent, REQUEST_EXPORT);
+        });
+
+        // Read on the I/O thread; entry is enabled once the saved rows are in.
+        btnAdd.setEnabled(false);
+        tapeFile = new File(getFilesDir(), "tape.bin");
+        ioExecutor.execute(() -> {
+            Tape loaded = readTape();
+            runOnUiThread(() -> {
+                tape = loaded;
+                btnAdd.setEnabled(true);
+                refresh();
+            });
+        });
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (tape == null) return;
+        // Nine bytes a row, copied here so the tape can keep changing while the file is written.
+        byte[] bytes = tape.toBytes();
+        ioExecutor.execute(() -> writeTape(bytes));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Lets a queued save finish, then stops the thread.
+        ioExecutor.shutdown();
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode != REQUEST_EXPORT || resultCode != RESULT_OK || data == null || tape == null) return;
+        Uri uri = data.getData();
+        if (uri == null) return;
+        // Formatted here, written there: the CSV of 100,000 rows is a couple of megabytes.
+        StringBuilder csv = new StringBuilder(tape.size() * 24);
+        try {
+            tape.export(csv);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int rows = tape.size();
+        ioExecutor.execute(() -> {
+            boolean written = false;
+            try (OutputStream stream = getContentResolver().openOutputStream(uri)) {
+                if (stream != null) {
+                    Writer out = new OutputStreamWriter(stream, "UTF-8");
+                    out.append(csv);
+                    out.flush();
+                    written = true;
+                }
+            } catch (IOException ignored) {
+                // Reported below.
+            }
+            String message = written ? "Exported " + rows + " rows" : "Export failed";
+            runOnUiThread(() -> Toast.makeText(this, message, Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    private void addEntry() {
+        if (tape == null) return;
+        BigDecimal value = parse(etEntry.getText().toString());
+        if (value == null) return;
+        try {
+            tape.add(value);
+        } catch (ArithmeticException e) {
+            Toast.makeText(this, e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        etEntry.setText("");
+        refresh();
+    }
+
+    private void editRow(int row) {
+        EditText field = new EditText(this);
+        field.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL
+                | InputType.TYPE_NUMBER_FLAG_SIGNED);
+        field.setText(tape.appendValue(new StringBuilder(), row));
+        field.setSelectAllOnFocus(true);
+        new AlertDialog.Builder(this)
+                .setTitle("Row " + (row + 1))
+                .setView(field)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    BigDecimal value = parse(field.getText().toString());
+                    if (value == null) return;
+                    try {
+                        tape.set(row, value);
+                    } catch (ArithmeticException e) {
+                        Toast.makeText(this, e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                    refresh();
+                })
+                .setNeutralButton("Delete", (dialog, which) -> {
+                    tape.remove(row);
+                    refresh();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /** The total is O(1) however long the tape; only the visible rows are formatted. */
+    private void refresh() {
+        BigDecimal total = tape.getTotal();
+        tvTotal.setText(tape.isTotalExact() ? total.toPlainString()
+                : total.round(SIGNIFICANT).stripTrailingZeros().toString());
+        int rows = tape.size();
+        if (rows == 0) {
+            tvSummary.setText("Empty tape");
+        } else {
+            BigDecimal mean = BigDecimal.valueOf(tape.getMean()).round(SIGNIFICANT).stripTrailingZeros();
+            tvSummary.setText(rows + (rows == 1 ? " row" : " rows") + "  mean " + mean.toPlainString());
+        }
+        adapter.notifyDataSetChanged();
+    }
+
+    private static BigDecimal parse(String text) {
+        text = text.trim();
+        if (text.isEmpty()) return null;
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Runs on the I/O thread: the saved tape, or an empty one if there is none or it is unreadable. */
+    private Tape readTape() {
+        if (tapeFile.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tapeFile)))) {
+                return Tape.readFrom(in);
+            } catch (IOException ignored) {
+                // Start a new tape rather than fail; the next save replaces the file.
+            }
+        }
+        return new Tape();
+    }
+
+    /** Runs on the I/O thread. Written to a temporary file and renamed, like the calculator state. */
+    private void writeTape(byte[] bytes) {
+        File tmp = new File(tapeFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes);
+            out.getFD().sync();
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(tapeFile)) tmp.delete();
+    }
+
+    /** Reads straight from the tape's columns; text is built only for rows on screen. */
+    private class TapeAdapter extends BaseAdapter {
+        private final StringBuilder row = new StringBuilder(64);
+
+        @Override
+        public int getCount() {
+            return tape == null ? 0 : tape.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            TextView view = (TextView) convertView;
+            if (view == null) {
+                view = (TextView) getLayoutInflater().inflate(android.R.layout.simple_list_item_1, parent, false);
+                view.setTypeface(android.graphics.Typeface.MONOSPACE);
+                view.setTextSize(13);
+            }
+            row.setLength(0);
+            appendColumn(Integer.toString(position + 1), 6);
+            int start = row.length();
+            tape.appendValue(row, position);
+            padColumn(start, 16);
+            start = row.length();
+            tape.appendRunningTotal(row, position);
+            padColumn(start, 18);
+            view.setText(row);
+            return view;
+        }
+
+        /** Right-aligns the text appended since {@code start} in {@code width} characters. */
+        private void padColumn(int start, int width) {
+            for (int i = row.length() - start; i < width; i++) row.insert(start, ' ');
+        }
+
+        private void appendColumn(String text, int width) {
+            for (int i = text.length(); i < width; i++) row.append(' ');
+            row.append(text);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * A fixed-payment loan schedule, computed in one pass into four {@code long[]} columns of minor
+ * units (cents for a currency with two decimals). A 360-row schedule is a few microseconds and
+ * four arrays. Nothing is formatted until a row is shown, and {@link #appendAmount} writes one
+ * cell into a caller's builder.
+ *
+ * <p>The payment is the usual annuity formula, rounded half-even to the minor unit. Each
+ * period's interest is rounded the same way. The last payment absorbs the rounding so the
+ * balance ends at exactly zero. {@link #compute} reuses the arrays when they are large enough,
+ * so recomputing as the user edits the inputs does not allocate. Not thread-safe.
+ */
+public final class AmortizationSchedule {
+
+    private static final MathContext WORK = MathContext.DECIMAL128;
+
+    private final int scale;
+    private long[] payment = new long[0];
+    private long[] interest = new long[0];
+    private long[] principal = new long[0];
+    private long[] balance = new long[0];
+    private int rows;
+    private long totalInterest;
+
+    /** @param scale digits after the decimal point in the currency, e.g. 2 */
+    public AmortizationSchedule(int scale) {
+        if (scale < 0 || scale > 6) throw new IllegalArgumentException("scale " + scale);
+        this.scale = scale;
+    }
+
+    /**
+     * Fills the schedule for a loan of {@code amount} at {@code annualRatePercent}, repaid in
+     * {@code periods} payments, {@code periodsPerYear} a year.
+     */
+    public AmortizationSchedule compute(BigDecimal amount, BigDecimal annualRatePercent,
+                                        int periodsPerYear, int periods) {
+        if (periods <= 0) throw new IllegalArgumentException("periods " + periods);
+        if (annualRatePercent.signum() < 0) throw new IllegalArgumentException("Negative rate");
+        long loan = amount.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+        Finance.Rate rate = new Finance.Rate(annualRatePercent, periodsPerYear);
+        long level = levelPayment(loan, rate, periods);
+
+        ensureCapacity(periods);
+        long owed = loan;
+        long total = 0;
+        for (int i = 0; i < periods; i++) {
+            long due = rate.interest(owed);
+            long pay = i == periods - 1 ? Finance.add(owed, due) : level;
+            long repaid = pay - due;
+            owed -= repaid;
+            payment[i] = pay;
+            interest[i] = due;
+            principal[i] = repaid;
+            balance[i] = owed;
+            total += due;
+        }
+        rows = periods;
+        totalInterest = total;
+        return this;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /** Columns in minor units; only the first {@link #getRows()} entries are valid. */
+    public long[] getPayments() {
+        return payment;
+    }
+
+    public long[] getInterest() {
+        return interest;
+    }
+
+    public long[] getPrincipal() {
+        return principal;
+    }
+
+    /** Balance still owed after each payment. */
+    public long[] getBalances() {
+        return balance;
+    }
+
+    public long getTotalInterest() {
+        return totalInterest;
+    }
+
+    /** Sum of all payments, in minor units. */
+    public long getTotalPaid() {
+        long sum = 0;
+        for (int i = 0; i < rows; i++) sum += payment[i];
+        return sum;
+    }
+
+    /** Appends {@code minor} as a plain decimal with this schedule's scale, e.g. {@code 1234.50}. */
+    public StringBuilder appendAmount(StringBuilder out, long minor) {
+        if (minor < 0) {
+            out.append('-');
+            minor = -minor;
+        }
+        if (scale == 0) return out.append(minor);
+        long pow = ScaledArithmetic.POW10[scale];
+        out.append(minor / pow).append('.');
+        long fraction = minor % pow;
+        for (long p = pow / 10; p > 1 && fraction < p; p /= 10) out.append('0');
+        return out.append(fraction);
+    }
+
+    private static long levelPayment(long loan, Finance.Rate rate, int periods) {
+        BigDecimal amount = BigDecimal.valueOf(loan);
+        if (rate.numerator == 0) {
+            return amount.divide(BigDecimal.valueOf(periods), 0, RoundingMode.HALF_EVEN).longValueExact();
+        }
+        // loan × r / (1 − (1 + r)^−n), written as loan × r × f / (f − 1) with f = (1 + r)^n.
+        BigDecimal r = rate.toBigDecimal(WORK);
+        BigDecimal f = BigDecimal.ONE.add(r).pow(periods, WORK);
+        return amount.multiply(r).multiply(f)
+                .divide(f.subtract(BigDecimal.ONE), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    private void ensureCapacity(int n) {
+        if (payment.length < n) {
+            payment = new long[n];
+            interest = new long[n];
+            principal = new long[n];
+            balance = new long[n];
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.calculatorappii.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates many calculations with the keypad's semantics: the same fast path, rounding and
+ * display formatting as {@code =} on the calculator.
+ *
+ * <p>Each input is either {@code "a op b"} with single spaces (op is one of {@code + - * / − × ÷})
+ * or any {@link Expression} without variables. Results come back in input order. A failing item
+ * gets {@link CalculatorEngine#ERROR} as its value and a reason in the error column; it never
+ * aborts the batch.
+ *
+ * <p>Parallel mode splits the input into ranges on a {@link ForkJoinPool}; each leaf range runs
+ * on its own {@link CalculatorEngine}, so no state is shared between workers.
+ */
+public class BatchEvaluator implements Closeable {
+
+    public enum Mode { SEQUENTIAL, PARALLEL }
+
+    /** Rows per fork-join leaf. Small enough to balance, large enough to amortise the engine. */
+    static final int LEAF_SIZE = 1024;
+    /** Rows buffered per chunk by {@link #evaluate(Iterator, Sink)}. */
+    static final int DEFAULT_CHUNK_SIZE = 16384;
+
+    /** Receives streamed results in input order. */
+    public interface Sink {
+        void accept(long index, String input, String value, String error) throws IOException;
+    }
+
+    private final Mode mode;
+    private final int parallelism;
+    private Precision precision = Precision.STANDARD;
+    private ForkJoinPool pool;
+
+    public BatchEvaluator(Mode mode) {
+        this(mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchEvaluator(Mode mode, int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.mode = mode;
+        this.parallelism = parallelism;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Precision every row is evaluated and formatted at; {@link Precision#STANDARD} by default. */
+    public void setPrecision(Precision precision) {
+        if (precision == null) throw new IllegalArgumentException("precision must not be null");
+        this.precision = precision;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    public BatchResult evaluate(List<String> inputs) {
+        return evaluate(inputs.toArray(new String[0]));
+    }
+
+    public BatchResult evaluate(String[] inputs) {
+        String[] values = new String[inputs.length];
+        String[] errors = new String[inputs.length];
+        run(inputs, inputs.length, values, errors);
+        return new BatchResult(values, errors);
+    }
+
+    /**
+     * Streams {@code inputs} through in chunks of {@link #DEFAULT_CHUNK_SIZE}, so memory stays
+     * bounded however long the input is. Returns the number of rows evaluated.
+     */
+    public long evaluate(Iterator<String> inputs, Sink sink) throws IOException {
+        return evaluate(inputs, sink, DEFAULT_CHUNK_SIZE);
+    }
+
+    public long evaluate(Iterator<String> inputs, Sink sink, int chunkSize) throws IOException {
+        String[] chunk = new String[chunkSize];
+        String[] values = new String[chunkSize];
+        String[] errors = new String[chunkSize];
+        long index = 0;
+        while (inputs.hasNext()) {
+            int n = 0;
+            while (n < chunkSize && inputs.hasNext()) {
+                chunk[n++] = inputs.next();
+            }
+            run(chunk, n, values, errors);
+            for (int i = 0; i < n; i++) {
+                sink.accept(index++, chunk[i], values[i], errors[i]);
+            }
+        }
+        return index;
+    }
+
+    private void run(String[] inputs, int length, String[] values, String[] errors) {
+        if (mode == Mode.SEQUENTIAL || length <= LEAF_SIZE) {
+            evaluateRange(inputs, 0, length, values, errors, precision);
+        } else {
+            pool().invoke(new RangeTask(inputs, 0, length, values, errors, precision));
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    static void evaluateRange(String[] inputs, int from, int to, String[] values, String[] errors,
+                              Precision precision) {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setPrecision(precision);
+        for (int i = from; i < to; i++) {
+            evaluateOne(engine, inputs[i], values, errors, i);
+        }
+    }
+
+    static void evaluateOne(CalculatorEngine engine, String input, String[] values, String[] errors, int i) {
+        if (input == null) {
+            values[i] = CalculatorEngine.ERROR;
+            errors[i] = "Empty input";
+            return;
+        }
+        String line = input.trim();
+        int firstSpace = line.indexOf(' ');
+        if (firstSpace > 0 && firstSpace + 2 < line.length() && line.charAt(firstSpace + 2) == ' '
+                && line.indexOf(' ', firstSpace + 3) < 0) {
+            char op = operatorChar(line.charAt(firstSpace + 1));
+            if (op != 0) {
+                values[i] = engine.evaluate(line.substring(0, firstSpace), op, line.substring(firstSpace + 3));
+                errors[i] = CalculatorEngine.ERROR.equals(values[i]) ? errorText(engine.getLastError()) : null;
+                return;
+            }
+        }
+        try {
+            Expression expression = Expression.compile(line);
+            if (expression.getVariableCount() > 0) {
+                values[i] = CalculatorEngine.ERROR;
+                errors[i] = "Unknown name '" + expression.getVariableName(0) + "'";
+                return;
+            }
+            BigDecimal result = expression.evaluate(engine.getMathContext());
+            values[i] = engine.formatResult(result);
+            errors[i] = CalculatorEngine.ERROR.equals(values[i]) ? "Error" : null;
+        } catch (ExpressionException e) {
+            values[i] = CalculatorEngine.ERROR;
+            errors[i] = e.getMessage();
+        } catch (ArithmeticException e) {
+            values[i] = CalculatorEngine.ERROR;
+            errors[i] = errorText(CalculatorEngine.errorText(e.getMessage()));
+        }
+    }
+
+    private static String errorText(String reason) {
+        return reason != null ? reason : "Error";
+    }
+
+    private static char operatorChar(char c) {
+        switch (c) {
+            case '+': return '+';
+            case '-':
+            case '−': return '-';
+            case '*':
+            case '×': return '*';
+            case '/':
+            case '÷': return '/';
+            default: return 0;
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] inputs;
+        private final int from;
+        private final int to;
+        private final String[] values;
+        private final String[] errors;
+        private final Precision precision;
+
+        RangeTask(String[] inputs, int from, int to, String[] values, String[] errors, Precision precision) {
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+            this.values = values;
+            this.errors = errors;
+            this.precision = precision;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                evaluateRange(inputs, from, to, values, errors, precision);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(inputs, from, mid, values, errors, precision),
+                        new RangeTask(inputs, mid, to, values, errors, precision));
+            }
+        }
+    }
+}
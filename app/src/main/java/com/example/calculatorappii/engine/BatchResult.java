@@ -0,0 +1,41 @@
+package com.example.calculatorappii.engine;
+
+/** Results of {@link BatchEvaluator#evaluate(String[])}, in input order. */
+public final class BatchResult {
+
+    private final String[] values;
+    private final String[] errors;
+    private final int errorCount;
+
+    BatchResult(String[] values, String[] errors) {
+        this.values = values;
+        this.errors = errors;
+        int count = 0;
+        for (String error : errors) {
+            if (error != null) count++;
+        }
+        this.errorCount = count;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /** Display text of item {@code i}, {@link CalculatorEngine#ERROR} when it failed. */
+    public String getValue(int i) {
+        return values[i];
+    }
+
+    /** Why item {@code i} failed, or null when it succeeded. */
+    public String getError(int i) {
+        return errors[i];
+    }
+
+    public boolean isError(int i) {
+        return errors[i] != null;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Correctly rounded square root and reciprocal at any {@link MathContext} precision.
+ *
+ * <p>The square root works on the unscaled {@link BigInteger} so no intermediate step pays for
+ * decimal rounding, which is itself a division by a power of ten. The exact integer root is
+ * truncated two digits past the target precision with a sticky digit for any remainder, so the
+ * final {@link BigDecimal#round} rounds as if it saw the infinite expansion.
+ */
+public final class BigDecimalMath {
+
+    /** Digits carried past the target precision before the final rounding. */
+    static final int GUARD_DIGITS = 2;
+
+    private BigDecimalMath() {}
+
+    /** {@code √x} rounded to {@code mc}. Throws {@link ArithmeticException} for negative x. */
+    public static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        checkPrecision(mc);
+        if (x.signum() < 0) throw new ArithmeticException(Expression.NEGATIVE_SQRT);
+        if (x.signum() == 0) return BigDecimal.ZERO;
+
+        // x = u × 10^-s. Scale u up so the root has at least precision + guard digits, keeping
+        // s + t even so the root's scale is a whole number.
+        int digits = mc.getPrecision() + GUARD_DIGITS;
+        BigInteger u = x.unscaledValue();
+        int s = x.scale();
+        int t = Math.max(0, 2 * digits - x.precision() + 1);
+        if (((s + t) & 1) != 0) t++;
+        BigInteger n = t == 0 ? u : u.multiply(BigInteger.TEN.pow(t));
+
+        BigInteger root = isqrt(n);
+        int scale = (s + t) / 2;
+        if (!root.multiply(root).equals(n)) {
+            // Sticky digit: the true root lies strictly between root and root + 1.
+            root = root.multiply(BigInteger.TEN).add(BigInteger.ONE);
+            scale++;
+        }
+        return new BigDecimal(root, scale).round(mc);
+    }
+
+    /**
+     * {@code 1/x} rounded to {@code mc}. Throws {@link ArithmeticException} for zero.
+     *
+     * <p>This is plain {@link BigDecimal#divide(BigDecimal, MathContext)}, which is already
+     * correctly rounded. A multiplication-only Newton reciprocal only broke even with it at 1000
+     * digits ({@code PrecisionBenchmark}), so it is not worth its extra code at these precisions.
+     */
+    public static BigDecimal reciprocal(BigDecimal x, MathContext mc) {
+        checkPrecision(mc);
+        if (x.signum() == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        return BigDecimal.ONE.divide(x, mc);
+    }
+
+    /**
+     * {@code floor(√n)} for {@code n > 0}. The top bits come from {@link Math#sqrt}; each level
+     * of recursion doubles the correct bits with one Newton step {@code r = (r + n/r) / 2}, so
+     * the cost is dominated by the single full-width division at the top.
+     */
+    static BigInteger isqrt(BigInteger n) {
+        int bits = n.bitLength();
+        BigInteger r;
+        if (bits <= 104) {
+            // The root has at most 52 bits, so the double estimate is off by a unit at most.
+            r = BigInteger.valueOf((long) Math.sqrt(n.doubleValue()));
+        } else {
+            // Root of the top half of n, shifted back: correct to about half the bits.
+            int k = bits / 4;
+            r = isqrt(n.shiftRight(2 * k)).shiftLeft(k);
+            r = r.add(n.divide(r)).shiftRight(1);
+        }
+        // Settle the last unit either way.
+        while (r.multiply(r).compareTo(n) > 0) r = r.subtract(BigInteger.ONE);
+        while (r.add(BigInteger.ONE).pow(2).compareTo(n) <= 0) r = r.add(BigInteger.ONE);
+        return r;
+    }
+
+    /** Decimal exponent of the leading digit: 0 for 1–9.99, 2 for 100, −3 for 0.001. */
+    static int exponent(BigDecimal x) {
+        return x.precision() - x.scale() - 1;
+    }
+
+    private static void checkPrecision(MathContext mc) {
+        if (mc.getPrecision() == 0) {
+            throw new IllegalArgumentException("Unlimited precision is not supported");
+        }
+    }
+}
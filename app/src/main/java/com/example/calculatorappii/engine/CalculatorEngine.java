@@ -0,0 +1,1379 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Keypad state machine behind {@code MainActivity}, free of any Android types so it can be
+ * driven from plain JVM tests and tools.
+ *
+ * <p>The operand being typed is kept as an unscaled {@code long} plus a scale rather than a
+ * {@code String}, so a digit press does not allocate. Text and {@link BigDecimal} forms are built
+ * lazily and cached until the operand changes again.
+ */
+public class CalculatorEngine {
+
+    /** Receives the side effects the activity turns into views, toasts and vibration. */
+    public interface Listener {
+        void onHistoryChanged(String entry);
+
+        void onCalculation(String expression, String result);
+
+        void onMessage(String message);
+
+        /** Called for error results; {@code message} is null when there is nothing to show. */
+        void onError(String message);
+    }
+
+    public static final String ERROR = "Error";
+
+    static final int MAX_INPUT_LENGTH = 15;
+    static final int DEFAULT_CACHE_CAPACITY = 256;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    // Rational mode keeps fractions up to this size, far past what 1000 digits can show.
+    private static final int MAX_EXACT_BITS = 8192;
+    private static final long[] LONG_POW10 = ScaledArithmetic.POW10;
+    private static final double[] DOUBLE_POW10 = new double[23];
+
+    static {
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; i++) DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+    }
+
+    private final Operand current = new Operand();
+    private final Operand first = new Operand();
+    private final Operand last = new Operand();
+    private final ScaledArithmetic.Result scratch = new ScaledArithmetic.Result();
+    private final Operand evalFirst = new Operand();
+    private final Operand evalSecond = new Operand();
+    private String calculationError;
+    private ResultCache resultCache = new ResultCache(DEFAULT_CACHE_CAPACITY);
+    private char operator;
+    private char lastOperation;
+    private boolean isNewInput = true;
+    private boolean isDecimalAdded = false;
+    private boolean isResultDisplayed = false;
+    private final MemoryBank memory = new MemoryBank();
+    private int memoryRegister;
+    private final FormulaRegistry formulas = new FormulaRegistry();
+
+    private Precision precision = Precision.STANDARD;
+    private MathContext mathContext = precision.getMathContext();
+    private final DisplayFormatter resultFormatter = new DisplayFormatter();
+    private Listener listener;
+
+    // Expression mode: operators append to this instead of evaluating immediately.
+    private boolean expressionMode;
+    private final StringBuilder expression = new StringBuilder();
+    private int pendingOperatorAt = -1;
+
+    // Rational mode: + − × ÷, 1/x, x² and % keep exact fractions behind the rounded display.
+    private boolean rationalMode;
+
+    public CalculatorEngine() {
+        current.setZero();
+        first.clear();
+        last.clear();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // ---- keys ----
+
+    public void digit(int digit) {
+        if (digit < 0 || digit > 9) {
+            throw new IllegalArgumentException("Not a digit: " + digit);
+        }
+        if (isNewInput || current.isZeroText() || current.isError() || isResultDisplayed) {
+            current.setDigit(digit);
+            isNewInput = false;
+            isResultDisplayed = false;
+            isDecimalAdded = false;
+        } else {
+            if (current.length() < MAX_INPUT_LENGTH) {
+                current.appendDigit(digit);
+            } else {
+                message("Maximum 15 digits");
+            }
+        }
+    }
+
+    public void decimalPoint() {
+        if (isNewInput || isResultDisplayed) {
+            current.setZeroPoint();
+            isNewInput = false;
+            isResultDisplayed = false;
+            isDecimalAdded = true;
+        } else if (!isDecimalAdded && !current.hasDecimalPoint()) {
+            current.appendDecimalPoint();
+            isDecimalAdded = true;
+        }
+    }
+
+    /** Presses one of {@code + - * /}, or {@code ^} for x^y. */
+    public void operator(char op) {
+        if (op != '+' && op != '-' && op != '*' && op != '/' && op != '^') {
+            throw new IllegalArgumentException("Unknown operator: " + op);
+        }
+        if (expressionMode) {
+            expressionOperator(op);
+            return;
+        }
+        if (operator != 0 && !isNewInput && !isResultDisplayed) {
+            calculate();
+        }
+
+        if (listener != null) {
+            listener.onHistoryChanged(current + " " + operatorSymbol(op));
+        }
+        first.copyFrom(current);
+        operator = op;
+        lastOperation = op;
+        last.copyFrom(current);
+        isNewInput = true;
+        isResultDisplayed = false;
+        isDecimalAdded = false;
+    }
+
+    public void equals() {
+        if (expressionMode) {
+            expressionEquals();
+            return;
+        }
+        if (operator != 0 && !isNewInput) {
+            String expression = null;
+            if (listener != null) {
+                expression = first + " " + operatorSymbol(operator) + " " + current;
+            }
+            last.copyFrom(current);
+            calculate();
+            tallyResult();
+
+            if (listener != null) {
+                listener.onCalculation(expression, current.toString());
+                listener.onHistoryChanged(expression + " =");
+            }
+            operator = 0;
+            first.clear();
+            isNewInput = true;
+            isResultDisplayed = true;
+            isDecimalAdded = false;
+        }
+    }
+
+    public void clearAll() {
+        current.setZero();
+        first.clear();
+        operator = 0;
+        lastOperation = 0;
+        last.clear();
+        expression.setLength(0);
+        pendingOperatorAt = -1;
+        isNewInput = true;
+        isResultDisplayed = false;
+        isDecimalAdded = false;
+        if (listener != null) listener.onHistoryChanged("");
+    }
+
+    public void clearEntry() {
+        current.setZero();
+        isNewInput = true;
+        isResultDisplayed = false;
+        isDecimalAdded = false;
+    }
+
+    public void plusMinus() {
+        if (!current.isZeroText() && !current.isError()) {
+            current.negate();
+            isResultDisplayed = false;
+        }
+    }
+
+    public void percent() {
+        if (rationalMode && setExactResult(current.toRational(), '%')) return;
+        if (current.isPlain()
+                && ScaledArithmetic.divide(current.signedUnscaled(), current.scale(), 100, 0, scratch)) {
+            setResult(scratch);
+            isNewInput = true;
+            isResultDisplayed = true;
+            isDecimalAdded = false;
+            return;
+        }
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            current.setText(ERROR, null);
+            return;
+        }
+        try {
+            setResult(value.divide(HUNDRED, mathContext));
+        } catch (ArithmeticException e) {
+            error(errorText(e.getMessage()));
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    public void square() {
+        if (rationalMode && setExactResult(current.toRational(), '²')) return;
+        if (current.isPlain() && ScaledArithmetic.multiply(current.signedUnscaled(), current.scale(),
+                current.signedUnscaled(), current.scale(), scratch)) {
+            if (listener != null) listener.onHistoryChanged(current + "²");
+            setResult(scratch);
+            isNewInput = true;
+            isResultDisplayed = true;
+            isDecimalAdded = false;
+            return;
+        }
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            current.setText(ERROR, null);
+            return;
+        }
+        if (listener != null) listener.onHistoryChanged(current + "²");
+        try {
+            setResult(value.multiply(value, mathContext));
+        } catch (ArithmeticException e) {
+            error(errorText(e.getMessage()));
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    public void sqrt() {
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            current.setText(ERROR, null);
+            return;
+        }
+        if (value.signum() >= 0) {
+            BigDecimal result = resultCache != null ? resultCache.get(value, ResultCache.SQRT, null) : null;
+            if (result == null) {
+                result = BigDecimalMath.sqrt(value, mathContext);
+                if (resultCache != null) resultCache.put(value, ResultCache.SQRT, null, result);
+            }
+            if (listener != null) listener.onHistoryChanged("√(" + current + ")");
+            setResult(result);
+        } else {
+            error("Cannot calculate √ of negative number");
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    public void reciprocal() {
+        if (rationalMode && setExactResult(current.toRational(), 'r')) return;
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            current.setText(ERROR, null);
+            return;
+        }
+        if (value.signum() != 0) {
+            if (listener != null) listener.onHistoryChanged("1/(" + current + ")");
+            if (current.isPlain()
+                    && ScaledArithmetic.divide(1, 0, current.signedUnscaled(), current.scale(), scratch)) {
+                setResult(scratch);
+            } else {
+                try {
+                    BigDecimal result = resultCache != null
+                            ? resultCache.get(value, ResultCache.RECIPROCAL, null) : null;
+                    if (result == null) {
+                        result = BigDecimalMath.reciprocal(value, mathContext);
+                        if (resultCache != null) resultCache.put(value, ResultCache.RECIPROCAL, null, result);
+                    }
+                    setResult(result);
+                } catch (ArithmeticException e) {
+                    error(errorText(e.getMessage()));
+                }
+            }
+        } else {
+            error("Cannot divide by zero");
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    /**
+     * sin, cos, tan (in radians), ln, log, eˣ or n! of the display, at the working precision.
+     * Results are decimal in rational mode too.
+     */
+    public void function(ScientificMath.Function function) {
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            current.setText(ERROR, null);
+            return;
+        }
+        if (listener != null) {
+            listener.onHistoryChanged(function == ScientificMath.Function.FACTORIAL
+                    ? current + "!" : function.getName() + "(" + current + ")");
+        }
+        try {
+            BigDecimal result = resultCache != null ? resultCache.get(value, function.getSymbol(), null) : null;
+            if (result == null) {
+                result = function.apply(value, mathContext);
+                if (resultCache != null) resultCache.put(value, function.getSymbol(), null, result);
+            }
+            setResult(result);
+        } catch (ArithmeticException e) {
+            error(errorText(e.getMessage()));
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    /**
+     * Shows the user constant {@code name}, or the user formula {@code name} evaluated at the
+     * working precision with {@code arguments} for its parameters; see {@link FormulaRegistry}.
+     */
+    public void formula(String name, BigDecimal... arguments) {
+        StringBuilder call = new StringBuilder(name);
+        if (arguments.length > 0) {
+            call.append('(');
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) call.append(", ");
+                call.append(formatResult(arguments[i]));
+            }
+            call.append(')');
+        }
+        try {
+            setResult(formulas.call(name, mathContext, arguments));
+            tallyResult();
+        } catch (ArithmeticException e) {
+            error(errorText(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage());
+        }
+        if (listener != null) {
+            listener.onCalculation(call.toString(), current.toString());
+            listener.onHistoryChanged(call + " =");
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    /** Named user constants and formulas for {@link #formula}. */
+    public FormulaRegistry getFormulas() {
+        return formulas;
+    }
+
+    /**
+     * Rational mode's %, x² and 1/x ({@code 'r'}). Returns false to leave errors and zero to the
+     * decimal path, which reports them the same way in both modes.
+     */
+    private boolean setExactResult(Rational value, char op) {
+        if (value == null || (op == 'r' && value.signum() == 0)) return false;
+        Rational result;
+        if (op == '%') {
+            result = value.divide(Rational.valueOf(100, 0));
+        } else if (op == '²') {
+            if (listener != null) listener.onHistoryChanged(current + "²");
+            result = value.multiply(value);
+        } else {
+            if (listener != null) listener.onHistoryChanged("1/(" + current + ")");
+            result = value.reciprocal();
+        }
+        setResult(result, current);
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+        return true;
+    }
+
+    /** Long-press on equals: applies the last operator and operand to the display again. */
+    public void repeatLastCalculation() {
+        if (lastOperation != 0 && !last.isEmpty()) {
+            first.copyFrom(current);
+            current.copyFrom(last);
+            operator = lastOperation;
+            equals();
+            message("Repeated last calculation");
+        } else {
+            message("No previous calculation");
+        }
+    }
+
+    // ---- memory ----
+    // The M keys act on the selected register of an exact MemoryBank, so M+ never drifts.
+
+    public void memoryClear() {
+        memory.clear(memoryRegister);
+        message("Memory cleared");
+    }
+
+    public void memoryRecall() {
+        if (hasMemory()) {
+            setResult(memory.get(memoryRegister));
+            isNewInput = true;
+            isResultDisplayed = true;
+            isDecimalAdded = false;
+            message("Memory recalled");
+        } else {
+            message("Memory is empty");
+        }
+    }
+
+    public void memoryStore() {
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            message("Cannot store");
+            return;
+        }
+        try {
+            memory.set(memoryRegister, value);
+        } catch (ArithmeticException e) {
+            message(errorText(e.getMessage()));
+            return;
+        }
+        message("Stored in memory");
+    }
+
+    public void memoryAdd() {
+        if (addToMemory(false)) message("Added to memory");
+    }
+
+    public void memorySubtract() {
+        if (addToMemory(true)) message("Subtracted from memory");
+    }
+
+    public void memoryToggle() {
+        if (hasMemory()) {
+            memory.negate(memoryRegister);
+            setResult(memory.get(memoryRegister));
+            isNewInput = true;
+            isResultDisplayed = true;
+            isDecimalAdded = false;
+            message("Memory sign toggled");
+        } else {
+            message("Memory is empty");
+        }
+    }
+
+    /** Σ+: adds the display to the memory bank's {@link RunningStatistics}. */
+    public void statisticsAdd() {
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) {
+            message("Cannot add");
+            return;
+        }
+        RunningStatistics statistics = memory.getStatistics();
+        statistics.add(value.doubleValue());
+        // The next digit starts the next value.
+        isNewInput = true;
+        isDecimalAdded = false;
+        message("n = " + statistics.getCount());
+    }
+
+    /** Selects the register the M keys act on. */
+    public void selectMemoryRegister(int register) {
+        if (register < 0 || register >= memory.size()) {
+            throw new IndexOutOfBoundsException("register " + register + ", size " + memory.size());
+        }
+        memoryRegister = register;
+    }
+
+    public int getMemoryRegister() {
+        return memoryRegister;
+    }
+
+    /** The registers behind the M keys, and the tally of every result. */
+    public MemoryBank getMemoryBank() {
+        return memory;
+    }
+
+    private boolean addToMemory(boolean subtract) {
+        if (current.isPlain()) {
+            // At most 15 digits, so negating cannot overflow.
+            long unscaled = current.signedUnscaled();
+            memory.add(memoryRegister, subtract ? -unscaled : unscaled, current.scale());
+            return true;
+        }
+        BigDecimal value = current.toBigDecimal();
+        if (value == null) return false;
+        try {
+            memory.add(memoryRegister, subtract ? value.negate() : value);
+        } catch (ArithmeticException e) {
+            message(errorText(e.getMessage()));
+            return false;
+        }
+        return true;
+    }
+
+    private void tallyResult() {
+        try {
+            if (current.isPlain()) {
+                memory.tally(current.signedUnscaled(), current.scale());
+            } else if (current.toBigDecimal() != null) {
+                memory.tally(current.toBigDecimal());
+            }
+        } catch (ArithmeticException e) {
+            // The tally stops short of the overflow; the result itself is still shown.
+        }
+    }
+
+    // ---- expression mode ----
+
+    /**
+     * In expression mode operators are collected and {@link #equals()} evaluates the whole line
+     * with normal precedence, so {@code 2 + 3 × 4 =} gives 14 instead of 20.
+     */
+    public void setExpressionMode(boolean enabled) {
+        expressionMode = enabled;
+        expression.setLength(0);
+        pendingOperatorAt = -1;
+        operator = 0;
+        first.clear();
+    }
+
+    public boolean isExpressionMode() {
+        return expressionMode;
+    }
+
+    // ---- rational mode ----
+
+    /**
+     * In rational mode the four operators, %, x² and 1/x work on exact fractions and only the
+     * display is rounded, so {@code 1 ÷ 3 × 3 =} gives exactly 1 and 1/x twice gives back the
+     * number typed. √ and expression mode stay decimal. Switching keeps the display as it is.
+     */
+    public void setRationalMode(boolean enabled) {
+        rationalMode = enabled;
+    }
+
+    public boolean isRationalMode() {
+        return rationalMode;
+    }
+
+    /**
+     * The exact fraction behind the display, such as {@code 1/3} for {@code 0.3333333333333333},
+     * or null when the display is typed input or a decimal result.
+     */
+    public Rational getExactValue() {
+        return current.exact();
+    }
+
+    /** The expression collected so far in expression mode, e.g. {@code "2 + 3 × "}. */
+    public String getPendingExpression() {
+        return expression.toString();
+    }
+
+    private void expressionOperator(char op) {
+        if (pendingOperatorAt >= 0 && isNewInput && !isResultDisplayed) {
+            // Pressing another operator replaces the one just entered.
+            expression.setLength(pendingOperatorAt);
+        } else {
+            expression.append(current);
+        }
+        pendingOperatorAt = expression.length();
+        expression.append(' ').append(operatorSymbol(op)).append(' ');
+        if (listener != null) listener.onHistoryChanged(expression.toString());
+        isNewInput = true;
+        isResultDisplayed = false;
+        isDecimalAdded = false;
+    }
+
+    private void expressionEquals() {
+        if (expression.length() == 0 || (isNewInput && !isResultDisplayed)) {
+            return;
+        }
+        String source = expression.append(current).toString();
+        expression.setLength(0);
+        pendingOperatorAt = -1;
+        try {
+            setResult(Expression.compile(source).evaluate(mathContext));
+            tallyResult();
+        } catch (ArithmeticException e) {
+            error(errorText(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            error(null);
+        }
+        if (listener != null) {
+            listener.onCalculation(source, current.toString());
+            listener.onHistoryChanged(source + " =");
+        }
+        isNewInput = true;
+        isResultDisplayed = true;
+        isDecimalAdded = false;
+    }
+
+    // ---- state ----
+
+    public String getDisplay() {
+        return current.toString();
+    }
+
+    /**
+     * Copies the operands {@link #equals()} would combine into {@code a} and {@code b} and returns
+     * its operator, or 0 when equals would do nothing, for {@link LivePreview}.
+     */
+    char pendingOperation(Operand a, Operand b) {
+        if (expressionMode || operator == 0 || isNewInput) return 0;
+        a.copyFrom(first);
+        b.copyFrom(current);
+        return operator;
+    }
+
+    /** The operand on the display, for {@link DisplayFormatter#format(CalculatorEngine)}. */
+    Operand displayOperand() {
+        return current;
+    }
+
+    // ---- undo ----
+    // UndoHistory reads and writes the keypad state through these, without listener calls.
+
+    Operand firstOperand() {
+        return first;
+    }
+
+    Operand repeatOperand() {
+        return last;
+    }
+
+    CharSequence expressionText() {
+        return expression;
+    }
+
+    int pendingOperatorAt() {
+        return pendingOperatorAt;
+    }
+
+    /** Operators and keypad flags in one int, for {@link #restoreKeypad}. */
+    int keypadFlags() {
+        return operator | lastOperation << 8
+                | (isNewInput ? 1 << 16 : 0)
+                | (isDecimalAdded ? 1 << 17 : 0)
+                | (isResultDisplayed ? 1 << 18 : 0)
+                | (expressionMode ? 1 << 19 : 0)
+                | (rationalMode ? 1 << 20 : 0);
+    }
+
+    void restoreKeypad(int flags, CharSequence expressionText, int pendingOperatorAt) {
+        operator = (char) (flags & 0xFF);
+        lastOperation = (char) ((flags >>> 8) & 0xFF);
+        isNewInput = (flags & 1 << 16) != 0;
+        isDecimalAdded = (flags & 1 << 17) != 0;
+        isResultDisplayed = (flags & 1 << 18) != 0;
+        expressionMode = (flags & 1 << 19) != 0;
+        rationalMode = (flags & 1 << 20) != 0;
+        expression.setLength(0);
+        expression.append(expressionText);
+        this.pendingOperatorAt = pendingOperatorAt;
+    }
+
+    /** Pending operator as {@code "+", "-", "*", "/"}, or {@code ""} when none. */
+    public String getOperator() {
+        return operatorString(operator);
+    }
+
+    /** Left operand of the pending operation, or {@code ""} when none. */
+    public String getFirstOperand() {
+        return first.toString();
+    }
+
+    public boolean isNewInput() {
+        return isNewInput;
+    }
+
+    public boolean isDecimalAdded() {
+        return isDecimalAdded;
+    }
+
+    public boolean isResultDisplayed() {
+        return isResultDisplayed;
+    }
+
+    /** The selected register as a double; see {@link #getMemoryBank()} for the exact value. */
+    public double getMemoryValue() {
+        return memory.getDouble(memoryRegister);
+    }
+
+    public boolean hasMemory() {
+        return memory.isSet(memoryRegister);
+    }
+
+    /**
+     * Sets the size of the memo in front of the BigDecimal path (results the long fast path
+     * cannot produce); 0 disables it.
+     */
+    public void setResultCacheCapacity(int capacity) {
+        if (capacity <= 0) {
+            resultCache = null;
+        } else if (resultCache == null) {
+            resultCache = new ResultCache(capacity);
+        } else {
+            resultCache.setCapacity(capacity);
+        }
+    }
+
+    /** The result memo, or null when disabled. */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * Switches the working and display precision. Results already on the display keep their
+     * digits; the result memo is cleared because its entries were rounded for the old precision.
+     */
+    public void setPrecision(Precision precision) {
+        if (precision == null) throw new IllegalArgumentException("precision must not be null");
+        if (precision == this.precision) return;
+        this.precision = precision;
+        this.mathContext = precision.getMathContext();
+        if (resultCache != null) resultCache.clear();
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Restores the keypad fields and a single memory value into the selected register, as
+     * sessions saved before the memory bank stored it.
+     */
+    public void restore(String display, String operator, String firstOperand, boolean isNewInput,
+                        double memoryValue, boolean hasMemory) {
+        restore(display, operator, firstOperand, isNewInput);
+        if (hasMemory) {
+            // The value came from parsing display text, so its shortest form is what was typed.
+            memory.set(memoryRegister, BigDecimal.valueOf(memoryValue));
+        } else {
+            memory.clear(memoryRegister);
+        }
+    }
+
+    /** Restores the keypad fields that {@code MainActivity} persists between sessions. */
+    public void restore(String display, String operator, String firstOperand, boolean isNewInput) {
+        current.setFromText(display == null ? "0" : display);
+        if (firstOperand == null || firstOperand.isEmpty()) {
+            first.clear();
+        } else {
+            first.setFromText(firstOperand);
+        }
+        this.operator = operator == null || operator.isEmpty() ? 0 : operator.charAt(0);
+        this.isNewInput = isNewInput;
+        this.isResultDisplayed = false;
+        this.isDecimalAdded = false;
+    }
+
+    // ---- arithmetic ----
+
+    private void calculate() {
+        if (!calculate(first, operator, current, current)) {
+            error(calculationError);
+        }
+    }
+
+    /**
+     * Computes {@code a op b} into {@code out}, which may be the same object as {@code b}. On
+     * failure returns false and leaves the toast text, or null, in {@link #calculationError}.
+     */
+    boolean calculate(Operand a, char op, Operand b, Operand out) {
+        calculationError = null;
+        if (rationalMode && calculateExact(a, op, b, out)) return true;
+        if (a.isPlain() && b.isPlain()) {
+            if (op == '/' && b.signedUnscaled() == 0) {
+                calculationError = "Cannot divide by zero";
+                return false;
+            }
+            if (ScaledArithmetic.apply(a.signedUnscaled(), a.scale(), op,
+                    b.signedUnscaled(), b.scale(), scratch)) {
+                setResult(scratch, out);
+                return true;
+            }
+        }
+        BigDecimal firstValue = a.toBigDecimal();
+        BigDecimal second = b.toBigDecimal();
+        if (firstValue == null || second == null) {
+            return false;
+        }
+        if (op == '/' && second.signum() == 0) {
+            calculationError = "Cannot divide by zero";
+            return false;
+        }
+        BigDecimal result;
+        try {
+            result = resultCache != null ? resultCache.get(firstValue, op, second) : null;
+            if (result == null) {
+                result = calculate(firstValue, op, second);
+                if (resultCache != null && result != null) resultCache.put(firstValue, op, second, result);
+            }
+        } catch (ArithmeticException e) {
+            calculationError = errorText(e.getMessage());
+            return false;
+        }
+        if (result != null) {
+            setResult(result, out);
+        }
+        return true;
+    }
+
+    /**
+     * Rational mode's {@link #calculate(Operand, char, Operand, Operand)}. Returns false to leave
+     * errors and inexact powers to the decimal path, which reports them the same way.
+     */
+    private boolean calculateExact(Operand a, char op, Operand b, Operand out) {
+        Rational x = a.toRational();
+        Rational y = b.toRational();
+        if (x == null || y == null) {
+            return false;
+        }
+        Rational result;
+        switch (op) {
+            case '+':
+                result = x.add(y);
+                break;
+            case '-':
+                result = x.subtract(y);
+                break;
+            case '*':
+                result = x.multiply(y);
+                break;
+            case '/':
+                if (y.signum() == 0) return false;
+                result = x.divide(y);
+                break;
+            case '^':
+                // Whole exponents stay exact while the result stays within MAX_EXACT_BITS.
+                if (!y.isInteger() || y.numerator().bitLength() > 31
+                        || (x.signum() == 0 && y.signum() < 0)) {
+                    return false;
+                }
+                int n = y.numerator().intValue();
+                if ((long) x.bitLength() * Math.abs((long) n) > MAX_EXACT_BITS) return false;
+                result = x.pow(n);
+                break;
+            default:
+                return false;
+        }
+        setResult(result, out);
+        return true;
+    }
+
+    /**
+     * Evaluates {@code first op second} as if typed on the keypad and returns the display text,
+     * without touching the keypad state. On failure returns {@link #ERROR} and
+     * {@link #getLastError()} holds the reason.
+     */
+    public String evaluate(String first, char op, String second) {
+        evalFirst.setFromText(first);
+        evalSecond.setFromText(second);
+        if (op != '+' && op != '-' && op != '*' && op != '/' && op != '^') {
+            calculationError = "Unknown operator: " + op;
+            return ERROR;
+        }
+        if (!evalFirst.isNumber() || !evalSecond.isNumber()) {
+            calculationError = "Invalid number '" + (evalFirst.isNumber() ? second : first) + "'";
+            return ERROR;
+        }
+        if (!calculate(evalFirst, op, evalSecond, evalSecond)) {
+            return ERROR;
+        }
+        calculationError = null;
+        return evalSecond.toString();
+    }
+
+    /** Reason for the last {@link #evaluate} failure, or null when it had none to show. */
+    public String getLastError() {
+        return calculationError;
+    }
+
+    /**
+     * Applies one binary operator at the current precision. Returns null for an unknown operator
+     * and throws {@link ArithmeticException} on division by zero or a failed {@code ^}.
+     */
+    public BigDecimal calculate(BigDecimal first, char op, BigDecimal second) {
+        switch (op) {
+            case '+':
+                return first.add(second, mathContext);
+            case '-':
+                return first.subtract(second, mathContext);
+            case '*':
+                return first.multiply(second, mathContext);
+            case '/':
+                return first.divide(second, mathContext);
+            case '^':
+                return ScientificMath.pow(first, second, mathContext);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Formats a result for the display: scientific notation outside [1e-6, 1e12), otherwise plain
+     * with trailing zeros stripped and decimals cut to 15 characters. Above
+     * {@link Precision#STANDARD} see {@link #formatPrecise}.
+     */
+    public String formatResult(BigDecimal result) {
+        if (precision != Precision.STANDARD) {
+            return formatPrecise(result);
+        }
+        return resultFormatter.formatResult(result).toString();
+    }
+
+    /**
+     * Display rules above {@link Precision#STANDARD}: the result is rounded to the precision and
+     * shown plain when its leading digit lies between 1e-6 and the last integer digit the
+     * precision can hold. Otherwise it is shown in scientific notation with every significant
+     * digit, e.g. {@code 1.2345678901234567890123E40}. Past
+     * {@link ScientificMath#MAX_EXPONENT} it is {@link #ERROR}, and below its negative it is 0,
+     * as in the scientific functions; STANDARD stops at the range of a double instead.
+     */
+    private String formatPrecise(BigDecimal result) {
+        BigDecimal rounded = result.round(mathContext).stripTrailingZeros();
+        if (rounded.signum() == 0) {
+            return "0";
+        }
+        int exponent = BigDecimalMath.exponent(rounded);
+        if (exponent > ScientificMath.MAX_EXPONENT) {
+            return ERROR;
+        }
+        if (exponent < -ScientificMath.MAX_EXPONENT) {
+            return "0";
+        }
+        if (exponent >= -6 && exponent < precision.getDigits()) {
+            return rounded.toPlainString();
+        }
+        String digits = rounded.unscaledValue().abs().toString();
+        StringBuilder sb = new StringBuilder(digits.length() + 8);
+        if (rounded.signum() < 0) sb.append('-');
+        sb.append(digits.charAt(0));
+        if (digits.length() > 1) sb.append('.').append(digits, 1, digits.length());
+        return sb.append('E').append(exponent).toString();
+    }
+
+    /** Same as {@link #formatResult}, but leaves the result in {@link #current}. */
+    private void setResult(BigDecimal result) {
+        setResult(result, current);
+    }
+
+    private void setResult(BigDecimal result, Operand out) {
+        if (precision != Precision.STANDARD) {
+            out.setFromText(formatPrecise(result));
+            return;
+        }
+        // Plain results are parsed back to the long form so the next operation can take the
+        // fast path.
+        out.setFromText(resultFormatter.formatResult(result));
+    }
+
+    private void setResult(ScaledArithmetic.Result result) {
+        setResult(result, current);
+    }
+
+    /**
+     * Shows {@code result} rounded as usual and keeps the fraction behind it, unless it has grown
+     * past {@link #MAX_EXACT_BITS}; then the rounded decimal carries on, so that pressing x² again
+     * and again cannot double the work each time.
+     */
+    private void setResult(Rational result, Operand out) {
+        setResult(result.toBigDecimal(mathContext), out);
+        if (result.bitLength() <= MAX_EXACT_BITS) out.setExact(result);
+    }
+
+    /**
+     * Display rules of {@link #formatResult} applied to an exact fast-path result. The
+     * scientific-range checks compare exactly; with at most 15 significant digits they agree with
+     * the {@code doubleValue()} comparisons in formatResult.
+     */
+    private void setResult(ScaledArithmetic.Result result, Operand out) {
+        long unscaled = result.unscaled;
+        int scale = result.scale;
+        if (precision != Precision.STANDARD) {
+            // Fast-path results are exact, so they are valid at any precision; only the display
+            // rules differ.
+            setResult(BigDecimal.valueOf(unscaled, scale), out);
+            return;
+        }
+        if (unscaled == 0) {
+            out.setPlain(0, 0);
+            return;
+        }
+        long magnitude = Math.abs(unscaled);
+        boolean large = 12 + scale < 0 || (12 + scale < LONG_POW10.length && magnitude >= LONG_POW10[12 + scale]);
+        boolean small = scale - 6 >= LONG_POW10.length || (scale > 6 && magnitude < LONG_POW10[scale - 6]);
+        if (large || small) {
+            setResult(BigDecimal.valueOf(unscaled, scale), out);
+            return;
+        }
+        if (scale < 0) {
+            unscaled *= LONG_POW10[-scale];
+            scale = 0;
+        } else if (scale > 0) {
+            // Same cut as the substring(0, 15) in formatResult.
+            int intDigits = scale < LONG_POW10.length
+                    ? ScaledArithmetic.digits(magnitude / LONG_POW10[scale]) : 1;
+            int length = (unscaled < 0 ? 1 : 0) + intDigits + 1 + scale;
+            if (length > MAX_INPUT_LENGTH) {
+                int drop = length - MAX_INPUT_LENGTH;
+                unscaled /= LONG_POW10[drop];
+                scale -= drop;
+            }
+        }
+        out.setPlain(unscaled, scale);
+    }
+
+    private void error(String message) {
+        current.setText(ERROR, null);
+        isDecimalAdded = false;
+        if (listener != null) listener.onError(message);
+    }
+
+    /** The toast for an {@link ArithmeticException} from the math classes, or null for none. */
+    static String errorText(String arithmeticMessage) {
+        if (Expression.DIVISION_BY_ZERO.equals(arithmeticMessage)) return "Cannot divide by zero";
+        if (Expression.NEGATIVE_SQRT.equals(arithmeticMessage)) return "Cannot calculate √ of negative number";
+        if (Expression.OUT_OF_DOMAIN.equals(arithmeticMessage)) return "Invalid input";
+        if (Expression.OVERFLOW.equals(arithmeticMessage)) return "Result too large";
+        return null;
+    }
+
+    private void message(String message) {
+        if (listener != null) listener.onMessage(message);
+    }
+
+    /**
+     * Adds thousand separators to plain integers, e.g. {@code 1234567 -> 1,234,567}. Builds a
+     * {@link DisplayFormatter} per call; code that renders every keystroke should keep one.
+     */
+    public static String displayText(String value) {
+        return new DisplayFormatter().group(value).toString();
+    }
+
+    public static String operatorSymbol(char op) {
+        switch (op) {
+            case '+': return "+";
+            case '-': return "−";
+            case '*': return "×";
+            case '/': return "÷";
+            case '^': return "^";
+            default: return String.valueOf(op);
+        }
+    }
+
+    static String operatorString(char op) {
+        switch (op) {
+            case '+': return "+";
+            case '-': return "-";
+            case '*': return "*";
+            case '/': return "/";
+            case '^': return "^";
+            default: return "";
+        }
+    }
+
+    /**
+     * One display operand. Typed input and plain decimal results live in entry form (unscaled
+     * long, scale and sign); scientific results, "Error" and anything else that does not fit live
+     * in text form with their parsed value.
+     */
+    static final class Operand {
+        private boolean entry;
+        private long unscaled;
+        private int scale;
+        private boolean negative;
+        private boolean dot;
+        private int length;
+        // Text form, or the cached rendering of the entry form.
+        private String text;
+        // Parsed value; null in text form means the text is not a number.
+        private BigDecimal value;
+        // Rational mode: the exact fraction the rounded text stands for, or null.
+        private Rational exact;
+
+        void clear() {
+            setText("", null);
+        }
+
+        void setZero() {
+            setDigit(0);
+        }
+
+        void setDigit(int digit) {
+            entry = true;
+            unscaled = digit;
+            scale = 0;
+            negative = false;
+            dot = false;
+            length = 1;
+            text = null;
+            value = null;
+            exact = null;
+        }
+
+        void setZeroPoint() {
+            setDigit(0);
+            dot = true;
+            length = 2;
+        }
+
+        /** Plain decimal form of a result; {@code scale} must be non-negative. */
+        void setPlain(long signedUnscaled, int scale) {
+            entry = true;
+            negative = signedUnscaled < 0;
+            unscaled = Math.abs(signedUnscaled);
+            this.scale = scale;
+            dot = scale > 0;
+            int intDigits = scale < LONG_POW10.length
+                    ? ScaledArithmetic.digits(unscaled / LONG_POW10[scale]) : 1;
+            length = (negative ? 1 : 0) + intDigits + (dot ? 1 + scale : 0);
+            text = null;
+            value = null;
+            exact = null;
+        }
+
+        void setText(String text, BigDecimal value) {
+            this.entry = false;
+            this.text = text;
+            this.value = value;
+            this.exact = null;
+        }
+
+        /** Parses {@code s} into entry form when it looks like typed input, text form otherwise. */
+        void setFromText(CharSequence s) {
+            if (!parseEntry(s)) {
+                String text = s.toString();
+                BigDecimal parsed;
+                try {
+                    parsed = new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    parsed = null;
+                }
+                setText(text, parsed);
+            }
+        }
+
+        private boolean parseEntry(CharSequence s) {
+            int n = s.length();
+            if (n == 0 || n > MAX_INPUT_LENGTH + 1) return false;
+            int i = 0;
+            boolean neg = s.charAt(0) == '-';
+            if (neg) i++;
+            int intStart = i;
+            long u = 0;
+            int sc = 0;
+            boolean seenDot = false;
+            for (; i < n; i++) {
+                char c = s.charAt(i);
+                if (c == '.') {
+                    if (seenDot) return false;
+                    seenDot = true;
+                } else if (c >= '0' && c <= '9') {
+                    u = u * 10 + (c - '0');
+                    if (seenDot) sc++;
+                } else {
+                    return false;
+                }
+            }
+            int intDigits = (seenDot ? n - sc - 1 : n) - intStart;
+            if (intDigits == 0) return false;
+            if (intDigits > 1 && s.charAt(intStart) == '0') return false;
+
+            entry = true;
+            unscaled = u;
+            scale = sc;
+            negative = neg;
+            dot = seenDot;
+            length = n;
+            // A String is kept as the text; anything else is rebuilt on demand, which gives the
+            // same characters for input in this form.
+            text = s instanceof String ? (String) s : null;
+            value = null;
+            exact = null;
+            return true;
+        }
+
+        /** Scale, length and sign of the entry form in one int, for {@link UndoHistory}. */
+        int packedEntry() {
+            return scale | length << 8 | (negative ? 1 << 16 : 0) | (dot ? 1 << 17 : 0);
+        }
+
+        long magnitude() {
+            return unscaled;
+        }
+
+        /** Entry form from {@link #magnitude()} and {@link #packedEntry()}. */
+        void setPackedEntry(long magnitude, int packed) {
+            entry = true;
+            unscaled = magnitude;
+            scale = packed & 0xFF;
+            length = (packed >>> 8) & 0xFF;
+            negative = (packed & 1 << 16) != 0;
+            dot = (packed & 1 << 17) != 0;
+            text = null;
+            value = null;
+            exact = null;
+        }
+
+        /** True when {@code o} holds the same form and value, so either can stand for the other. */
+        boolean sameAs(Operand o) {
+            if (entry != o.entry || (exact == null ? o.exact != null : !exact.equals(o.exact))) return false;
+            if (entry) {
+                return unscaled == o.unscaled && scale == o.scale && negative == o.negative
+                        && dot == o.dot && length == o.length;
+            }
+            return text.equals(o.text);
+        }
+
+        void copyFrom(Operand o) {
+            entry = o.entry;
+            unscaled = o.unscaled;
+            scale = o.scale;
+            negative = o.negative;
+            dot = o.dot;
+            length = o.length;
+            text = o.text;
+            value = o.value;
+            exact = o.exact;
+        }
+
+        void appendDigit(int digit) {
+            if (entry) {
+                unscaled = unscaled * 10 + digit;
+                if (dot) scale++;
+                length++;
+                text = null;
+                value = null;
+                exact = null;
+            } else {
+                setFromText(text + (char) ('0' + digit));
+            }
+        }
+
+        void appendDecimalPoint() {
+            if (entry) {
+                dot = true;
+                length++;
+                text = null;
+                exact = null;
+            } else {
+                setFromText(text + ".");
+            }
+        }
+
+        void negate() {
+            if (entry) {
+                negative = !negative;
+                length += negative ? 1 : -1;
+                text = null;
+                value = null;
+            } else {
+                text = text.startsWith("-") ? text.substring(1) : "-" + text;
+                if (value != null) value = value.negate();
+            }
+            if (exact != null) exact = exact.negate();
+        }
+
+        /** The fraction behind a rational-mode result, or null for typed input and decimal results. */
+        Rational exact() {
+            return exact;
+        }
+
+        /** Attaches the fraction the current text was rounded from; null detaches it. */
+        void setExact(Rational exact) {
+            this.exact = exact;
+        }
+
+        /** The exact value: the attached fraction, else the decimal itself; null when not a number. */
+        Rational toRational() {
+            if (exact != null) return exact;
+            if (entry) return Rational.valueOf(signedUnscaled(), scale);
+            return value == null ? null : Rational.valueOf(value);
+        }
+
+        /** True when the value is held as {@link #signedUnscaled()} and {@link #scale()}. */
+        boolean isPlain() {
+            return entry;
+        }
+
+        long signedUnscaled() {
+            return negative ? -unscaled : unscaled;
+        }
+
+        /** Sign of the entry form, which unlike {@link #signedUnscaled()} sees {@code -0}. */
+        boolean isNegative() {
+            return negative;
+        }
+
+        int scale() {
+            return scale;
+        }
+
+        boolean isNumber() {
+            return entry || value != null;
+        }
+
+        boolean isEmpty() {
+            return !entry && text.isEmpty();
+        }
+
+        boolean isZeroText() {
+            return entry ? !negative && !dot && unscaled == 0 : "0".equals(text);
+        }
+
+        boolean isError() {
+            return !entry && ERROR.equals(text);
+        }
+
+        boolean hasDecimalPoint() {
+            return entry ? dot : text.indexOf('.') >= 0;
+        }
+
+        int length() {
+            return entry ? length : text.length();
+        }
+
+        /** The numeric value, or null when the operand is not a number. */
+        BigDecimal toBigDecimal() {
+            if (entry && value == null) {
+                value = BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+            }
+            return value;
+        }
+
+        /** Same result as {@code Double.parseDouble(toString())}. */
+        double toDouble() {
+            if (entry) {
+                // Both operands are exact doubles, so the quotient is correctly rounded.
+                double d = (double) unscaled / DOUBLE_POW10[scale];
+                return negative ? -d : d;
+            }
+            return Double.parseDouble(text);
+        }
+
+        @Override
+        public String toString() {
+            if (text == null) {
+                text = buildEntryText();
+            }
+            return text;
+        }
+
+        private String buildEntryText() {
+            StringBuilder sb = new StringBuilder(length);
+            if (negative) sb.append('-');
+            if (scale == 0) {
+                sb.append(unscaled);
+                if (dot) sb.append('.');
+            } else {
+                long pow = LONG_POW10[scale];
+                sb.append(unscaled / pow).append('.');
+                long fraction = unscaled % pow;
+                for (long q = pow / 10; q > 0; q /= 10) {
+                    sb.append((char) ('0' + (fraction / q) % 10));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
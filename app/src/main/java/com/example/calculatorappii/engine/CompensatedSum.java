@@ -0,0 +1,69 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Running double sum with Neumaier's compensation. The low-order bits each addition loses are
+ * kept in a second term, so the error does not grow with the number of terms. A plain
+ * {@code +=} loop over a million cents loses whole cents; this one stays within an ulp or two of
+ * the exact sum of its inputs.
+ *
+ * <p>Mergeable: summing two halves separately and then {@link #add(CompensatedSum) adding} them
+ * gives the same accuracy as one pass. Not thread-safe.
+ */
+public final class CompensatedSum {
+
+    private double sum;
+    private double compensation;
+
+    public CompensatedSum add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+        return this;
+    }
+
+    /** Adds {@code values[from..to)}. */
+    public CompensatedSum add(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + values.length);
+        }
+        double s = sum;
+        double c = compensation;
+        for (int i = from; i < to; i++) {
+            double v = values[i];
+            double t = s + v;
+            if (Math.abs(s) >= Math.abs(v)) {
+                c += (s - t) + v;
+            } else {
+                c += (v - t) + s;
+            }
+            s = t;
+        }
+        sum = s;
+        compensation = c;
+        return this;
+    }
+
+    public CompensatedSum add(CompensatedSum other) {
+        add(other.sum);
+        add(other.compensation);
+        return this;
+    }
+
+    public double sum() {
+        return sum + compensation;
+    }
+
+    public void clear() {
+        sum = 0;
+        compensation = 0;
+    }
+
+    /** Compensated sum of {@code values[from..to)}. */
+    public static double sum(double[] values, int from, int to) {
+        return new CompensatedSum().add(values, from, to).sum();
+    }
+}
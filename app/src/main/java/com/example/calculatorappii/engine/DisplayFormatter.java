@@ -0,0 +1,357 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Writes display text into a reusable char buffer instead of building Strings. The locale's
+ * symbols are looked up once, in the constructor.
+ *
+ * <p>The output is the same as the String code it replaces:
+ * <ul>
+ *   <li>{@link #group} and {@link #format(CalculatorEngine)} match
+ *       {@code String.format("%,d", Long.parseLong(text))} for integers above 999 and leave
+ *       everything else as it is.</li>
+ *   <li>{@link #formatResult} matches {@link CalculatorEngine#formatResult} at
+ *       {@link Precision#STANDARD}. That includes the locale's
+ *       {@code DecimalFormat("0.#####E0")} output for scientific notation.</li>
+ * </ul>
+ * With {@link #setDecimalGrouping} on, the integer part of decimals is grouped as well, and
+ * the locale's decimal separator is used.
+ *
+ * <p>The formatter is itself the {@link CharSequence} result. It stays valid until the next call.
+ * Not thread-safe.
+ */
+public final class DisplayFormatter implements CharSequence {
+
+    private final char zeroDigit;
+    private final char groupingSeparator;
+    private final int groupingSize;
+    private final char decimalSeparator;
+    private final Locale locale;
+    private boolean decimalGrouping;
+
+    private char[] buffer = new char[32];
+    private int length;
+    // Digits of one long, filled from the right.
+    private final char[] digits = new char[20];
+    // Created on the first scientific result.
+    private DecimalFormat scientificFormat;
+    private StringBuffer scientificText;
+    private FieldPosition fieldPosition;
+
+    public DisplayFormatter() {
+        this(Locale.getDefault());
+    }
+
+    public DisplayFormatter(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        zeroDigit = symbols.getZeroDigit();
+        groupingSeparator = symbols.getGroupingSeparator();
+        decimalSeparator = symbols.getDecimalSeparator();
+        this.locale = locale;
+        // Same source as java.util.Formatter's ',' flag.
+        NumberFormat integer = NumberFormat.getIntegerInstance(locale);
+        groupingSize = integer instanceof DecimalFormat && integer.isGroupingUsed()
+                ? ((DecimalFormat) integer).getGroupingSize() : 0;
+    }
+
+    /** Also groups the integer part of decimals, e.g. {@code 1234.5 -> 1,234.5}. Off by default. */
+    public void setDecimalGrouping(boolean enabled) {
+        decimalGrouping = enabled;
+    }
+
+    public boolean isDecimalGrouping() {
+        return decimalGrouping;
+    }
+
+    /** The engine's display with grouping, written straight from the typed operand. */
+    public DisplayFormatter format(CalculatorEngine engine) {
+        CalculatorEngine.Operand operand = engine.displayOperand();
+        if (!operand.isPlain()) {
+            return group(operand.toString());
+        }
+        boolean negative = operand.isNegative();
+        long unscaled = Math.abs(operand.signedUnscaled());
+        int scale = operand.scale();
+        length = 0;
+        if (!operand.hasDecimalPoint()) {
+            if (unscaled > 999 && groupingSize > 0) {
+                writeGrouped(negative, unscaled);
+            } else {
+                // Long.parseLong("-0") is 0, so "-0" is left alone like any small value.
+                if (negative) append('-');
+                writeDigits(unscaled, '0');
+            }
+        } else if (decimalGrouping) {
+            writeGroupedDecimal(negative, unscaled, scale);
+        } else {
+            if (negative) append('-');
+            writePlain(unscaled, scale, true);
+        }
+        return this;
+    }
+
+    /** Groups {@code value} the way {@link CalculatorEngine#displayText} does. */
+    public DisplayFormatter group(CharSequence value) {
+        length = 0;
+        int n = value.length();
+        int dot = -1;
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c == 'E') return copy(value);
+            if (c == '.' && dot < 0) dot = i;
+        }
+        if (dot >= 0) {
+            return decimalGrouping && groupDecimal(value, dot) ? this : copy(value);
+        }
+
+        // Long.parseLong, accumulating negatively so Long.MIN_VALUE fits.
+        int i = 0;
+        boolean negative = false;
+        if (n > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i = 1;
+        }
+        if (i == n) return copy(value);
+        long result = 0;
+        for (; i < n; i++) {
+            int d = value.charAt(i) - '0';
+            if (d < 0 || d > 9 || result < Long.MIN_VALUE / 10) return copy(value);
+            result *= 10;
+            if (result < Long.MIN_VALUE + d) return copy(value);
+            result -= d;
+        }
+        // Math.abs(Long.MIN_VALUE) is negative, so the original never grouped it either.
+        if (result == Long.MIN_VALUE || -result <= 999 || groupingSize == 0) return copy(value);
+        writeGrouped(negative, -result);
+        return this;
+    }
+
+    /** {@link CalculatorEngine#formatResult} at {@link Precision#STANDARD}. */
+    public DisplayFormatter formatResult(BigDecimal result) {
+        double d = result.doubleValue();
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            return copy(CalculatorEngine.ERROR);
+        }
+        double abs = Math.abs(d);
+        if (abs >= 1e12 || (abs < 1e-6 && d != 0)) {
+            return writeScientific(d);
+        }
+
+        length = 0;
+        if (result.signum() == 0) {
+            append('0');
+            return this;
+        }
+        if (result.precision() <= 18) {
+            long unscaled = result.unscaledValue().longValue();
+            int scale = result.scale();
+            while (unscaled % 10 == 0) {
+                unscaled /= 10;
+                scale--;
+            }
+            if (unscaled < 0) append('-');
+            writePlain(Math.abs(unscaled), scale, false);
+        } else {
+            String plain = result.stripTrailingZeros().toPlainString();
+            ensureCapacity(plain.length());
+            plain.getChars(0, plain.length(), buffer, 0);
+            length = plain.length();
+        }
+        if (length > CalculatorEngine.MAX_INPUT_LENGTH && indexOf('.') >= 0) {
+            length = CalculatorEngine.MAX_INPUT_LENGTH;
+        }
+        return this;
+    }
+
+    /** The buffer holding the last result; only the first {@link #length()} chars are valid. */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index);
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end);
+        }
+        return new String(buffer, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    // ---- writers ----
+
+    /**
+     * Scientific notation through the same {@code DecimalFormat} the engine used. Its
+     * half-even rounding of ties depends on the platform's double-to-digits conversion, so it is
+     * kept rather than imitated. Only results outside [1e-6, 1e12) come here.
+     */
+    private DisplayFormatter writeScientific(double d) {
+        if (scientificFormat == null) {
+            scientificFormat = new DecimalFormat("0.#####E0", DecimalFormatSymbols.getInstance(locale));
+            scientificText = new StringBuffer(16);
+            fieldPosition = new FieldPosition(0);
+        }
+        scientificText.setLength(0);
+        scientificFormat.format(d, scientificText, fieldPosition);
+        length = 0;
+        ensureCapacity(scientificText.length());
+        scientificText.getChars(0, scientificText.length(), buffer, 0);
+        length = scientificText.length();
+        return this;
+    }
+
+    /** {@code String.format("%,d")} of a magnitude above 999. */
+    private void writeGrouped(boolean negative, long magnitude) {
+        // Formatter writes a plain '-' whatever the locale.
+        if (negative) append('-');
+        writeGroupedDigits(magnitude);
+    }
+
+    private void writeGroupedDigits(long magnitude) {
+        int count = toDigits(magnitude, zeroDigit);
+        int start = digits.length - count;
+        ensureCapacity(length + count + count / Math.max(groupingSize, 1));
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && groupingSize > 0 && (count - i) % groupingSize == 0) {
+                buffer[length++] = groupingSeparator;
+            }
+            buffer[length++] = digits[start + i];
+        }
+    }
+
+    private void writeGroupedDecimal(boolean negative, long unscaled, int scale) {
+        if (negative) append('-');
+        long pow = ScaledArithmetic.POW10[scale];
+        writeGroupedDigits(unscaled / pow);
+        append(decimalSeparator);
+        if (scale > 0) {
+            writeFraction(unscaled % pow, scale, zeroDigit);
+        }
+    }
+
+    private boolean groupDecimal(CharSequence value, int dot) {
+        int n = value.length();
+        int i = value.length() > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if (i == dot) return false;
+        for (int j = i; j < n; j++) {
+            char c = value.charAt(j);
+            if (j != dot && (c < '0' || c > '9')) return false;
+        }
+        length = 0;
+        if (i == 1) append('-');
+        int intDigits = dot - i;
+        ensureCapacity(length + 2 * n);
+        for (int j = i; j < dot; j++) {
+            if (j > i && groupingSize > 0 && (intDigits - (j - i)) % groupingSize == 0) {
+                buffer[length++] = groupingSeparator;
+            }
+            buffer[length++] = (char) (zeroDigit + (value.charAt(j) - '0'));
+        }
+        buffer[length++] = decimalSeparator;
+        for (int j = dot + 1; j < n; j++) {
+            buffer[length++] = (char) (zeroDigit + (value.charAt(j) - '0'));
+        }
+        return true;
+    }
+
+    /**
+     * {@code BigDecimal.valueOf(magnitude, scale).toPlainString()} without the sign. With
+     * {@code keepPoint} a scale-0 value keeps its trailing point, as typed input does.
+     */
+    private void writePlain(long magnitude, int scale, boolean keepPoint) {
+        if (scale <= 0) {
+            writeDigits(magnitude, '0');
+            for (int i = scale; i < 0; i++) append('0');
+            if (keepPoint) append('.');
+            return;
+        }
+        int count = toDigits(magnitude, '0');
+        int start = digits.length - count;
+        if (count > scale) {
+            appendDigits(start, count - scale);
+            append('.');
+            appendDigits(start + count - scale, scale);
+        } else {
+            append('0');
+            append('.');
+            for (int i = count; i < scale; i++) append('0');
+            appendDigits(start, count);
+        }
+    }
+
+    /** The low {@code scale} digits of {@code fraction}, zero-padded on the left. */
+    private void writeFraction(long fraction, int scale, char zero) {
+        int count = toDigits(fraction, zero);
+        for (int i = count; i < scale; i++) append(zero);
+        appendDigits(digits.length - count, count);
+    }
+
+    private void writeDigits(long magnitude, char zero) {
+        int count = toDigits(magnitude, zero);
+        appendDigits(digits.length - count, count);
+    }
+
+    /** Fills the right end of {@link #digits}; returns how many were written. */
+    private int toDigits(long magnitude, char zero) {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) (zero + (int) (magnitude % 10));
+            magnitude /= 10;
+        } while (magnitude != 0);
+        return digits.length - pos;
+    }
+
+    private void appendDigits(int start, int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(digits, start, buffer, length, count);
+        length += count;
+    }
+
+    private DisplayFormatter copy(CharSequence value) {
+        int n = value.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) buffer[i] = value.charAt(i);
+        length = n;
+        return this;
+    }
+
+    private void append(char c) {
+        ensureCapacity(length + 1);
+        buffer[length++] = c;
+    }
+
+    private int indexOf(char c) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == c) return i;
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            char[] grown = new char[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An infix expression compiled once into a flat stack-machine program, so it can be evaluated
+ * many times with different variable values without parsing again.
+ *
+ * <p>Grammar, lowest precedence first:
+ * <pre>
+ * expr    := term (('+' | '-' | '−') term)*
+ * term    := unary (('*' | '×' | '/' | '÷') unary)*
+ * unary   := ('-' | '−' | '+' | '√') unary | power
+ * power   := postfix ('^' unary)?
+ * postfix := primary ('%' | '²' | '⁻¹' | '!')*
+ * primary := number | name | name '(' expr ')' | '(' expr ')'
+ * </pre>
+ * {@code sqrt(x)} and {@code recip(x)} are spelled-out forms of {@code √x} and {@code x⁻¹}, and
+ * {@code sin cos tan ln log exp fact} are the {@link ScientificMath.Function}s; any other name is
+ * a variable. {@code ^} binds right to left and tighter than a leading minus, so {@code -2^2} is
+ * -4. Operators follow the keypad: {@code %} divides by 100 and every arithmetic step is rounded
+ * to the {@link MathContext} passed to {@link #evaluate}.
+ */
+public final class Expression {
+
+    static final int CONST = 0;
+    static final int VAR = 1;
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int DIV = 5;
+    static final int NEG = 6;
+    static final int PERCENT = 7;
+    static final int SQUARE = 8;
+    static final int SQRT = 9;
+    static final int RECIP = 10;
+    static final int POW = 11;
+    static final int FUNC = 12;
+
+    private static final ScientificMath.Function[] FUNCTIONS = ScientificMath.Function.values();
+
+    /** {@link ArithmeticException} messages thrown by {@link #evaluate}. */
+    public static final String DIVISION_BY_ZERO = "Division by zero";
+    public static final String NEGATIVE_SQRT = "Square root of negative number";
+    public static final String OUT_OF_DOMAIN = "Argument outside the function's domain";
+    public static final String OVERFLOW = "Result too large";
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final String source;
+    private final int[] code;
+    private final BigDecimal[] constants;
+    private final String[] variables;
+    private final int maxStack;
+
+    private Expression(String source, int[] code, BigDecimal[] constants, String[] variables, int maxStack) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    public static Expression compile(String source) {
+        return new Compiler(source).compile();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /** Number of distinct variables, in order of first appearance. */
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public String getVariableName(int index) {
+        return variables[index];
+    }
+
+    /** Index of {@code name} for {@link #evaluate}, or -1 if the expression does not use it. */
+    public int indexOfVariable(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the program. {@code values} are bound to variables by index and must cover all of
+     * them. Throws {@link ArithmeticException} on division by zero, a negative square root, an
+     * argument outside a function's domain, or a result too large to hold.
+     */
+    public BigDecimal evaluate(MathContext mathContext, BigDecimal... values) {
+        if (values.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values, got " + values.length);
+        }
+        BigDecimal[] stack = new BigDecimal[maxStack];
+        int sp = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case CONST:
+                    stack[sp++] = constants[code[pc++]];
+                    break;
+                case VAR:
+                    stack[sp++] = values[code[pc++]];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1].add(stack[sp], mathContext);
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1].subtract(stack[sp], mathContext);
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1].multiply(stack[sp], mathContext);
+                    break;
+                case DIV:
+                    sp--;
+                    if (stack[sp].signum() == 0) throw new ArithmeticException(DIVISION_BY_ZERO);
+                    stack[sp - 1] = stack[sp - 1].divide(stack[sp], mathContext);
+                    break;
+                case NEG:
+                    stack[sp - 1] = stack[sp - 1].negate();
+                    break;
+                case PERCENT:
+                    stack[sp - 1] = stack[sp - 1].divide(HUNDRED, mathContext);
+                    break;
+                case SQUARE:
+                    stack[sp - 1] = stack[sp - 1].multiply(stack[sp - 1], mathContext);
+                    break;
+                case SQRT:
+                    stack[sp - 1] = BigDecimalMath.sqrt(stack[sp - 1], mathContext);
+                    break;
+                case RECIP:
+                    stack[sp - 1] = BigDecimalMath.reciprocal(stack[sp - 1], mathContext);
+                    break;
+                case POW:
+                    sp--;
+                    stack[sp - 1] = ScientificMath.pow(stack[sp - 1], stack[sp], mathContext);
+                    break;
+                case FUNC:
+                    stack[sp - 1] = FUNCTIONS[code[pc++]].apply(stack[sp - 1], mathContext);
+                    break;
+                default:
+                    throw new IllegalStateException("Bad opcode at " + (pc - 1));
+            }
+        }
+        return stack[0];
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /** Recursive-descent parser that emits code while it reads. */
+    private static final class Compiler {
+        private final String src;
+        private int pos;
+        private int[] code = new int[16];
+        private int length;
+        private final List<BigDecimal> constants = new ArrayList<>();
+        private final List<String> variables = new ArrayList<>();
+        private int depth;
+        private int maxDepth;
+
+        Compiler(String src) {
+            this.src = src;
+        }
+
+        Expression compile() {
+            skipSpaces();
+            if (pos == src.length()) throw new ExpressionException("Empty expression", pos);
+            expr();
+            skipSpaces();
+            if (pos < src.length()) throw new ExpressionException("Unexpected '" + src.charAt(pos) + "'", pos);
+            return new Expression(src, Arrays.copyOf(code, length),
+                    constants.toArray(new BigDecimal[0]), variables.toArray(new String[0]), maxDepth);
+        }
+
+        private void expr() {
+            term();
+            while (true) {
+                skipSpaces();
+                if (accept('+')) {
+                    term();
+                    emitBinary(ADD);
+                } else if (accept('-') || accept('−')) {
+                    term();
+                    emitBinary(SUB);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void term() {
+            unary();
+            while (true) {
+                skipSpaces();
+                if (accept('*') || accept('×')) {
+                    unary();
+                    emitBinary(MUL);
+                } else if (accept('/') || accept('÷')) {
+                    unary();
+                    emitBinary(DIV);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void unary() {
+            skipSpaces();
+            if (accept('-') || accept('−')) {
+                unary();
+                emit(NEG);
+            } else if (accept('+')) {
+                unary();
+            } else if (accept('√')) {
+                unary();
+                emit(SQRT);
+            } else {
+                power();
+            }
+        }
+
+        private void power() {
+            postfix();
+            skipSpaces();
+            if (accept('^')) {
+                unary();
+                emitBinary(POW);
+            }
+        }
+
+        private void postfix() {
+            primary();
+            while (true) {
+                skipSpaces();
+                if (accept('%')) {
+                    emit(PERCENT);
+                } else if (accept('²')) {
+                    emit(SQUARE);
+                } else if (src.startsWith("⁻¹", pos)) {
+                    pos += 2;
+                    emit(RECIP);
+                } else if (accept('!')) {
+                    emit(FUNC);
+                    emit(ScientificMath.Function.FACTORIAL.ordinal());
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void primary() {
+            skipSpaces();
+            if (pos >= src.length()) throw new ExpressionException("Unexpected end of expression", pos);
+            char c = src.charAt(pos);
+            if (accept('(')) {
+                expr();
+                expect(')');
+            } else if ((c >= '0' && c <= '9') || c == '.') {
+                number();
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) {
+                    pos++;
+                }
+                String name = src.substring(start, pos);
+                skipSpaces();
+                if (accept('(')) {
+                    ScientificMath.Function function = ScientificMath.Function.forName(name);
+                    int op;
+                    if (name.equals("sqrt")) op = SQRT;
+                    else if (name.equals("recip")) op = RECIP;
+                    else if (function != null) op = FUNC;
+                    else throw new ExpressionException("Unknown function '" + name + "'", start);
+                    expr();
+                    expect(')');
+                    emit(op);
+                    if (function != null) emit(function.ordinal());
+                } else {
+                    int index = variables.indexOf(name);
+                    if (index < 0) {
+                        index = variables.size();
+                        variables.add(name);
+                    }
+                    emitPush(VAR, index);
+                }
+            } else {
+                throw new ExpressionException("Unexpected '" + c + "'", pos);
+            }
+        }
+
+        private void number() {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            if (pos < src.length() && (src.charAt(pos) == 'E' || src.charAt(pos) == 'e')) {
+                int mark = pos++;
+                if (pos < src.length() && (src.charAt(pos) == '-' || src.charAt(pos) == '+')) pos++;
+                if (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                    while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+                } else {
+                    pos = mark;
+                }
+            }
+            BigDecimal value;
+            try {
+                value = new BigDecimal(src.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw new ExpressionException("Bad number '" + src.substring(start, pos) + "'", start);
+            }
+            int index = constants.indexOf(value);
+            if (index < 0) {
+                index = constants.size();
+                constants.add(value);
+            }
+            emitPush(CONST, index);
+        }
+
+        private void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private boolean accept(char c) {
+            if (pos < src.length() && src.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (!accept(c)) throw new ExpressionException("Expected '" + c + "'", pos);
+        }
+
+        private void emitPush(int op, int operand) {
+            emit(op);
+            emit(operand);
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private void emitBinary(int op) {
+            emit(op);
+            depth--;
+        }
+
+        private void emit(int word) {
+            if (length == code.length) code = Arrays.copyOf(code, length * 2);
+            code[length++] = word;
+        }
+    }
+}
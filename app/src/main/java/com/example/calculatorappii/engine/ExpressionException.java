@@ -0,0 +1,19 @@
+package com.example.calculatorappii.engine;
+
+/** Thrown by {@link Expression#compile} for malformed input. */
+public class ExpressionException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public ExpressionException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /** Character offset in the source where the problem was found. */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Percentage, tax and interest functions. Rates are given in percent, as typed, e.g. {@code 6.5}
+ * for 6.5%.
+ *
+ * <p>Functions that only multiply are exact. Those that divide or raise to a power take a
+ * {@link MathContext}. The tables ({@link #growthTable} and {@link AmortizationSchedule}) work
+ * in minor units (cents for a scale of 2). Each period's interest is rounded half-even to the
+ * minor unit, as a bank statement would show it.
+ */
+public final class Finance {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private Finance() {}
+
+    /** {@code percent}% of {@code base}: {@code percentOf(15, 80) = 12}. Exact. */
+    public static BigDecimal percentOf(BigDecimal percent, BigDecimal base) {
+        return base.multiply(percent).movePointLeft(2);
+    }
+
+    /** What percent {@code part} is of {@code whole}: {@code percentage(12, 80) = 15}. */
+    public static BigDecimal percentage(BigDecimal part, BigDecimal whole, MathContext mc) {
+        if (whole.signum() == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        return part.movePointRight(2).divide(whole, mc);
+    }
+
+    /** {@code cost} plus {@code percent}% of it. Exact. */
+    public static BigDecimal markup(BigDecimal cost, BigDecimal percent) {
+        return cost.add(percentOf(percent, cost));
+    }
+
+    /** The price at which {@code percent}% of the price is margin over {@code cost}. */
+    public static BigDecimal priceForMargin(BigDecimal cost, BigDecimal percent, MathContext mc) {
+        BigDecimal keep = HUNDRED.subtract(percent);
+        if (keep.signum() <= 0) throw new ArithmeticException("Margin must be below 100%");
+        return cost.movePointRight(2).divide(keep, mc);
+    }
+
+    /** {@code net} with {@code ratePercent} tax added. Exact. */
+    public static BigDecimal addTax(BigDecimal net, BigDecimal ratePercent) {
+        return markup(net, ratePercent);
+    }
+
+    /** The net amount inside a tax-inclusive {@code gross}. */
+    public static BigDecimal removeTax(BigDecimal gross, BigDecimal ratePercent, MathContext mc) {
+        BigDecimal factor = HUNDRED.add(ratePercent);
+        if (factor.signum() == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        return gross.movePointRight(2).divide(factor, mc);
+    }
+
+    /**
+     * {@code principal × (1 + r/n)^(n·years)} for an annual rate compounded {@code n} times a
+     * year, without rounding between periods.
+     */
+    public static BigDecimal compound(BigDecimal principal, BigDecimal annualRatePercent,
+                                      int periodsPerYear, int years, MathContext mc) {
+        if (periodsPerYear <= 0 || years < 0) {
+            throw new IllegalArgumentException("periodsPerYear " + periodsPerYear + ", years " + years);
+        }
+        BigDecimal factor = BigDecimal.ONE.add(periodRate(annualRatePercent, periodsPerYear, mc));
+        MathContext work = new MathContext(mc.getPrecision() + 10, mc.getRoundingMode());
+        return principal.multiply(factor.pow(periodsPerYear * years, work)).round(mc);
+    }
+
+    /**
+     * The balance after each period, in minor units: {@code out[i]} is the balance after period
+     * {@code i + 1}. Interest is credited and rounded each period. Computed in one pass over
+     * longs; returns {@code out}.
+     */
+    public static long[] growthTable(long principalMinor, BigDecimal annualRatePercent,
+                                     int periodsPerYear, long[] out) {
+        Rate rate = new Rate(annualRatePercent, periodsPerYear);
+        long balance = principalMinor;
+        for (int i = 0; i < out.length; i++) {
+            balance = add(balance, rate.interest(balance));
+            out[i] = balance;
+        }
+        return out;
+    }
+
+    /** {@code a + b}, throwing rather than wrapping on overflow. */
+    static long add(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) throw new ArithmeticException("Amount too large");
+        return sum;
+    }
+
+    /** {@code annualRatePercent / 100 / periodsPerYear}. */
+    static BigDecimal periodRate(BigDecimal annualRatePercent, int periodsPerYear, MathContext mc) {
+        return annualRatePercent.divide(BigDecimal.valueOf(100L * periodsPerYear), mc);
+    }
+
+    /**
+     * A per-period rate as the fraction {@code numerator / denominator}, so interest on a
+     * balance in minor units is one multiply and one rounded divide.
+     */
+    static final class Rate {
+        final long numerator;
+        final long denominator;
+
+        Rate(BigDecimal annualRatePercent, int periodsPerYear) {
+            if (periodsPerYear <= 0) throw new IllegalArgumentException("periodsPerYear " + periodsPerYear);
+            BigDecimal rate = annualRatePercent.stripTrailingZeros();
+            if (rate.scale() < 0) rate = rate.setScale(0);
+            if (rate.scale() > 12 || rate.unscaledValue().bitLength() > 40) {
+                throw new IllegalArgumentException("Unsupported rate: " + annualRatePercent);
+            }
+            numerator = rate.unscaledValue().longValue();
+            denominator = ScaledArithmetic.multiplyExact(100L * periodsPerYear, ScaledArithmetic.POW10[rate.scale()]);
+            if (denominator == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Unsupported rate: " + annualRatePercent);
+            }
+        }
+
+        /** {@code balance × rate}, rounded half-even to a whole minor unit. */
+        long interest(long balance) {
+            long product = ScaledArithmetic.multiplyExact(balance, numerator);
+            if (product == Long.MIN_VALUE) {
+                return new BigDecimal(BigInteger.valueOf(balance).multiply(BigInteger.valueOf(numerator)))
+                        .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_EVEN)
+                        .longValueExact();
+            }
+            long q = product / denominator;
+            long r = product % denominator;
+            long twice = Math.abs(r) * 2;
+            if (twice > denominator || (twice == denominator && (q & 1) != 0)) {
+                q += product < 0 ? -1 : 1;
+            }
+            return q;
+        }
+
+        BigDecimal toBigDecimal(MathContext mc) {
+            return BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator), mc);
+        }
+    }
+}
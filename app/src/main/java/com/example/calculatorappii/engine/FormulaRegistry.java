@@ -0,0 +1,426 @@
+package com.example.calculatorappii.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named user constants and formulas, such as {@code tax = 1.15} and
+ * {@code net = price × tax − discount}.
+ *
+ * <p>A formula's parameters are either listed, as in {@code net(price, discount) = ...}, or are
+ * the names in its body that are not constants, in order of first appearance. Other names are
+ * constants, read when the formula is called, so redefining {@code tax} changes every formula
+ * that uses it.
+ *
+ * <p>A formula is compiled once into an {@link Expression}. Each compiled formula keeps a
+ * binding from its variables to argument positions and constant values, so a call copies
+ * arguments into place and runs the program, with no parsing or name lookups. Compiled formulas
+ * live in a bounded LRU, like {@link ResultCache}. One that has been evicted, or not called since
+ * the registry was restored, is compiled again from its source on its next call. Definitions are
+ * saved as source text, so a saved registry does not depend on the compiled program's layout.
+ * Not thread-safe.
+ */
+public final class FormulaRegistry {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final int VERSION = 1;
+
+    /** A constant (null parameters) or a formula, as defined. */
+    private static final class Definition {
+        final String name;
+        // Null for a constant.
+        final String[] parameters;
+        final String body;
+        final BigDecimal value;
+
+        Definition(String name, String[] parameters, String body, BigDecimal value) {
+            this.name = name;
+            this.parameters = parameters;
+            this.body = body;
+            this.value = value;
+        }
+    }
+
+    /** A formula ready to run: its program and where each variable's value comes from. */
+    private static final class Compiled {
+        final Expression expression;
+        // Per variable: the argument it takes, or -1 for a constant.
+        final int[] argumentOf;
+        // Variable values, with constants filled in by the last bind.
+        final BigDecimal[] values;
+        int constantsVersion = -1;
+
+        Compiled(Expression expression, String[] parameters) {
+            this.expression = expression;
+            int n = expression.getVariableCount();
+            argumentOf = new int[n];
+            values = new BigDecimal[n];
+            for (int i = 0; i < n; i++) argumentOf[i] = indexOf(parameters, expression.getVariableName(i));
+        }
+    }
+
+    // In definition order.
+    private final Map<String, Definition> definitions = new LinkedHashMap<>();
+    private final Map<String, Compiled> compiled;
+    private int capacity;
+    // Bumped whenever a constant changes, so bindings know to refresh.
+    private int constantsVersion;
+    private long hits;
+    private long compiles;
+    private long evictions;
+
+    public FormulaRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** Keeps at most {@code capacity} compiled formulas. */
+    public FormulaRegistry(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.compiled = new LinkedHashMap<String, Compiled>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Compiled> eldest) {
+                if (size() > FormulaRegistry.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ---- definitions ----
+
+    /**
+     * Defines a constant or formula from text such as {@code tax = 1.15},
+     * {@code net = price × tax − discount} or {@code area(w, h) = w × h}, replacing any
+     * definition of the same name. A body without parameters or unknown names is a constant,
+     * evaluated now at {@code mathContext}. Returns the name. Throws
+     * {@link ExpressionException} for malformed text and {@link ArithmeticException} for a
+     * constant that cannot be evaluated.
+     */
+    public String define(String text, MathContext mathContext) {
+        int equals = text.indexOf('=');
+        if (equals < 0) throw new ExpressionException("Expected '='", text.length());
+        String head = text.substring(0, equals).trim();
+        String body = text.substring(equals + 1);
+        int open = head.indexOf('(');
+        String name = open < 0 ? head : head.substring(0, open).trim();
+        checkName(name, 0);
+        String[] parameters = null;
+        if (open >= 0) {
+            if (!head.endsWith(")")) throw new ExpressionException("Expected ')'", equals);
+            parameters = splitParameters(head.substring(open + 1, head.length() - 1), open + 1);
+        }
+        Expression expression = Expression.compile(body);
+        if (parameters == null) {
+            List<String> free = new ArrayList<>();
+            for (int i = 0; i < expression.getVariableCount(); i++) {
+                String variable = expression.getVariableName(i);
+                if (!isConstant(variable)) free.add(variable);
+            }
+            if (free.isEmpty()) {
+                defineConstant(name, evaluate(new Compiled(expression, new String[0]), mathContext));
+                return name;
+            }
+            parameters = free.toArray(new String[0]);
+        }
+        defineFormula(name, parameters, expression);
+        return name;
+    }
+
+    public void defineConstant(String name, BigDecimal value) {
+        checkName(name, 0);
+        if (value == null) throw new IllegalArgumentException("value must not be null");
+        replace(new Definition(name, null, null, value));
+        constantsVersion++;
+    }
+
+    /** Defines {@code name(parameters) = body}; the body is compiled now, once. */
+    public void defineFormula(String name, String[] parameters, String body) {
+        defineFormula(name, parameters, Expression.compile(body));
+    }
+
+    private void defineFormula(String name, String[] parameters, Expression expression) {
+        checkName(name, 0);
+        checkParameters(parameters);
+        boolean wasConstant = isConstant(name);
+        replace(new Definition(name, parameters.clone(), expression.getSource().trim(), null));
+        compiled.put(name, new Compiled(expression, parameters));
+        compiles++;
+        if (wasConstant) constantsVersion++;
+    }
+
+    /** Returns false if there was no such name. */
+    public boolean remove(String name) {
+        Definition removed = definitions.remove(name);
+        if (removed == null) return false;
+        compiled.remove(name);
+        if (removed.parameters == null) constantsVersion++;
+        return true;
+    }
+
+    public void clear() {
+        definitions.clear();
+        compiled.clear();
+        constantsVersion++;
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+
+    /** Every name, in the order defined. */
+    public String[] getNames() {
+        return definitions.keySet().toArray(new String[0]);
+    }
+
+    public boolean contains(String name) {
+        return definitions.containsKey(name);
+    }
+
+    public boolean isConstant(String name) {
+        Definition d = definitions.get(name);
+        return d != null && d.parameters == null;
+    }
+
+    /** A constant's value; throws for a formula or an unknown name. */
+    public BigDecimal getConstant(String name) {
+        Definition d = definitions.get(name);
+        if (d == null || d.parameters != null) throw new IllegalArgumentException("Not a constant: " + name);
+        return d.value;
+    }
+
+    /** A formula's parameters in call order, or an empty array for a constant. */
+    public String[] getParameters(String name) {
+        Definition d = require(name);
+        return d.parameters == null ? new String[0] : d.parameters.clone();
+    }
+
+    /** The definition as {@link #define} reads it, e.g. {@code net(price, discount) = price × tax − discount}. */
+    public String getDefinition(String name) {
+        Definition d = require(name);
+        if (d.parameters == null) return d.name + " = " + d.value.toString();
+        StringBuilder sb = new StringBuilder(d.name).append('(');
+        for (int i = 0; i < d.parameters.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(d.parameters[i]);
+        }
+        return sb.append(") = ").append(d.body).toString();
+    }
+
+    // ---- calls ----
+
+    /**
+     * A constant's value, or a formula evaluated with {@code arguments} bound to its parameters
+     * in order. Throws {@link IllegalArgumentException} for an unknown name, the wrong number of
+     * arguments, or a formula whose constant has since been removed, and
+     * {@link ArithmeticException} as {@link Expression#evaluate} does.
+     */
+    public BigDecimal call(String name, MathContext mathContext, BigDecimal... arguments) {
+        Definition d = require(name);
+        int expected = d.parameters == null ? 0 : d.parameters.length;
+        if (arguments.length != expected) {
+            throw new IllegalArgumentException(name + " takes " + expected + " values, got " + arguments.length);
+        }
+        if (d.parameters == null) return d.value;
+        Compiled c = compiled.get(name);
+        if (c != null) {
+            hits++;
+        } else {
+            c = new Compiled(Expression.compile(d.body), d.parameters);
+            compiled.put(name, c);
+            compiles++;
+        }
+        int[] argumentOf = c.argumentOf;
+        for (int i = 0; i < argumentOf.length; i++) {
+            if (argumentOf[i] >= 0) c.values[i] = arguments[argumentOf[i]];
+        }
+        return evaluate(c, mathContext);
+    }
+
+    private BigDecimal evaluate(Compiled c, MathContext mathContext) {
+        if (c.constantsVersion != constantsVersion) {
+            for (int i = 0; i < c.argumentOf.length; i++) {
+                if (c.argumentOf[i] >= 0) continue;
+                String variable = c.expression.getVariableName(i);
+                if (!isConstant(variable)) throw new IllegalArgumentException("Unknown name '" + variable + "'");
+                c.values[i] = getConstant(variable);
+            }
+            c.constantsVersion = constantsVersion;
+        }
+        return c.expression.evaluate(mathContext, c.values);
+    }
+
+    // ---- cache ----
+
+    /** Shrinking the capacity evicts least recently used formulas straight away. */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        Iterator<String> it = compiled.keySet().iterator();
+        while (compiled.size() > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** How many formulas are compiled and resident. */
+    public int getCompiledCount() {
+        return compiled.size();
+    }
+
+    /** Calls that found their formula compiled. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** Times a formula was parsed: once per definition, plus once per call after an eviction. */
+    public long getCompiles() {
+        return compiles;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // ---- persistence ----
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(definitions.size());
+        for (Definition d : definitions.values()) {
+            out.writeUTF(d.name);
+            if (d.parameters == null) {
+                out.writeInt(-1);
+                out.writeUTF(d.value.toString());
+            } else {
+                out.writeInt(d.parameters.length);
+                for (String p : d.parameters) out.writeUTF(p);
+                out.writeUTF(d.body);
+            }
+        }
+    }
+
+    /**
+     * Replaces every definition with ones written by {@link #writeTo}. Formulas are checked but
+     * not kept compiled; each compiles on its first call. On {@link IOException} the registry is
+     * left as it was.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unknown formula version: " + version);
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Bad formula count: " + n);
+        List<Definition> read = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                checkName(name, 0);
+                int count = in.readInt();
+                if (count < 0) {
+                    read.add(new Definition(name, null, null, new BigDecimal(in.readUTF())));
+                    continue;
+                }
+                if (count > 255) throw new IOException("Bad parameter count: " + count);
+                String[] parameters = new String[count];
+                for (int p = 0; p < count; p++) parameters[p] = in.readUTF();
+                checkParameters(parameters);
+                String body = in.readUTF();
+                Expression.compile(body);
+                read.add(new Definition(name, parameters, body, null));
+            }
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException and ExpressionException.
+            throw new IOException("Bad formula: " + e.getMessage());
+        }
+        clear();
+        for (Definition d : read) definitions.put(d.name, d);
+    }
+
+    /** {@link #writeTo} as a byte array, e.g. for a {@link StateSnapshot}. */
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            writeTo(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** {@link #readFrom} of {@link #toBytes()} output. */
+    public void restore(byte[] bytes) throws IOException {
+        readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    // ---- helpers ----
+
+    private void replace(Definition definition) {
+        definitions.remove(definition.name);
+        definitions.put(definition.name, definition);
+        compiled.remove(definition.name);
+    }
+
+    private Definition require(String name) {
+        Definition d = definitions.get(name);
+        if (d == null) throw new IllegalArgumentException("Unknown name '" + name + "'");
+        return d;
+    }
+
+    private static String[] splitParameters(String list, int offset) {
+        if (list.trim().isEmpty()) return new String[0];
+        String[] parameters = list.split(",");
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = parameters[i].trim();
+            checkName(parameters[i], offset);
+        }
+        return parameters;
+    }
+
+    /** A name as {@link Expression} reads one: a letter or underscore, then letters, digits or underscores. */
+    private static void checkName(String name, int position) {
+        boolean valid = name != null && !name.isEmpty()
+                && (Character.isLetter(name.charAt(0)) || name.charAt(0) == '_');
+        for (int i = 1; valid && i < name.length(); i++) {
+            char c = name.charAt(i);
+            valid = Character.isLetterOrDigit(c) || c == '_';
+        }
+        if (!valid) throw new ExpressionException("Bad name '" + name + "'", position);
+    }
+
+    /** Valid names, none repeated; the same checks for a new definition and a saved one. */
+    private static void checkParameters(String[] parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            checkName(parameters[i], 0);
+            if (indexOf(parameters, parameters[i]) != i) {
+                throw new IllegalArgumentException("Parameter named twice: " + parameters[i]);
+            }
+        }
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+}
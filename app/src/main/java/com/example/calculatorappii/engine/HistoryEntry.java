@@ -0,0 +1,93 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+
+/** One completed calculation, e.g. {@code 12 × 3 = 36}. Immutable. */
+public final class HistoryEntry {
+
+    private final long index;
+    private final long timestamp;
+    private final String expression;
+    private final String result;
+
+    public HistoryEntry(long index, long timestamp, String expression, String result) {
+        this.index = index;
+        this.timestamp = timestamp;
+        this.expression = expression;
+        this.result = result;
+    }
+
+    /** Position in the history, 0 for the oldest entry. */
+    public long getIndex() {
+        return index;
+    }
+
+    /** When the calculation was made, in epoch milliseconds. */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /** True when {@code query} matches this entry in {@code field}; see {@link HistoryStore.Field}. */
+    public boolean matches(String query, HistoryStore.Field field) {
+        switch (field) {
+            case OPERAND:
+                for (String token : expression.split(" ")) {
+                    if (!isOperator(token) && sameNumber(token, query)) return true;
+                }
+                return false;
+            case OPERATOR:
+                String symbol = CalculatorEngine.operatorSymbol(toOperatorChar(query));
+                for (String token : expression.split(" ")) {
+                    if (token.equals(symbol)) return true;
+                }
+                return false;
+            case RESULT:
+                return sameNumber(result, query);
+            case ANY:
+            default:
+                return expression.contains(query) || result.contains(query);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression + " = " + result;
+    }
+
+    private static boolean isOperator(String token) {
+        return token.length() == 1 && "+−×÷".indexOf(token.charAt(0)) >= 0;
+    }
+
+    private static char toOperatorChar(String query) {
+        if (query.length() != 1) return 0;
+        switch (query.charAt(0)) {
+            case '+': return '+';
+            case '-':
+            case '−': return '-';
+            case '*':
+            case '×': return '*';
+            case '/':
+            case '÷': return '/';
+            default: return 0;
+        }
+    }
+
+    /** Text equality, or numeric equality when both parse, so {@code 2.50} finds {@code 2.5}. */
+    private static boolean sameNumber(String text, String query) {
+        if (text.equals(query)) return true;
+        if (text.isEmpty() || query.isEmpty()) return false;
+        try {
+            return new BigDecimal(text).compareTo(new BigDecimal(query.replace(",", ""))) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
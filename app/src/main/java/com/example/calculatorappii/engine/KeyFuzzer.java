@@ -0,0 +1,129 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Presses random keys and checks {@link KeyReplay}'s invariants after each one.
+ *
+ * <p>Keys come in sequences of {@link #setSequenceLength} keys, each on a fresh engine. Each
+ * sequence is generated from the seed and its own index alone. A violation is therefore
+ * reported with just the keys of its sequence, and the same seed always finds it again. Digits
+ * are weighted up so that numbers reach the 15-digit cap. The generator is an inline xorshift
+ * and the checks do not allocate, so the cost is mostly the engine's own. Not thread-safe: run
+ * one fuzzer per thread, with different seeds.
+ */
+public final class KeyFuzzer {
+
+    // Each digit 3 times, the point twice, the other keys once, then operators and equals, the
+    // keys that make results, up to the next power of two with at least MIN_FILL of them. The
+    // size is a power of two so a slot is just the top bits of the generator; it follows the
+    // weights, so adding keys grows the table.
+    private static final int MIN_FILL = 5;
+    private static final Key[] WEIGHTED;
+    private static final int SLOT_SHIFT;
+
+    static {
+        Key[] keys = Key.values();
+        int weights = 0;
+        for (Key key : keys) weights += weight(key);
+        int size = Integer.highestOneBit(weights + MIN_FILL - 1) << 1;
+        WEIGHTED = new Key[size];
+        SLOT_SHIFT = 64 - Integer.numberOfTrailingZeros(size);
+        int n = 0;
+        for (Key key : keys) {
+            for (int i = weight(key); i > 0; i--) WEIGHTED[n++] = key;
+        }
+        Key[] fill = {Key.PLUS, Key.MINUS, Key.MULTIPLY, Key.DIVIDE, Key.EQUALS};
+        for (int i = 0; n < WEIGHTED.length; i++) WEIGHTED[n++] = fill[i % fill.length];
+    }
+
+    private static int weight(Key key) {
+        return key.compareTo(Key.DIGIT_9) <= 0 ? 3 : key == Key.DECIMAL_POINT ? 2 : 1;
+    }
+
+    private final long seed;
+    private Precision precision = Precision.STANDARD;
+    private boolean expressionMode;
+    private Key[] sequence = new Key[64];
+    private long sequences;
+    private long keysPressed;
+
+    public KeyFuzzer(long seed) {
+        this.seed = seed;
+    }
+
+    public KeyFuzzer setPrecision(Precision precision) {
+        this.precision = precision;
+        return this;
+    }
+
+    public KeyFuzzer setExpressionMode(boolean expressionMode) {
+        this.expressionMode = expressionMode;
+        return this;
+    }
+
+    /** Keys per fresh engine; longer sequences reach deeper states but take longer to read. */
+    public KeyFuzzer setSequenceLength(int length) {
+        if (length <= 0) throw new IllegalArgumentException("length " + length);
+        sequence = new Key[length];
+        return this;
+    }
+
+    /**
+     * Runs whole sequences, continuing from the last one run, until at least {@code keys} more
+     * keys are pressed. Returns the first violation, or null.
+     */
+    public KeyReplay.Violation run(long keys) {
+        long target = keysPressed + keys;
+        while (keysPressed < target) {
+            KeyReplay.Violation violation = runSequence(sequences++);
+            if (violation != null) return violation;
+        }
+        return null;
+    }
+
+    /** Generates and checks sequence number {@code index}. */
+    public KeyReplay.Violation runSequence(long index) {
+        generate(index, sequence);
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setPrecision(precision);
+        engine.setExpressionMode(expressionMode);
+        for (int i = 0; i < sequence.length; i++) {
+            String message = KeyReplay.pressChecked(engine, sequence[i]);
+            keysPressed++;
+            if (message != null) {
+                Key[] keys = new Key[i + 1];
+                System.arraycopy(sequence, 0, keys, 0, i + 1);
+                return new KeyReplay.Violation(message + " (seed " + seed + ", sequence " + index
+                        + ", precision " + precision.getDigits() + (expressionMode ? ", expression mode" : "")
+                        + ")", keys);
+            }
+        }
+        return null;
+    }
+
+    /** Fills {@code out} with sequence number {@code index}, from the seed and index alone. */
+    void generate(long index, Key[] out) {
+        long state = mix(seed + index * 0x9E3779B97F4A7C15L);
+        if (state == 0) state = 1;
+        for (int i = 0; i < out.length; i++) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            out[i] = WEIGHTED[(int) (state >>> SLOT_SHIFT)];
+        }
+    }
+
+    public long getKeysPressed() {
+        return keysPressed;
+    }
+
+    public long getSequences() {
+        return sequences;
+    }
+
+    /** SplitMix64's finalizer, so neighbouring indexes give unrelated sequences. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Replays key sequences through {@link Key#press}, the same dispatch as
+ * {@code MainActivity.onClick}. The keys run with no views, listener or formatting, so a replay
+ * runs at JVM speed.
+ *
+ * <p>{@link #replayChecked} also checks the keypad's invariants after every key:
+ * <ul>
+ *   <li>the display is a number or exactly {@link CalculatorEngine#ERROR};</li>
+ *   <li>{@code isDecimalAdded} is only set while the display has a decimal point;</li>
+ *   <li>a digit never grows typed input past {@link CalculatorEngine#MAX_INPUT_LENGTH}
+ *       characters, and always replaces an error;</li>
+ *   <li>CE leaves {@code 0} with no decimal point pending, and C also drops the pending
+ *       operation and expression;</li>
+ *   <li>no key throws.</li>
+ * </ul>
+ * The checks read the engine's fields directly, so they do not allocate either.
+ */
+public final class KeyReplay {
+
+    /** A broken invariant and the keys, from a fresh engine, that lead to it. */
+    public static final class Violation {
+        private final String message;
+        private final Key[] keys;
+
+        Violation(String message, Key[] keys) {
+            this.message = message;
+            this.keys = keys;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Key[] getKeys() {
+            return keys.clone();
+        }
+
+        /** The keys as a script for {@link KeyScript#parse}. */
+        public String getScript() {
+            return KeyScript.format(keys);
+        }
+
+        @Override
+        public String toString() {
+            return message + " after: " + getScript();
+        }
+    }
+
+    private KeyReplay() {}
+
+    /** Presses {@code keys[from..to)} on {@code engine}. */
+    public static void replay(CalculatorEngine engine, Key[] keys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            keys[i].press(engine);
+        }
+    }
+
+    /** Replays {@code script} on a fresh engine and returns it. */
+    public static CalculatorEngine replay(String script) {
+        CalculatorEngine engine = new CalculatorEngine();
+        Key[] keys = KeyScript.parse(script);
+        replay(engine, keys, 0, keys.length);
+        return engine;
+    }
+
+    /**
+     * Presses {@code keys[from..to)} on {@code engine}, checking the invariants after each one.
+     * Returns the first violation, or null. The violation's keys assume {@code engine} was fresh
+     * and {@code from} was 0.
+     */
+    public static Violation replayChecked(CalculatorEngine engine, Key[] keys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String message = pressChecked(engine, keys[i]);
+            if (message != null) {
+                Key[] prefix = new Key[i + 1];
+                System.arraycopy(keys, 0, prefix, 0, i + 1);
+                return new Violation(message, prefix);
+            }
+        }
+        return null;
+    }
+
+    /** Presses {@code key} and returns what it broke, or null. */
+    static String pressChecked(CalculatorEngine engine, Key key) {
+        CalculatorEngine.Operand display = engine.displayOperand();
+        int lengthBefore = display.length();
+        try {
+            key.press(engine);
+        } catch (RuntimeException e) {
+            return key.getLabel() + " threw " + e;
+        }
+        if (!display.isNumber() && !display.isError()) {
+            return "Display is neither a number nor " + CalculatorEngine.ERROR + ": '" + display + "'";
+        }
+        if (engine.isDecimalAdded() && !display.hasDecimalPoint()) {
+            return "isDecimalAdded is set but the display '" + display + "' has no decimal point";
+        }
+        switch (key) {
+            case DIGIT_0:
+            case DIGIT_1:
+            case DIGIT_2:
+            case DIGIT_3:
+            case DIGIT_4:
+            case DIGIT_5:
+            case DIGIT_6:
+            case DIGIT_7:
+            case DIGIT_8:
+            case DIGIT_9:
+                int length = display.length();
+                if (length > CalculatorEngine.MAX_INPUT_LENGTH && length != lengthBefore) {
+                    return "Typed input grew to " + length + " characters: '" + display + "'";
+                }
+                if (display.isError()) {
+                    return "A digit left " + CalculatorEngine.ERROR + " on the display";
+                }
+                break;
+            case CLEAR_ENTRY:
+                if (!display.isZeroText() || engine.isDecimalAdded()) {
+                    return "CE left '" + display + "'" + (engine.isDecimalAdded() ? " with a decimal point pending" : "");
+                }
+                break;
+            case CLEAR_ALL:
+                if (!display.isZeroText() || (engine.keypadFlags() & 0xFF) != 0
+                        || engine.expressionText().length() != 0) {
+                    return "C left '" + display + "' with a pending operation";
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+}
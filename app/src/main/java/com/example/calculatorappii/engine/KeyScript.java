@@ -0,0 +1,61 @@
+package com.example.calculatorappii.engine;
+
+import java.util.Arrays;
+
+/**
+ * Key sequences as bug reports write them, e.g. {@code 1 ÷ 0 = M+ 2 ×}. Tokens are separated by
+ * whitespace. A token is a button label ({@link Key#getLabel()}), or a run of keys each written
+ * as its symbol or one-character label, so {@code 12.5}, {@code 7*6=} and {@code 1÷0=} work too.
+ */
+public final class KeyScript {
+
+    private KeyScript() {}
+
+    /** The keys in {@code script}; throws {@link IllegalArgumentException} on an unknown key. */
+    public static Key[] parse(CharSequence script) {
+        Key[] keys = new Key[script.length()];
+        int count = 0;
+        int n = script.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && Character.isWhitespace(script.charAt(i))) i++;
+            int start = i;
+            while (i < n && !Character.isWhitespace(script.charAt(i))) i++;
+            if (start == i) break;
+            String token = script.subSequence(start, i).toString();
+            Key key = Key.fromLabel(token);
+            if (key != null) {
+                keys[count++] = key;
+                continue;
+            }
+            for (int j = start; j < i; j++) {
+                char c = script.charAt(j);
+                key = Key.fromSymbol(c);
+                if (key == null) key = Key.fromLabel(String.valueOf(c));
+                if (key == null) {
+                    throw new IllegalArgumentException("Unknown key '" + token + "' at " + start);
+                }
+                keys[count++] = key;
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    public static String format(Key[] keys) {
+        return format(keys, 0, keys.length);
+    }
+
+    /** {@code keys[from..to)} as labels, with the digits of a number kept together: {@code 12.5 × 3 =}. */
+    public static String format(Key[] keys, int from, int to) {
+        StringBuilder sb = new StringBuilder((to - from) * 2);
+        boolean number = false;
+        for (int i = from; i < to; i++) {
+            // The digits and the point are the first keys.
+            boolean digit = keys[i].compareTo(Key.DECIMAL_POINT) <= 0;
+            if (sb.length() > 0 && !(digit && number)) sb.append(' ');
+            sb.append(keys[i].getLabel());
+            number = digit;
+        }
+        return sb.toString();
+    }
+}
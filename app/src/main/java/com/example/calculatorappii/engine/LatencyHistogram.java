@@ -0,0 +1,106 @@
+package com.example.calculatorappii.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of non-negative values, usually nanoseconds, laid out like HdrHistogram.
+ * Values below 128 get a bucket each. Above that, every power of two is split into 64 equal
+ * buckets, so a percentile is within 1/64 (about 1.6%) of the recorded value.
+ *
+ * <p>{@link #record} is a few shifts and one array increment; it never allocates. Values above
+ * {@link #MAX_VALUE} (about 18 minutes in nanoseconds) are counted in the top bucket.
+ * Not thread-safe; record from one thread.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR >> 1;
+    private static final int MAX_BITS = 40;
+
+    /** Largest value with its own bucket. */
+    public static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private final long[] counts = new long[indexOf(MAX_VALUE) + 1];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(Math.min(value, MAX_VALUE))]++;
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /** Smallest recorded value, or 0 when empty. */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /** Largest recorded value, exact rather than bucketed. */
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * The value at or below which {@code percentile} percent of the recorded values fall,
+     * reported as the top of its bucket (never above {@link #getMax()}); 0 when empty.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile out of range: " + percentile);
+        }
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highestInBucket(i), max);
+        }
+        return max;
+    }
+
+    /** Adds everything recorded in {@code other}. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        sum += other.sum;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    static long highestInBucket(int index) {
+        if (index < LINEAR) return index;
+        int shift = index / HALF - 1;
+        long sub = index - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.calculatorappii.engine;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result {@code =} would show for the operation being typed, worked out on a background
+ * thread while the user is still typing.
+ *
+ * <p>{@link #update} runs on the engine's thread and only copies the two operands, which are
+ * already parsed into their long (or cached {@link java.math.BigDecimal}) form, so nothing is
+ * re-parsed. The work runs {@code delayMillis} after the last update. A burst of keys therefore
+ * costs one calculation, and a newer update makes an older result stale. The worker goes through
+ * the same arithmetic as {@link CalculatorEngine#equals()}, at the same precision and in the same
+ * rational mode, so the preview
+ * is always what {@code =} then shows. When the inputs match the last preview, the worker reuses
+ * its text without calculating again.
+ */
+public final class LivePreview {
+
+    /** Receives previews on the worker thread. */
+    public interface Listener {
+        /**
+         * {@code text} is null when {@code =} would fail. Show it only if
+         * {@link #isCurrent(long) isCurrent(generation)} still holds on the UI thread.
+         */
+        void onPreview(long generation, String text);
+    }
+
+    private final ScheduledExecutorService executor;
+    private final long delayMillis;
+    private final Listener listener;
+    private final Runnable task = this::run;
+
+    // The latest request, written by update() and taken by the worker, both under the lock.
+    private final CalculatorEngine.Operand pendingFirst = new CalculatorEngine.Operand();
+    private final CalculatorEngine.Operand pendingSecond = new CalculatorEngine.Operand();
+    private char pendingOperator;
+    private Precision pendingPrecision;
+    private boolean pendingRational;
+    private volatile long generation;
+    private ScheduledFuture<?> scheduled;
+
+    // Worker thread only.
+    private final CalculatorEngine calculator = new CalculatorEngine();
+    private final CalculatorEngine.Operand first = new CalculatorEngine.Operand();
+    private final CalculatorEngine.Operand second = new CalculatorEngine.Operand();
+    private final CalculatorEngine.Operand result = new CalculatorEngine.Operand();
+    private final CalculatorEngine.Operand lastFirst = new CalculatorEngine.Operand();
+    private final CalculatorEngine.Operand lastSecond = new CalculatorEngine.Operand();
+    private char lastOperator;
+    private Precision lastPrecision;
+    private boolean lastRational;
+    private String lastText;
+
+    public LivePreview(ScheduledExecutorService executor, long delayMillis, Listener listener) {
+        if (delayMillis < 0) throw new IllegalArgumentException("delayMillis " + delayMillis);
+        this.executor = executor;
+        this.delayMillis = delayMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules a preview of {@code engine}'s pending operation, replacing any not yet delivered.
+     * Returns false, having cancelled the previous one, when {@code =} would do nothing.
+     */
+    public boolean update(CalculatorEngine engine) {
+        synchronized (this) {
+            generation++;
+            char op = engine.pendingOperation(pendingFirst, pendingSecond);
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            if (op == 0) {
+                return false;
+            }
+            pendingOperator = op;
+            pendingPrecision = engine.getPrecision();
+            pendingRational = engine.isRationalMode();
+            scheduled = executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        }
+    }
+
+    /** Drops the pending preview; one already being calculated is not delivered. */
+    public void cancel() {
+        synchronized (this) {
+            generation++;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+    }
+
+    /** True while no newer {@link #update} or {@link #cancel} has happened. */
+    public boolean isCurrent(long generation) {
+        return this.generation == generation;
+    }
+
+    private void run() {
+        long requested;
+        char op;
+        Precision precision;
+        boolean rational;
+        synchronized (this) {
+            requested = generation;
+            op = pendingOperator;
+            precision = pendingPrecision;
+            rational = pendingRational;
+            first.copyFrom(pendingFirst);
+            second.copyFrom(pendingSecond);
+            scheduled = null;
+        }
+        String text = compute(op, precision, rational);
+        if (isCurrent(requested)) {
+            listener.onPreview(requested, text);
+        }
+    }
+
+    /** The display text of {@code first op second}, or null on failure. */
+    String compute(char op, Precision precision, boolean rational) {
+        if (op == lastOperator && precision == lastPrecision && rational == lastRational
+                && sameValue(first, lastFirst) && sameValue(second, lastSecond)) {
+            return lastText;
+        }
+        calculator.setPrecision(precision);
+        calculator.setRationalMode(rational);
+        String text = calculator.calculate(first, op, second, result) ? result.toString() : null;
+        lastOperator = op;
+        lastPrecision = precision;
+        lastRational = rational;
+        lastFirst.copyFrom(first);
+        lastSecond.copyFrom(second);
+        lastText = text;
+        return text;
+    }
+
+    /** Whether {@code a} and {@code b} calculate alike; {@code 5} and {@code 5.} do. */
+    private static boolean sameValue(CalculatorEngine.Operand a, CalculatorEngine.Operand b) {
+        Rational exact = a.exact();
+        if (exact == null ? b.exact() != null : !exact.equals(b.exact())) {
+            return false;
+        }
+        if (a.isPlain() && b.isPlain()) {
+            return a.signedUnscaled() == b.signedUnscaled() && a.scale() == b.scale()
+                    && a.isNegative() == b.isNegative();
+        }
+        return a.isPlain() == b.isPlain() && a.toString().equals(b.toString());
+    }
+}
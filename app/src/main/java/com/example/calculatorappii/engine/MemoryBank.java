@@ -0,0 +1,320 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Memory registers holding exact decimals, plus a tally of every value passed to {@link #tally}
+ * and {@link RunningStatistics} of the values entered with Σ+.
+ *
+ * <p>Each register keeps an unscaled {@code long} and a scale, like the typed operand. It moves to
+ * {@link BigDecimal} only when a sum no longer fits, so the usual M+ is a couple of long
+ * additions and repeated M+ never drifts the way a {@code double} does.
+ *
+ * <p>The bulk {@code accumulate} methods add a whole batch in one call:
+ * <ul>
+ *   <li>{@code long[]} values at a common scale are summed with overflow checks, carrying into a
+ *       {@link BigInteger} only when needed;</li>
+ *   <li>{@code BigDecimal[]} values are summed exactly;</li>
+ *   <li>{@code double[]} values take the {@link CompensatedSum} fast path. The result is then
+ *       stored as its shortest decimal, as {@link BigDecimal#valueOf(double)} would.</li>
+ * </ul>
+ *
+ * <p>A value or sum past 10^{@link ScientificMath#MAX_EXPONENT} throws
+ * {@link ArithmeticException} with {@link Expression#OVERFLOW} and leaves the register as it was.
+ * Sums align scales, which costs a digit per power of ten, so one such value would make every
+ * later M+ slow and the saved state huge. Not thread-safe.
+ */
+public final class MemoryBank {
+
+    public static final int DEFAULT_SIZE = 10;
+
+    private static final double[] DOUBLE_POW10 = new double[23];
+
+    static {
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; i++) DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+    }
+
+    private final String[] names;
+    private final Register[] registers;
+    private final Register tally = new Register();
+    private long tallyCount;
+    private final RunningStatistics statistics = new RunningStatistics();
+
+    public MemoryBank() {
+        this(DEFAULT_SIZE);
+    }
+
+    /** {@code size} registers named {@code M1, M2, ...}. */
+    public MemoryBank(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive: " + size);
+        names = new String[size];
+        registers = new Register[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "M" + (i + 1);
+            registers[i] = new Register();
+        }
+    }
+
+    public int size() {
+        return registers.length;
+    }
+
+    public String getName(int register) {
+        return names[checkIndex(register)];
+    }
+
+    public void setName(int register, String name) {
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException("empty register name");
+        int existing = indexOf(name);
+        if (existing >= 0 && existing != register) {
+            throw new IllegalArgumentException("Register name in use: " + name);
+        }
+        names[checkIndex(register)] = name;
+    }
+
+    /** The register called {@code name}, or -1. */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /** True once the register has been stored to or added to since it was last cleared. */
+    public boolean isSet(int register) {
+        return registers[checkIndex(register)].set;
+    }
+
+    /** The exact value; zero for a register that is not set. */
+    public BigDecimal get(int register) {
+        return registers[checkIndex(register)].get();
+    }
+
+    public double getDouble(int register) {
+        return registers[checkIndex(register)].toDouble();
+    }
+
+    public void set(int register, BigDecimal value) {
+        registers[checkIndex(register)].set(value);
+    }
+
+    public void add(int register, BigDecimal value) {
+        registers[checkIndex(register)].add(value);
+    }
+
+    /** Adds {@code unscaled × 10^-scale}. */
+    public void add(int register, long unscaled, int scale) {
+        registers[checkIndex(register)].add(unscaled, scale);
+    }
+
+    public void subtract(int register, BigDecimal value) {
+        registers[checkIndex(register)].add(value.negate());
+    }
+
+    public void negate(int register) {
+        registers[checkIndex(register)].negate();
+    }
+
+    public void clear(int register) {
+        registers[checkIndex(register)].clear();
+    }
+
+    public void clearAll() {
+        for (Register r : registers) r.clear();
+        clearTally();
+        statistics.clear();
+    }
+
+    /** Adds every {@code unscaled[i] × 10^-scale} in {@code [from, to)} to the register. */
+    public void accumulate(int register, long[] unscaled, int scale, int from, int to) {
+        checkRange(unscaled.length, from, to);
+        Register r = registers[checkIndex(register)];
+        long sum = 0;
+        BigInteger carry = null;
+        for (int i = from; i < to; i++) {
+            long v = unscaled[i];
+            long s = sum + v;
+            if (((sum ^ s) & (v ^ s)) < 0) {
+                // Overflowed: move the running sum out and keep going in longs.
+                BigInteger spill = BigInteger.valueOf(sum).add(BigInteger.valueOf(v));
+                carry = carry == null ? spill : carry.add(spill);
+                s = 0;
+            }
+            sum = s;
+        }
+        if (carry == null) {
+            r.add(sum, scale);
+        } else {
+            r.add(new BigDecimal(carry.add(BigInteger.valueOf(sum)), scale));
+        }
+    }
+
+    /** Adds {@code values[from..to)} exactly; null entries are skipped. */
+    public void accumulate(int register, BigDecimal[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        Register r = registers[checkIndex(register)];
+        for (int i = from; i < to; i++) {
+            if (values[i] != null) r.add(values[i]);
+        }
+    }
+
+    /**
+     * Adds the compensated sum of {@code values[from..to)}. The sum is accurate to the doubles
+     * given, and is then stored as its shortest decimal form.
+     */
+    public void accumulate(int register, double[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        double sum = CompensatedSum.sum(values, from, to);
+        if (Double.isInfinite(sum) || Double.isNaN(sum)) {
+            throw new ArithmeticException("Sum is not finite: " + sum);
+        }
+        registers[checkIndex(register)].add(BigDecimal.valueOf(sum));
+    }
+
+    // ---- statistics ----
+
+    /** Count, sum, mean, variance, min, max and quantiles of every value added with Σ+. */
+    public RunningStatistics getStatistics() {
+        return statistics;
+    }
+
+    // ---- tally ----
+
+    /** Adds {@code value} to the running total; the engine tallies every result. */
+    public void tally(BigDecimal value) {
+        tally.add(value);
+        tallyCount++;
+    }
+
+    /** {@link #tally(BigDecimal)} of {@code unscaled × 10^-scale}. */
+    public void tally(long unscaled, int scale) {
+        tally.add(unscaled, scale);
+        tallyCount++;
+    }
+
+    public BigDecimal getTally() {
+        return tally.get();
+    }
+
+    /** How many values have been tallied since the last {@link #clearTally()}. */
+    public long getTallyCount() {
+        return tallyCount;
+    }
+
+    /** Replaces the tally with a saved total and count. */
+    public void restoreTally(BigDecimal total, long count) {
+        if (count < 0) throw new IllegalArgumentException("negative count: " + count);
+        tally.set(total);
+        tallyCount = count;
+    }
+
+    public void clearTally() {
+        tally.clear();
+        tallyCount = 0;
+    }
+
+    private int checkIndex(int register) {
+        if (register < 0 || register >= registers.length) {
+            throw new IndexOutOfBoundsException("register " + register + ", size " + registers.length);
+        }
+        return register;
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + length);
+        }
+    }
+
+    /** An exact decimal: {@code unscaled × 10^-scale} while it fits, {@link #big} otherwise. */
+    private static final class Register {
+        boolean set;
+        long unscaled;
+        int scale;
+        BigDecimal big;
+
+        BigDecimal get() {
+            return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+        }
+
+        double toDouble() {
+            if (big != null) return big.doubleValue();
+            return scale >= 0 && scale < 23 && Math.abs(unscaled) < (1L << 53)
+                    ? unscaled / DOUBLE_POW10[scale] : get().doubleValue();
+        }
+
+        void set(BigDecimal value) {
+            checkExponent(value);
+            set = true;
+            big = null;
+            unscaled = 0;
+            scale = 0;
+            add(value);
+        }
+
+        void add(BigDecimal value) {
+            if (big == null && value.unscaledValue().bitLength() < 63) {
+                add(value.unscaledValue().longValue(), value.scale());
+            } else {
+                checkExponent(value);
+                big = checkExponent(get().add(value));
+                set = true;
+            }
+        }
+
+        void add(long u, int s) {
+            if (s < 0) {
+                long scaled = ScaledArithmetic.multiplyPow10(u, -s);
+                if (scaled != Long.MIN_VALUE) {
+                    u = scaled;
+                    s = 0;
+                }
+            }
+            if (big == null && s >= 0) {
+                long a = unscaled;
+                long b = u;
+                int target = Math.max(scale, s);
+                if (scale < target) a = ScaledArithmetic.multiplyPow10(a, target - scale);
+                if (s < target) b = ScaledArithmetic.multiplyPow10(b, target - s);
+                if (a != Long.MIN_VALUE && b != Long.MIN_VALUE) {
+                    long sum = a + b;
+                    if (((a ^ sum) & (b ^ sum)) >= 0) {
+                        set = true;
+                        unscaled = sum;
+                        scale = target;
+                        return;
+                    }
+                }
+            }
+            BigDecimal value = checkExponent(BigDecimal.valueOf(u, s));
+            big = checkExponent(get().add(value));
+            set = true;
+        }
+
+        private static BigDecimal checkExponent(BigDecimal value) {
+            if (value.signum() != 0 && BigDecimalMath.exponent(value) > ScientificMath.MAX_EXPONENT) {
+                throw new ArithmeticException(Expression.OVERFLOW);
+            }
+            return value;
+        }
+
+        void negate() {
+            if (big != null) {
+                big = big.negate();
+            } else if (unscaled == Long.MIN_VALUE) {
+                big = get().negate();
+            } else {
+                unscaled = -unscaled;
+            }
+        }
+
+        void clear() {
+            set = false;
+            unscaled = 0;
+            scale = 0;
+            big = null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.calculatorappii.engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Named stage timers and counters for the keystroke path. Timers and counters are created once,
+ * up front. After that, {@link Timer#start()}, {@link Timer#stop(long)} and
+ * {@link Counter#increment()} only read the clock and update primitives, so leaving them in hot
+ * code costs a few tens of nanoseconds and no garbage.
+ *
+ * <p>{@link #dump} writes one line per timer with count, p50, p99 and max, then one line per
+ * counter. JVM tests can read the same numbers through {@link Timer#getHistogram()}.
+ * Not thread-safe: record and dump from the same thread.
+ */
+public final class Metrics {
+
+    /** Time spent in the engine for one key, including the result's digits. */
+    public static final String ARITHMETIC = "arithmetic";
+    /** Turning the engine's display into grouped text. */
+    public static final String FORMAT = "format";
+    /** The vibrator call for key feedback. */
+    public static final String HAPTIC = "haptic";
+    /** Setting up the key-press animation. */
+    public static final String ANIMATION = "animation";
+    /** Handing the text to the view. */
+    public static final String DISPLAY = "display";
+
+    /** One stage's latency distribution, in nanoseconds. */
+    public static final class Timer {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** A start time for {@link #stop(long)}. */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /** Records the time since {@code start}; returns the current time so stages can chain. */
+        public long stop(long start) {
+            long now = System.nanoTime();
+            histogram.record(now - start);
+            return now;
+        }
+
+        public void record(long nanos) {
+            histogram.record(nanos);
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    public static final class Counter {
+        private final String name;
+        private long value;
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void increment() {
+            value++;
+        }
+
+        public void add(long n) {
+            value += n;
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+
+    private final List<Timer> timers = new ArrayList<>();
+    private final List<Counter> counters = new ArrayList<>();
+
+    /** The timer called {@code name}, created on first use. Look it up once and keep it. */
+    public Timer timer(String name) {
+        for (int i = 0; i < timers.size(); i++) {
+            if (timers.get(i).name.equals(name)) return timers.get(i);
+        }
+        Timer timer = new Timer(name);
+        timers.add(timer);
+        return timer;
+    }
+
+    /** The counter called {@code name}, created on first use. Look it up once and keep it. */
+    public Counter counter(String name) {
+        for (int i = 0; i < counters.size(); i++) {
+            if (counters.get(i).name.equals(name)) return counters.get(i);
+        }
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    public void reset() {
+        for (Timer timer : timers) timer.histogram.reset();
+        for (Counter counter : counters) counter.value = 0;
+    }
+
+    /**
+     * Writes e.g. {@code arithmetic  count=1200 p50=1.9us p99=12.3us max=40.1us}, one line per
+     * timer in creation order, then {@code keys  1200} for each counter.
+     */
+    public void dump(Appendable out) throws IOException {
+        int width = 0;
+        for (Timer timer : timers) width = Math.max(width, timer.name.length());
+        for (Counter counter : counters) width = Math.max(width, counter.name.length());
+        for (Timer timer : timers) {
+            LatencyHistogram h = timer.histogram;
+            pad(out.append(timer.name), width - timer.name.length() + 2);
+            out.append("count=").append(Long.toString(h.getCount()))
+                    .append(" p50=").append(formatNanos(h.valueAtPercentile(50)))
+                    .append(" p99=").append(formatNanos(h.valueAtPercentile(99)))
+                    .append(" max=").append(formatNanos(h.getMax()))
+                    .append('\n');
+        }
+        for (Counter counter : counters) {
+            pad(out.append(counter.name), width - counter.name.length() + 2);
+            out.append(Long.toString(counter.value)).append('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            dump(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    /** {@code 850ns}, {@code 12.3us}, {@code 4.1ms} or {@code 2.0s}. */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.1fs", nanos / 1e9);
+    }
+
+    private static void pad(Appendable out, int n) throws IOException {
+        for (int i = 0; i < n; i++) out.append(' ');
+    }
+}
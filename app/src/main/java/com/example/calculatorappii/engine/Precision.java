@@ -0,0 +1,46 @@
+package com.example.calculatorappii.engine;
+
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Significant digits the engine works and displays at. {@link #STANDARD} is the original
+ * calculator: 15 digits with the 15-character display cut. The others keep every digit of the
+ * precision and only switch to scientific notation when the integer part does not fit.
+ */
+public enum Precision {
+    STANDARD(15),
+    DECIMAL128(34),
+    HIGH(100),
+    EXTREME(1000);
+
+    private final int digits;
+    private final MathContext mathContext;
+
+    Precision(int digits) {
+        this.digits = digits;
+        this.mathContext = new MathContext(digits, RoundingMode.HALF_UP);
+    }
+
+    public int getDigits() {
+        return digits;
+    }
+
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /** The next mode in the cycle, wrapping from {@link #EXTREME} back to {@link #STANDARD}. */
+    public Precision next() {
+        Precision[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+
+    /** The mode with exactly {@code digits} digits, or {@link #STANDARD} when there is none. */
+    public static Precision fromDigits(int digits) {
+        for (Precision p : values()) {
+            if (p.digits == digits) return p;
+        }
+        return STANDARD;
+    }
+}
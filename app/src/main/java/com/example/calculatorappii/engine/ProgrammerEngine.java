@@ -0,0 +1,352 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * The programmer keypad: integers of a fixed word size, typed and shown in hex, decimal, octal
+ * or binary, with bitwise operators and shifts.
+ *
+ * <p>Everything is a primitive {@code long}. A digit is {@code value × radix + digit}, an
+ * operator is one {@link #apply} call, and switching radix only changes how the value is shown.
+ * Values are kept sign-extended from the word size, so an 8-bit {@code FF} is −1 in decimal and
+ * {@code 1111 1111} in binary. Arithmetic wraps at the word size like the machine it models;
+ * division truncates toward zero.
+ *
+ * <p>Operators are chars: {@code + - * /}, {@link #MOD}, {@link #AND}, {@link #OR},
+ * {@link #XOR}, {@link #SHIFT_LEFT} and {@link #SHIFT_RIGHT} (arithmetic). The static
+ * {@code apply} methods are the same operations over arrays, for bulk mask calculations. Not
+ * thread-safe.
+ */
+public final class ProgrammerEngine {
+
+    public static final char MOD = '%';
+    public static final char AND = '&';
+    public static final char OR = '|';
+    public static final char XOR = '^';
+    public static final char SHIFT_LEFT = '<';
+    public static final char SHIFT_RIGHT = '>';
+
+    public enum WordSize {
+        BYTE(8), WORD(16), DWORD(32), QWORD(64);
+
+        private final int bits;
+
+        WordSize(int bits) {
+            this.bits = bits;
+        }
+
+        public int getBits() {
+            return bits;
+        }
+
+        /** The low {@code bits} of {@code value}, sign-extended to a long. */
+        public long normalize(long value) {
+            int shift = 64 - bits;
+            return (value << shift) >> shift;
+        }
+
+        /** The low {@code bits} of {@code value} as an unsigned number. */
+        public long unsigned(long value) {
+            return bits == 64 ? value : value & ((1L << bits) - 1);
+        }
+
+        public WordSize next() {
+            WordSize[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
+
+    private WordSize wordSize = WordSize.QWORD;
+    private int radix = 16;
+    private long value;
+    private long accumulator;
+    private char pendingOperator;
+    private boolean newInput = true;
+    private boolean error;
+
+    public WordSize getWordSize() {
+        return wordSize;
+    }
+
+    /** Truncates the value and the pending operand to the new size. */
+    public void setWordSize(WordSize wordSize) {
+        if (wordSize == null) throw new IllegalArgumentException("wordSize must not be null");
+        this.wordSize = wordSize;
+        value = wordSize.normalize(value);
+        accumulator = wordSize.normalize(accumulator);
+    }
+
+    public int getRadix() {
+        return radix;
+    }
+
+    /** 2, 8, 10 or 16. Only the display changes; the value is kept. */
+    public void setRadix(int radix) {
+        checkRadix(radix);
+        this.radix = radix;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    /** Replaces the display, e.g. with a value carried over from the decimal keypad. */
+    public void setValue(long value) {
+        this.value = wordSize.normalize(value);
+        error = false;
+        newInput = true;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public char getPendingOperator() {
+        return pendingOperator;
+    }
+
+    /**
+     * Appends a digit in the current radix. A digit the radix does not have, or one that would
+     * no longer fit the word, is ignored. In decimal the typed magnitude stays within the word's
+     * signed range; the other radixes can fill every bit.
+     */
+    public void digit(int digit) {
+        if (digit < 0 || digit >= radix) return;
+        if (error || newInput) {
+            value = 0;
+            error = false;
+            newInput = false;
+        }
+        int bits = wordSize.bits;
+        if (radix == 10) {
+            long max = bits == 64 ? Long.MAX_VALUE : (1L << (bits - 1)) - 1;
+            long magnitude = Math.abs(value);
+            if (magnitude > (max - digit) / 10) return;
+            long next = magnitude * 10 + digit;
+            value = value < 0 ? -next : next;
+        } else {
+            int shift = Integer.numberOfTrailingZeros(radix);
+            if ((wordSize.unsigned(value) >>> (bits - shift)) != 0) return;
+            value = wordSize.normalize(value << shift | digit);
+        }
+    }
+
+    /** Drops the last typed digit. */
+    public void backspace() {
+        if (error || newInput) return;
+        if (radix == 10) {
+            value /= 10;
+        } else {
+            value = wordSize.normalize(wordSize.unsigned(value) >>> Integer.numberOfTrailingZeros(radix));
+        }
+    }
+
+    /** Applies any pending operator, then waits for the right operand of {@code operator}. */
+    public void operator(char operator) {
+        checkOperator(operator);
+        if (error) return;
+        if (pendingOperator != 0 && !newInput) {
+            if (!calculate()) return;
+        } else if (pendingOperator == 0) {
+            accumulator = value;
+        }
+        pendingOperator = operator;
+        newInput = true;
+    }
+
+    public void equals() {
+        if (error || pendingOperator == 0) return;
+        calculate();
+        pendingOperator = 0;
+        newInput = true;
+    }
+
+    /** Bitwise complement within the word. */
+    public void not() {
+        if (error) return;
+        value = wordSize.normalize(~value);
+        newInput = true;
+    }
+
+    /** Two's complement negation; the most negative value stays as it is. */
+    public void negate() {
+        if (error) return;
+        value = wordSize.normalize(-value);
+    }
+
+    public void clear() {
+        value = 0;
+        accumulator = 0;
+        pendingOperator = 0;
+        newInput = true;
+        error = false;
+    }
+
+    public void clearEntry() {
+        value = 0;
+        newInput = true;
+        error = false;
+    }
+
+    private boolean calculate() {
+        try {
+            value = apply(pendingOperator, accumulator, value, wordSize);
+            accumulator = value;
+            return true;
+        } catch (ArithmeticException e) {
+            error = true;
+            pendingOperator = 0;
+            return false;
+        }
+    }
+
+    // ---- operations ----
+
+    /**
+     * {@code left operator right} in {@code wordSize}. Both operands are first truncated to the
+     * word, except a shift count: counts of the word size or more shift everything out, and
+     * negative counts shift the other way. Throws {@link ArithmeticException} with
+     * {@link Expression#DIVISION_BY_ZERO} for {@code /} and {@link #MOD} by zero.
+     */
+    public static long apply(char operator, long left, long right, WordSize wordSize) {
+        left = wordSize.normalize(left);
+        if (operator != SHIFT_LEFT && operator != SHIFT_RIGHT) right = wordSize.normalize(right);
+        long result;
+        switch (operator) {
+            case '+': result = left + right; break;
+            case '-': result = left - right; break;
+            case '*': result = left * right; break;
+            case '/':
+                if (right == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+                result = left / right;
+                break;
+            case MOD:
+                if (right == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+                result = left % right;
+                break;
+            case AND: result = left & right; break;
+            case OR: result = left | right; break;
+            case XOR: result = left ^ right; break;
+            case SHIFT_LEFT: result = shift(left, right, wordSize); break;
+            case SHIFT_RIGHT: result = shift(left, right == Long.MIN_VALUE ? Long.MAX_VALUE : -right, wordSize); break;
+            default: throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+        return wordSize.normalize(result);
+    }
+
+    /**
+     * {@code out[i] = left[i] operator right[i]} for {@code i < length}. On a zero divisor the
+     * rows before it are written and {@link ArithmeticException} is thrown.
+     */
+    public static void apply(char operator, long[] left, long[] right, long[] out, int length, WordSize wordSize) {
+        checkOperator(operator);
+        checkLength(length, left.length, right.length, out.length);
+        switch (operator) {
+            // The common mask operations get their own loops, free of the switch.
+            case AND:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] & right[i]);
+                return;
+            case OR:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] | right[i]);
+                return;
+            case XOR:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] ^ right[i]);
+                return;
+            default:
+                for (int i = 0; i < length; i++) out[i] = apply(operator, left[i], right[i], wordSize);
+        }
+    }
+
+    /** {@code out[i] = left[i] operator right}: one mask, shift or divisor for every row. */
+    public static void apply(char operator, long[] left, long right, long[] out, int length, WordSize wordSize) {
+        checkOperator(operator);
+        checkLength(length, left.length, left.length, out.length);
+        switch (operator) {
+            case AND:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] & right);
+                return;
+            case OR:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] | right);
+                return;
+            case XOR:
+                for (int i = 0; i < length; i++) out[i] = wordSize.normalize(left[i] ^ right);
+                return;
+            default:
+                for (int i = 0; i < length; i++) out[i] = apply(operator, left[i], right, wordSize);
+        }
+    }
+
+    /** {@code out[i] = ~values[i]} within the word. */
+    public static void not(long[] values, long[] out, int length, WordSize wordSize) {
+        checkLength(length, values.length, values.length, out.length);
+        for (int i = 0; i < length; i++) out[i] = wordSize.normalize(~values[i]);
+    }
+
+    /**
+     * Reads digits in {@code radix}, with an optional leading minus and any spaces or
+     * underscores between digits, into {@code wordSize}. Hex, octal and binary may fill every
+     * bit, so {@code FF} is a byte's −1; decimal must fit the signed range. Throws
+     * {@link NumberFormatException} otherwise.
+     */
+    public static long parse(CharSequence text, int radix, WordSize wordSize) {
+        checkRadix(radix);
+        int i = 0;
+        int n = text.length();
+        boolean negative = n > 0 && text.charAt(0) == '-';
+        if (negative) i++;
+        int bits = wordSize.bits;
+        long limit = radix == 10
+                ? (bits == 64 ? Long.MAX_VALUE : (1L << (bits - 1)) - 1) + (negative ? 1 : 0) : 0;
+        int shift = Integer.numberOfTrailingZeros(radix);
+        long value = 0;
+        int digits = 0;
+        for (; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '_') continue;
+            int d = Character.digit(c, radix);
+            if (d < 0) throw new NumberFormatException("Not a base-" + radix + " digit: " + text);
+            if (radix == 10) {
+                // Accumulated as a negative number so the most negative value fits.
+                if (value < (-limit + d) / 10) throw new NumberFormatException("Too large: " + text);
+                value = value * 10 - d;
+            } else {
+                if ((wordSize.unsigned(value) >>> (bits - shift)) != 0) {
+                    throw new NumberFormatException("Too large: " + text);
+                }
+                value = value << shift | d;
+            }
+            digits++;
+        }
+        if (digits == 0) throw new NumberFormatException("No digits: " + text);
+        if (radix == 10) return negative ? value : -value;
+        return wordSize.normalize(negative ? -value : value);
+    }
+
+    private static void checkRadix(int radix) {
+        if (radix != 2 && radix != 8 && radix != 10 && radix != 16) {
+            throw new IllegalArgumentException("radix must be 2, 8, 10 or 16: " + radix);
+        }
+    }
+
+    private static void checkOperator(char operator) {
+        switch (operator) {
+            case '+': case '-': case '*': case '/':
+            case MOD: case AND: case OR: case XOR: case SHIFT_LEFT: case SHIFT_RIGHT:
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    private static void checkLength(int length, int a, int b, int out) {
+        if (length < 0 || length > a || length > b || length > out) {
+            throw new IndexOutOfBoundsException("length " + length);
+        }
+    }
+
+    /** Shifts left by {@code count}, or right (arithmetic) by {@code -count}, within the word. */
+    private static long shift(long value, long count, WordSize wordSize) {
+        int bits = wordSize.bits;
+        if (count >= bits) return 0;
+        if (count <= -bits) return value < 0 ? -1 : 0;
+        return count >= 0 ? value << count : value >> -count;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.calculatorappii.engine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Approximate quantiles of a stream in fixed memory: a merging t-digest.
+ *
+ * <p>Values are buffered, and a full buffer is sorted and merged into a sorted list of
+ * centroids (mean and weight). The k1 scale function {@code k(q) = δ/2π · asin(2q − 1)} caps
+ * how much weight a centroid may hold. Centroids near the median are large; near the tails
+ * they stay small, so extreme quantiles are the most accurate. With the default compression
+ * of 100, the median is typically within 0.5% of the rank and the 99th percentile within 0.05%.
+ *
+ * <p>Memory is fixed by the compression, not the count. Two sketches
+ * {@link #merge(QuantileSketch) merge} by interleaving their sorted centroids, so partitions can
+ * be summarized in parallel and combined. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    // Sorted by mean. Sized for a merge of two full lists; a merge never outgrows its inputs.
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    // Unit-weight values not merged yet.
+    private final double[] buffer;
+    private int buffered;
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    // Scratch for merging; swapped with means and weights.
+    private double[] mergeMeans;
+    private double[] mergeWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public QuantileSketch(int compression) {
+        if (compression < 10) throw new IllegalArgumentException("compression must be at least 10: " + compression);
+        this.compression = compression;
+        buffer = new double[5 * compression];
+        // k1 leaves at most about δ centroids: δ/2 units of k, and at most two per unit.
+        int capacity = 2 * (compression + 10) + buffer.length;
+        means = new double[capacity];
+        weights = new double[capacity];
+        mergeMeans = new double[capacity];
+        mergeWeights = new double[capacity];
+    }
+
+    public int getCompression() {
+        return (int) compression;
+    }
+
+    /** Ignores NaN. */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (buffered == buffer.length) flush();
+        buffer[buffered++] = value;
+        totalWeight++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /** Adds everything {@code other} has seen; {@code other} is left as it was. */
+    public void merge(QuantileSketch other) {
+        if (other == this) throw new IllegalArgumentException("Cannot merge a sketch into itself");
+        if (other.totalWeight == 0) return;
+        other.flush();
+        flush();
+        mergeCentroids(other.means, other.weights, other.centroids);
+        totalWeight += other.totalWeight;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return (long) totalWeight;
+    }
+
+    /** The number of centroids, after merging anything buffered. */
+    public int getCentroidCount() {
+        flush();
+        return centroids;
+    }
+
+    /**
+     * The value below which a fraction {@code q} (0 to 1) of the stream falls, interpolated
+     * between centroids; NaN when empty. 0 and 1 give the exact min and max.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("q must be between 0 and 1: " + q);
+        if (totalWeight == 0) return Double.NaN;
+        flush();
+        if (q == 0) return min;
+        if (q == 1) return max;
+        double rank = q * totalWeight;
+        // Each centroid's weight is centred on its mean: half below, half above.
+        double before = 0;
+        for (int i = 0; i < centroids; i++) {
+            double w = weights[i];
+            // A single value owns its rank outright.
+            if (w == 1 && rank >= before && rank < before + 1) return means[i];
+            double centre = before + w / 2;
+            if (rank < centre) {
+                double leftMean = i == 0 ? min : means[i - 1];
+                double leftCentre = i == 0 ? 0 : before - weights[i - 1] / 2;
+                return interpolate(rank, leftCentre, leftMean, centre, means[i]);
+            }
+            before += w;
+        }
+        int last = centroids - 1;
+        if (weights[last] == 1) return means[last];
+        return interpolate(rank, totalWeight - weights[last] / 2, means[last], totalWeight, max);
+    }
+
+    public void clear() {
+        centroids = 0;
+        buffered = 0;
+        totalWeight = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /** Writes the merged centroids; {@link #readFrom} restores an equivalent sketch. */
+    public void writeTo(DataOutput out) throws IOException {
+        flush();
+        out.writeInt((int) compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    /** Throws {@link IOException} on a sketch that cannot have been written by {@link #writeTo}. */
+    public static QuantileSketch readFrom(DataInput in) throws IOException {
+        int compression = in.readInt();
+        if (compression < 10 || compression > 100_000) throw new IOException("Bad compression: " + compression);
+        QuantileSketch sketch = new QuantileSketch(compression);
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        int n = in.readInt();
+        if (n < 0 || n > sketch.means.length) throw new IOException("Bad centroid count: " + n);
+        for (int i = 0; i < n; i++) {
+            sketch.means[i] = in.readDouble();
+            sketch.weights[i] = in.readDouble();
+            sketch.totalWeight += sketch.weights[i];
+        }
+        sketch.centroids = n;
+        return sketch;
+    }
+
+    // ---- merging ----
+
+    private void flush() {
+        if (buffered == 0) return;
+        Arrays.sort(buffer, 0, buffered);
+        mergeCentroids(buffer, null, buffered);
+        buffered = 0;
+    }
+
+    /**
+     * Merges a sorted run (null weights meaning 1 each) with the centroids, then compresses the
+     * combined run under the k1 size limit.
+     */
+    private void mergeCentroids(double[] otherMeans, double[] otherWeights, int otherCount) {
+        double total = 0;
+        for (int i = 0; i < centroids; i++) total += weights[i];
+        if (otherWeights == null) {
+            total += otherCount;
+        } else {
+            for (int i = 0; i < otherCount; i++) total += otherWeights[i];
+        }
+
+        if (centroids + otherCount > mergeMeans.length) {
+            // Only a merge with a finer sketch gets here.
+            int capacity = centroids + otherCount;
+            means = Arrays.copyOf(means, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            mergeMeans = new double[capacity];
+            mergeWeights = new double[capacity];
+        }
+        double[] outMeans = mergeMeans;
+        double[] outWeights = mergeWeights;
+        int out = -1;
+        double soFar = 0;
+        double limit = 0;
+        int a = 0;
+        int b = 0;
+        while (a < centroids || b < otherCount) {
+            double mean;
+            double weight;
+            if (b == otherCount || (a < centroids && means[a] <= otherMeans[b])) {
+                mean = means[a];
+                weight = weights[a++];
+            } else {
+                mean = otherMeans[b];
+                weight = otherWeights == null ? 1 : otherWeights[b];
+                b++;
+            }
+            if (out >= 0 && soFar + outWeights[out] + weight <= limit) {
+                // Weighted mean update, stable for large weights.
+                outWeights[out] += weight;
+                outMeans[out] += (mean - outMeans[out]) * weight / outWeights[out];
+            } else {
+                if (out >= 0) soFar += outWeights[out];
+                limit = total * upperQuantile(soFar / total);
+                out++;
+                outMeans[out] = mean;
+                outWeights[out] = weight;
+            }
+        }
+        mergeMeans = means;
+        mergeWeights = weights;
+        means = outMeans;
+        weights = outWeights;
+        centroids = out + 1;
+    }
+
+    /** The largest q' a centroid starting at quantile q may reach: {@code k⁻¹(k(q) + 1)}. */
+    private double upperQuantile(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) return 1;
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+        if (x1 <= x0) return y1;
+        return y0 + (x - x0) / (x1 - x0) * (y1 - y0);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Writes a {@link ProgrammerEngine} value in hex, decimal, octal or binary into a reusable char
+ * buffer, straight from the {@code long}: no {@code Long.toString} and no StringBuilder.
+ *
+ * <p>Hex, octal and binary show the word's bits as an unsigned number, zero-padded to the
+ * full word for binary; decimal shows the signed value. With grouping on (the default), binary
+ * and hex digits are spaced in fours and octal and decimal digits in threes, e.g.
+ * {@code 0000 1111} or {@code -1 234}.
+ *
+ * <p>The formatter is itself the {@link CharSequence} result. It stays valid until the next call.
+ * Not thread-safe.
+ */
+public final class RadixFormatter implements CharSequence {
+
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // 64 binary digits, 15 separators and room for a sign.
+    private final char[] buffer = new char[80];
+    private int start;
+    private boolean grouping = true;
+
+    public void setGrouping(boolean enabled) {
+        grouping = enabled;
+    }
+
+    public boolean isGrouping() {
+        return grouping;
+    }
+
+    /** {@code value} as the engine shows it. */
+    public RadixFormatter format(ProgrammerEngine engine) {
+        return format(engine.getValue(), engine.getRadix(), engine.getWordSize());
+    }
+
+    public RadixFormatter format(long value, int radix, ProgrammerEngine.WordSize wordSize) {
+        // Written from the right end of the buffer; start marks the first char.
+        int pos = buffer.length;
+        int groupSize = grouping ? (radix == 16 ? 4 : 3) : Integer.MAX_VALUE;
+        int group = groupSize;
+        if (radix == 10) {
+            long v = wordSize.normalize(value);
+            boolean negative = v < 0;
+            // Negative digits, so the most negative value needs no special case.
+            if (!negative) v = -v;
+            while (v < Integer.MIN_VALUE) {
+                if (group-- == 0) {
+                    buffer[--pos] = ' ';
+                    group = groupSize - 1;
+                }
+                long q = v / 10;
+                buffer[--pos] = DIGITS[(int) (q * 10 - v)];
+                v = q;
+            }
+            // The rest in int arithmetic, which is cheaper on 32-bit devices.
+            int w = (int) v;
+            do {
+                if (group-- == 0) {
+                    buffer[--pos] = ' ';
+                    group = groupSize - 1;
+                }
+                int q = w / 10;
+                buffer[--pos] = DIGITS[q * 10 - w];
+                w = q;
+            } while (w != 0);
+            if (negative) buffer[--pos] = '-';
+        } else if (radix == 2) {
+            // Whole nibbles, always the full word: four digits per step.
+            long v = value;
+            for (int nibbles = wordSize.getBits() / 4; nibbles > 0; nibbles--) {
+                if (grouping && pos < buffer.length) buffer[--pos] = ' ';
+                int nibble = (int) v & 15;
+                buffer[--pos] = (char) ('0' + (nibble & 1));
+                buffer[--pos] = (char) ('0' + (nibble >> 1 & 1));
+                buffer[--pos] = (char) ('0' + (nibble >> 2 & 1));
+                buffer[--pos] = (char) ('0' + (nibble >> 3));
+                v >>>= 4;
+            }
+        } else {
+            int shift = Integer.numberOfTrailingZeros(radix);
+            int mask = radix - 1;
+            long v = wordSize.unsigned(value);
+            do {
+                if (group-- == 0) {
+                    buffer[--pos] = ' ';
+                    group = groupSize - 1;
+                }
+                buffer[--pos] = DIGITS[(int) v & mask];
+                v >>>= shift;
+            } while (v != 0);
+        }
+        start = pos;
+        return this;
+    }
+
+    /** The chars are {@code getBuffer()[getOffset()]} to {@code getOffset() + length()}. */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    public int getOffset() {
+        return start;
+    }
+
+    @Override
+    public int length() {
+        return buffer.length - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) throw new IndexOutOfBoundsException("index " + index);
+        return buffer[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end);
+        }
+        return new String(buffer, this.start + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, start, length());
+    }
+}
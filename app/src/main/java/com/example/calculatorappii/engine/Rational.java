@@ -0,0 +1,260 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * An exact fraction in lowest terms with a positive denominator, for the engine's rational mode.
+ *
+ * <p>Numerator and denominator are {@code long}s while they fit. Then each operation is a few
+ * multiplies and a binary GCD, with overflow checked via {@link ScaledArithmetic#multiplyExact}.
+ * On overflow the operation is redone in {@link BigInteger} and normalized by its GCD. A result
+ * that fits again drops back to longs. Nothing is rounded until {@link #toBigDecimal} is called
+ * for display, so {@code 1 ÷ 3 × 3} is exactly 1 and repeated 1/x never drifts. Immutable.
+ */
+public final class Rational {
+
+    public static final Rational ZERO = new Rational(0, 1);
+    public static final Rational ONE = new Rational(1, 1);
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    // Valid when big == null. Long.MIN_VALUE is never used, so negating cannot overflow.
+    private final long num;
+    private final long den;
+    // Non-null when either part does not fit.
+    private final BigInteger bigNum;
+    private final BigInteger bigDen;
+
+    private Rational(long num, long den) {
+        this.num = num;
+        this.den = den;
+        this.bigNum = null;
+        this.bigDen = null;
+    }
+
+    private Rational(BigInteger num, BigInteger den) {
+        this.num = 0;
+        this.den = 0;
+        this.bigNum = num;
+        this.bigDen = den;
+    }
+
+    /** {@code num / den} in lowest terms; throws {@link ArithmeticException} when den is 0. */
+    public static Rational of(long num, long den) {
+        if (den == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+            return of(BigInteger.valueOf(num), BigInteger.valueOf(den));
+        }
+        if (den < 0) {
+            num = -num;
+            den = -den;
+        }
+        long g = gcd(Math.abs(num), den);
+        return reduced(num / g, den / g);
+    }
+
+    public static Rational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        if (!g.equals(BigInteger.ONE)) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        if (fitsLong(num) && fitsLong(den)) return reduced(num.longValue(), den.longValue());
+        return new Rational(num, den);
+    }
+
+    /** {@code unscaled × 10^-scale}, exactly. */
+    public static Rational valueOf(long unscaled, int scale) {
+        if (scale <= 0) {
+            long n = -scale < ScaledArithmetic.POW10.length
+                    ? ScaledArithmetic.multiplyExact(unscaled, ScaledArithmetic.POW10[-scale]) : Long.MIN_VALUE;
+            if (n != Long.MIN_VALUE) return reduced(n, 1);
+            return of(BigInteger.valueOf(unscaled).multiply(BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+        }
+        if (scale < ScaledArithmetic.POW10.length) return of(unscaled, ScaledArithmetic.POW10[scale]);
+        return of(BigInteger.valueOf(unscaled), BigInteger.TEN.pow(scale));
+    }
+
+    public static Rational valueOf(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        int scale = value.scale();
+        if (fitsLong(unscaled)) return valueOf(unscaled.longValue(), scale);
+        if (scale <= 0) return of(unscaled.multiply(BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+        return of(unscaled, BigInteger.TEN.pow(scale));
+    }
+
+    public Rational add(Rational o) {
+        if (big() || o.big()) return addBig(o);
+        // a/b + c/d = (a·(d/g) + c·(b/g)) / (b/g·d), with g = gcd(b, d).
+        long g = gcd(den, o.den);
+        long left = ScaledArithmetic.multiplyExact(num, o.den / g);
+        long right = ScaledArithmetic.multiplyExact(o.num, den / g);
+        long d = ScaledArithmetic.multiplyExact(den / g, o.den);
+        if (left != Long.MIN_VALUE && right != Long.MIN_VALUE && d != Long.MIN_VALUE) {
+            long n = left + right;
+            if (((left ^ n) & (right ^ n)) >= 0 && n != Long.MIN_VALUE) return of(n, d);
+        }
+        return addBig(o);
+    }
+
+    private Rational addBig(Rational o) {
+        return of(numerator().multiply(o.denominator()).add(o.numerator().multiply(denominator())),
+                denominator().multiply(o.denominator()));
+    }
+
+    public Rational subtract(Rational o) {
+        return add(o.negate());
+    }
+
+    public Rational multiply(Rational o) {
+        if (signum() == 0 || o.signum() == 0) return ZERO;
+        if (!big() && !o.big()) {
+            // Cross-reduce first so the products stay small and the result is in lowest terms.
+            long g1 = gcd(Math.abs(num), o.den);
+            long g2 = gcd(Math.abs(o.num), den);
+            long n = ScaledArithmetic.multiplyExact(num / g1, o.num / g2);
+            long d = ScaledArithmetic.multiplyExact(den / g2, o.den / g1);
+            if (n != Long.MIN_VALUE && d != Long.MIN_VALUE) return reduced(n, d);
+        }
+        return of(numerator().multiply(o.numerator()), denominator().multiply(o.denominator()));
+    }
+
+    /** Throws {@link ArithmeticException} when {@code o} is zero. */
+    public Rational divide(Rational o) {
+        return multiply(o.reciprocal());
+    }
+
+    public Rational negate() {
+        return big() ? new Rational(bigNum.negate(), bigDen) : reduced(-num, den);
+    }
+
+    /** Throws {@link ArithmeticException} for zero. */
+    public Rational reciprocal() {
+        if (signum() == 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+        if (big()) return of(bigDen, bigNum);
+        return num < 0 ? reduced(-den, -num) : reduced(den, num);
+    }
+
+    /** {@code this^n} by repeated squaring; throws {@link ArithmeticException} for 0 to a negative n. */
+    public Rational pow(int n) {
+        Rational base = n < 0 ? reciprocal() : this;
+        long e = Math.abs((long) n);
+        Rational result = ONE;
+        while (e != 0) {
+            if ((e & 1) != 0) result = result.multiply(base);
+            e >>>= 1;
+            if (e != 0) base = base.multiply(base);
+        }
+        return result;
+    }
+
+    public boolean isInteger() {
+        return big() ? bigDen.equals(BigInteger.ONE) : den == 1;
+    }
+
+    public int signum() {
+        return big() ? bigNum.signum() : Long.signum(num);
+    }
+
+    /** True when numerator and denominator are both held as longs. */
+    public boolean isSmall() {
+        return !big();
+    }
+
+    /** Bits in the larger of numerator and denominator, ignoring sign. */
+    public int bitLength() {
+        if (big()) return Math.max(bigNum.bitLength(), bigDen.bitLength());
+        return 64 - Long.numberOfLeadingZeros(Math.max(Math.abs(num), den));
+    }
+
+    public BigInteger numerator() {
+        return big() ? bigNum : BigInteger.valueOf(num);
+    }
+
+    /** Always positive. */
+    public BigInteger denominator() {
+        return big() ? bigDen : BigInteger.valueOf(den);
+    }
+
+    /** The value rounded to {@code mc}; the only place a rational is rounded. */
+    public BigDecimal toBigDecimal(MathContext mc) {
+        if (big()) return new BigDecimal(bigNum).divide(new BigDecimal(bigDen), mc);
+        if (den == 1) return BigDecimal.valueOf(num).round(mc);
+        return BigDecimal.valueOf(num).divide(BigDecimal.valueOf(den), mc);
+    }
+
+    private boolean big() {
+        return bigNum != null;
+    }
+
+    private static Rational reduced(long num, long den) {
+        if (den == 1) {
+            if (num == 0) return ZERO;
+            if (num == 1) return ONE;
+        }
+        return new Rational(num, den);
+    }
+
+    private static boolean fitsLong(BigInteger value) {
+        // Long.MIN_VALUE excluded, as in the long form.
+        return value.bitLength() < 64 && !value.equals(LONG_MIN);
+    }
+
+    /** Binary GCD of non-negative values; {@code gcd(0, n) = n}. */
+    static long gcd(long a, long b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = b;
+                b = a;
+                a = t;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Rational)) return false;
+        Rational r = (Rational) o;
+        if (big() != r.big()) return false;
+        return big() ? bigNum.equals(r.bigNum) && bigDen.equals(r.bigDen) : num == r.num && den == r.den;
+    }
+
+    @Override
+    public int hashCode() {
+        if (big()) return 31 * bigNum.hashCode() + bigDen.hashCode();
+        return 31 * (int) (num ^ (num >>> 32)) + (int) (den ^ (den >>> 32));
+    }
+
+    /** {@code n/d}, or just {@code n} for an integer; {@link #parse} reads it back. */
+    @Override
+    public String toString() {
+        if (big()) return bigDen.equals(BigInteger.ONE) ? bigNum.toString() : bigNum + "/" + bigDen;
+        return den == 1 ? Long.toString(num) : num + "/" + den;
+    }
+
+    /** Reads {@link #toString()}; throws {@link NumberFormatException} on anything else. */
+    public static Rational parse(String s) {
+        int slash = s.indexOf('/');
+        if (slash < 0) return of(new BigInteger(s), BigInteger.ONE);
+        try {
+            return of(new BigInteger(s.substring(0, slash)), new BigInteger(s.substring(slash + 1)));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException(s);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU memo of arithmetic results keyed by {@code (operand, operator, operand)}.
+ *
+ * <p>Operands are canonicalised with {@link BigDecimal#stripTrailingZeros()}, so {@code 2.0 / 3}
+ * and {@code 2 / 3} share an entry; the results only depend on numeric value, so this is safe.
+ * Unary operations use {@link #SQRT}, {@link #RECIPROCAL} or a
+ * {@link ScientificMath.Function#getSymbol()} with a null second operand.
+ * Entries are only valid for one {@code MathContext}; owners clear the cache when it changes.
+ * Not thread-safe.
+ */
+public final class ResultCache {
+
+    public static final char SQRT = '√';
+    public static final char RECIPROCAL = '⅟';
+
+    private final Map<Key, BigDecimal> entries;
+    // Reused for lookups so a hit does not allocate a key.
+    private final Key probe = new Key();
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ResultCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, BigDecimal>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BigDecimal> eldest) {
+                if (size() > ResultCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** The cached result, or null on a miss. */
+    public BigDecimal get(BigDecimal first, char op, BigDecimal second) {
+        probe.set(first, op, second);
+        BigDecimal result = entries.get(probe);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    public void put(BigDecimal first, char op, BigDecimal second, BigDecimal result) {
+        Key key = new Key();
+        key.set(first, op, second);
+        entries.put(key, result);
+    }
+
+    /** Shrinking the capacity evicts least recently used entries straight away. */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        Iterator<Key> it = entries.keySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** Drops all entries; the counters are kept. */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache{size=" + entries.size() + "/" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private static final class Key {
+        private BigDecimal first;
+        private char op;
+        private BigDecimal second;
+        private int hash;
+
+        void set(BigDecimal first, char op, BigDecimal second) {
+            this.first = first.stripTrailingZeros();
+            this.op = op;
+            this.second = second == null ? null : second.stripTrailingZeros();
+            int h = this.first.hashCode();
+            h = 31 * h + op;
+            h = 31 * h + (this.second == null ? 0 : this.second.hashCode());
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && op == k.op && first.equals(k.first)
+                    && (second == null ? k.second == null : second.equals(k.second));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
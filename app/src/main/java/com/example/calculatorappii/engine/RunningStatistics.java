@@ -0,0 +1,246 @@
+package com.example.calculatorappii.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Summary statistics of a stream in one pass and fixed memory: count, a compensated sum,
+ * Welford's mean and variance, min and max, and a {@link QuantileSketch} for the median and
+ * percentiles. No value is stored, so a million-value list costs the same few kilobytes as ten.
+ *
+ * <p>Every part is mergeable. Sums add, mean and variance combine with Chan's formula, and the
+ * sketches merge, so partitions summarized in parallel and then {@link #merge merged} give the
+ * same answer as one pass, up to rounding. {@link #summarize} does exactly that on a
+ * {@link ForkJoinPool}. Not thread-safe.
+ */
+public final class RunningStatistics {
+
+    /** Values per fork-join leaf in {@link #summarize}. */
+    static final int LEAF_SIZE = 1 << 16;
+
+    private long count;
+    private final CompensatedSum sum = new CompensatedSum();
+    private double mean;
+    // Sum of squared differences from the mean (Welford's M2).
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private QuantileSketch sketch = new QuantileSketch();
+
+    /** Ignores NaN, so a failed parse or an error never poisons the summary. */
+    public RunningStatistics add(double value) {
+        if (Double.isNaN(value)) return this;
+        count++;
+        sum.add(value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) min = value;
+        if (value > max) max = value;
+        sketch.add(value);
+        return this;
+    }
+
+    /** Adds {@code values[from..to)}. */
+    public RunningStatistics add(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + values.length);
+        }
+        for (int i = from; i < to; i++) add(values[i]);
+        return this;
+    }
+
+    /**
+     * Adds every number in {@code reader}. Numbers are separated by whitespace, commas or
+     * semicolons, as in a pasted column or a CSV row. Reads in chunks and keeps nothing, so a
+     * file of any length fits. Throws {@link NumberFormatException} at the first token that is
+     * not a number; the values before it are kept.
+     */
+    public RunningStatistics addAll(Reader reader) throws IOException {
+        char[] chunk = new char[8192];
+        StringBuilder token = new StringBuilder(32);
+        int n;
+        while ((n = reader.read(chunk)) > 0) {
+            for (int i = 0; i < n; i++) {
+                char c = chunk[i];
+                if (Character.isWhitespace(c) || c == ',' || c == ';') {
+                    addToken(token);
+                } else {
+                    token.append(c);
+                }
+            }
+        }
+        addToken(token);
+        return this;
+    }
+
+    private void addToken(StringBuilder token) {
+        if (token.length() == 0) return;
+        add(Double.parseDouble(token.toString()));
+        token.setLength(0);
+    }
+
+    /** Adds everything {@code other} has seen; {@code other} is left as it was. */
+    public RunningStatistics merge(RunningStatistics other) {
+        if (other == this) throw new IllegalArgumentException("Cannot merge statistics into themselves");
+        if (other.count == 0) return this;
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            // Chan et al.: combine the two means and M2s without revisiting any value.
+            long n = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / n;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        }
+        count += other.count;
+        sum.add(other.sum);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /** NaN when empty. */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /** Sample variance (n − 1 denominator); NaN below two values. */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /** Population variance (n denominator); NaN when empty. */
+    public double getPopulationVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /** Sample standard deviation; NaN below two values. */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /** NaN when empty. */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** NaN when empty. */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /** Approximate; see {@link QuantileSketch#quantile}. */
+    public double getQuantile(double q) {
+        return sketch.quantile(q);
+    }
+
+    public double getMedian() {
+        return sketch.quantile(0.5);
+    }
+
+    public void clear() {
+        count = 0;
+        sum.clear();
+        mean = 0;
+        m2 = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sketch.clear();
+    }
+
+    // ---- persistence ----
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(sum.sum());
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        sketch.writeTo(out);
+    }
+
+    public static RunningStatistics readFrom(DataInput in) throws IOException {
+        RunningStatistics statistics = new RunningStatistics();
+        statistics.count = in.readLong();
+        if (statistics.count < 0) throw new IOException("Bad count: " + statistics.count);
+        statistics.sum.add(in.readDouble());
+        statistics.mean = in.readDouble();
+        statistics.m2 = in.readDouble();
+        statistics.min = in.readDouble();
+        statistics.max = in.readDouble();
+        statistics.sketch = QuantileSketch.readFrom(in);
+        return statistics;
+    }
+
+    /** {@link #writeTo} as a byte array, e.g. for a {@link StateSnapshot}. */
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            writeTo(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Replaces everything with {@link #toBytes()} output; throws {@link IOException} if it is not. */
+    public void restore(byte[] bytes) throws IOException {
+        RunningStatistics saved = readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        clear();
+        merge(saved);
+    }
+
+    // ---- parallel ----
+
+    /** {@code values[from..to)} summarized in parallel partitions on {@code pool}, then merged. */
+    public static RunningStatistics summarize(double[] values, int from, int to, ForkJoinPool pool) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + values.length);
+        }
+        return pool.invoke(new Partition(values, from, to));
+    }
+
+    private static final class Partition extends RecursiveTask<RunningStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        Partition(double[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RunningStatistics compute() {
+            if (to - from <= LEAF_SIZE) return new RunningStatistics().add(values, from, to);
+            int mid = (from + to) >>> 1;
+            Partition right = new Partition(values, mid, to);
+            right.fork();
+            RunningStatistics left = new Partition(values, from, mid).compute();
+            return left.merge(right.join());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Exact arithmetic on decimals held as {@code unscaled × 10^-scale} in a single {@code long}.
+ *
+ * <p>This is the fast path in front of {@link CalculatorEngine#calculate}. It never returns an
+ * approximate answer: overflow, non-terminating quotients and results with more than
+ * {@link #MAX_DIGITS} significant digits return {@code false} and the caller falls back to
+ * {@link java.math.BigDecimal}. A successful result therefore has exactly the value the 15-digit
+ * BigDecimal path would produce, and formats to the same display text.
+ */
+public final class ScaledArithmetic {
+
+    /** Significant digits kept by the engine's {@code MathContext}. */
+    public static final int MAX_DIGITS = 15;
+
+    static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    /** Mutable holder so a successful operation does not allocate. */
+    public static final class Result {
+        /** Stripped of trailing zeros, so {@code scale} may be negative for round integers. */
+        public long unscaled;
+        public int scale;
+    }
+
+    private ScaledArithmetic() {}
+
+    /** Applies {@code + - * /}; returns false when the caller must use BigDecimal instead. */
+    public static boolean apply(long a, int aScale, char op, long b, int bScale, Result out) {
+        switch (op) {
+            case '+':
+                return add(a, aScale, b, bScale, out);
+            case '-':
+                return b != Long.MIN_VALUE && add(a, aScale, -b, bScale, out);
+            case '*':
+                return multiply(a, aScale, b, bScale, out);
+            case '/':
+                return divide(a, aScale, b, bScale, out);
+            default:
+                return false;
+        }
+    }
+
+    public static boolean add(long a, int aScale, long b, int bScale, Result out) {
+        if (aScale < bScale) {
+            a = multiplyPow10(a, bScale - aScale);
+            aScale = bScale;
+        } else if (bScale < aScale) {
+            b = multiplyPow10(b, aScale - bScale);
+        }
+        if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) return false;
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) return false;
+        return normalize(sum, aScale, out);
+    }
+
+    public static boolean multiply(long a, int aScale, long b, int bScale, Result out) {
+        long product = multiplyExact(a, b);
+        if (product == Long.MIN_VALUE) return false;
+        return normalize(product, aScale + bScale, out);
+    }
+
+    /**
+     * Exact only when the reduced divisor has no prime factors other than 2 and 5; anything else
+     * is a repeating decimal and is left to BigDecimal.
+     */
+    public static boolean divide(long a, int aScale, long b, int bScale, Result out) {
+        if (b == 0 || a == Long.MIN_VALUE || b == Long.MIN_VALUE) return false;
+        if (a == 0) return normalize(0, 0, out);
+        boolean negative = (a < 0) != (b < 0);
+        long n = Math.abs(a);
+        long d = Math.abs(b);
+        long g = gcd(n, d);
+        n /= g;
+        d /= g;
+
+        long rest = d;
+        int twos = 0;
+        int fives = 0;
+        while ((rest & 1) == 0) {
+            rest >>= 1;
+            twos++;
+        }
+        while (rest % 5 == 0) {
+            rest /= 5;
+            fives++;
+        }
+        if (rest != 1) return false;
+
+        int k = Math.max(twos, fives);
+        if (k >= POW10.length) return false;
+        long quotient = multiplyExact(n, POW10[k] / d);
+        if (quotient == Long.MIN_VALUE) return false;
+        return normalize(negative ? -quotient : quotient, aScale - bScale + k, out);
+    }
+
+    /** Strips trailing zeros and rejects results the 15-digit context would round. */
+    static boolean normalize(long unscaled, int scale, Result out) {
+        if (unscaled == 0) {
+            out.unscaled = 0;
+            out.scale = 0;
+            return true;
+        }
+        while (unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        if (digits(Math.abs(unscaled)) > MAX_DIGITS) return false;
+        out.unscaled = unscaled;
+        out.scale = scale;
+        return true;
+    }
+
+    /** Number of decimal digits in a non-negative value. */
+    static int digits(long value) {
+        int n = 1;
+        while (n < POW10.length && value >= POW10[n]) n++;
+        return n;
+    }
+
+    /** {@code value × 10^n}, or {@code Long.MIN_VALUE} on overflow. */
+    static long multiplyPow10(long value, int n) {
+        if (n >= POW10.length) return value == 0 ? 0 : Long.MIN_VALUE;
+        return multiplyExact(value, POW10[n]);
+    }
+
+    /** {@code a × b}, or {@code Long.MIN_VALUE} on overflow. */
+    static long multiplyExact(long a, long b) {
+        long r = a * b;
+        long ax = Math.abs(a);
+        long bx = Math.abs(b);
+        if (((ax | bx) >>> 31) != 0) {
+            if ((b != 0 && r / b != a) || (a == Long.MIN_VALUE && b == -1)) {
+                return Long.MIN_VALUE;
+            }
+        }
+        return r;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * sin, cos, tan, ln, log, exp, x^y and n! at any {@link MathContext} precision, in radians.
+ *
+ * <p>Up to 15 digits each function first tries {@link Math}, which is within 1 ulp of the
+ * double argument. That result is used only where the function is well-conditioned, so the
+ * rounding of the argument to a double cannot show in 15 digits. Otherwise, and at every
+ * higher precision, the BigDecimal path runs with guard digits:
+ * <ul>
+ *   <li>exp reduces {@code x = k·ln2 + r}, halves r a few times, sums the Taylor series and
+ *       squares back;</li>
+ *   <li>ln splits off the decimal exponent and a power of two, takes a few square roots and
+ *       sums the series for {@code 2·atanh((v − 1)/(v + 1))};</li>
+ *   <li>sin, cos and tan reduce by multiples of π/2, then sum the sine series on the argument
+ *       divided by {@code 3^s} and apply {@code sin 3a = 3 sin a − 4 sin³a} s times.</li>
+ * </ul>
+ * The series run in binary fixed point, where rounding a product is a shift. π, ln 2 and ln 10
+ * are computed once per precision and memoized, so no call pays for them twice. Thread-safe.
+ */
+public final class ScientificMath {
+
+    /** The unary functions, as keys and in {@link Expression}: {@code sin(x)}, {@code x!}. */
+    public enum Function {
+        SIN('i', "sin"),
+        COS('o', "cos"),
+        TAN('a', "tan"),
+        LN('l', "ln"),
+        LOG('g', "log"),
+        EXP('e', "exp"),
+        FACTORIAL('!', "fact");
+
+        private final char symbol;
+        private final String name;
+
+        Function(char symbol, String name) {
+            this.symbol = symbol;
+            this.name = name;
+        }
+
+        /** The function's {@link Key} symbol, also its {@link ResultCache} operator. */
+        public char getSymbol() {
+            return symbol;
+        }
+
+        /** The name {@link Expression} calls it by. */
+        public String getName() {
+            return name;
+        }
+
+        /** The function named {@code name} in {@link Expression}, or null. */
+        public static Function forName(String name) {
+            for (Function f : values()) {
+                if (f.name.equals(name)) return f;
+            }
+            return null;
+        }
+
+        public BigDecimal apply(BigDecimal x, MathContext mc) {
+            switch (this) {
+                case SIN:
+                    return sin(x, mc);
+                case COS:
+                    return cos(x, mc);
+                case TAN:
+                    return tan(x, mc);
+                case LN:
+                    return ln(x, mc);
+                case LOG:
+                    return log10(x, mc);
+                case EXP:
+                    return exp(x, mc);
+                default:
+                    return factorial(x, mc);
+            }
+        }
+    }
+
+    /** Largest n for {@link #factorial}; 3000! already has 9,131 digits. */
+    public static final int MAX_FACTORIAL = 3000;
+
+    /**
+     * Decimal exponents past this are {@link Expression#OVERFLOW}; underflow gives 0. Kept well
+     * below BigDecimal's limit: memory sums align scales, which costs a digit per power of ten.
+     */
+    static final int MAX_EXPONENT = 10_000;
+
+    /** Digits up to which the {@link Math} fast path is tried. */
+    static final int DOUBLE_DIGITS = 15;
+
+    // Largest condition number |x·f'(x)/f(x)| the fast path accepts. The argument's rounding to a
+    // double (half an ulp) and Math's error (one ulp) then stay below the 15th digit.
+    private static final double FAST_CONDITION = 4;
+
+    // Trig arguments past 10^this need π to more digits than it is sensible to compute.
+    private static final int MAX_TRIG_EXPONENT = 1000;
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    private static final BigDecimal MAX_EXP_ARGUMENT = BigDecimal.valueOf(MAX_EXPONENT).multiply(new BigDecimal("2.303"));
+    private static final long[] SMALL_FACTORIALS = new long[21];
+
+    static {
+        SMALL_FACTORIALS[0] = 1;
+        for (int i = 1; i < SMALL_FACTORIALS.length; i++) SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+    }
+
+    /**
+     * A constant memoized per precision, with precisions rounded up to a multiple of 32. A
+     * precision below the widest one computed so far is rounded from it; a wider one computes
+     * at least twice the digits, so a growing run of requests costs a few series in all.
+     */
+    private abstract static class Constant {
+        private final ConcurrentHashMap<Integer, BigDecimal> values = new ConcurrentHashMap<>();
+        private volatile BigDecimal widest = BigDecimal.ZERO;
+
+        BigDecimal get(int digits) {
+            Integer key = (digits + 31) & ~31;
+            BigDecimal value = values.get(key);
+            if (value == null) {
+                // Two threads may both compute it once; either result is the same.
+                BigDecimal source = widest;
+                if (source.precision() < key + 2) {
+                    source = compute(Math.max(key + 2, 2 * source.precision()));
+                    widest = source;
+                }
+                value = source.round(new MathContext(key, RoundingMode.HALF_EVEN));
+                values.put(key, value);
+            }
+            return value;
+        }
+
+        /** The constant to {@code digits} significant digits, give or take the last one. */
+        abstract BigDecimal compute(int digits);
+    }
+
+    private static final Constant PI = new Constant() {
+        @Override
+        BigDecimal compute(int digits) {
+            // Machin: π = 16·atan(1/5) − 4·atan(1/239).
+            BigInteger one = fixedPointOne(digits);
+            return fromFixedPoint(inverseSeries(5, one, true).shiftLeft(4)
+                    .subtract(inverseSeries(239, one, true).shiftLeft(2)), digits);
+        }
+    };
+
+    private static final Constant LN2 = new Constant() {
+        @Override
+        BigDecimal compute(int digits) {
+            // ln 2 = 2·atanh(1/3).
+            return fromFixedPoint(inverseSeries(3, fixedPointOne(digits), false).shiftLeft(1), digits);
+        }
+    };
+
+    private static final Constant LN10 = new Constant() {
+        @Override
+        BigDecimal compute(int digits) {
+            // ln 10 = 3·ln 2 + ln(5/4), and ln(5/4) = 2·atanh(1/9).
+            BigInteger one = fixedPointOne(digits);
+            BigInteger ln2 = inverseSeries(3, one, false).shiftLeft(1);
+            return fromFixedPoint(ln2.multiply(BigInteger.valueOf(3))
+                    .add(inverseSeries(9, one, false).shiftLeft(1)), digits);
+        }
+    };
+
+    private ScientificMath() {}
+
+    public static BigDecimal pi(MathContext mc) {
+        return PI.get(mc.getPrecision()).round(mc);
+    }
+
+    public static BigDecimal ln2(MathContext mc) {
+        return LN2.get(mc.getPrecision()).round(mc);
+    }
+
+    public static BigDecimal ln10(MathContext mc) {
+        return LN10.get(mc.getPrecision()).round(mc);
+    }
+
+    // ---- exp and ln ----
+
+    public static BigDecimal exp(BigDecimal x, MathContext mc) {
+        checkPrecision(mc);
+        if (x.signum() == 0) return BigDecimal.ONE;
+        if (mc.getPrecision() <= DOUBLE_DIGITS) {
+            double d = toDouble(x);
+            BigDecimal fast = Math.abs(d) <= FAST_CONDITION ? fromDouble(Math.exp(d), mc) : null;
+            if (fast != null) return fast;
+        }
+        if (x.abs().compareTo(MAX_EXP_ARGUMENT) > 0) {
+            if (x.signum() < 0) return BigDecimal.ZERO;
+            throw new ArithmeticException(Expression.OVERFLOW);
+        }
+        int p = mc.getPrecision();
+        int integerDigits = Math.max(0, BigDecimalMath.exponent(x) + 1);
+        int halvings = (int) Math.sqrt(p);
+        MathContext wc = working(p + integerDigits + halvings / 3 + 8);
+
+        // x = k·ln2 + r with |r| <= ln2/2, then r / 2^halvings.
+        BigDecimal ln2 = LN2.get(wc.getPrecision());
+        int k = x.divide(ln2, working(integerDigits + 3)).setScale(0, RoundingMode.HALF_EVEN).intValue();
+        BigDecimal r = x.subtract(ln2.multiply(BigDecimal.valueOf(k)), wc);
+        r = r.multiply(HALF.pow(halvings), wc);
+
+        int bits = bitsFor(wc.getPrecision()) + halvings;
+        BigInteger fixedR = toFixed(r, bits);
+        BigInteger one = BigInteger.ONE.shiftLeft(bits);
+        BigInteger sum = one;
+        BigInteger term = one;
+        for (int i = 1; term.signum() != 0; i++) {
+            term = multiply(term, fixedR, bits).divide(BigInteger.valueOf(i));
+            sum = sum.add(term);
+        }
+        for (int i = 0; i < halvings; i++) sum = multiply(sum, sum, bits);
+        return fromFixed(sum, bits, wc).multiply(TWO.pow(k, wc), wc).round(mc);
+    }
+
+    /** Natural logarithm; throws {@link ArithmeticException} unless x > 0. */
+    public static BigDecimal ln(BigDecimal x, MathContext mc) {
+        checkPrecision(mc);
+        if (x.signum() <= 0) throw new ArithmeticException(Expression.OUT_OF_DOMAIN);
+        if (x.compareTo(BigDecimal.ONE) == 0) return BigDecimal.ZERO;
+        if (mc.getPrecision() <= DOUBLE_DIGITS) {
+            double result = Math.log(toDouble(x));
+            BigDecimal fast = Math.abs(result) * FAST_CONDITION >= 1 ? fromDouble(result, mc) : null;
+            if (fast != null) return fast;
+        }
+        return lnSlow(x, mc.getPrecision()).round(mc);
+    }
+
+    /** Base-10 logarithm; exact for powers of ten. */
+    public static BigDecimal log10(BigDecimal x, MathContext mc) {
+        checkPrecision(mc);
+        if (x.signum() <= 0) throw new ArithmeticException(Expression.OUT_OF_DOMAIN);
+        BigDecimal stripped = x.stripTrailingZeros();
+        if (stripped.unscaledValue().equals(BigInteger.ONE)) return BigDecimal.valueOf(-stripped.scale());
+        if (mc.getPrecision() <= DOUBLE_DIGITS) {
+            double d = toDouble(x);
+            BigDecimal fast = Math.abs(Math.log(d)) * FAST_CONDITION >= 1 ? fromDouble(Math.log10(d), mc) : null;
+            if (fast != null) return fast;
+        }
+        int p = mc.getPrecision() + 4;
+        return lnSlow(x, p).divide(LN10.get(p), working(p)).round(mc);
+    }
+
+    /** ln x to about {@code p} significant digits, for x > 0 and x != 1. */
+    private static BigDecimal lnSlow(BigDecimal x, int p) {
+        // x = v · 2^j · 10^e with v near 1. Near 1 itself x is used as is: splitting would cancel.
+        int e = 0;
+        int j = 0;
+        BigDecimal v = x;
+        BigDecimal distance = x.subtract(BigDecimal.ONE);
+        if (distance.abs().compareTo(HALF) > 0) {
+            e = BigDecimalMath.exponent(x);
+            v = x.movePointLeft(e);
+            j = (int) Math.round(Math.log(v.doubleValue()) / Math.log(2));
+            v = v.multiply(HALF.pow(j));
+            distance = v.subtract(BigDecimal.ONE);
+        }
+        int roots = (int) (Math.sqrt(p) / 3);
+        // x − 1 close to 0 loses its leading digits in v − 1; carry them.
+        int cancelled = distance.signum() == 0 ? 0 : Math.max(0, -BigDecimalMath.exponent(distance));
+        int exponentDigits = e == 0 ? 0 : Integer.toString(Math.abs(e)).length();
+        MathContext wc = working(p + cancelled + exponentDigits + roots / 2 + 8);
+
+        BigDecimal lnV = BigDecimal.ZERO;
+        if (distance.signum() != 0) {
+            for (int i = 0; i < roots; i++) v = BigDecimalMath.sqrt(v, wc);
+            int bits = bitsFor(wc.getPrecision());
+            BigInteger z = toFixed(v.subtract(BigDecimal.ONE).divide(v.add(BigDecimal.ONE), wc), bits);
+            BigInteger z2 = multiply(z, z, bits);
+            BigInteger power = z;
+            BigInteger sum = z;
+            for (int k = 3; power.signum() != 0; k += 2) {
+                power = multiply(power, z2, bits);
+                sum = sum.add(power.divide(BigInteger.valueOf(k)));
+            }
+            lnV = fromFixed(sum.shiftLeft(roots + 1), bits, wc);
+        }
+        BigDecimal result = lnV;
+        if (j != 0) result = result.add(LN2.get(wc.getPrecision()).multiply(BigDecimal.valueOf(j)), wc);
+        if (e != 0) result = result.add(LN10.get(wc.getPrecision()).multiply(BigDecimal.valueOf(e)), wc);
+        return result;
+    }
+
+    // ---- trigonometry ----
+
+    public static BigDecimal sin(BigDecimal x, MathContext mc) {
+        return trig(x, mc, Function.SIN);
+    }
+
+    public static BigDecimal cos(BigDecimal x, MathContext mc) {
+        return trig(x, mc, Function.COS);
+    }
+
+    public static BigDecimal tan(BigDecimal x, MathContext mc) {
+        return trig(x, mc, Function.TAN);
+    }
+
+    private static BigDecimal trig(BigDecimal x, MathContext mc, Function f) {
+        checkPrecision(mc);
+        if (x.signum() == 0) return f == Function.COS ? BigDecimal.ONE : BigDecimal.ZERO;
+        if (mc.getPrecision() <= DOUBLE_DIGITS) {
+            double d = toDouble(x);
+            double s = Math.sin(d);
+            double c = Math.cos(d);
+            // Condition numbers: |x·cot x| for sin, |x·tan x| for cos, |2x / sin 2x| for tan.
+            double condition = f == Function.SIN ? Math.abs(d * c / s)
+                    : f == Function.COS ? Math.abs(d * s / c) : Math.abs(d / (s * c));
+            BigDecimal fast = condition <= FAST_CONDITION
+                    ? fromDouble(f == Function.SIN ? s : f == Function.COS ? c : Math.tan(d), mc) : null;
+            if (fast != null) return fast;
+        }
+        int exponent = BigDecimalMath.exponent(x);
+        if (exponent > MAX_TRIG_EXPONENT) throw new ArithmeticException(Expression.OUT_OF_DOMAIN);
+
+        int p = mc.getPrecision();
+        int extra = 0;
+        while (true) {
+            MathContext wc = working(p + Math.max(0, exponent + 1) + extra + 8);
+            // x = k·π/2 + r with |r| <= π/4; the quadrant picks sin or cos of r and the sign.
+            BigDecimal halfPi = PI.get(wc.getPrecision()).multiply(HALF);
+            BigInteger k = x.divide(halfPi, working(Math.max(1, exponent + 3)))
+                    .setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+            BigDecimal r = x.subtract(halfPi.multiply(new BigDecimal(k)), wc);
+            // Near a multiple of π/2 the leading digits of r cancel: redo with that many more.
+            int lost = r.signum() == 0 ? wc.getPrecision() : -BigDecimalMath.exponent(r);
+            if (lost > extra + 2) {
+                extra = lost + 2;
+                continue;
+            }
+            int guard = wc.getPrecision() + 4;
+            BigDecimal sinR = sinReduced(r, working(guard));
+            BigDecimal cosR = BigDecimalMath.sqrt(BigDecimal.ONE.subtract(sinR.multiply(sinR)), working(guard));
+            int quadrant = k.intValue() & 3;
+            BigDecimal sin = quadrant == 0 ? sinR : quadrant == 1 ? cosR : quadrant == 2 ? sinR.negate() : cosR.negate();
+            BigDecimal cos = quadrant == 0 ? cosR : quadrant == 1 ? sinR.negate() : quadrant == 2 ? cosR.negate() : sinR;
+            if (f == Function.SIN) return sin.round(mc);
+            if (f == Function.COS) return cos.round(mc);
+            return sin.divide(cos, mc);
+        }
+    }
+
+    /** sin a for |a| <= π/4 + a little, to {@code wc}. */
+    private static BigDecimal sinReduced(BigDecimal a, MathContext wc) {
+        int triplings = (int) (Math.sqrt(wc.getPrecision()) / 2);
+        // Each tripling can grow the error threefold: two more bits apiece.
+        int bits = bitsFor(wc.getPrecision()) + 2 * triplings;
+        BigInteger t = toFixed(a, bits).divide(BigInteger.valueOf(3).pow(triplings));
+        BigInteger t2 = multiply(t, t, bits);
+        BigInteger term = t;
+        BigInteger sum = t;
+        for (int k = 2; term.signum() != 0; k += 2) {
+            term = multiply(term, t2, bits).divide(BigInteger.valueOf(-(long) k * (k + 1)));
+            sum = sum.add(term);
+        }
+        for (int i = 0; i < triplings; i++) {
+            // sin 3a = 3 sin a − 4 sin³a
+            BigInteger cube = multiply(multiply(sum, sum, bits), sum, bits);
+            sum = sum.multiply(BigInteger.valueOf(3)).subtract(cube.shiftLeft(2));
+        }
+        return fromFixed(sum, bits, wc);
+    }
+
+    // ---- powers ----
+
+    /**
+     * {@code x^y}. Integer powers of any x go through {@link BigDecimal#pow(int, MathContext)};
+     * otherwise x must be positive and the result is {@code exp(y·ln x)}.
+     */
+    public static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc) {
+        checkPrecision(mc);
+        if (y.signum() == 0) return BigDecimal.ONE;
+        if (x.signum() == 0) {
+            if (y.signum() < 0) throw new ArithmeticException(Expression.DIVISION_BY_ZERO);
+            return BigDecimal.ZERO;
+        }
+        if (x.compareTo(BigDecimal.ONE) == 0) return BigDecimal.ONE;
+        int p = mc.getPrecision();
+        if (mc.getPrecision() <= DOUBLE_DIGITS && x.signum() > 0) {
+            double dx = toDouble(x);
+            double dy = toDouble(y);
+            BigDecimal fast = Math.abs(dy) <= FAST_CONDITION && Math.abs(dy * Math.log(dx)) <= FAST_CONDITION
+                    ? fromDouble(Math.pow(dx, dy), mc) : null;
+            if (fast != null) return fast;
+        }
+        BigDecimal integer = y.stripTrailingZeros();
+        if (integer.scale() <= 0 && integer.precision() - integer.scale() <= 9) {
+            int n = integer.intValueExact();
+            // Rough decimal exponent of the result first, so a huge one fails fast.
+            int e = BigDecimalMath.exponent(x);
+            double size = n * (e + Math.log10(x.movePointLeft(e).abs().doubleValue()));
+            if (size > MAX_EXPONENT) throw new ArithmeticException(Expression.OVERFLOW);
+            if (size < -MAX_EXPONENT) return BigDecimal.ZERO;
+            int nDigits = Integer.toString(Math.abs(n)).length();
+            return x.pow(n, working(p + nDigits + 4)).round(mc);
+        }
+        if (x.signum() < 0) throw new ArithmeticException(Expression.OUT_OF_DOMAIN);
+        // The exponent y·ln x must be right to p digits after its point, whatever its size.
+        BigDecimal rough = ln(x, working(20)).multiply(y, working(20));
+        if (rough.abs().compareTo(MAX_EXP_ARGUMENT) > 0) {
+            if (rough.signum() < 0) return BigDecimal.ZERO;
+            throw new ArithmeticException(Expression.OVERFLOW);
+        }
+        MathContext wc = working(p + Math.max(0, BigDecimalMath.exponent(rough) + 1) + 8);
+        BigDecimal t = lnSlow(x, wc.getPrecision()).multiply(y, wc);
+        return exp(t, working(p + 4)).round(mc);
+    }
+
+    /** {@code n!} for whole n from 0 to {@link #MAX_FACTORIAL}. */
+    public static BigDecimal factorial(BigDecimal n, MathContext mc) {
+        checkPrecision(mc);
+        if (n.signum() < 0 || n.stripTrailingZeros().scale() > 0) {
+            throw new ArithmeticException(Expression.OUT_OF_DOMAIN);
+        }
+        if (n.compareTo(BigDecimal.valueOf(MAX_FACTORIAL)) > 0) throw new ArithmeticException(Expression.OVERFLOW);
+        int k = n.intValue();
+        if (k < SMALL_FACTORIALS.length) return new BigDecimal(SMALL_FACTORIALS[k]).round(mc);
+        return new BigDecimal(product(SMALL_FACTORIALS.length, k).multiply(BigInteger.valueOf(SMALL_FACTORIALS[20])))
+                .round(mc);
+    }
+
+    /** {@code from × (from + 1) × … × to}, split in halves so the operands stay balanced. */
+    private static BigInteger product(int from, int to) {
+        // Four factors of at most 10000 still fit a long.
+        if (to - from < 4) {
+            long p = 1;
+            for (int i = from; i <= to; i++) p *= i;
+            return BigInteger.valueOf(p);
+        }
+        int mid = (from + to) >>> 1;
+        return product(from, mid).multiply(product(mid + 1, to));
+    }
+
+    // ---- series for the constants ----
+    // Summed in fixed point: integers scaled by 10^(digits + SERIES_GUARD). Dividing a BigInteger
+    // by a small number is linear time, far cheaper than a BigDecimal division with rounding.
+
+    private static final int SERIES_GUARD = 8;
+
+    private static BigInteger fixedPointOne(int digits) {
+        return BigInteger.TEN.pow(digits + SERIES_GUARD);
+    }
+
+    private static BigDecimal fromFixedPoint(BigInteger value, int digits) {
+        return new BigDecimal(value, digits + SERIES_GUARD).round(working(digits));
+    }
+
+    /** atan(1/n) or, without {@code alternate}, atanh(1/n) = Σ ±1 / ((2k+1)·n^(2k+1)). */
+    private static BigInteger inverseSeries(int n, BigInteger one, boolean alternate) {
+        BigInteger nSquared = BigInteger.valueOf((long) n * n);
+        BigInteger power = one.divide(BigInteger.valueOf(n));
+        BigInteger sum = power;
+        for (int k = 1; power.signum() != 0; k++) {
+            power = power.divide(nSquared);
+            BigInteger term = power.divide(BigInteger.valueOf(2L * k + 1));
+            sum = alternate && (k & 1) != 0 ? sum.subtract(term) : sum.add(term);
+        }
+        return sum;
+    }
+
+    // ---- binary fixed point ----
+    // The series for exp, ln and sin run on integers scaled by 2^bits. Rounding a product is then a
+    // shift; a BigDecimal rounds each result to a MathContext by dividing by a power of ten.
+
+    private static final BigInteger FIVE = BigInteger.valueOf(5);
+
+    /** Bits for {@code digits} significant decimal digits of a value below 1, plus 32 guard bits. */
+    private static int bitsFor(int digits) {
+        return (int) (digits * 3.3219280948873623) + 32;
+    }
+
+    /** The fixed-point product, truncated toward zero so that a vanishing series reaches 0. */
+    private static BigInteger multiply(BigInteger a, BigInteger b, int bits) {
+        BigInteger product = a.multiply(b);
+        return product.signum() < 0 ? product.negate().shiftRight(bits).negate() : product.shiftRight(bits);
+    }
+
+    /** {@code x·2^bits}, rounded to an integer. */
+    private static BigInteger toFixed(BigDecimal x, int bits) {
+        return x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(bits)))
+                .setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+    }
+
+    /** {@code value / 2^bits} rounded to {@code mc}; 2^-bits is exactly 5^bits · 10^-bits. */
+    private static BigDecimal fromFixed(BigInteger value, int bits, MathContext mc) {
+        return new BigDecimal(value.multiply(FIVE.pow(bits)), bits).round(mc);
+    }
+
+    // ---- helpers ----
+
+    /** {@code x} as a double, or NaN when that would lose bits: overflow, underflow, subnormal. */
+    private static double toDouble(BigDecimal x) {
+        double d = x.doubleValue();
+        double abs = Math.abs(d);
+        return abs >= Double.MIN_NORMAL && abs <= Double.MAX_VALUE ? d : Double.NaN;
+    }
+
+    /** A fast-path result, or null when it is not a normal double and so not good to 1 ulp. */
+    private static BigDecimal fromDouble(double d, MathContext mc) {
+        double abs = Math.abs(d);
+        return abs >= Double.MIN_NORMAL && abs <= Double.MAX_VALUE ? new BigDecimal(d).round(mc) : null;
+    }
+
+    private static MathContext working(int digits) {
+        return new MathContext(digits, RoundingMode.HALF_EVEN);
+    }
+
+    private static void checkPrecision(MathContext mc) {
+        if (mc.getPrecision() == 0) {
+            throw new IllegalArgumentException("Unlimited precision is not supported");
+        }
+    }
+}
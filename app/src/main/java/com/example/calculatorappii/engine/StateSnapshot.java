@@ -0,0 +1,420 @@
+package com.example.calculatorappii.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Everything restored on the next launch: the keypad state, memory, precision and the history
+ * line. Immutable, so it can be captured on the main thread and written on another.
+ *
+ * <p>Binary layout, big-endian: {@code int magic, short version}, then the fields, then a CRC32
+ * of all preceding bytes. A reader accepts any version up to its own.
+ * <ul>
+ *   <li>Version 1 held one memory value as a {@code double} and a has-memory flag.</li>
+ *   <li>Version 2 replaces them with the whole {@link MemoryBank}: the selected register, then
+ *       per register its name and exact value (empty when unset), then the tally and its count.
+ *       Version 1 files load their value into the first register.</li>
+ *   <li>Version 3 appends rational mode and the exact fractions behind the display and the first
+ *       operand, as {@link Rational#toString()} text (empty when none). Older files load with
+ *       rational mode off.</li>
+ *   <li>Version 4 appends the Σ+ {@link RunningStatistics} as a length-prefixed
+ *       {@link RunningStatistics#toBytes()} block, empty when nothing was added.</li>
+ *   <li>Version 5 appends the user constants and formulas the same way, as
+ *       {@link FormulaRegistry#toBytes()}: their names and source text, not compiled code.</li>
+ *   <li>Version 6 writes the registers, the tally and the exact fractions as numbers rather than
+ *       {@code writeUTF} text, which stops at 64 KB: a decimal is an {@code int} length, its
+ *       unscaled two's-complement bytes and an {@code int} scale, and a fraction is its numerator
+ *       and denominator the same way without the scale. A length of -1 marks an unset register or
+ *       a missing fraction.</li>
+ *   <li>Version 7 appends the expression-mode line still being typed, such as
+ *       {@code 2 + 3 × }, and where its last operator starts (-1 for none). Older files restore
+ *       with an empty line.</li>
+ * </ul>
+ */
+public final class StateSnapshot {
+
+    static final int MAGIC = 0x43414C43; // "CALC"
+    static final short VERSION = 7;
+
+    final String display;
+    final String operator;
+    final String firstOperand;
+    final boolean isNewInput;
+    final Precision precision;
+    final boolean expressionMode;
+    final String historyLine;
+    final int historyBack;
+    final int memoryRegister;
+    final String[] memoryNames;
+    // Null for a register that is not set.
+    final BigDecimal[] memory;
+    final BigDecimal tally;
+    final long tallyCount;
+    final boolean rationalMode;
+    // Null when the operand has no fraction behind it.
+    final Rational displayExact;
+    final Rational firstExact;
+    // Empty when there are no statistics.
+    final byte[] statistics;
+    // Empty when there are no formulas.
+    final byte[] formulas;
+    // The pending expression-mode line; empty outside expression mode.
+    final String expression;
+    final int pendingOperatorAt;
+
+    /** A snapshot with a single memory value, as sessions before the memory bank saved it. */
+    public StateSnapshot(String display, String operator, String firstOperand, boolean isNewInput,
+                         double memoryValue, boolean hasMemory, Precision precision,
+                         boolean expressionMode, String historyLine, int historyBack) {
+        this(display, operator, firstOperand, isNewInput, precision, expressionMode, historyLine,
+                historyBack, 0, defaultNames(),
+                singleRegister(hasMemory ? BigDecimal.valueOf(memoryValue) : null),
+                BigDecimal.ZERO, 0, false, null, null, new byte[0], new byte[0], "", -1);
+    }
+
+    StateSnapshot(String display, String operator, String firstOperand, boolean isNewInput,
+                  Precision precision, boolean expressionMode, String historyLine, int historyBack,
+                  int memoryRegister, String[] memoryNames, BigDecimal[] memory,
+                  BigDecimal tally, long tallyCount, boolean rationalMode, Rational displayExact,
+                  Rational firstExact, byte[] statistics, byte[] formulas, String expression,
+                  int pendingOperatorAt) {
+        this.display = display;
+        this.operator = operator;
+        this.firstOperand = firstOperand;
+        this.isNewInput = isNewInput;
+        this.precision = precision;
+        this.expressionMode = expressionMode;
+        this.historyLine = historyLine;
+        this.historyBack = historyBack;
+        this.memoryRegister = memoryRegister;
+        this.memoryNames = memoryNames;
+        this.memory = memory;
+        this.tally = tally;
+        this.tallyCount = tallyCount;
+        this.rationalMode = rationalMode;
+        this.displayExact = displayExact;
+        this.firstExact = firstExact;
+        this.statistics = statistics;
+        this.formulas = formulas;
+        this.expression = expression;
+        this.pendingOperatorAt = pendingOperatorAt;
+    }
+
+    /** The engine's current state plus the history line the activity shows. */
+    public static StateSnapshot capture(CalculatorEngine engine, String historyLine, int historyBack) {
+        MemoryBank bank = engine.getMemoryBank();
+        String[] names = new String[bank.size()];
+        BigDecimal[] values = new BigDecimal[bank.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = bank.getName(i);
+            values[i] = bank.isSet(i) ? bank.get(i) : null;
+        }
+        return new StateSnapshot(engine.getDisplay(), engine.getOperator(), engine.getFirstOperand(),
+                engine.isNewInput(), engine.getPrecision(), engine.isExpressionMode(), historyLine,
+                historyBack, engine.getMemoryRegister(), names, values, bank.getTally(),
+                bank.getTallyCount(), engine.isRationalMode(), engine.getExactValue(),
+                engine.firstOperand().exact(),
+                bank.getStatistics().getCount() == 0 ? new byte[0] : bank.getStatistics().toBytes(),
+                engine.getFormulas().size() == 0 ? new byte[0] : engine.getFormulas().toBytes(),
+                engine.expressionText().toString(), engine.pendingOperatorAt());
+    }
+
+    public void applyTo(CalculatorEngine engine) {
+        engine.setPrecision(precision);
+        engine.setExpressionMode(expressionMode);
+        engine.restore(display, operator, firstOperand, isNewInput);
+        engine.setRationalMode(rationalMode);
+        // setExpressionMode cleared the line; put back what was being typed.
+        engine.restoreKeypad(engine.keypadFlags(), expression, pendingOperatorAt);
+        engine.displayOperand().setExact(displayExact);
+        if (!firstOperand.isEmpty()) engine.firstOperand().setExact(firstExact);
+        MemoryBank bank = engine.getMemoryBank();
+        bank.clearAll();
+        // A bank saved with more registers than this one has loses the extra ones.
+        int n = Math.min(memory.length, bank.size());
+        for (int i = 0; i < n; i++) {
+            if (bank.indexOf(memoryNames[i]) < 0) bank.setName(i, memoryNames[i]);
+            if (memory[i] != null) bank.set(i, memory[i]);
+        }
+        bank.restoreTally(tally, tallyCount);
+        if (statistics.length > 0) {
+            try {
+                bank.getStatistics().restore(statistics);
+            } catch (IOException ignored) {
+                // The checksum matched, so only a bug could get here; start the statistics over.
+            }
+        }
+        FormulaRegistry registry = engine.getFormulas();
+        if (formulas.length > 0) {
+            try {
+                registry.restore(formulas);
+            } catch (IOException ignored) {
+                // As above; the registry keeps what it had.
+            }
+        } else {
+            registry.clear();
+        }
+        engine.selectMemoryRegister(memoryRegister < bank.size() ? memoryRegister : 0);
+    }
+
+    public String getHistoryLine() {
+        return historyLine;
+    }
+
+    public int getHistoryBack() {
+        return historyBack;
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(display);
+            out.writeUTF(operator);
+            out.writeUTF(firstOperand);
+            out.writeBoolean(isNewInput);
+            out.writeInt(precision.getDigits());
+            out.writeBoolean(expressionMode);
+            out.writeUTF(historyLine);
+            out.writeInt(historyBack);
+            out.writeInt(memoryRegister);
+            out.writeInt(memory.length);
+            for (int i = 0; i < memory.length; i++) {
+                out.writeUTF(memoryNames[i]);
+                writeDecimal(out, memory[i]);
+            }
+            writeDecimal(out, tally);
+            out.writeLong(tallyCount);
+            out.writeBoolean(rationalMode);
+            writeRational(out, displayExact);
+            writeRational(out, firstExact);
+            out.writeInt(statistics.length);
+            out.write(statistics);
+            out.writeInt(formulas.length);
+            out.write(formulas);
+            out.writeUTF(expression);
+            out.writeInt(pendingOperatorAt);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses {@link #toBytes()} output. Returns null for anything this version cannot trust: a
+     * wrong magic or checksum, a newer version, or a truncated file.
+     */
+    public static StateSnapshot fromBytes(byte[] bytes) {
+        if (bytes.length < 10) return null;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (ByteBuffer.wrap(bytes).getInt(bytes.length - 4) != (int) crc.getValue()) return null;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+            if (in.readInt() != MAGIC) return null;
+            short version = in.readShort();
+            if (version < 1 || version > VERSION) return null;
+            String display = in.readUTF();
+            String operator = in.readUTF();
+            String firstOperand = in.readUTF();
+            boolean isNewInput = in.readBoolean();
+            if (version == 1) {
+                return new StateSnapshot(display, operator, firstOperand, isNewInput,
+                        in.readDouble(), in.readBoolean(), Precision.fromDigits(in.readInt()),
+                        in.readBoolean(), in.readUTF(), in.readInt());
+            }
+            Precision precision = Precision.fromDigits(in.readInt());
+            boolean expressionMode = in.readBoolean();
+            String historyLine = in.readUTF();
+            int historyBack = in.readInt();
+            int memoryRegister = in.readInt();
+            int registers = in.readInt();
+            if (registers < 0 || registers > bytes.length) return null;
+            String[] names = new String[registers];
+            BigDecimal[] values = new BigDecimal[registers];
+            for (int i = 0; i < registers; i++) {
+                names[i] = in.readUTF();
+                if (version >= 6) {
+                    values[i] = readDecimal(in, bytes.length);
+                } else {
+                    String value = in.readUTF();
+                    values[i] = value.isEmpty() ? null : new BigDecimal(value);
+                }
+            }
+            BigDecimal tally = version >= 6 ? readDecimal(in, bytes.length) : new BigDecimal(in.readUTF());
+            if (tally == null) return null;
+            long tallyCount = in.readLong();
+            boolean rationalMode = false;
+            Rational displayExact = null;
+            Rational firstExact = null;
+            if (version >= 6) {
+                rationalMode = in.readBoolean();
+                displayExact = readRational(in, bytes.length);
+                firstExact = readRational(in, bytes.length);
+            } else if (version >= 3) {
+                rationalMode = in.readBoolean();
+                displayExact = readRational(in);
+                firstExact = readRational(in);
+            }
+            byte[] statistics = new byte[0];
+            if (version >= 4) {
+                int length = in.readInt();
+                if (length < 0 || length > bytes.length) return null;
+                statistics = new byte[length];
+                in.readFully(statistics);
+            }
+            byte[] formulas = new byte[0];
+            if (version >= 5) {
+                int length = in.readInt();
+                if (length < 0 || length > bytes.length) return null;
+                formulas = new byte[length];
+                in.readFully(formulas);
+            }
+            String expression = "";
+            int pendingOperatorAt = -1;
+            if (version >= 7) {
+                expression = in.readUTF();
+                pendingOperatorAt = in.readInt();
+                if (pendingOperatorAt < -1 || pendingOperatorAt > expression.length()) return null;
+            }
+            return new StateSnapshot(display, operator, firstOperand, isNewInput, precision,
+                    expressionMode, historyLine, historyBack, memoryRegister, names, values,
+                    tally, tallyCount, rationalMode, displayExact, firstExact, statistics, formulas,
+                    expression, pendingOperatorAt);
+        } catch (IOException | NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /** Versions 3 to 5: {@link Rational#toString()} text, empty for none. */
+    private static Rational readRational(DataInputStream in) throws IOException {
+        String text = in.readUTF();
+        return text.isEmpty() ? null : Rational.parse(text);
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeInteger(out, value.unscaledValue());
+        out.writeInt(value.scale());
+    }
+
+    /** Null for an unset register; {@code limit} bounds the length a corrupt file can claim. */
+    private static BigDecimal readDecimal(DataInput in, int limit) throws IOException {
+        BigInteger unscaled = readInteger(in, limit);
+        return unscaled == null ? null : new BigDecimal(unscaled, in.readInt());
+    }
+
+    private static void writeRational(DataOutput out, Rational value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeInteger(out, value.numerator());
+        writeInteger(out, value.denominator());
+    }
+
+    private static Rational readRational(DataInput in, int limit) throws IOException {
+        BigInteger numerator = readInteger(in, limit);
+        if (numerator == null) return null;
+        BigInteger denominator = readInteger(in, limit);
+        if (denominator == null) throw new IOException("Fraction without a denominator");
+        return Rational.of(numerator, denominator);
+    }
+
+    private static void writeInteger(DataOutput out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readInteger(DataInput in, int limit) throws IOException {
+        int length = in.readInt();
+        if (length == -1) return null;
+        if (length <= 0 || length > limit) throw new IOException("Bad number length: " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    private static String[] defaultNames() {
+        MemoryBank bank = new MemoryBank();
+        String[] names = new String[bank.size()];
+        for (int i = 0; i < names.length; i++) names[i] = bank.getName(i);
+        return names;
+    }
+
+    private static BigDecimal[] singleRegister(BigDecimal value) {
+        BigDecimal[] values = new BigDecimal[MemoryBank.DEFAULT_SIZE];
+        values[0] = value;
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StateSnapshot)) return false;
+        StateSnapshot s = (StateSnapshot) o;
+        return isNewInput == s.isNewInput
+                && expressionMode == s.expressionMode
+                && historyBack == s.historyBack
+                && precision == s.precision
+                && display.equals(s.display)
+                && operator.equals(s.operator)
+                && firstOperand.equals(s.firstOperand)
+                && historyLine.equals(s.historyLine)
+                && memoryRegister == s.memoryRegister
+                && Arrays.equals(memoryNames, s.memoryNames)
+                && Arrays.equals(memory, s.memory)
+                && tally.equals(s.tally)
+                && tallyCount == s.tallyCount
+                && rationalMode == s.rationalMode
+                && (displayExact == null ? s.displayExact == null : displayExact.equals(s.displayExact))
+                && (firstExact == null ? s.firstExact == null : firstExact.equals(s.firstExact))
+                && Arrays.equals(statistics, s.statistics)
+                && Arrays.equals(formulas, s.formulas)
+                && expression.equals(s.expression)
+                && pendingOperatorAt == s.pendingOperatorAt;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = display.hashCode();
+        h = 31 * h + operator.hashCode();
+        h = 31 * h + firstOperand.hashCode();
+        h = 31 * h + (isNewInput ? 1 : 0);
+        h = 31 * h + precision.hashCode();
+        h = 31 * h + (expressionMode ? 1 : 0);
+        h = 31 * h + historyLine.hashCode();
+        h = 31 * h + historyBack;
+        h = 31 * h + memoryRegister;
+        h = 31 * h + Arrays.hashCode(memoryNames);
+        h = 31 * h + Arrays.hashCode(memory);
+        h = 31 * h + tally.hashCode();
+        h = 31 * h + (int) (tallyCount ^ (tallyCount >>> 32));
+        h = 31 * h + (rationalMode ? 1 : 0);
+        h = 31 * h + (displayExact == null ? 0 : displayExact.hashCode());
+        h = 31 * h + (firstExact == null ? 0 : firstExact.hashCode());
+        h = 31 * h + Arrays.hashCode(statistics);
+        h = 31 * h + Arrays.hashCode(formulas);
+        h = 31 * h + expression.hashCode();
+        return 31 * h + pendingOperatorAt;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.calculatorappii.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keeps the {@link StateSnapshot} in one small file, with all disk work on a background executor.
+ *
+ * <ul>
+ *   <li>{@link #read} runs on the calling thread. Submit it to the executor at startup, so the
+ *       caller can inflate its views in the meantime.</li>
+ *   <li>{@link #save} only queues a write. Saves that arrive before the write runs are coalesced
+ *       into one write of the newest snapshot. A snapshot equal to the one on disk is not
+ *       written at all.</li>
+ *   <li>Writes go to a temporary file that is then renamed over the old one, so a crash leaves
+ *       either the old snapshot or the new one.</li>
+ * </ul>
+ *
+ * <p>Share a single-thread executor with other disk work to keep reads and writes in order.
+ */
+public final class StateStore {
+
+    private final File file;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    // Newest snapshot not yet written, or null.
+    private StateSnapshot pending;
+    // What the file holds, as far as this store knows.
+    private StateSnapshot stored;
+    private boolean writeQueued;
+    private int writeCount;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            StateSnapshot snapshot;
+            synchronized (lock) {
+                snapshot = pending;
+                pending = null;
+                writeQueued = false;
+            }
+            if (snapshot == null) return;
+            try {
+                write(snapshot);
+                synchronized (lock) {
+                    stored = snapshot;
+                    writeCount++;
+                }
+            } catch (IOException ignored) {
+                // The previous file is still intact; the next save tries again.
+            }
+        }
+    };
+
+    public StateStore(File file, ExecutorService executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /** Reads the snapshot on the calling thread; null if missing, unreadable or corrupt. */
+    public StateSnapshot read() {
+        StateSnapshot snapshot = null;
+        if (file.isFile() && file.length() <= Integer.MAX_VALUE) {
+            byte[] bytes = new byte[(int) file.length()];
+            try (FileInputStream in = new FileInputStream(file)) {
+                int n = 0;
+                while (n < bytes.length) {
+                    int r = in.read(bytes, n, bytes.length - n);
+                    if (r < 0) break;
+                    n += r;
+                }
+                if (n == bytes.length) snapshot = StateSnapshot.fromBytes(bytes);
+            } catch (IOException ignored) {}
+        }
+        synchronized (lock) {
+            stored = snapshot;
+        }
+        return snapshot;
+    }
+
+    /** Queues {@code snapshot} for writing unless it matches what is already stored or queued. */
+    public void save(StateSnapshot snapshot) {
+        synchronized (lock) {
+            if (snapshot.equals(pending != null ? pending : stored)) return;
+            pending = snapshot;
+            if (writeQueued) return;
+            writeQueued = true;
+        }
+        executor.execute(writeTask);
+    }
+
+    /** How many snapshots have been written since this store was created. */
+    public int getWriteCount() {
+        synchronized (lock) {
+            return writeCount;
+        }
+    }
+
+    private void write(StateSnapshot snapshot) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(snapshot.toBytes());
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+}
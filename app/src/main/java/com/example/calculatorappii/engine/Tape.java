@@ -0,0 +1,429 @@
+package com.example.calculatorappii.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * An adding-machine tape: a list of entered values with a running total, kept in primitive
+ * columns rather than a list of strings.
+ *
+ * <p>A row is one {@code long} and one {@code byte}. An exact row holds an unscaled value and its
+ * scale (0 to {@link #MAX_SCALE}), so {@code 12.50} keeps its trailing zero. A value that does not
+ * fit, such as a 34-digit result or {@code 1E+40}, is stored as the bits of its nearest
+ * {@code double} and marked approximate. A 100,000-row tape is about 1 MB, plus as much again
+ * once its running totals have been shown.
+ *
+ * <p>The total of the exact rows is a {@code long} at the widest scale seen, carrying into a
+ * {@link BigInteger} only when it overflows; approximate rows go into a {@link CompensatedSum}.
+ * Adding, editing or removing a row adjusts both by the difference, so {@link #getTotal()} is
+ * O(1) at any length. Running totals are a lazily filled prefix column. Appending extends it by
+ * one row; an edit drops only the rows from the edit onwards, which are refilled when next shown
+ * or exported. Not thread-safe.
+ */
+public final class Tape {
+
+    /** The largest scale kept exactly: 18 digits after the point. */
+    public static final int MAX_SCALE = 18;
+
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+    // The scale byte of an approximate row, whose value column holds double bits.
+    private static final byte APPROXIMATE = -1;
+    private static final char[] ZEROS = "0000000000000000000".toCharArray();
+    private static final double[] POW10_DOUBLE = new double[23];
+
+    static {
+        POW10_DOUBLE[0] = 1;
+        for (int i = 1; i < POW10_DOUBLE.length; i++) POW10_DOUBLE[i] = POW10_DOUBLE[i - 1] * 10;
+    }
+
+    // Row columns.
+    private long[] values = new long[INITIAL_CAPACITY];
+    private byte[] scales = new byte[INITIAL_CAPACITY];
+    private int rows;
+
+    // Total of the exact rows: (carry + exactSum) × 10^-sumScale.
+    private long exactSum;
+    private int sumScale;
+    private BigInteger carry;
+    private final CompensatedSum approximateSum = new CompensatedSum();
+    private int approximateRows;
+
+    // Running totals of rows [0, runningCount): unscaled longs at runningScale, or the bits of
+    // doubles once a prefix no longer fits. runningSum continues the double prefix.
+    private long[] running = new long[0];
+    private int runningCount;
+    private int runningScale;
+    private boolean runningApproximate;
+    private final CompensatedSum runningSum = new CompensatedSum();
+
+    public int size() {
+        return rows;
+    }
+
+    /** Appends {@code value} and returns its row. */
+    public int add(BigDecimal value) {
+        ensureCapacity(rows + 1);
+        store(rows, value);
+        include(rows);
+        return rows++;
+    }
+
+    /** Appends {@code unscaled × 10^-scale}. */
+    public int add(long unscaled, int scale) {
+        return add(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    /** Replaces a row; the total moves by the difference. */
+    public void set(int row, BigDecimal value) {
+        checkRow(row);
+        exclude(row);
+        try {
+            store(row, value);
+        } finally {
+            // A value too large to store leaves the old one, so it goes back into the total.
+            include(row);
+            invalidateRunning(row);
+        }
+    }
+
+    /** Removes a row; later rows move up one. */
+    public void remove(int row) {
+        checkRow(row);
+        exclude(row);
+        System.arraycopy(values, row + 1, values, row, rows - row - 1);
+        System.arraycopy(scales, row + 1, scales, row, rows - row - 1);
+        rows--;
+        invalidateRunning(row);
+    }
+
+    public void clear() {
+        rows = 0;
+        exactSum = 0;
+        sumScale = 0;
+        carry = null;
+        approximateSum.clear();
+        approximateRows = 0;
+        invalidateRunning(0);
+    }
+
+    /** False when the row could not be kept exactly and holds the nearest double. */
+    public boolean isExact(int row) {
+        return scales[checkRow(row)] != APPROXIMATE;
+    }
+
+    /** The unscaled value of an exact row. */
+    public long getUnscaled(int row) {
+        if (!isExact(row)) throw new IllegalStateException("Row " + row + " is approximate");
+        return values[row];
+    }
+
+    /** The scale of an exact row. */
+    public int getScale(int row) {
+        if (!isExact(row)) throw new IllegalStateException("Row " + row + " is approximate");
+        return scales[row];
+    }
+
+    public BigDecimal get(int row) {
+        return isExact(row) ? BigDecimal.valueOf(values[row], scales[row])
+                : BigDecimal.valueOf(Double.longBitsToDouble(values[row]));
+    }
+
+    public double getDouble(int row) {
+        if (!isExact(row)) return Double.longBitsToDouble(values[row]);
+        long u = values[row];
+        int s = scales[row];
+        // Exact when both parts are exact doubles; otherwise let BigDecimal round once.
+        return Math.abs(u) < (1L << 53) && s < 23 ? u / POW10_DOUBLE[s] : get(row).doubleValue();
+    }
+
+    /** True when no row is approximate, so {@link #getTotal()} is the exact sum. */
+    public boolean isTotalExact() {
+        return approximateRows == 0;
+    }
+
+    /** The sum of every row, in O(1). Exact unless a row is approximate. */
+    public BigDecimal getTotal() {
+        BigDecimal exact = carry == null ? BigDecimal.valueOf(exactSum, sumScale)
+                : new BigDecimal(carry.add(BigInteger.valueOf(exactSum)), sumScale);
+        return approximateRows == 0 ? exact : exact.add(BigDecimal.valueOf(approximateSum.sum()));
+    }
+
+    /** The total over the row count; NaN when empty. */
+    public double getMean() {
+        return rows == 0 ? Double.NaN : getTotal().doubleValue() / rows;
+    }
+
+    /** The sum of rows 0 to {@code row} inclusive. */
+    public BigDecimal getRunningTotal(int row) {
+        fillRunning(checkRow(row));
+        return runningApproximate ? BigDecimal.valueOf(Double.longBitsToDouble(running[row]))
+                : BigDecimal.valueOf(running[row], runningScale);
+    }
+
+    // ---- text ----
+
+    /** Appends the row as a plain decimal, e.g. {@code -12.50}, without creating a BigDecimal. */
+    public StringBuilder appendValue(StringBuilder out, int row) {
+        if (!isExact(row)) return out.append(Double.longBitsToDouble(values[row]));
+        return appendDecimal(out, values[row], scales[row]);
+    }
+
+    /** Appends {@link #getRunningTotal} of the row the same way. */
+    public StringBuilder appendRunningTotal(StringBuilder out, int row) {
+        fillRunning(checkRow(row));
+        if (runningApproximate) return out.append(Double.longBitsToDouble(running[row]));
+        return appendDecimal(out, running[row], runningScale);
+    }
+
+    /**
+     * Writes the tape as CSV: a header, then each value with its running total, e.g.
+     * {@code 12.50,112.50}. Approximate values are written as doubles.
+     */
+    public void export(Appendable out) throws IOException {
+        out.append("value,running total\n");
+        StringBuilder line = new StringBuilder(48);
+        for (int i = 0; i < rows; i++) {
+            line.setLength(0);
+            appendValue(line, i).append(',');
+            appendRunningTotal(line, i).append('\n');
+            out.append(line);
+        }
+    }
+
+    // ---- persistence ----
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(rows);
+        for (int i = 0; i < rows; i++) {
+            out.writeByte(scales[i]);
+            out.writeLong(values[i]);
+        }
+    }
+
+    /** Throws {@link IOException} on data that cannot have been written by {@link #writeTo}. */
+    public static Tape readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unknown tape version: " + version);
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Bad row count: " + n);
+        Tape tape = new Tape();
+        for (int i = 0; i < n; i++) {
+            byte scale = in.readByte();
+            long value = in.readLong();
+            if (scale != APPROXIMATE && (scale < 0 || scale > MAX_SCALE || value == Long.MIN_VALUE)) {
+                throw new IOException("Bad row " + i);
+            }
+            tape.ensureCapacity(i + 1);
+            tape.scales[i] = scale;
+            tape.values[i] = value;
+            tape.include(i);
+            tape.rows++;
+        }
+        return tape;
+    }
+
+    /** {@link #writeTo} as a byte array, nine bytes a row. */
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + 9 * rows);
+            writeTo(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---- rows ----
+
+    private void store(int row, BigDecimal value) {
+        if (value.scale() > MAX_SCALE) {
+            // May leave a negative scale: 10.0000000000000000000 becomes 1E+1.
+            value = value.stripTrailingZeros();
+        }
+        // Integers of up to 19 digits move to scale 0; the scale column never holds a negative
+        // scale, which would collide with APPROXIMATE. Longer ones are approximate anyway.
+        if (value.scale() < 0 && value.precision() - value.scale() <= 19) {
+            value = value.setScale(0);
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (value.scale() >= 0 && value.scale() <= MAX_SCALE && unscaled.bitLength() < 63) {
+            values[row] = unscaled.longValue();
+            scales[row] = (byte) value.scale();
+        } else {
+            double d = value.doubleValue();
+            if (Double.isInfinite(d)) throw new ArithmeticException("Too large for the tape: " + value);
+            values[row] = Double.doubleToLongBits(d);
+            scales[row] = APPROXIMATE;
+        }
+    }
+
+    /** Adds the row to the total. */
+    private void include(int row) {
+        if (scales[row] == APPROXIMATE) {
+            approximateSum.add(Double.longBitsToDouble(values[row]));
+            approximateRows++;
+        } else {
+            addExact(values[row], scales[row]);
+        }
+    }
+
+    /** Takes the row out of the total. */
+    private void exclude(int row) {
+        if (scales[row] == APPROXIMATE) {
+            // The last approximate row out leaves exactly zero, not the rounding residue.
+            if (--approximateRows == 0) {
+                approximateSum.clear();
+            } else {
+                approximateSum.add(-Double.longBitsToDouble(values[row]));
+            }
+        } else {
+            // Never Long.MIN_VALUE: stored values have fewer than 63 bits.
+            addExact(-values[row], scales[row]);
+        }
+    }
+
+    private void addExact(long unscaled, int scale) {
+        if (scale > sumScale) {
+            int k = scale - sumScale;
+            BigInteger pow = BigInteger.TEN.pow(k);
+            if (carry != null) carry = carry.multiply(pow);
+            long rescaled = ScaledArithmetic.multiplyPow10(exactSum, k);
+            if (rescaled == Long.MIN_VALUE) {
+                carry = plus(carry, BigInteger.valueOf(exactSum).multiply(pow));
+                rescaled = 0;
+            }
+            exactSum = rescaled;
+            sumScale = scale;
+        }
+        long b = ScaledArithmetic.multiplyPow10(unscaled, sumScale - scale);
+        if (b == Long.MIN_VALUE) {
+            carry = plus(carry, BigInteger.valueOf(unscaled).multiply(BigInteger.TEN.pow(sumScale - scale)));
+        } else {
+            long sum = exactSum + b;
+            if (((exactSum ^ sum) & (b ^ sum)) < 0) {
+                carry = plus(carry, BigInteger.valueOf(exactSum).add(BigInteger.valueOf(b)));
+                sum = 0;
+            }
+            exactSum = sum;
+        }
+        if (carry != null && carry.bitLength() < 63) {
+            // Fold a carry that fits back into the long, so the next edits stay off BigInteger.
+            long c = carry.longValue();
+            long sum = exactSum + c;
+            if (((exactSum ^ sum) & (c ^ sum)) >= 0) {
+                exactSum = sum;
+                carry = null;
+            }
+        }
+    }
+
+    private static BigInteger plus(BigInteger a, BigInteger b) {
+        return a == null ? b : a.add(b);
+    }
+
+    // ---- running totals ----
+
+    private void invalidateRunning(int row) {
+        if (runningApproximate || row == 0) {
+            // A double prefix cannot take a value back out; start over, exact if it can be.
+            runningCount = 0;
+            runningScale = 0;
+            runningApproximate = false;
+            runningSum.clear();
+        } else if (row < runningCount) {
+            runningCount = row;
+        }
+    }
+
+    /** Extends the running column to cover {@code row}. */
+    private void fillRunning(int row) {
+        if (row < runningCount) return;
+        if (running.length < rows) {
+            long[] grown = new long[values.length];
+            System.arraycopy(running, 0, grown, 0, runningCount);
+            running = grown;
+        }
+        while (runningCount <= row) {
+            int i = runningCount;
+            if (runningApproximate) {
+                runningSum.add(getDouble(i));
+                running[i] = Double.doubleToLongBits(runningSum.sum());
+                runningCount++;
+                continue;
+            }
+            int scale = scales[i];
+            if (scale == APPROXIMATE) {
+                restartRunning(true, 0);
+                continue;
+            }
+            if (scale > runningScale) {
+                // Every earlier entry needs the wider scale too: start over at it.
+                restartRunning(false, scale);
+                continue;
+            }
+            long b = ScaledArithmetic.multiplyPow10(values[i], runningScale - scale);
+            long previous = i == 0 ? 0 : running[i - 1];
+            long sum = previous + b;
+            if (b == Long.MIN_VALUE || ((previous ^ sum) & (b ^ sum)) < 0) {
+                restartRunning(true, 0);
+                continue;
+            }
+            running[i] = sum;
+            runningCount++;
+        }
+    }
+
+    private void restartRunning(boolean approximate, int scale) {
+        runningCount = 0;
+        runningScale = scale;
+        runningApproximate = approximate;
+        runningSum.clear();
+    }
+
+    // ---- helpers ----
+
+    /** Appends {@code unscaled × 10^-scale} in plain notation, keeping trailing zeros. */
+    static StringBuilder appendDecimal(StringBuilder out, long unscaled, int scale) {
+        if (scale == 0) return out.append(unscaled);
+        if (unscaled < 0) {
+            out.append('-');
+            if (unscaled == Long.MIN_VALUE) {
+                return out.append(BigDecimal.valueOf(unscaled, scale).negate().toPlainString());
+            }
+            unscaled = -unscaled;
+        }
+        int start = out.length();
+        out.append(unscaled);
+        int digits = out.length() - start;
+        if (digits <= scale) {
+            // 0.005: pad with zeros up to the first digit.
+            out.insert(start, ZEROS, 0, scale - digits + 1);
+            digits = scale + 1;
+        }
+        return out.insert(start + digits - scale, '.');
+    }
+
+    private void ensureCapacity(int n) {
+        if (values.length < n) {
+            int capacity = Math.max(n, values.length + (values.length >> 1));
+            long[] v = new long[capacity];
+            byte[] s = new byte[capacity];
+            System.arraycopy(values, 0, v, 0, rows);
+            System.arraycopy(scales, 0, s, 0, rows);
+            values = v;
+            scales = s;
+        }
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("row " + row + ", size " + rows);
+        return row;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.calculatorappii.engine;
+
+/**
+ * Unlimited undo and redo of the keypad state: the display, the pending operation, the operand
+ * that {@code =} repeats, and the expression in expression mode. Memory, precision and the
+ * history log are not part of it.
+ *
+ * <p>States are rows in primitive columns. A row holds the display operand inline, as an
+ * unscaled {@code long} and one packed {@code int}, plus the keypad flags. Everything else
+ * changes far less often: the first and repeat operands and the expression live in an
+ * immutable {@link Context}. Consecutive rows share one context until one of those parts
+ * changes. A digit press therefore costs about two dozen bytes, and allocates nothing once the
+ * columns have grown. {@link #undo} and {@link #redo} move an index and copy one row back into
+ * the engine, so both are O(1). Not thread-safe.
+ */
+public final class UndoHistory {
+
+    /** The rarely changing part of a state, shared by every row that points at it. */
+    private static final class Context {
+        final CalculatorEngine.Operand first = new CalculatorEngine.Operand();
+        final CalculatorEngine.Operand last = new CalculatorEngine.Operand();
+        final String expression;
+        final int pendingOperatorAt;
+
+        Context(CalculatorEngine engine) {
+            first.copyFrom(engine.firstOperand());
+            last.copyFrom(engine.repeatOperand());
+            expression = engine.expressionText().toString();
+            pendingOperatorAt = engine.pendingOperatorAt();
+        }
+
+        boolean matches(CalculatorEngine engine) {
+            CharSequence text = engine.expressionText();
+            return pendingOperatorAt == engine.pendingOperatorAt()
+                    && first.sameAs(engine.firstOperand())
+                    && last.sameAs(engine.repeatOperand())
+                    && expression.length() == text.length()
+                    && expression.contentEquals(text);
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Row columns.
+    private long[] magnitude = new long[INITIAL_CAPACITY];
+    private int[] entry = new int[INITIAL_CAPACITY];
+    // The display operand when it is not in entry form (scientific results, "Error"), else null.
+    private CalculatorEngine.Operand[] text = new CalculatorEngine.Operand[INITIAL_CAPACITY];
+    private int[] flags = new int[INITIAL_CAPACITY];
+    private int[] contextOf = new int[INITIAL_CAPACITY];
+    private int rows;
+    private int position = -1;
+
+    private Context[] contexts = new Context[16];
+    private int contextCount;
+
+    /**
+     * Records {@code engine}'s state as the newest step, unless it equals the current step.
+     * States that could have been redone are dropped.
+     */
+    public void record(CalculatorEngine engine) {
+        if (position >= 0 && matches(position, engine)) return;
+        int row = position + 1;
+        int context = position >= 0 ? contextOf[position] : -1;
+        // Keep only the contexts still referenced once the redo rows are gone.
+        for (int i = context + 1; i < contextCount; i++) contexts[i] = null;
+        contextCount = context + 1;
+        if (context < 0 || !contexts[context].matches(engine)) {
+            context = addContext(new Context(engine));
+        }
+        ensureCapacity(row + 1);
+        CalculatorEngine.Operand current = engine.displayOperand();
+        // A rational-mode result keeps its fraction, so it is stored whole like text.
+        if (current.isPlain() && current.exact() == null) {
+            magnitude[row] = current.magnitude();
+            entry[row] = current.packedEntry();
+            text[row] = null;
+        } else {
+            CalculatorEngine.Operand copy = new CalculatorEngine.Operand();
+            copy.copyFrom(current);
+            text[row] = copy;
+        }
+        flags[row] = engine.keypadFlags();
+        contextOf[row] = context;
+        for (int i = row + 1; i < rows; i++) text[i] = null;
+        rows = row + 1;
+        position = row;
+    }
+
+    /** Steps back one state; returns false when there is none. */
+    public boolean undo(CalculatorEngine engine) {
+        if (position <= 0) return false;
+        apply(--position, engine);
+        return true;
+    }
+
+    /** Steps forward again after {@link #undo}; returns false when there is nothing to redo. */
+    public boolean redo(CalculatorEngine engine) {
+        if (position >= rows - 1) return false;
+        apply(++position, engine);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    public boolean canRedo() {
+        return position < rows - 1;
+    }
+
+    /** Number of recorded states, including any that can be redone. */
+    public int size() {
+        return rows;
+    }
+
+    /** Index of the state the engine is in, or -1 before the first {@link #record}. */
+    public int getPosition() {
+        return position;
+    }
+
+    /** Drops every state; the next {@link #record} starts a new history. */
+    public void clear() {
+        for (int i = 0; i < rows; i++) text[i] = null;
+        for (int i = 0; i < contextCount; i++) contexts[i] = null;
+        rows = 0;
+        position = -1;
+        contextCount = 0;
+    }
+
+    /** Distinct contexts currently held; rows share them. */
+    int contextCount() {
+        return contextCount;
+    }
+
+    private boolean matches(int row, CalculatorEngine engine) {
+        if (flags[row] != engine.keypadFlags()) return false;
+        CalculatorEngine.Operand current = engine.displayOperand();
+        boolean same = text[row] != null
+                ? text[row].sameAs(current)
+                : current.isPlain() && current.exact() == null && magnitude[row] == current.magnitude()
+                        && entry[row] == current.packedEntry();
+        return same && contexts[contextOf[row]].matches(engine);
+    }
+
+    private void apply(int row, CalculatorEngine engine) {
+        CalculatorEngine.Operand current = engine.displayOperand();
+        if (text[row] != null) {
+            current.copyFrom(text[row]);
+        } else {
+            current.setPackedEntry(magnitude[row], entry[row]);
+        }
+        Context context = contexts[contextOf[row]];
+        engine.firstOperand().copyFrom(context.first);
+        engine.repeatOperand().copyFrom(context.last);
+        engine.restoreKeypad(flags[row], context.expression, context.pendingOperatorAt);
+    }
+
+    private int addContext(Context context) {
+        if (contextCount == contexts.length) {
+            Context[] grown = new Context[contextCount * 2];
+            System.arraycopy(contexts, 0, grown, 0, contextCount);
+            contexts = grown;
+        }
+        contexts[contextCount] = context;
+        return contextCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= magnitude.length) return;
+        int n = Math.max(capacity, magnitude.length * 2);
+        magnitude = grow(magnitude, n);
+        entry = grow(entry, n);
+        flags = grow(flags, n);
+        contextOf = grow(contextOf, n);
+        CalculatorEngine.Operand[] grownText = new CalculatorEngine.Operand[n];
+        System.arraycopy(text, 0, grownText, 0, rows);
+        text = grownText;
+    }
+
+    private static long[] grow(long[] a, int n) {
+        long[] grown = new long[n];
+        System.arraycopy(a, 0, grown, 0, a.length);
+        return grown;
+    }
+
+    private static int[] grow(int[] a, int n) {
+        int[] grown = new int[n];
+        System.arraycopy(a, 0, grown, 0, a.length);
+        return grown;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Units for {@link UnitConverter}. Each is defined exactly against its dimension's base unit
+ * (metre, kilogram, litre, square metre, metre per second, kelvin) by the international
+ * definitions: {@code base = (value × numerator + offset) / denominator}. The fraction keeps
+ * km/h and °F exact. The offset is only non-zero for temperatures.
+ */
+public enum Unit {
+    METRE(Dimension.LENGTH, "m", "1"),
+    KILOMETRE(Dimension.LENGTH, "km", "1000"),
+    CENTIMETRE(Dimension.LENGTH, "cm", "0.01"),
+    MILLIMETRE(Dimension.LENGTH, "mm", "0.001"),
+    INCH(Dimension.LENGTH, "in", "0.0254"),
+    FOOT(Dimension.LENGTH, "ft", "0.3048"),
+    YARD(Dimension.LENGTH, "yd", "0.9144"),
+    MILE(Dimension.LENGTH, "mi", "1609.344"),
+    NAUTICAL_MILE(Dimension.LENGTH, "nmi", "1852"),
+
+    KILOGRAM(Dimension.MASS, "kg", "1"),
+    GRAM(Dimension.MASS, "g", "0.001"),
+    MILLIGRAM(Dimension.MASS, "mg", "0.000001"),
+    TONNE(Dimension.MASS, "t", "1000"),
+    POUND(Dimension.MASS, "lb", "0.45359237"),
+    OUNCE(Dimension.MASS, "oz", "0.028349523125"),
+    STONE(Dimension.MASS, "st", "6.35029318"),
+
+    LITRE(Dimension.VOLUME, "L", "1"),
+    MILLILITRE(Dimension.VOLUME, "mL", "0.001"),
+    CUBIC_METRE(Dimension.VOLUME, "m³", "1000"),
+    US_GALLON(Dimension.VOLUME, "gal (US)", "3.785411784"),
+    IMPERIAL_GALLON(Dimension.VOLUME, "gal (UK)", "4.54609"),
+    US_CUP(Dimension.VOLUME, "cup (US)", "0.2365882365"),
+    US_FLUID_OUNCE(Dimension.VOLUME, "fl oz (US)", "0.0295735295625"),
+
+    SQUARE_METRE(Dimension.AREA, "m²", "1"),
+    SQUARE_KILOMETRE(Dimension.AREA, "km²", "1000000"),
+    HECTARE(Dimension.AREA, "ha", "10000"),
+    SQUARE_FOOT(Dimension.AREA, "ft²", "0.09290304"),
+    ACRE(Dimension.AREA, "ac", "4046.8564224"),
+    SQUARE_MILE(Dimension.AREA, "mi²", "2589988.110336"),
+
+    METRE_PER_SECOND(Dimension.SPEED, "m/s", "1"),
+    KILOMETRE_PER_HOUR(Dimension.SPEED, "km/h", "1", "3.6", "0"),
+    MILE_PER_HOUR(Dimension.SPEED, "mph", "0.44704"),
+    KNOT(Dimension.SPEED, "kn", "1852", "3600", "0"),
+
+    KELVIN(Dimension.TEMPERATURE, "K", "1"),
+    CELSIUS(Dimension.TEMPERATURE, "°C", "1", "1", "273.15"),
+    FAHRENHEIT(Dimension.TEMPERATURE, "°F", "5", "9", "2298.35");
+
+    public enum Dimension {
+        LENGTH, MASS, VOLUME, AREA, SPEED, TEMPERATURE
+    }
+
+    private final Dimension dimension;
+    private final String symbol;
+    final BigDecimal factorNumerator;
+    final BigDecimal factorDenominator;
+    final BigDecimal offset;
+
+    Unit(Dimension dimension, String symbol, String factor) {
+        this(dimension, symbol, factor, "1", "0");
+    }
+
+    Unit(Dimension dimension, String symbol, String numerator, String denominator, String offset) {
+        this.dimension = dimension;
+        this.symbol = symbol;
+        this.factorNumerator = new BigDecimal(numerator);
+        this.factorDenominator = new BigDecimal(denominator);
+        this.offset = new BigDecimal(offset);
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
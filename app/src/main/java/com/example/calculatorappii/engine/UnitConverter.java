@@ -0,0 +1,128 @@
+package com.example.calculatorappii.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversion matrices between the {@link Unit}s of one dimension. Every pair of units is
+ * precomputed, once, as {@code to = from × scale + offset}. Each pair's coefficients are worked
+ * out in decimal from the exact unit definitions, so an inch comes out as 2.54 cm and not
+ * 2.5399999999999996. After that, a conversion is one multiply-add on doubles, and the array
+ * forms are plain loops the JIT can vectorise.
+ *
+ * <p>Immutable after construction, so one converter per dimension can be shared.
+ */
+public final class UnitConverter {
+
+    private static final MathContext MC = MathContext.DECIMAL128;
+    private static final UnitConverter[] CONVERTERS = new UnitConverter[Unit.Dimension.values().length];
+
+    private final Unit[] units;
+    private final double[] scale;
+    private final double[] offset;
+
+    private UnitConverter(Unit.Dimension dimension) {
+        List<Unit> list = new ArrayList<>();
+        for (Unit unit : Unit.values()) {
+            if (unit.getDimension() == dimension) list.add(unit);
+        }
+        units = list.toArray(new Unit[0]);
+        int n = units.length;
+        scale = new double[n * n];
+        offset = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                // base = (v × num_a + off_a) / den_a, and v_b = (base × den_b − off_b) / num_b.
+                Unit a = units[i];
+                Unit b = units[j];
+                BigDecimal s = a.factorNumerator.multiply(b.factorDenominator)
+                        .divide(a.factorDenominator.multiply(b.factorNumerator), MC);
+                BigDecimal o = a.offset.multiply(b.factorDenominator).divide(a.factorDenominator, MC)
+                        .subtract(b.offset)
+                        .divide(b.factorNumerator, MC);
+                scale[i * n + j] = s.doubleValue();
+                offset[i * n + j] = o.doubleValue();
+            }
+        }
+    }
+
+    /** The shared converter for {@code dimension}. */
+    public static synchronized UnitConverter forDimension(Unit.Dimension dimension) {
+        UnitConverter converter = CONVERTERS[dimension.ordinal()];
+        if (converter == null) {
+            converter = new UnitConverter(dimension);
+            CONVERTERS[dimension.ordinal()] = converter;
+        }
+        return converter;
+    }
+
+    public static double convert(double value, Unit from, Unit to) {
+        if (from.getDimension() != to.getDimension()) {
+            throw new IllegalArgumentException("Cannot convert " + from + " to " + to);
+        }
+        UnitConverter c = forDimension(from.getDimension());
+        int k = c.index(from) * c.units.length + c.index(to);
+        return value * c.scale[k] + c.offset[k];
+    }
+
+    /** This dimension's units, in matrix order. */
+    public Unit[] getUnits() {
+        return units.clone();
+    }
+
+    public int size() {
+        return units.length;
+    }
+
+    /** Converts {@code in[from..to)} into {@code out[outFrom..]}; {@code in} and {@code out} may be the same. */
+    public void convert(double[] in, int from, int to, Unit source, Unit target, double[] out, int outFrom) {
+        if (from < 0 || to > in.length || from > to || outFrom < 0 || outFrom + (to - from) > out.length) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", outFrom " + outFrom);
+        }
+        int k = index(source) * units.length + index(target);
+        double s = scale[k];
+        double o = offset[k];
+        for (int i = from; i < to; i++) {
+            out[outFrom++] = in[i] * s + o;
+        }
+    }
+
+    /** {@code value} in every unit of the dimension: {@code out[j]} is in {@code getUnits()[j]}. */
+    public double[] convertToAll(double value, Unit source, double[] out) {
+        int n = units.length;
+        int row = index(source) * n;
+        for (int j = 0; j < n; j++) {
+            out[j] = value * scale[row + j] + offset[row + j];
+        }
+        return out;
+    }
+
+    /**
+     * The full table for {@code values}: row {@code r} holds {@code values[r]} in every unit,
+     * at {@code out[r * size() + j]}. Computed in one pass.
+     */
+    public double[] table(double[] values, Unit source, double[] out) {
+        int n = units.length;
+        if (out.length < values.length * n) {
+            throw new IllegalArgumentException("out holds " + out.length + ", need " + values.length * n);
+        }
+        int row = index(source) * n;
+        for (int r = 0; r < values.length; r++) {
+            double v = values[r];
+            int base = r * n;
+            for (int j = 0; j < n; j++) {
+                out[base + j] = v * scale[row + j] + offset[row + j];
+            }
+        }
+        return out;
+    }
+
+    private int index(Unit unit) {
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] == unit) return i;
+        }
+        throw new IllegalArgumentException(unit + " is not a " + units[0].getDimension() + " unit");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BatchEvaluatorTest {
+
+    @Test
+    public void matchesKeypadSemantics() {
+        BatchEvaluator batch = new BatchEvaluator(BatchEvaluator.Mode.SEQUENTIAL);
+        BatchResult result = batch.evaluate(Arrays.asList(
+                "12 + 30", "2 / 3", "19.99 × 3", "1000000 * 1000000", "2 + 3 × 4", "(2 + 3) × 4"));
+        assertEquals("42", result.getValue(0));
+        assertEquals("0.6666666666666", result.getValue(1));
+        assertEquals("59.97", result.getValue(2));
+        assertEquals("1E12", result.getValue(3));
+        assertEquals("14", result.getValue(4));
+        assertEquals("20", result.getValue(5));
+        assertEquals(0, result.getErrorCount());
+    }
+
+    @Test
+    public void errorsAreReportedPerItem() {
+        BatchEvaluator batch = new BatchEvaluator(BatchEvaluator.Mode.SEQUENTIAL);
+        BatchResult result = batch.evaluate(new String[] {"1 / 0", "5 + 5", "2 +", "x * 2", "√-4", "y × 2 + 1"});
+        assertEquals(CalculatorEngine.ERROR, result.getValue(0));
+        assertEquals("Cannot divide by zero", result.getError(0));
+        assertEquals("10", result.getValue(1));
+        assertFalse(result.isError(1));
+        assertTrue(result.isError(2));
+        assertEquals("Invalid number 'x'", result.getError(3));
+        assertTrue(result.isError(4));
+        assertEquals("Unknown name 'y'", result.getError(5));
+        assertEquals(5, result.getErrorCount());
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(7);
+        String[] ops = {"+", "-", "*", "/"};
+        String[] inputs = new String[20000];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextInt(10000) / 100.0 + " " + ops[random.nextInt(4)] + " " + random.nextInt(50);
+        }
+        BatchResult sequential = new BatchEvaluator(BatchEvaluator.Mode.SEQUENTIAL).evaluate(inputs);
+        try (BatchEvaluator parallel = new BatchEvaluator(BatchEvaluator.Mode.PARALLEL, 4)) {
+            BatchResult result = parallel.evaluate(inputs);
+            for (int i = 0; i < inputs.length; i++) {
+                assertEquals(inputs[i], sequential.getValue(i), result.getValue(i));
+                assertEquals(inputs[i], sequential.getError(i), result.getError(i));
+            }
+        }
+    }
+
+    @Test
+    public void streamsInOrder() throws IOException {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) inputs.add(i + " + 1");
+        final List<String> values = new ArrayList<>();
+        try (BatchEvaluator batch = new BatchEvaluator(BatchEvaluator.Mode.PARALLEL, 2)) {
+            long count = batch.evaluate(inputs.iterator(), new BatchEvaluator.Sink() {
+                @Override
+                public void accept(long index, String input, String value, String error) {
+                    assertEquals(values.size(), index);
+                    values.add(value);
+                }
+            }, 300);
+            assertEquals(1000, count);
+        }
+        for (int i = 0; i < 1000; i++) assertEquals(String.valueOf(i + 1), values.get(i));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BigDecimalMathTest {
+
+    private static BigDecimal d(String s) {
+        return new BigDecimal(s);
+    }
+
+    @Test
+    public void exactRootsAreExact() {
+        MathContext mc = new MathContext(15, RoundingMode.HALF_UP);
+        assertEquals(0, d("2").compareTo(BigDecimalMath.sqrt(d("4"), mc)));
+        assertEquals(0, d("0.1").compareTo(BigDecimalMath.sqrt(d("0.01"), mc)));
+        assertEquals(0, d("1E+200").compareTo(BigDecimalMath.sqrt(d("1E+400"), mc)));
+        assertEquals(0, d("1.2E-150").compareTo(BigDecimalMath.sqrt(d("1.44E-300"), mc)));
+    }
+
+    @Test
+    public void sqrtMatchesSquaringBack() {
+        Random random = new Random(8);
+        for (int digits : new int[] {15, 34, 100, 1000}) {
+            MathContext mc = new MathContext(digits, RoundingMode.HALF_UP);
+            for (int i = 0; i < 50; i++) {
+                BigDecimal x = BigDecimal.valueOf(random.nextLong() & Long.MAX_VALUE, random.nextInt(40) - 20);
+                if (x.signum() == 0) continue;
+                BigDecimal root = BigDecimalMath.sqrt(x, mc);
+                assertEquals(digits, root.precision(), 1);
+                // root² is within one unit in the last place of the root, relative to x.
+                BigDecimal relative = root.multiply(root).subtract(x).abs().divide(x, MathContext.DECIMAL64);
+                assertTrue(x + " at " + digits, relative.compareTo(BigDecimal.ONE.movePointLeft(digits - 1)) <= 0);
+            }
+        }
+    }
+
+    @Test
+    public void reciprocalMatchesDivide() {
+        Random random = new Random(9);
+        for (int digits : new int[] {15, 34, 100, 1000}) {
+            MathContext mc = new MathContext(digits, RoundingMode.HALF_UP);
+            for (int i = 0; i < 50; i++) {
+                BigDecimal x = BigDecimal.valueOf(random.nextLong(), random.nextInt(40) - 20);
+                if (x.signum() == 0) continue;
+                BigDecimal expected = BigDecimal.ONE.divide(x, mc);
+                BigDecimal ulp = expected.ulp();
+                assertTrue(x + " at " + digits,
+                        BigDecimalMath.reciprocal(x, mc).subtract(expected).abs().compareTo(ulp) <= 0);
+            }
+        }
+    }
+
+    @Test
+    public void isqrtIsFloorOfRoot() {
+        Random random = new Random(10);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger n = new BigInteger(1 + random.nextInt(4000), random).add(BigInteger.ONE);
+            BigInteger r = BigDecimalMath.isqrt(n);
+            assertTrue(r.multiply(r).compareTo(n) <= 0);
+            assertTrue(r.add(BigInteger.ONE).pow(2).compareTo(n) > 0);
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void negativeSqrtThrows() {
+        BigDecimalMath.sqrt(d("-1"), MathContext.DECIMAL64);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void zeroReciprocalThrows() {
+        BigDecimalMath.reciprocal(BigDecimal.ZERO, new MathContext(1000));
+    }
+
+    @Test
+    public void engineSqrtAvoidsBinaryArtifacts() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.decimalPoint();
+        engine.digit(0);
+        engine.digit(1);
+        engine.sqrt();
+        assertEquals("0.1", engine.getDisplay());
+    }
+
+    @Test
+    public void higherPrecisionKeepsAllDigits() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setPrecision(Precision.DECIMAL128);
+        assertEquals("0.6666666666666666666666666666666667", engine.evaluate("2", '/', "3"));
+        assertEquals("1.234567890123456789012345678901235E40",
+                engine.formatResult(d("12345678901234567890123456789012345678901")));
+        // Exact fast-path results are not cut to 15 characters.
+        assertEquals("0.1234567890123", engine.evaluate("0.1234567890123", '+', "0"));
+        assertEquals("12345678901235.5", engine.evaluate("12345678901234", '+', "1.5"));
+
+        engine.digit(2);
+        engine.sqrt();
+        assertEquals("1.414213562373095048801688724209698", engine.getDisplay());
+
+        engine.setPrecision(Precision.STANDARD);
+        assertEquals("0.6666666666666", engine.evaluate("2", '/', "3"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CalculatorEngineTest {
+
+    private CalculatorEngine engine;
+    private final List<String> messages = new ArrayList<>();
+    private final List<String> calculations = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        engine = new CalculatorEngine();
+        engine.setListener(new CalculatorEngine.Listener() {
+            @Override
+            public void onHistoryChanged(String entry) {}
+
+            @Override
+            public void onCalculation(String expression, String result) {
+                calculations.add(expression + " = " + result);
+            }
+
+            @Override
+            public void onMessage(String message) {
+                messages.add(message);
+            }
+
+            @Override
+            public void onError(String message) {
+                messages.add("error:" + message);
+            }
+        });
+    }
+
+    private void type(String keys) {
+        for (char c : keys.toCharArray()) {
+            if (c >= '0' && c <= '9') engine.digit(c - '0');
+            else if (c == '.') engine.decimalPoint();
+            else if (c == '=') engine.equals();
+            else if (c == '%') engine.percent();
+            else if (c == '~') engine.plusMinus();
+            else engine.operator(c);
+        }
+    }
+
+    @Test
+    public void addition() {
+        type("12+30=");
+        assertEquals("42", engine.getDisplay());
+        assertEquals("12 + 30 = 42", calculations.get(0));
+    }
+
+    @Test
+    public void operatorsExecuteImmediately() {
+        type("2+3*4=");
+        assertEquals("20", engine.getDisplay());
+    }
+
+    @Test
+    public void decimalEntryKeepsTrailingZeros() {
+        type("0.050");
+        assertEquals("0.050", engine.getDisplay());
+        type("*2=");
+        assertEquals("0.1", engine.getDisplay());
+    }
+
+    @Test
+    public void divisionIsRoundedAndTruncated() {
+        type("2/3=");
+        assertEquals("0.6666666666666", engine.getDisplay());
+    }
+
+    @Test
+    public void divisionByZeroIsError() {
+        type("1/0=");
+        assertEquals(CalculatorEngine.ERROR, engine.getDisplay());
+        assertTrue(messages.contains("error:Cannot divide by zero"));
+        type("5");
+        assertEquals("5", engine.getDisplay());
+    }
+
+    @Test
+    public void inputIsCappedAtFifteenCharacters() {
+        type("1234567890123456");
+        assertEquals("123456789012345", engine.getDisplay());
+        assertTrue(messages.contains("Maximum 15 digits"));
+    }
+
+    @Test
+    public void largeResultsUseScientificNotation() {
+        type("1000000*1000000=");
+        assertEquals("1E12", engine.getDisplay());
+    }
+
+    @Test
+    public void plusMinusTogglesSign() {
+        type("5~3");
+        assertEquals("-53", engine.getDisplay());
+        type("~");
+        assertEquals("53", engine.getDisplay());
+    }
+
+    @Test
+    public void percentDividesByHundred() {
+        type("50%");
+        assertEquals("0.5", engine.getDisplay());
+        assertTrue(engine.isResultDisplayed());
+    }
+
+    @Test
+    public void repeatedSquaringAtDecimal128EndsInError() {
+        engine.setPrecision(Precision.DECIMAL128);
+        type("1000000");
+        for (int i = 0; i < 20; i++) engine.square();
+        assertEquals(CalculatorEngine.ERROR, engine.getDisplay());
+
+        engine.clearAll();
+        type(".000001");
+        for (int i = 0; i < 20; i++) engine.square();
+        assertEquals("0", engine.getDisplay());
+
+        engine.clearAll();
+        type("1000000");
+        for (int i = 0; i < 21; i++) engine.reciprocal();
+        assertEquals("0.000001", engine.getDisplay());
+    }
+
+    @Test
+    public void memoryOperations() {
+        type("7");
+        engine.memoryStore();
+        engine.memoryAdd();
+        engine.clearEntry();
+        engine.memoryRecall();
+        assertEquals("14", engine.getDisplay());
+        engine.memoryToggle();
+        assertEquals("-14", engine.getDisplay());
+        engine.memoryClear();
+        assertFalse(engine.hasMemory());
+    }
+
+    @Test
+    public void restoreRoundTripsSavedState() {
+        type("12+3.5");
+        CalculatorEngine restored = new CalculatorEngine();
+        restored.restore(engine.getDisplay(), engine.getOperator(), engine.getFirstOperand(),
+                engine.isNewInput(), 0.0, false);
+        restored.digit(1);
+        restored.equals();
+        assertEquals("15.51", restored.getDisplay());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DisplayFormatterTest {
+
+    private static final Locale[] LOCALES = {
+            Locale.US, Locale.GERMANY, Locale.FRANCE, new Locale("de", "CH"), new Locale("hi", "IN"),
+    };
+
+    /** The String.format grouping that updateDisplay() used to do. */
+    private static String legacyDisplayText(String value, Locale locale) {
+        String displayText = value;
+        if (!displayText.contains("E") && !displayText.equals("Error") && !displayText.contains(".")) {
+            try {
+                long number = Long.parseLong(displayText);
+                if (Math.abs(number) > 999) {
+                    displayText = String.format(locale, "%,d", number);
+                }
+            } catch (NumberFormatException ignored) {}
+        }
+        return displayText;
+    }
+
+    /** The DecimalFormat / toPlainString formatResult the engine used to have. */
+    private static String legacyFormatResult(BigDecimal result, Locale locale) {
+        double doubleResult = result.doubleValue();
+        if (Double.isInfinite(doubleResult) || Double.isNaN(doubleResult)) {
+            return "Error";
+        }
+        if (Math.abs(doubleResult) >= 1e12 || (Math.abs(doubleResult) < 1e-6 && doubleResult != 0)) {
+            return new DecimalFormat("0.#####E0", DecimalFormatSymbols.getInstance(locale)).format(doubleResult);
+        }
+        String formatted = result.stripTrailingZeros().toPlainString();
+        if (formatted.contains(".") && formatted.length() > 15) {
+            formatted = formatted.substring(0, 15);
+        }
+        return formatted;
+    }
+
+    @Test
+    public void groupingMatchesStringFormat() {
+        String[] samples = {
+                "0", "-0", "7", "999", "-999", "1000", "-1000", "1234567", "123456789012345",
+                "-123456789012345", "+1234", "0001234", "9223372036854775807", "-9223372036854775808",
+                "9223372036854775808", "12.5", "1234.", "1.23457E12", "Error", "", "-", "12a4", "1,234",
+        };
+        for (Locale locale : LOCALES) {
+            DisplayFormatter formatter = new DisplayFormatter(locale);
+            for (String s : samples) {
+                assertEquals(s + " in " + locale, legacyDisplayText(s, locale), formatter.group(s).toString());
+            }
+            Random random = new Random(9);
+            for (int i = 0; i < 10000; i++) {
+                String s = Long.toString(random.nextLong() >> random.nextInt(64));
+                assertEquals(s, legacyDisplayText(s, locale), formatter.group(s).toString());
+            }
+        }
+    }
+
+    @Test
+    public void engineDisplayMatchesGroupedText() {
+        DisplayFormatter formatter = new DisplayFormatter(Locale.US);
+        CalculatorEngine engine = new CalculatorEngine();
+        Random random = new Random(10);
+        String keys = "0123456789.+-*/=n";
+        for (int i = 0; i < 20000; i++) {
+            if (i % 50 == 0) engine.clearAll();
+            char c = keys.charAt(random.nextInt(keys.length()));
+            if (c >= '0' && c <= '9') engine.digit(c - '0');
+            else if (c == '.') engine.decimalPoint();
+            else if (c == '=') engine.equals();
+            else if (c == 'n') engine.plusMinus();
+            else engine.operator(c);
+            assertEquals(legacyDisplayText(engine.getDisplay(), Locale.US), formatter.format(engine).toString());
+        }
+    }
+
+    @Test
+    public void formatResultMatchesDecimalFormat() {
+        Random random = new Random(11);
+        MathContext mc = new MathContext(15, RoundingMode.HALF_UP);
+        for (Locale locale : LOCALES) {
+            DisplayFormatter formatter = new DisplayFormatter(locale);
+            for (int i = 0; i < 20000; i++) {
+                BigDecimal value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(50) - 25)
+                        .round(mc);
+                assertEquals(value + " in " + locale, legacyFormatResult(value, locale),
+                        formatter.formatResult(value).toString());
+            }
+            // Ties at the sixth digit, where DecimalFormat looks at the exact binary value.
+            String[] ties = {"1.234565E12", "1.234575E12", "1.234565E-7", "9.999995E15", "-2.500005E-9",
+                    "1E+12", "999999999999.5", "0.000001", "0.00000099999995", "1E+400"};
+            for (String tie : ties) {
+                BigDecimal value = new BigDecimal(tie);
+                assertEquals(tie + " in " + locale, legacyFormatResult(value, locale),
+                        formatter.formatResult(value).toString());
+            }
+        }
+    }
+
+    @Test
+    public void decimalGroupingGroupsTheIntegerPart() {
+        DisplayFormatter formatter = new DisplayFormatter(Locale.GERMANY);
+        formatter.setDecimalGrouping(true);
+        assertEquals("1.234,5", formatter.group("1234.5").toString());
+        assertEquals("-12.345.678,", formatter.group("-12345678.").toString());
+        assertEquals("12,05", formatter.group("12.05").toString());
+        assertEquals("1.23457E12", formatter.group("1.23457E12").toString());
+
+        CalculatorEngine engine = new CalculatorEngine();
+        for (char c : "1234567.05".toCharArray()) {
+            if (c == '.') engine.decimalPoint();
+            else engine.digit(c - '0');
+        }
+        assertEquals("1.234.567,05", formatter.format(engine).toString());
+    }
+
+    @Test
+    public void bufferIsReused() {
+        DisplayFormatter formatter = new DisplayFormatter(Locale.US);
+        char[] buffer = formatter.group("1234567").getBuffer();
+        formatter.group("89");
+        assertSame(buffer, formatter.getBuffer());
+        assertEquals(2, formatter.length());
+        assertEquals("89", formatter.toString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.*;
+
+public class ExpressionTest {
+
+    private static final MathContext MC = new MathContext(15, RoundingMode.HALF_UP);
+
+    private static BigDecimal eval(String source, BigDecimal... values) {
+        return Expression.compile(source).evaluate(MC, values);
+    }
+
+    @Test
+    public void precedence() {
+        assertEquals(0, new BigDecimal("14").compareTo(eval("2 + 3 × 4")));
+        assertEquals(0, new BigDecimal("20").compareTo(eval("(2 + 3) * 4")));
+        assertEquals(0, new BigDecimal("1").compareTo(eval("10 − 6 ÷ 2 × 3")));
+    }
+
+    @Test
+    public void unaryAndPostfixOperators() {
+        assertEquals(0, new BigDecimal("-4").compareTo(eval("-2²")));
+        assertEquals(0, new BigDecimal("4").compareTo(eval("(-2)²")));
+        assertEquals(0, new BigDecimal("3").compareTo(eval("√9")));
+        assertEquals(0, new BigDecimal("0.5").compareTo(eval("50%")));
+        assertEquals(0, new BigDecimal("0.25").compareTo(eval("4⁻¹")));
+        assertEquals(0, new BigDecimal("0.25").compareTo(eval("recip(2 + 2)")));
+        assertEquals(0, new BigDecimal("5").compareTo(eval("3 − −2")));
+    }
+
+    @Test
+    public void variablesAreBoundByIndex() {
+        Expression e = Expression.compile("price × 1.15 − discount");
+        assertEquals(2, e.getVariableCount());
+        assertEquals(0, e.indexOfVariable("price"));
+        assertEquals(1, e.indexOfVariable("discount"));
+        assertEquals(0, new BigDecimal("110").compareTo(e.evaluate(MC, new BigDecimal("100"), new BigDecimal("5"))));
+        assertEquals(0, new BigDecimal("225").compareTo(e.evaluate(MC, new BigDecimal("200"), new BigDecimal("5"))));
+    }
+
+    @Test
+    public void scientificNumbers() {
+        assertEquals(0, new BigDecimal("2.4E12").compareTo(eval("1.2E12 × 2")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void divisionByZero() {
+        eval("1 / (2 - 2)");
+    }
+
+    @Test
+    public void syntaxErrorsReportPosition() {
+        try {
+            Expression.compile("2 + * 3");
+            fail();
+        } catch (ExpressionException e) {
+            assertEquals(4, e.getPosition());
+        }
+        try {
+            Expression.compile("(1 + 2");
+            fail();
+        } catch (ExpressionException e) {
+            assertEquals(6, e.getPosition());
+        }
+    }
+
+    @Test
+    public void engineExpressionModeUsesPrecedence() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setExpressionMode(true);
+        engine.digit(2);
+        engine.operator('+');
+        engine.digit(3);
+        engine.operator('*');
+        engine.operator('-');
+        engine.operator('*');
+        engine.digit(4);
+        engine.equals();
+        assertEquals("14", engine.getDisplay());
+    }
+}
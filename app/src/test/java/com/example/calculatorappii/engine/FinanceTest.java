@@ -0,0 +1,101 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.*;
+
+public class FinanceTest {
+
+    private static BigDecimal d(String s) {
+        return new BigDecimal(s);
+    }
+
+    @Test
+    public void percentagesAndTax() {
+        assertEquals(0, d("12").compareTo(Finance.percentOf(d("15"), d("80"))));
+        assertEquals(0, d("15").compareTo(Finance.percentage(d("12"), d("80"), MathContext.DECIMAL64)));
+        assertEquals(0, d("125").compareTo(Finance.markup(d("100"), d("25"))));
+        assertEquals(0, d("125").compareTo(Finance.priceForMargin(d("100"), d("20"), MathContext.DECIMAL64)));
+        assertEquals(0, d("107.25").compareTo(Finance.addTax(d("100"), d("7.25"))));
+        assertEquals(0, d("100").compareTo(Finance.removeTax(d("107.25"), d("7.25"), MathContext.DECIMAL64)));
+    }
+
+    @Test
+    public void compoundInterest() {
+        // 1000 at 5% compounded monthly for 10 years.
+        BigDecimal value = Finance.compound(d("1000"), d("5"), 12, 10, MathContext.DECIMAL64);
+        assertEquals(d("1647.01"), value.setScale(2, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    public void growthTableRoundsEachPeriod() {
+        long[] balances = Finance.growthTable(100_000, d("5"), 12, new long[120]);
+        // Reference: credit interest rounded to the cent each month.
+        BigDecimal balance = d("1000.00");
+        BigDecimal rate = d("5").divide(d("1200"), MathContext.DECIMAL128);
+        for (int i = 0; i < 120; i++) {
+            balance = balance.add(balance.multiply(rate).setScale(2, RoundingMode.HALF_EVEN));
+            assertEquals("month " + (i + 1), balance.unscaledValue().longValue(), balances[i]);
+        }
+    }
+
+    @Test
+    public void thirtyYearMortgage() {
+        AmortizationSchedule schedule = new AmortizationSchedule(2)
+                .compute(d("200000"), d("6.5"), 12, 360);
+        assertEquals(360, schedule.getRows());
+        assertEquals(126_414, schedule.getPayments()[0]);
+        assertEquals(108_333, schedule.getInterest()[0]);
+        assertEquals(0, schedule.getBalances()[359]);
+
+        long repaid = 0;
+        for (int i = 0; i < 360; i++) repaid += schedule.getPrincipal()[i];
+        assertEquals(20_000_000, repaid);
+        assertEquals(schedule.getTotalPaid(), 20_000_000 + schedule.getTotalInterest());
+
+        // Row by row in BigDecimal, as the keypad would do it.
+        BigDecimal balance = d("200000.00");
+        BigDecimal rate = d("6.5").divide(d("1200"), MathContext.DECIMAL128);
+        for (int i = 0; i < 359; i++) {
+            BigDecimal interest = balance.multiply(rate).setScale(2, RoundingMode.HALF_EVEN);
+            balance = balance.subtract(d("1264.14").subtract(interest));
+            assertEquals("row " + i, balance.unscaledValue().longValue(), schedule.getBalances()[i]);
+        }
+    }
+
+    @Test
+    public void zeroRateAndReuse() {
+        AmortizationSchedule schedule = new AmortizationSchedule(2).compute(d("1000"), d("0"), 12, 3);
+        assertEquals(33_333, schedule.getPayments()[0]);
+        assertEquals(33_334, schedule.getPayments()[2]);
+        assertEquals(0, schedule.getTotalInterest());
+
+        long[] payments = schedule.getPayments();
+        schedule.compute(d("500"), d("3"), 12, 2);
+        assertSame(payments, schedule.getPayments());
+        assertEquals(2, schedule.getRows());
+    }
+
+    @Test
+    public void formatsAmountsLazily() {
+        AmortizationSchedule schedule = new AmortizationSchedule(2);
+        assertEquals("1264.14", schedule.appendAmount(new StringBuilder(), 126_414).toString());
+        assertEquals("0.05", schedule.appendAmount(new StringBuilder(), 5).toString());
+        assertEquals("-3.00", schedule.appendAmount(new StringBuilder(), -300).toString());
+    }
+
+    @Test
+    public void halfEvenInterest() {
+        Finance.Rate rate = new Finance.Rate(d("12"), 12); // 1% a month
+        assertEquals(2, rate.interest(250));   // 2.5 -> 2
+        assertEquals(4, rate.interest(350));   // 3.5 -> 4
+        assertEquals(-2, rate.interest(-250));
+        // 100% a month on a balance whose product overflows a long takes the BigInteger path.
+        long large = Long.MAX_VALUE / 100 + 1;
+        assertEquals(large, new Finance.Rate(d("1200"), 12).interest(large));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.Assert.*;
+
+public class FormulaRegistryTest {
+
+    private static final MathContext MC = MathContext.DECIMAL64;
+
+    private static BigDecimal d(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    public void constantsAndFormulasFromText() {
+        FormulaRegistry registry = new FormulaRegistry();
+        assertEquals("tax", registry.define("tax = 1.15", MC));
+        assertEquals("net", registry.define("net = price × tax − discount", MC));
+        assertTrue(registry.isConstant("tax"));
+        assertArrayEquals(new String[]{"price", "discount"}, registry.getParameters("net"));
+        assertEquals(0, d("110").compareTo(registry.call("net", MC, d("100"), d("5"))));
+        assertEquals(d("1.15"), registry.call("tax", MC));
+        assertEquals("net(price, discount) = price × tax − discount", registry.getDefinition("net"));
+        assertArrayEquals(new String[]{"tax", "net"}, registry.getNames());
+    }
+
+    @Test
+    public void listedParametersSetTheOrderAndShadowConstants() {
+        FormulaRegistry registry = new FormulaRegistry();
+        registry.define("w = 100", MC);
+        registry.define("area(h, w) = w × h", MC);
+        assertEquals(0, d("6").compareTo(registry.call("area", MC, d("2"), d("3"))));
+        registry.define("half = w / 2", MC);
+        assertTrue(registry.isConstant("half"));
+        assertEquals(0, d("50").compareTo(registry.getConstant("half")));
+    }
+
+    @Test
+    public void redefiningAConstantRebindsFormulas() {
+        FormulaRegistry registry = new FormulaRegistry();
+        registry.define("rate = 2", MC);
+        registry.define("f = x × rate", MC);
+        assertEquals(0, d("10").compareTo(registry.call("f", MC, d("5"))));
+        registry.define("rate = 3", MC);
+        assertEquals(0, d("15").compareTo(registry.call("f", MC, d("5"))));
+        // Redefining from the old value, as x = x + 1 on a calculator would.
+        registry.define("rate = rate + 1", MC);
+        assertEquals(0, d("20").compareTo(registry.call("f", MC, d("5"))));
+        registry.remove("rate");
+        try {
+            registry.call("f", MC, d("5"));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals("Unknown name 'rate'", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void callsDoNotRecompileUntilEvicted() {
+        FormulaRegistry registry = new FormulaRegistry(2);
+        registry.define("a = x + 1", MC);
+        registry.define("b = x + 2", MC);
+        assertEquals(2, registry.getCompiles());
+        for (int i = 0; i < 100; i++) registry.call("a", MC, BigDecimal.valueOf(i));
+        assertEquals(2, registry.getCompiles());
+        assertEquals(100, registry.getHits());
+
+        // c pushes out b, the least recently used; a stays resident.
+        registry.define("c = x + 3", MC);
+        assertEquals(1, registry.getEvictions());
+        registry.call("a", MC, BigDecimal.ONE);
+        assertEquals(3, registry.getCompiles());
+        assertEquals(0, d("5").compareTo(registry.call("b", MC, d("3"))));
+        assertEquals(4, registry.getCompiles());
+        assertEquals(2, registry.getCompiledCount());
+
+        registry.setCapacity(1);
+        assertEquals(1, registry.getCompiledCount());
+    }
+
+    @Test
+    public void badInputIsRejected() {
+        FormulaRegistry registry = new FormulaRegistry();
+        String[] bad = {"no equals", "2x = 1", "f(a, a) = a", "f(a = a", "f = (1", "f(1) = 2"};
+        for (String text : bad) {
+            try {
+                registry.define(text, MC);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertEquals(0, registry.size());
+        registry.define("f = x", MC);
+        try {
+            registry.call("f", MC);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals("f takes 1 values, got 0", expected.getMessage());
+        }
+        try {
+            registry.define("z = 1 / 0", MC);
+            fail();
+        } catch (ArithmeticException expected) {
+            assertFalse(registry.contains("z"));
+        }
+    }
+
+    @Test
+    public void bytesKeepTheSourceNotTheProgram() throws IOException {
+        FormulaRegistry registry = new FormulaRegistry();
+        registry.define("tax = 1.15", MC);
+        registry.define("net(price, discount) = price × tax − discount", MC);
+        FormulaRegistry restored = new FormulaRegistry();
+        restored.define("old = 1", MC);
+        restored.restore(registry.toBytes());
+        assertArrayEquals(new String[]{"tax", "net"}, restored.getNames());
+        assertEquals(0, restored.getCompiledCount());
+        assertEquals(0, d("110").compareTo(restored.call("net", MC, d("100"), d("5"))));
+        assertEquals(1, restored.getCompiles());
+
+        byte[] bytes = registry.toBytes();
+        bytes[bytes.length - 3] = '(';
+        try {
+            restored.restore(bytes);
+            fail();
+        } catch (IOException expected) {
+            assertEquals(2, restored.size());
+        }
+    }
+
+    @Test
+    public void restoreRejectsParametersDefineWouldReject() throws IOException {
+        FormulaRegistry registry = new FormulaRegistry();
+        registry.define("tax = 1.15", MC);
+        for (String[] parameters : new String[][]{{"x", "x"}, {"x", "1y"}, {""}}) {
+            try {
+                registry.restore(formula("f", parameters, "x + 1"));
+                fail();
+            } catch (IOException expected) {
+                assertArrayEquals(new String[]{"tax"}, registry.getNames());
+            }
+        }
+        registry.restore(formula("f", new String[]{"x", "y"}, "x + y"));
+        assertEquals(0, d("5").compareTo(registry.call("f", MC, d("2"), d("3"))));
+    }
+
+    /** What {@link FormulaRegistry#writeTo} would write for one formula, without its checks. */
+    private static byte[] formula(String name, String[] parameters, String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeUTF(name);
+        out.writeInt(parameters.length);
+        for (String p : parameters) out.writeUTF(p);
+        out.writeUTF(body);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void engineShowsTheResult() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.getFormulas().define("net = price × 1.15 − discount", engine.getMathContext());
+        engine.formula("net", d("200"), d("30"));
+        assertEquals("200", engine.getDisplay());
+        engine.formula("missing");
+        assertEquals(CalculatorEngine.ERROR, engine.getDisplay());
+        engine.getFormulas().define("zero = 0", engine.getMathContext());
+        engine.getFormulas().define("inverse = 1 / x", engine.getMathContext());
+        engine.formula("inverse", d("0"));
+        assertEquals(CalculatorEngine.ERROR, engine.getDisplay());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesSurviveReopening() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir)) {
+            store.append("12 × 3", "36", 1000);
+            store.append("2 + 3 × 4", "14", 2000);
+        }
+        try (HistoryStore store = new HistoryStore(dir)) {
+            assertEquals(2, store.size());
+            HistoryEntry entry = store.get(1);
+            assertEquals("2 + 3 × 4 = 14", entry.toString());
+            assertEquals(2000, entry.getTimestamp());
+            assertEquals(1, entry.getIndex());
+        }
+    }
+
+    @Test
+    public void recentIsARingOfTheNewest() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir, 3)) {
+            for (int i = 0; i < 10; i++) store.append(i + " + 1", String.valueOf(i + 1), i);
+            List<HistoryEntry> recent = store.recent();
+            assertEquals(3, recent.size());
+            assertEquals("7 + 1", recent.get(0).getExpression());
+            assertEquals("9 + 1", recent.get(2).getExpression());
+            assertEquals("2 + 1", store.get(2).getExpression());
+        }
+        // Reloaded lazily from the tail of the log.
+        try (HistoryStore store = new HistoryStore(dir, 3)) {
+            assertEquals("7 + 1", store.recent().get(0).getExpression());
+        }
+    }
+
+    @Test
+    public void pagesReadOnlyTheRequestedRange() throws IOException {
+        try (HistoryStore store = new HistoryStore(folder.newFolder(), 4)) {
+            for (int i = 0; i < 100; i++) store.append(i + " × 2", String.valueOf(i * 2), i);
+            List<HistoryEntry> page = store.page(40, 5);
+            assertEquals(5, page.size());
+            assertEquals("40 × 2", page.get(0).getExpression());
+            assertEquals(44, page.get(4).getIndex());
+            assertEquals(2, store.page(98, 10).size());
+            assertTrue(store.page(100, 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void searchesByField() throws IOException {
+        try (HistoryStore store = new HistoryStore(folder.newFolder())) {
+            store.append("2.5 × 4", "10", 1);
+            store.append("10 − 4", "6", 2);
+            store.append("6 ÷ 3", "2", 3);
+            store.append("1 + 1", "2", 4);
+
+            List<HistoryEntry> operand = store.search("2.50", HistoryStore.Field.OPERAND, 10);
+            assertEquals(1, operand.size());
+            assertEquals("2.5 × 4", operand.get(0).getExpression());
+
+            assertEquals("10 − 4", store.search("-", HistoryStore.Field.OPERATOR, 10).get(0).getExpression());
+            assertEquals(1, store.search("÷", HistoryStore.Field.OPERATOR, 10).size());
+
+            // Newest first, capped at the limit.
+            List<HistoryEntry> results = store.search("2", HistoryStore.Field.RESULT, 1);
+            assertEquals(1, results.size());
+            assertEquals("1 + 1", results.get(0).getExpression());
+
+            assertEquals(2, store.search("4", HistoryStore.Field.ANY, 10).size());
+        }
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir)) {
+            store.append("1 + 1", "2", 1);
+            store.append("2 + 2", "4", 2);
+        }
+        File log = new File(dir, HistoryStore.LOG_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        try (HistoryStore store = new HistoryStore(dir)) {
+            assertEquals(1, store.size());
+            store.append("3 + 3", "6", 3);
+        }
+        try (HistoryStore store = new HistoryStore(dir)) {
+            assertEquals(2, store.size());
+            assertEquals("3 + 3", store.get(1).getExpression());
+        }
+    }
+
+    @Test
+    public void missingIndexEntriesAreRebuilt() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir)) {
+            for (int i = 0; i < 50; i++) store.append(i + " + 0", String.valueOf(i), i);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, HistoryStore.INDEX_FILE), "rw")) {
+            file.setLength(20 * 8 + 5);
+        }
+        try (HistoryStore store = new HistoryStore(dir, 5)) {
+            assertEquals(50, store.size());
+            assertEquals("33 + 0", store.page(33, 1).get(0).getExpression());
+        }
+    }
+
+    @Test
+    public void clearDeletesEverything() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir)) {
+            store.append("1 + 1", "2", 1);
+            store.clear();
+            assertEquals(0, store.size());
+            assertTrue(store.recent().isEmpty());
+        }
+        try (HistoryStore store = new HistoryStore(dir)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void handlesTensOfThousandsOfEntries() throws IOException {
+        File dir = folder.newFolder();
+        try (HistoryStore store = new HistoryStore(dir)) {
+            for (int i = 0; i < 30000; i++) store.append(i + " × 7", String.valueOf(i * 7L), i);
+        }
+        try (HistoryStore store = new HistoryStore(dir)) {
+            assertEquals(30000, store.size());
+            List<HistoryEntry> found = store.search("12345", HistoryStore.Field.OPERAND, 10);
+            assertEquals(1, found.size());
+            assertEquals("86415", found.get(0).getResult());
+            assertEquals(10, store.search("×", HistoryStore.Field.OPERATOR, 10).size());
+        }
+    }
+}
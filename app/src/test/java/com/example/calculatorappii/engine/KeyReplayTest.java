@@ -0,0 +1,88 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyReplayTest {
+
+    @Test
+    public void scriptsParseLabelsAndSymbols() {
+        assertArrayEquals(new Key[]{Key.DIGIT_1, Key.DIVIDE, Key.DIGIT_0, Key.EQUALS, Key.MEMORY_ADD,
+                Key.DIGIT_2, Key.MULTIPLY}, KeyScript.parse("1 ÷ 0 = M+ 2 ×"));
+        assertArrayEquals(KeyScript.parse("1 ÷ 0 ="), KeyScript.parse("1/0="));
+        assertArrayEquals(KeyScript.parse("CE 1/x √x M- ±"), KeyScript.parse("E r √ M− ~"));
+        assertArrayEquals(new Key[0], KeyScript.parse("  "));
+        try {
+            KeyScript.parse("1 + x");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("'x'"));
+        }
+    }
+
+    @Test
+    public void formatRoundTrips() {
+        for (Key key : Key.values()) {
+            assertSame(key, Key.fromLabel(key.getLabel()));
+        }
+        String script = "12.5 × 3 = MS C 1/x x² CE 40 M~";
+        assertEquals(script, KeyScript.format(KeyScript.parse(script)));
+        assertEquals(script, KeyScript.format(KeyScript.parse("12.5*3=SCrqE40t")));
+    }
+
+    @Test
+    public void replayDrivesTheKeypad() {
+        assertEquals(CalculatorEngine.ERROR, KeyReplay.replay("1 ÷ 0 =").getDisplay());
+        CalculatorEngine engine = KeyReplay.replay("1 ÷ 0 = M+ 2 ×");
+        assertEquals("2", engine.getDisplay());
+        assertEquals("*", engine.getOperator());
+        assertEquals("46", KeyReplay.replay("12 + 34 =").getDisplay());
+    }
+
+    @Test
+    public void unaryResultsClearThePendingDecimalPoint() {
+        // Found by the fuzzer: x², √, %, 1/x, MR, M~ and errors left isDecimalAdded set.
+        for (String script : new String[]{"1.5 x²", "2.25 √x", "5. %", "4. 1/x", "7 MS 1. MR", "-2.5 √x"}) {
+            Key[] keys = KeyScript.parse(script);
+            CalculatorEngine engine = new CalculatorEngine();
+            assertNull(script, KeyReplay.replayChecked(engine, keys, 0, keys.length));
+            assertFalse(script, engine.isDecimalAdded());
+        }
+    }
+
+    @Test
+    public void violationCarriesItsScript() {
+        KeyReplay.Violation violation = new KeyReplay.Violation("broken", KeyScript.parse("1 + 2"));
+        assertEquals("1 + 2", violation.getScript());
+        assertEquals("broken after: 1 + 2", violation.toString());
+    }
+
+    @Test
+    public void fuzzingKeepsEveryInvariant() {
+        for (boolean expressionMode : new boolean[]{false, true}) {
+            KeyFuzzer fuzzer = new KeyFuzzer(20240611).setExpressionMode(expressionMode);
+            KeyReplay.Violation violation = fuzzer.run(200_000);
+            assertNull(String.valueOf(violation), violation);
+            assertTrue(fuzzer.getKeysPressed() >= 200_000);
+        }
+        KeyReplay.Violation violation = new KeyFuzzer(3).setPrecision(Precision.DECIMAL128).run(20_000);
+        assertNull(String.valueOf(violation), violation);
+    }
+
+    @Test
+    public void fuzzSequencesAreReproducible() {
+        Key[] a = new Key[32];
+        Key[] b = new Key[32];
+        new KeyFuzzer(99).generate(7, a);
+        new KeyFuzzer(99).generate(7, b);
+        assertArrayEquals(a, b);
+        new KeyFuzzer(99).generate(8, b);
+        assertFalse(java.util.Arrays.equals(a, b));
+
+        KeyFuzzer fuzzer = new KeyFuzzer(99).setSequenceLength(32);
+        assertNull(fuzzer.run(32 * 50));
+        assertEquals(50, fuzzer.getSequences());
+        assertEquals(32 * 50, fuzzer.getKeysPressed());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class KeyTest {
+
+    @Test
+    public void symbolsRoundTrip() {
+        for (Key key : Key.values()) {
+            assertSame(key, Key.fromSymbol(key.getSymbol()));
+        }
+        assertNull(Key.fromSymbol('x'));
+        assertNull(Key.fromSymbol('×'));
+    }
+
+    @Test
+    public void pressesDriveTheEngine() {
+        CalculatorEngine engine = new CalculatorEngine();
+        press(engine, "12+30=");
+        assertEquals("42", engine.getDisplay());
+        press(engine, "Sq");
+        assertEquals("1764", engine.getDisplay());
+        press(engine, "Cm");
+        assertEquals("42", engine.getDisplay());
+        press(engine, "9~%");
+        assertEquals("-0.09", engine.getDisplay());
+    }
+
+    @Test
+    public void steadyStatePressesDoNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        // Dispatch, engine and display text, as onClick runs them, on the long fast path.
+        CalculatorEngine engine = new CalculatorEngine();
+        DisplayFormatter formatter = new DisplayFormatter();
+        String keys = "1234.5+678=*3=C";
+        int length = 0;
+        for (int i = 0; i < 20_000; i++) length += run(engine, formatter, keys);
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 10_000; i++) length += run(engine, formatter, keys);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(length > 0);
+        // 150,000 presses; one String per press would be several megabytes.
+        assertTrue(allocated + " bytes", allocated < 10_000);
+    }
+
+    private static int run(CalculatorEngine engine, DisplayFormatter formatter, String keys) {
+        int length = 0;
+        for (int i = 0; i < keys.length(); i++) {
+            Key.fromSymbol(keys.charAt(i)).press(engine);
+            length += formatter.format(engine).length();
+        }
+        return length;
+    }
+
+    private static void press(CalculatorEngine engine, String keys) {
+        for (int i = 0; i < keys.length(); i++) Key.fromSymbol(keys.charAt(i)).press(engine);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LivePreviewTest {
+
+    private static final String NONE = "<none>";
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final SynchronousQueue<String> delivered = new SynchronousQueue<>();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private LivePreview preview(long delayMillis) {
+        return new LivePreview(executor, delayMillis, (generation, text) -> {
+            try {
+                delivered.put(text == null ? NONE : text);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private String next() throws InterruptedException {
+        String text = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no preview delivered", text);
+        return text;
+    }
+
+    private static void type(CalculatorEngine engine, String keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            Key.fromSymbol(keys.charAt(i)).press(engine);
+        }
+    }
+
+    @Test
+    public void previewIsWhatEqualsShows() throws Exception {
+        LivePreview preview = preview(0);
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "12.5*3");
+        assertTrue(preview.update(engine));
+        assertEquals("37.5", next());
+        type(engine, "=");
+        assertEquals("37.5", engine.getDisplay());
+    }
+
+    @Test
+    public void nothingToPreviewUntilTheSecondOperand() {
+        LivePreview preview = preview(0);
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "12");
+        assertFalse(preview.update(engine));
+        type(engine, "+");
+        assertFalse(preview.update(engine));
+        engine.setExpressionMode(true);
+        type(engine, "3+4");
+        assertFalse(preview.update(engine));
+    }
+
+    @Test
+    public void failedCalculationPreviewsAsNull() throws Exception {
+        LivePreview preview = preview(0);
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "5/0");
+        assertTrue(preview.update(engine));
+        assertEquals(NONE, next());
+    }
+
+    @Test
+    public void aBurstOfKeysDeliversOnlyTheLastPreview() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        LivePreview preview = new LivePreview(executor, 200, (generation, text) -> {
+            calls.incrementAndGet();
+            try {
+                delivered.put(text);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "1+");
+        for (int i = 1; i <= 9; i++) {
+            engine.digit(i);
+            preview.update(engine);
+        }
+        assertEquals("123456790", next());
+        assertNull(delivered.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void cancelledPreviewIsNotDelivered() throws Exception {
+        LivePreview preview = preview(100);
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "2*3");
+        assertTrue(preview.update(engine));
+        preview.cancel();
+        assertNull(delivered.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void staleGenerationIsNotCurrent() throws Exception {
+        long[] seen = new long[1];
+        LivePreview preview = new LivePreview(executor, 0, (generation, text) -> {
+            seen[0] = generation;
+            try {
+                delivered.put(text);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "2*3");
+        preview.update(engine);
+        assertEquals("6", next());
+        long first = seen[0];
+        assertTrue(preview.isCurrent(first));
+        engine.digit(4);
+        preview.update(engine);
+        assertFalse(preview.isCurrent(first));
+        assertEquals("68", next());
+    }
+
+    @Test
+    public void previewFollowsThePrecision() throws Exception {
+        LivePreview preview = preview(0);
+        CalculatorEngine engine = new CalculatorEngine();
+        type(engine, "1/3");
+        preview.update(engine);
+        String standard = next();
+        engine.setPrecision(Precision.DECIMAL128);
+        preview.update(engine);
+        String wide = next();
+        assertTrue(wide.length() > standard.length());
+        type(engine, "=");
+        assertEquals(wide, engine.getDisplay());
+    }
+
+    @Test
+    public void randomKeystrokesPreviewWhatEqualsShows() throws Exception {
+        LivePreview preview = preview(0);
+        Random random = new Random(42);
+        String keys = "0123456789.+-*/~";
+        Precision[] precisions = Precision.values();
+        for (int run = 0; run < 500; run++) {
+            CalculatorEngine engine = new CalculatorEngine();
+            engine.setPrecision(precisions[random.nextInt(precisions.length)]);
+            int length = 1 + random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                engine.operator(i == 0 ? '+' : "+-*/".charAt(random.nextInt(4)));
+                type(engine, String.valueOf(keys.charAt(random.nextInt(keys.length()))));
+                int digits = random.nextInt(6);
+                for (int d = 0; d < digits; d++) engine.digit(random.nextInt(10));
+            }
+            if (!preview.update(engine)) continue;
+            String expected = next();
+            type(engine, "=");
+            String shown = engine.getDisplay();
+            assertEquals(expected.equals(NONE) ? CalculatorEngine.ERROR : expected, shown);
+        }
+    }
+}
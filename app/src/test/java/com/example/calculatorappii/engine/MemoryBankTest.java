@@ -0,0 +1,121 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class MemoryBankTest {
+
+    @Test
+    public void repeatedMemoryAddStaysExact() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.decimalPoint();
+        engine.digit(1);
+        for (int i = 0; i < 100_000; i++) engine.memoryAdd();
+        engine.memoryRecall();
+        assertEquals("10000", engine.getDisplay());
+        assertEquals(0, new BigDecimal("10000.0").compareTo(engine.getMemoryBank().get(0)));
+    }
+
+    @Test
+    public void refusesValuesPastTheMaximumExponent() {
+        MemoryBank bank = new MemoryBank(2);
+        bank.set(0, new BigDecimal("9E10000"));
+        try {
+            bank.add(0, new BigDecimal("2E10000"));
+            fail();
+        } catch (ArithmeticException e) {
+            assertEquals(Expression.OVERFLOW, e.getMessage());
+        }
+        assertEquals(0, new BigDecimal("9E10000").compareTo(bank.get(0)));
+        try {
+            bank.add(1, 1, -100_000);
+            fail();
+        } catch (ArithmeticException expected) {}
+        assertFalse(bank.isSet(1));
+        try {
+            bank.tally(new BigDecimal("1E100000"));
+            fail();
+        } catch (ArithmeticException expected) {}
+        assertEquals(0, bank.getTallyCount());
+    }
+
+    @Test
+    public void registersAreIndependentAndNamed() {
+        MemoryBank bank = new MemoryBank(3);
+        bank.set(0, new BigDecimal("1.5"));
+        bank.add(2, 25, 1);
+        bank.subtract(2, new BigDecimal("0.5"));
+        assertEquals(new BigDecimal("1.5"), bank.get(0));
+        assertFalse(bank.isSet(1));
+        assertEquals(0, new BigDecimal("2").compareTo(bank.get(2)));
+
+        bank.setName(1, "rent");
+        assertEquals(1, bank.indexOf("rent"));
+        assertEquals("M3", bank.getName(2));
+        try {
+            bank.setName(2, "rent");
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+
+    @Test
+    public void longBatchesCarryPastOverflow() {
+        MemoryBank bank = new MemoryBank(1);
+        long[] cents = {Long.MAX_VALUE, Long.MAX_VALUE, 3, -1, Long.MAX_VALUE};
+        bank.accumulate(0, cents, 2, 0, cents.length);
+        BigDecimal expected = BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(3))
+                .add(BigDecimal.valueOf(2)).movePointLeft(2);
+        assertEquals(0, expected.compareTo(bank.get(0)));
+        // Keeps adding exactly once the register has left the long form.
+        bank.add(0, new BigDecimal("0.01"));
+        assertEquals(0, expected.add(new BigDecimal("0.01")).compareTo(bank.get(0)));
+    }
+
+    @Test
+    public void bigDecimalBatchesAreExact() {
+        MemoryBank bank = new MemoryBank(1);
+        BigDecimal[] values = new BigDecimal[1000];
+        for (int i = 0; i < values.length; i++) values[i] = new BigDecimal("0.001");
+        values[500] = new BigDecimal("1E+30");
+        bank.accumulate(0, values, 0, values.length);
+        assertEquals(0, new BigDecimal("1000000000000000000000000000000.999").compareTo(bank.get(0)));
+    }
+
+    @Test
+    public void doubleBatchesAreCompensated() {
+        double[] values = new double[1_000_000];
+        double naive = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0.01;
+            naive += 0.01;
+        }
+        MemoryBank bank = new MemoryBank(1);
+        bank.accumulate(0, values, 0, values.length);
+        assertEquals(0, new BigDecimal("10000").compareTo(bank.get(0)));
+        assertNotEquals(10000.0, naive, 0);
+
+        CompensatedSum left = new CompensatedSum().add(values, 0, 500_000);
+        CompensatedSum right = new CompensatedSum().add(values, 500_000, values.length);
+        assertEquals(10000.0, left.add(right).sum(), 0);
+    }
+
+    @Test
+    public void tallyCountsEveryResult() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.digit(2);
+        engine.operator('+');
+        engine.digit(3);
+        engine.equals();
+        engine.digit(1);
+        engine.operator('/');
+        engine.digit(3);
+        engine.equals();
+        MemoryBank bank = engine.getMemoryBank();
+        assertEquals(2, bank.getTallyCount());
+        // The tally adds the results as displayed.
+        assertEquals(new BigDecimal("5").add(new BigDecimal(engine.getDisplay())), bank.getTally());
+    }
+}
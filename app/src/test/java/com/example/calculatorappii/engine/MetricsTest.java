@@ -0,0 +1,118 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-uniform from 1ns to about 1s.
+            values[i] = (long) Math.exp(random.nextDouble() * 20.7);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double p : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long reported = histogram.valueAtPercentile(p);
+            assertTrue(p + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(p + ": " + reported + " vs " + exact, reported <= exact + exact / 64 + 1);
+        }
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void bucketsCoverEveryValueOnce() {
+        for (long v = 0; v < 1 << 16; v++) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue(v <= LatencyHistogram.highestInBucket(index));
+            assertTrue(index == 0 || v > LatencyHistogram.highestInBucket(index - 1));
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE,
+                LatencyHistogram.highestInBucket(LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void histogramsMerge() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) a.record(i);
+        for (int i = 51; i <= 100; i++) b.record(i);
+        a.add(b);
+        assertEquals(100, a.getCount());
+        assertEquals(50, a.valueAtPercentile(50));
+        assertEquals(99, a.valueAtPercentile(99));
+        assertEquals(50.5, a.getMean(), 0);
+    }
+
+    @Test
+    public void keystrokeStagesAreReadableFromTests() {
+        Metrics metrics = new Metrics();
+        Metrics.Timer arithmetic = metrics.timer(Metrics.ARITHMETIC);
+        Metrics.Timer format = metrics.timer(Metrics.FORMAT);
+        Metrics.Counter keys = metrics.counter("keys");
+        CalculatorEngine engine = new CalculatorEngine();
+        DisplayFormatter formatter = new DisplayFormatter();
+        for (int i = 0; i < 10_000; i++) {
+            keys.increment();
+            long t = arithmetic.start();
+            if (i % 4 == 3) engine.operator('*');
+            else engine.digit(i % 10);
+            t = arithmetic.stop(t);
+            formatter.format(engine);
+            format.stop(t);
+        }
+        assertSame(arithmetic, metrics.timer(Metrics.ARITHMETIC));
+        LatencyHistogram h = arithmetic.getHistogram();
+        assertEquals(10_000, h.getCount());
+        assertTrue(h.valueAtPercentile(50) <= h.valueAtPercentile(99));
+        assertTrue(h.valueAtPercentile(99) <= h.getMax());
+
+        String dump = metrics.toString();
+        assertTrue(dump, dump.startsWith("arithmetic  count=10000 p50="));
+        assertTrue(dump, dump.contains("\nformat      count=10000 p50="));
+        assertTrue(dump, dump.endsWith("keys        10000\n"));
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Metrics metrics = new Metrics();
+        Metrics.Timer timer = metrics.timer("t");
+        Metrics.Counter counter = metrics.counter("c");
+        for (int i = 0; i < 100_000; i++) timer.stop(timer.start()); // warm up
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 1_000_000; i++) {
+            timer.stop(timer.start());
+            timer.record(i);
+            counter.increment();
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        // The measurement itself allocates a little; a boxed value per call would be megabytes.
+        assertTrue(allocated + " bytes", allocated < 10_000);
+    }
+
+    @Test
+    public void formatsDurations() {
+        assertEquals("850ns", Metrics.formatNanos(850));
+        assertEquals("12.3us", Metrics.formatNanos(12_340));
+        assertEquals("4.1ms", Metrics.formatNanos(4_100_000));
+        assertEquals("2.0s", Metrics.formatNanos(2_000_000_000));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProgrammerEngineTest {
+
+    private static final ProgrammerEngine.WordSize BYTE = ProgrammerEngine.WordSize.BYTE;
+    private static final ProgrammerEngine.WordSize QWORD = ProgrammerEngine.WordSize.QWORD;
+
+    private static void type(ProgrammerEngine engine, String digits) {
+        for (int i = 0; i < digits.length(); i++) engine.digit(Character.digit(digits.charAt(i), 16));
+    }
+
+    @Test
+    public void hexInputAndBitwiseOperators() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        type(engine, "F0F0");
+        engine.operator(ProgrammerEngine.AND);
+        type(engine, "FF");
+        engine.equals();
+        assertEquals(0xF0, engine.getValue());
+        engine.operator(ProgrammerEngine.OR);
+        type(engine, "F");
+        engine.operator(ProgrammerEngine.XOR);
+        assertEquals(0xFF, engine.getValue());
+        type(engine, "1");
+        engine.operator(ProgrammerEngine.SHIFT_LEFT);
+        type(engine, "4");
+        engine.equals();
+        assertEquals(0xFE0, engine.getValue());
+        engine.not();
+        assertEquals(~0xFE0L, engine.getValue());
+    }
+
+    @Test
+    public void wordSizeWrapsAndSignExtends() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setWordSize(BYTE);
+        type(engine, "FF");
+        assertEquals(-1, engine.getValue());
+        type(engine, "1");
+        assertEquals("A third hex digit does not fit a byte", -1, engine.getValue());
+        engine.operator('+');
+        type(engine, "2");
+        engine.equals();
+        assertEquals(1, engine.getValue());
+
+        engine.setValue(0x7F);
+        engine.operator('+');
+        type(engine, "1");
+        engine.equals();
+        assertEquals(-128, engine.getValue());
+        engine.negate();
+        assertEquals(-128, engine.getValue());
+
+        engine.setWordSize(QWORD);
+        engine.setValue(0x1234);
+        engine.setWordSize(BYTE);
+        assertEquals(0x34, engine.getValue());
+    }
+
+    @Test
+    public void decimalInputStaysInTheSignedRange() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setWordSize(BYTE);
+        engine.setRadix(10);
+        type(engine, "1289");
+        assertEquals(128 / 10, engine.getValue());
+        engine.clear();
+        type(engine, "127");
+        assertEquals(127, engine.getValue());
+        engine.backspace();
+        assertEquals(12, engine.getValue());
+        engine.digit(0xA);
+        assertEquals("No hex digits in decimal", 12, engine.getValue());
+    }
+
+    @Test
+    public void binaryAndOctalDigits() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setRadix(2);
+        type(engine, "1021");
+        assertEquals("2 is not a binary digit", 0b101, engine.getValue());
+        engine.backspace();
+        assertEquals(0b10, engine.getValue());
+        engine.setRadix(8);
+        engine.clear();
+        type(engine, "777");
+        assertEquals(511, engine.getValue());
+    }
+
+    @Test
+    public void divisionByZeroIsAnError() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        type(engine, "8");
+        engine.operator('/');
+        type(engine, "0");
+        engine.equals();
+        assertTrue(engine.isError());
+        type(engine, "3");
+        assertFalse(engine.isError());
+        assertEquals(3, engine.getValue());
+    }
+
+    @Test
+    public void shiftsBeyondTheWord() {
+        assertEquals(0, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_LEFT, 1, 8, BYTE));
+        assertEquals(-128, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_LEFT, 1, 7, BYTE));
+        assertEquals(-1, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_RIGHT, -128, 100, BYTE));
+        assertEquals(-2, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_RIGHT, -128, 6, BYTE));
+        assertEquals(4, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_RIGHT, 1, -2, BYTE));
+        assertEquals(0, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_LEFT, -1, 64, QWORD));
+        assertEquals(Long.MIN_VALUE, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_LEFT, 1, 63, QWORD));
+        assertEquals(0, ProgrammerEngine.apply(ProgrammerEngine.SHIFT_RIGHT, 1, Long.MIN_VALUE, QWORD));
+    }
+
+    @Test
+    public void batchMatchesSingleOperations() {
+        Random random = new Random(3);
+        int n = 1000;
+        long[] left = new long[n];
+        long[] right = new long[n];
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) {
+            left[i] = random.nextLong();
+            right[i] = random.nextInt(100) + 1;
+        }
+        char[] operators = {'+', '-', '*', '/', ProgrammerEngine.MOD, ProgrammerEngine.AND,
+                ProgrammerEngine.OR, ProgrammerEngine.XOR, ProgrammerEngine.SHIFT_LEFT, ProgrammerEngine.SHIFT_RIGHT};
+        for (ProgrammerEngine.WordSize size : ProgrammerEngine.WordSize.values()) {
+            for (char op : operators) {
+                ProgrammerEngine.apply(op, left, right, out, n, size);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(ProgrammerEngine.apply(op, left[i], right[i], size), out[i]);
+                }
+                ProgrammerEngine.apply(op, left, 7, out, n, size);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(ProgrammerEngine.apply(op, left[i], 7, size), out[i]);
+                }
+            }
+            ProgrammerEngine.not(left, out, n, size);
+            for (int i = 0; i < n; i++) assertEquals(size.normalize(~left[i]), out[i]);
+        }
+        right[10] = 0;
+        try {
+            ProgrammerEngine.apply('/', left, right, out, n, QWORD);
+            fail();
+        } catch (ArithmeticException expected) {
+            assertEquals(left[9] / right[9], out[9]);
+        }
+    }
+
+    @Test
+    public void parseReadsEveryRadix() {
+        assertEquals(-1, ProgrammerEngine.parse("FF", 16, BYTE));
+        assertEquals(0xDEADBEEFL, ProgrammerEngine.parse("dead_beef", 16, QWORD));
+        assertEquals(-1, ProgrammerEngine.parse("1111 1111", 2, BYTE));
+        assertEquals(-128, ProgrammerEngine.parse("-128", 10, BYTE));
+        assertEquals(Long.MIN_VALUE, ProgrammerEngine.parse("-9223372036854775808", 10, QWORD));
+        assertEquals(Long.MAX_VALUE, ProgrammerEngine.parse("777777777777777777777", 8, QWORD));
+        for (String bad : new String[]{"128", "", "-", "1FF", "12G"}) {
+            try {
+                ProgrammerEngine.parse(bad, bad.equals("128") ? 10 : 16, BYTE);
+                fail(bad);
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+}
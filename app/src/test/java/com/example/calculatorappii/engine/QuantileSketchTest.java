@@ -0,0 +1,105 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    /** The fraction of {@code sorted} below {@code value}. */
+    private static double rankOf(double[] sorted, double value) {
+        int i = Arrays.binarySearch(sorted, value);
+        return (i < 0 ? -i - 1 : i) / (double) sorted.length;
+    }
+
+    /** Rank error allowed at q: tight in the tails, looser in the middle, as k1 promises. */
+    private static double tolerance(double q) {
+        return 0.005 * Math.sqrt(q * (1 - q)) * 2 + 0.0005;
+    }
+
+    private static void assertQuantiles(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double rank = rankOf(sorted, sketch.quantile(q));
+            assertEquals("q = " + q, q, rank, tolerance(q));
+        }
+        assertEquals(sorted[0], sketch.quantile(0), 0);
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1), 0);
+    }
+
+    @Test
+    public void quantilesOfSkewedData() {
+        Random random = new Random(1);
+        double[] values = new double[1_000_000];
+        for (int i = 0; i < values.length; i++) values[i] = Math.exp(random.nextGaussian() * 2);
+        QuantileSketch sketch = new QuantileSketch();
+        for (double v : values) sketch.add(v);
+        assertEquals(values.length, sketch.getCount());
+        assertTrue(sketch.getCentroidCount() <= 2 * QuantileSketch.DEFAULT_COMPRESSION);
+        assertQuantiles(values, sketch);
+    }
+
+    @Test
+    public void mergedPartitionsMatchOnePass() {
+        Random random = new Random(2);
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextDouble() * 1000;
+        QuantileSketch merged = new QuantileSketch();
+        for (int part = 0; part < 8; part++) {
+            QuantileSketch sketch = new QuantileSketch();
+            // Sorted partitions are the hard case: each sees a different slice of the range.
+            double[] slice = Arrays.copyOfRange(values, part * 25_000, (part + 1) * 25_000);
+            Arrays.sort(slice);
+            for (double v : slice) sketch.add(v);
+            merged.merge(sketch);
+        }
+        assertEquals(values.length, merged.getCount());
+        assertQuantiles(values, merged);
+    }
+
+    @Test
+    public void smallStreamsAreExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        for (int i = 1; i <= 9; i++) sketch.add(i);
+        sketch.add(Double.NaN);
+        assertEquals(9, sketch.getCount());
+        assertEquals(5, sketch.quantile(0.5), 0);
+        assertEquals(1, sketch.quantile(0.05), 0);
+        assertEquals(9, sketch.quantile(0.95), 0);
+    }
+
+    @Test
+    public void mergingAFinerSketchGrowsTheLists() {
+        QuantileSketch fine = new QuantileSketch(1000);
+        QuantileSketch coarse = new QuantileSketch(20);
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) fine.add(random.nextDouble());
+        coarse.merge(fine);
+        assertEquals(100_000, coarse.getCount());
+        assertEquals(0.5, coarse.quantile(0.5), 0.05);
+    }
+
+    @Test
+    public void writeAndReadKeepTheCentroids() throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(4);
+        for (int i = 0; i < 10_000; i++) sketch.add(random.nextGaussian());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        QuantileSketch read = QuantileSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(sketch.getCount(), read.getCount());
+        for (double q : QUANTILES) assertEquals(sketch.quantile(q), read.quantile(q), 0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RadixFormatterTest {
+
+    private static final ProgrammerEngine.WordSize BYTE = ProgrammerEngine.WordSize.BYTE;
+    private static final ProgrammerEngine.WordSize QWORD = ProgrammerEngine.WordSize.QWORD;
+
+    @Test
+    public void groupsDigitsPerRadix() {
+        RadixFormatter formatter = new RadixFormatter();
+        assertEquals("FF", formatter.format(-1, 16, BYTE).toString());
+        assertEquals("1111 1111", formatter.format(-1, 2, BYTE).toString());
+        assertEquals("0000 0101", formatter.format(5, 2, BYTE).toString());
+        assertEquals("377", formatter.format(-1, 8, BYTE).toString());
+        assertEquals("-1", formatter.format(-1, 10, BYTE).toString());
+        assertEquals("-128", formatter.format(128, 10, BYTE).toString());
+        assertEquals("DEAD BEEF", formatter.format(0xDEADBEEFL, 16, QWORD).toString());
+        assertEquals("-9 223 372 036 854 775 808", formatter.format(Long.MIN_VALUE, 10, QWORD).toString());
+        assertEquals("0", formatter.format(0, 16, QWORD).toString());
+    }
+
+    @Test
+    public void matchesLongToStringWithoutGrouping() {
+        RadixFormatter formatter = new RadixFormatter();
+        formatter.setGrouping(false);
+        Random random = new Random(9);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertEquals(Long.toString(value), formatter.format(value, 10, QWORD).toString());
+            assertEquals(Long.toHexString(value).toUpperCase(), formatter.format(value, 16, QWORD).toString());
+            assertEquals(Long.toOctalString(value), formatter.format(value, 8, QWORD).toString());
+            String binary = Long.toBinaryString(value);
+            assertEquals(binary, formatter.format(value, 2, QWORD).toString().substring(64 - binary.length()));
+        }
+    }
+
+    @Test
+    public void parseReadsTheFormattedText() {
+        RadixFormatter formatter = new RadixFormatter();
+        Random random = new Random(4);
+        for (ProgrammerEngine.WordSize size : ProgrammerEngine.WordSize.values()) {
+            for (int radix : new int[]{2, 8, 10, 16}) {
+                for (int i = 0; i < 200; i++) {
+                    long value = size.normalize(random.nextLong());
+                    assertEquals(value, ProgrammerEngine.parse(formatter.format(value, radix, size), radix, size));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void formatsTheEngine() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setValue(255);
+        RadixFormatter formatter = new RadixFormatter();
+        assertEquals("FF", formatter.format(engine).toString());
+        engine.setRadix(10);
+        assertEquals("255", formatter.format(engine).toString());
+        assertEquals('5', formatter.charAt(2));
+        assertEquals("25", formatter.subSequence(0, 2).toString());
+        assertEquals(formatter.length(), formatter.getBuffer().length - formatter.getOffset());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RationalTest {
+
+    @Test
+    public void fractionsAreInLowestTerms() {
+        assertEquals("2/3", Rational.of(4, 6).toString());
+        assertEquals("-2/3", Rational.of(4, -6).toString());
+        assertEquals("5", Rational.of(10, 2).toString());
+        assertSame(Rational.ZERO, Rational.of(0, -7));
+        assertEquals(Rational.of(1, 8), Rational.valueOf(125, 3));
+        assertEquals(Rational.of(1200, 1), Rational.valueOf(12, -2));
+        assertEquals(Rational.of(-5, 2), Rational.valueOf(new BigDecimal("-2.50")));
+        try {
+            Rational.of(1, 0);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+    }
+
+    @Test
+    public void binaryGcdMatchesBigInteger() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long a = random.nextLong() >>> 1 + random.nextInt(63);
+            long b = random.nextLong() >>> 1 + random.nextInt(63);
+            assertEquals(BigInteger.valueOf(a).gcd(BigInteger.valueOf(b)).longValue(), Rational.gcd(a, b));
+        }
+        assertEquals(9, Rational.gcd(0, 9));
+    }
+
+    @Test
+    public void arithmeticIsExact() {
+        Rational third = Rational.ONE.divide(Rational.valueOf(3, 0));
+        assertEquals(Rational.ONE, third.multiply(Rational.valueOf(3, 0)));
+        assertEquals(Rational.ONE, third.add(third).add(third));
+        assertEquals(Rational.of(1, 6), Rational.of(1, 2).subtract(third));
+        assertEquals(Rational.of(-3, 1), third.reciprocal().negate());
+        assertEquals(new BigDecimal("0.3333333333333333"), third.toBigDecimal(MathContext.DECIMAL64));
+    }
+
+    @Test
+    public void overflowMovesToBigIntegerAndBack() {
+        Rational big = Rational.of(Long.MAX_VALUE, 3).multiply(Rational.of(Long.MAX_VALUE, 5));
+        assertFalse(big.isSmall());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).pow(2), big.numerator());
+        Rational back = big.divide(Rational.of(Long.MAX_VALUE, 1));
+        assertTrue(back.isSmall());
+        assertEquals(Rational.of(Long.MAX_VALUE, 15), back);
+        assertEquals(Rational.of(Long.MAX_VALUE, 1).add(Rational.ONE).subtract(Rational.ONE),
+                Rational.of(Long.MAX_VALUE, 1));
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE), Rational.of(Long.MIN_VALUE, 1).numerator());
+        assertEquals(Rational.of(Long.MIN_VALUE, 1), Rational.of(Long.MIN_VALUE, 1).negate().negate());
+    }
+
+    @Test
+    public void randomOperationsMatchBigIntegerFractions() {
+        Random random = new Random(11);
+        for (int i = 0; i < 5_000; i++) {
+            long an = random.nextLong() >> random.nextInt(64), ad = (random.nextLong() >>> random.nextInt(64)) | 1;
+            long bn = random.nextLong() >> random.nextInt(64), bd = (random.nextLong() >>> random.nextInt(64)) | 1;
+            Rational a = Rational.of(an, ad);
+            Rational b = Rational.of(bn, bd);
+            BigInteger ban = BigInteger.valueOf(an), bad = BigInteger.valueOf(ad);
+            BigInteger bbn = BigInteger.valueOf(bn), bbd = BigInteger.valueOf(bd);
+            assertEquals(Rational.of(ban.multiply(bbd).add(bbn.multiply(bad)), bad.multiply(bbd)), a.add(b));
+            assertEquals(Rational.of(ban.multiply(bbn), bad.multiply(bbd)), a.multiply(b));
+        }
+    }
+
+    @Test
+    public void parseReadsToString() {
+        for (Rational r : new Rational[]{Rational.of(-7, 12), Rational.valueOf(42, 0),
+                Rational.of(Long.MAX_VALUE, 3).multiply(Rational.of(Long.MAX_VALUE, 7))}) {
+            assertEquals(r, Rational.parse(r.toString()));
+        }
+        try {
+            Rational.parse("1/0");
+            fail();
+        } catch (NumberFormatException expected) {
+        }
+    }
+
+    @Test
+    public void rationalModeDoesNotDrift() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setRationalMode(true);
+        assertEquals("1", press(engine, "1 ÷ 3 × 3 ="));
+        assertEquals("0.1", press(engine, "C 0.1 + 0.2 − 0.2 ="));
+        assertEquals("7", press(engine, "C 7 1/x 1/x"));
+        assertEquals(Rational.of(1, 49), rationalAfter(engine, "C 7 1/x x²"));
+        assertEquals(Rational.of(1, 300), rationalAfter(engine, "C 3 1/x %"));
+        assertEquals("-1", press(engine, "C 1 ÷ 3 ± × 3 ="));
+        assertEquals(CalculatorEngine.ERROR, press(engine, "C 1 ÷ 0 ="));
+
+        // Dividing by 3 three times and then multiplying by 3 three times lands exactly on 2.
+        assertEquals(Rational.of(2, 27), rationalAfter(engine, "C 2 ÷ 3 ÷ 3 ÷ 3 ="));
+        assertEquals("2", press(engine, "× 3 × 3 × 3 ="));
+
+        engine.setRationalMode(false);
+        assertNotEquals("1", press(engine, "C 1 ÷ 3 = × 3 ="));
+    }
+
+    @Test
+    public void hugeFractionsFallBackToDecimals() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setRationalMode(true);
+        press(engine, "3 1/x");
+        for (int i = 0; i < 12; i++) engine.square();
+        assertEquals(Rational.of(BigInteger.ONE, BigInteger.valueOf(3).pow(4096)), engine.getExactValue());
+        engine.square();
+        assertNull(engine.getExactValue());
+    }
+
+    @Test
+    public void typedInputDropsTheFraction() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setRationalMode(true);
+        press(engine, "2 ÷ 3 =");
+        assertEquals(Rational.of(2, 3), engine.getExactValue());
+        press(engine, "5");
+        assertNull(engine.getExactValue());
+        assertEquals("5", engine.getDisplay());
+    }
+
+    private static String press(CalculatorEngine engine, String script) {
+        Key[] keys = KeyScript.parse(script);
+        KeyReplay.replay(engine, keys, 0, keys.length);
+        return engine.getDisplay();
+    }
+
+    private static Rational rationalAfter(CalculatorEngine engine, String script) {
+        press(engine, script);
+        return engine.getExactValue();
+    }
+}
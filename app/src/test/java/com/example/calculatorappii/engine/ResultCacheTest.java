@@ -0,0 +1,70 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    private static BigDecimal d(String s) {
+        return new BigDecimal(s);
+    }
+
+    @Test
+    public void trailingZerosShareAnEntry() {
+        ResultCache cache = new ResultCache(4);
+        cache.put(d("2"), '/', d("3"), d("0.666666666666667"));
+        assertEquals(d("0.666666666666667"), cache.get(d("2.00"), '/', d("3.0")));
+        assertEquals(1, cache.getHits());
+        assertNull(cache.get(d("2"), '*', d("3")));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ResultCache cache = new ResultCache(2);
+        cache.put(d("1"), '+', d("1"), d("2"));
+        cache.put(d("2"), '+', d("2"), d("4"));
+        cache.get(d("1"), '+', d("1"));
+        cache.put(d("3"), '+', d("3"), d("6"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(d("1"), '+', d("1")));
+        assertNull(cache.get(d("2"), '+', d("2")));
+    }
+
+    @Test
+    public void unaryEntriesAreSeparateFromBinary() {
+        ResultCache cache = new ResultCache(4);
+        cache.put(d("4"), ResultCache.SQRT, null, d("2"));
+        assertNull(cache.get(d("4"), ResultCache.RECIPROCAL, null));
+        assertEquals(d("2"), cache.get(d("4.0"), ResultCache.SQRT, null));
+    }
+
+    @Test
+    public void shrinkingCapacityEvicts() {
+        ResultCache cache = new ResultCache(3);
+        cache.put(d("1"), '+', d("1"), d("2"));
+        cache.put(d("2"), '+', d("2"), d("4"));
+        cache.put(d("3"), '+', d("3"), d("6"));
+        cache.setCapacity(1);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(d("3"), '+', d("3")));
+    }
+
+    @Test
+    public void engineReusesDivisionResults() {
+        CalculatorEngine engine = new CalculatorEngine();
+        for (int i = 0; i < 3; i++) {
+            engine.digit(2);
+            engine.operator('/');
+            engine.digit(3);
+            engine.equals();
+        }
+        assertEquals("0.6666666666666", engine.getDisplay());
+        assertEquals(2, engine.getResultCache().getHits());
+        assertEquals(1, engine.getResultCache().getMisses());
+    }
+}
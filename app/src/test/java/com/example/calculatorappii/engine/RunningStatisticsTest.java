@@ -0,0 +1,121 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RunningStatisticsTest {
+
+    @Test
+    public void smallSampleMatchesTextbook() {
+        RunningStatistics s = new RunningStatistics();
+        for (double v : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) s.add(v);
+        assertEquals(8, s.getCount());
+        assertEquals(40, s.getSum(), 0);
+        assertEquals(5, s.getMean(), 0);
+        assertEquals(4, s.getPopulationVariance(), 1e-15);
+        assertEquals(32.0 / 7, s.getVariance(), 1e-15);
+        assertEquals(2, s.getMin(), 0);
+        assertEquals(9, s.getMax(), 0);
+        assertEquals(4.5, s.getMedian(), 0.5);
+    }
+
+    @Test
+    public void emptyAndSingleValue() {
+        RunningStatistics s = new RunningStatistics();
+        assertTrue(Double.isNaN(s.getMean()));
+        assertTrue(Double.isNaN(s.getMin()));
+        s.add(3);
+        assertEquals(3, s.getMean(), 0);
+        assertTrue(Double.isNaN(s.getVariance()));
+        assertEquals(0, s.getPopulationVariance(), 0);
+        s.add(Double.NaN);
+        assertEquals(1, s.getCount());
+    }
+
+    @Test
+    public void welfordSurvivesALargeOffset() {
+        // The naive Σx² − n·mean² formula cancels to garbage here.
+        RunningStatistics s = new RunningStatistics();
+        for (int i = 0; i < 1000; i++) s.add(1e9 + (i % 2 == 0 ? 1 : -1));
+        assertEquals(1e9, s.getMean(), 1e-6);
+        assertEquals(1, s.getPopulationVariance(), 1e-6);
+    }
+
+    @Test
+    public void sumIsCompensated() {
+        RunningStatistics s = new RunningStatistics();
+        for (int i = 0; i < 1_000_000; i++) s.add(0.01);
+        assertEquals(10_000, s.getSum(), 1e-9);
+    }
+
+    @Test
+    public void mergeMatchesOnePass() {
+        Random random = new Random(5);
+        double[] values = new double[300_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextGaussian() * 10 + 50;
+        RunningStatistics whole = new RunningStatistics().add(values, 0, values.length);
+        RunningStatistics merged = new RunningStatistics();
+        for (int from = 0; from < values.length; from += 70_000) {
+            merged.merge(new RunningStatistics().add(values, from, Math.min(values.length, from + 70_000)));
+        }
+        RunningStatistics parallel = RunningStatistics.summarize(values, 0, values.length, ForkJoinPool.commonPool());
+        for (RunningStatistics s : new RunningStatistics[]{merged, parallel}) {
+            assertEquals(whole.getCount(), s.getCount());
+            assertEquals(whole.getSum(), s.getSum(), 1e-6);
+            assertEquals(whole.getMean(), s.getMean(), 1e-10);
+            assertEquals(whole.getVariance(), s.getVariance(), 1e-8);
+            assertEquals(whole.getMin(), s.getMin(), 0);
+            assertEquals(whole.getMax(), s.getMax(), 0);
+            assertEquals(whole.getMedian(), s.getMedian(), 0.1);
+        }
+    }
+
+    @Test
+    public void readsPastedLists() throws IOException {
+        RunningStatistics s = new RunningStatistics();
+        s.addAll(new StringReader("1, 2;3\n4\t5e0\r\n"));
+        assertEquals(5, s.getCount());
+        assertEquals(15, s.getSum(), 0);
+        try {
+            s.addAll(new StringReader("6 seven 8"));
+            fail();
+        } catch (NumberFormatException expected) {
+            assertEquals(6, s.getCount());
+        }
+    }
+
+    @Test
+    public void bytesRoundTrip() throws IOException {
+        RunningStatistics s = new RunningStatistics();
+        Random random = new Random(6);
+        for (int i = 0; i < 5000; i++) s.add(random.nextDouble());
+        RunningStatistics restored = new RunningStatistics();
+        restored.restore(s.toBytes());
+        assertEquals(s.getCount(), restored.getCount());
+        assertEquals(s.getSum(), restored.getSum(), 0);
+        assertEquals(s.getVariance(), restored.getVariance(), 0);
+        assertEquals(s.getQuantile(0.9), restored.getQuantile(0.9), 0);
+    }
+
+    @Test
+    public void keyAddsTheDisplay() {
+        CalculatorEngine engine = new CalculatorEngine();
+        Key[] keys = KeyScript.parse("2 Σ+ 4 Σ+ 3 × 3 = Σ+");
+        KeyReplay.replay(engine, keys, 0, keys.length);
+        RunningStatistics s = engine.getMemoryBank().getStatistics();
+        assertEquals(3, s.getCount());
+        assertEquals(5, s.getMean(), 0);
+        assertEquals(9, s.getMax(), 0);
+        assertEquals("9", engine.getDisplay());
+        engine.getMemoryBank().clearAll();
+        assertEquals(0, s.getCount());
+        assertEquals(0, new BigDecimal(engine.getDisplay()).compareTo(BigDecimal.valueOf(9)));
+    }
+}
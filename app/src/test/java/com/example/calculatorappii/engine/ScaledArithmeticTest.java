@@ -0,0 +1,89 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScaledArithmeticTest {
+
+    private final ScaledArithmetic.Result result = new ScaledArithmetic.Result();
+
+    @Test
+    public void currencyAddition() {
+        assertTrue(ScaledArithmetic.add(1999, 2, 1, 2, result));
+        // 20, stripped of its trailing zero
+        assertEquals(2, result.unscaled);
+        assertEquals(-1, result.scale);
+    }
+
+    @Test
+    public void terminatingDivision() {
+        assertTrue(ScaledArithmetic.divide(10, 0, 4, 0, result));
+        assertEquals(25, result.unscaled);
+        assertEquals(1, result.scale);
+    }
+
+    @Test
+    public void repeatingDivisionFallsBack() {
+        assertFalse(ScaledArithmetic.divide(2, 0, 3, 0, result));
+    }
+
+    @Test
+    public void overflowFallsBack() {
+        assertFalse(ScaledArithmetic.multiply(Long.MAX_VALUE / 2, 0, 3, 0, result));
+        assertFalse(ScaledArithmetic.add(Long.MAX_VALUE, 0, 1, 0, result));
+    }
+
+    @Test
+    public void moreThanFifteenDigitsFallsBack() {
+        assertFalse(ScaledArithmetic.multiply(123456789, 0, 987654321, 0, result));
+    }
+
+    @Test
+    public void displayMatchesBigDecimalPath() {
+        Random random = new Random(42);
+        char[] ops = {'+', '-', '*', '/'};
+        for (int i = 0; i < 20000; i++) {
+            String a = randomOperand(random);
+            String b = randomOperand(random);
+            char op = ops[random.nextInt(ops.length)];
+
+            CalculatorEngine engine = new CalculatorEngine();
+            type(engine, a);
+            engine.operator(op);
+            type(engine, b);
+            engine.equals();
+
+            String expected;
+            if (op == '/' && new BigDecimal(b).signum() == 0) {
+                expected = CalculatorEngine.ERROR;
+            } else {
+                expected = engine.formatResult(engine.calculate(new BigDecimal(a), op, new BigDecimal(b)));
+            }
+            assertEquals(a + " " + op + " " + b, expected, engine.getDisplay());
+        }
+    }
+
+    private static String randomOperand(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return Integer.toString(random.nextInt(1000));
+            case 1:
+                return random.nextInt(100000) + "." + (10 + random.nextInt(90));
+            case 2:
+                return Long.toString((long) (random.nextDouble() * 1e14));
+            default:
+                return "0.00" + random.nextInt(1000);
+        }
+    }
+
+    private static void type(CalculatorEngine engine, String number) {
+        for (char c : number.toCharArray()) {
+            if (c == '.') engine.decimalPoint();
+            else engine.digit(c - '0');
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScientificMathTest {
+
+    private static final MathContext MC50 = new MathContext(50);
+    private static final MathContext MC15 = new MathContext(15);
+
+    private static void assertDigits(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual));
+    }
+
+    @Test
+    public void knownValuesToFiftyDigits() {
+        BigDecimal one = BigDecimal.ONE;
+        assertDigits("3.1415926535897932384626433832795028841971693993751", ScientificMath.pi(MC50));
+        assertDigits("0.69314718055994530941723212145817656807550013436026", ScientificMath.ln2(MC50));
+        assertDigits("2.3025850929940456840179914546843642076011014886288", ScientificMath.ln(BigDecimal.TEN, MC50));
+        assertDigits("0.84147098480789650665250232163029899962256306079837", ScientificMath.sin(one, MC50));
+        assertDigits("0.54030230586813971740093660744297660373231042061792", ScientificMath.cos(one, MC50));
+        assertDigits("1.5574077246549022305069748074583601730872507723815", ScientificMath.tan(one, MC50));
+        assertDigits("2.7182818284590452353602874713526624977572470937000", ScientificMath.exp(one, MC50));
+        assertDigits("1.4142135623730950488016887242096980785696718753769",
+                ScientificMath.pow(BigDecimal.valueOf(2), new BigDecimal("0.5"), MC50));
+        // Needs π to about 70 digits for the reduction.
+        assertDigits("-0.85220084976718880177270589375302936826176215041004",
+                ScientificMath.sin(new BigDecimal("1E+22"), MC50));
+        assertDigits("9.3326215443944152681699238856266700490715968264382E+157",
+                ScientificMath.factorial(BigDecimal.valueOf(100), MC50));
+    }
+
+    @Test
+    public void exactCases() {
+        assertDigits("3", ScientificMath.log10(new BigDecimal("1000"), MC50));
+        assertDigits("-2", ScientificMath.log10(new BigDecimal("0.01"), MC50));
+        assertDigits("1024", ScientificMath.pow(BigDecimal.valueOf(2), BigDecimal.TEN, MC50));
+        assertDigits("0.125", ScientificMath.pow(BigDecimal.valueOf(2), BigDecimal.valueOf(-3), MC50));
+        assertDigits("-8", ScientificMath.pow(BigDecimal.valueOf(-2), BigDecimal.valueOf(3), MC50));
+        assertDigits("1", ScientificMath.factorial(BigDecimal.ZERO, MC50));
+        assertDigits("2432902008176640000", ScientificMath.factorial(BigDecimal.valueOf(20), MC50));
+        assertDigits("0", ScientificMath.sin(BigDecimal.ZERO, MC50));
+        assertDigits("1", ScientificMath.cos(BigDecimal.ZERO, MC50));
+    }
+
+    @Test
+    public void wideResultsRoundToNarrowOnes() {
+        MathContext narrow = new MathContext(500);
+        MathContext wide = new MathContext(530);
+        BigDecimal x = new BigDecimal("2.718281828459045");
+        for (ScientificMath.Function f : ScientificMath.Function.values()) {
+            if (f == ScientificMath.Function.FACTORIAL) continue;
+            assertEquals(f.getName(), f.apply(x, wide).round(narrow), f.apply(x, narrow));
+        }
+    }
+
+    @Test
+    public void doubleFastPathStaysWithinOneUnit() {
+        Random random = new Random(5);
+        for (int i = 0; i < 2_000; i++) {
+            BigDecimal x = new BigDecimal(random.nextDouble() * 20 - 10).round(MC15);
+            for (ScientificMath.Function f : ScientificMath.Function.values()) {
+                if (f == ScientificMath.Function.FACTORIAL) continue;
+                BigDecimal fast;
+                try {
+                    fast = f.apply(x, MC15);
+                } catch (ArithmeticException e) {
+                    continue;
+                }
+                BigDecimal exact = f.apply(x, new MathContext(40)).round(MC15);
+                BigDecimal ulp = exact.ulp().max(fast.ulp());
+                assertTrue(f.getName() + "(" + x + ") = " + fast + ", not " + exact,
+                        fast.subtract(exact).abs().compareTo(ulp) <= 0);
+            }
+        }
+    }
+
+    @Test
+    public void memoizedConstantsAgreeAcrossPrecisions() {
+        BigDecimal wide = ScientificMath.pi(new MathContext(700));
+        for (int digits = 20; digits < 700; digits += 97) {
+            MathContext mc = new MathContext(digits);
+            assertEquals(wide.round(mc), ScientificMath.pi(mc));
+        }
+    }
+
+    @Test
+    public void domainAndRangeErrors() {
+        assertError(Expression.OUT_OF_DOMAIN, () -> ScientificMath.ln(BigDecimal.ZERO, MC50));
+        assertError(Expression.OUT_OF_DOMAIN, () -> ScientificMath.log10(BigDecimal.valueOf(-1), MC50));
+        assertError(Expression.OUT_OF_DOMAIN, () -> ScientificMath.factorial(new BigDecimal("2.5"), MC50));
+        assertError(Expression.OUT_OF_DOMAIN, () -> ScientificMath.factorial(BigDecimal.valueOf(-1), MC50));
+        assertError(Expression.OUT_OF_DOMAIN,
+                () -> ScientificMath.pow(BigDecimal.valueOf(-8), new BigDecimal("0.5"), MC50));
+        assertError(Expression.DIVISION_BY_ZERO,
+                () -> ScientificMath.pow(BigDecimal.ZERO, BigDecimal.valueOf(-1), MC50));
+        assertError(Expression.OVERFLOW,
+                () -> ScientificMath.factorial(BigDecimal.valueOf(ScientificMath.MAX_FACTORIAL + 1), MC50));
+        assertError(Expression.OVERFLOW, () -> ScientificMath.exp(BigDecimal.valueOf(1_000_000), MC50));
+        assertError(Expression.OVERFLOW, () -> ScientificMath.pow(BigDecimal.TEN, BigDecimal.valueOf(20_000), MC50));
+        assertDigits("0", ScientificMath.exp(BigDecimal.valueOf(-1_000_000), MC50));
+    }
+
+    @Test
+    public void expressionsCallFunctions() {
+        assertDigits("1", Expression.compile("sin(0) + cos(0)").evaluate(MC15));
+        assertDigits("1024", Expression.compile("2^10").evaluate(MC15));
+        assertDigits("-4", Expression.compile("-2^2").evaluate(MC15));
+        assertDigits("512", Expression.compile("2^3^2").evaluate(MC15));
+        assertDigits("120", Expression.compile("5!").evaluate(MC15));
+        assertDigits("2", Expression.compile("log(100)").evaluate(MC15));
+        assertDigits("1", Expression.compile("ln(exp(1))").evaluate(MC15));
+    }
+
+    @Test
+    public void engineKeys() {
+        CalculatorEngine engine = new CalculatorEngine();
+        assertEquals("1024", press(engine, "2 xʸ 10 ="));
+        assertEquals("720", press(engine, "C 6 n!"));
+        assertEquals("2", press(engine, "C 100 log"));
+        assertEquals("0", press(engine, "C 0 sin"));
+        assertEquals(CalculatorEngine.ERROR, press(engine, "C 0 ln"));
+        assertEquals(CalculatorEngine.ERROR, press(engine, "C 2 ± xʸ .5 ="));
+
+        engine.setRationalMode(true);
+        press(engine, "C 2 ÷ 3 = xʸ 3 =");
+        assertEquals(Rational.of(8, 27), engine.getExactValue());
+        press(engine, "C 2 xʸ 3 ± =");
+        assertEquals(Rational.of(1, 8), engine.getExactValue());
+    }
+
+    private static String press(CalculatorEngine engine, String script) {
+        Key[] keys = KeyScript.parse(script);
+        KeyReplay.replay(engine, keys, 0, keys.length);
+        return engine.getDisplay();
+    }
+
+    private interface Call {
+        void run();
+    }
+
+    private static void assertError(String message, Call call) {
+        try {
+            call.run();
+            fail("expected " + message);
+        } catch (ArithmeticException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
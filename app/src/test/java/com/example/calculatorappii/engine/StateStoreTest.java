@@ -0,0 +1,257 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class StateStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static StateSnapshot snapshot(String display) {
+        return new StateSnapshot(display, "+", "12", false, 2.5, true, Precision.HIGH, true, "1 + 1 = 2", 3);
+    }
+
+    @Test
+    public void snapshotRoundTripsThroughTheEngine() throws Exception {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.digit(7);
+        engine.operator('*');
+        engine.digit(6);
+        engine.memoryStore();
+        engine.setPrecision(Precision.DECIMAL128);
+
+        StateSnapshot saved = StateSnapshot.capture(engine, "6 × 7 = 42", 1);
+        StateSnapshot read = StateSnapshot.fromBytes(saved.toBytes());
+        assertEquals(saved, read);
+
+        CalculatorEngine restored = new CalculatorEngine();
+        read.applyTo(restored);
+        assertEquals("6", restored.getDisplay());
+        assertEquals(Precision.DECIMAL128, restored.getPrecision());
+        assertEquals(6.0, restored.getMemoryValue(), 0);
+        restored.equals();
+        assertEquals("42", restored.getDisplay());
+    }
+
+    @Test
+    public void snapshotKeepsExactFractions() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setRationalMode(true);
+        engine.digit(1);
+        engine.operator('/');
+        engine.digit(3);
+        engine.operator('*');
+
+        CalculatorEngine restored = new CalculatorEngine();
+        StateSnapshot.fromBytes(StateSnapshot.capture(engine, "", 0).toBytes()).applyTo(restored);
+        assertTrue(restored.isRationalMode());
+        assertEquals(Rational.of(1, 3), restored.getExactValue());
+        restored.digit(3);
+        restored.equals();
+        assertEquals("1", restored.getDisplay());
+    }
+
+    @Test
+    public void snapshotKeepsStatistics() {
+        CalculatorEngine engine = new CalculatorEngine();
+        for (int i = 1; i <= 5; i++) {
+            engine.digit(i);
+            engine.statisticsAdd();
+        }
+        CalculatorEngine restored = new CalculatorEngine();
+        StateSnapshot.fromBytes(StateSnapshot.capture(engine, "", 0).toBytes()).applyTo(restored);
+        RunningStatistics statistics = restored.getMemoryBank().getStatistics();
+        assertEquals(5, statistics.getCount());
+        assertEquals(3, statistics.getMean(), 0);
+        assertEquals(2.5, statistics.getVariance(), 1e-12);
+        assertEquals(3, statistics.getMedian(), 0);
+        assertEquals(5, statistics.getMax(), 0);
+    }
+
+    @Test
+    public void snapshotKeepsFormulas() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.getFormulas().define("tax = 1.15", engine.getMathContext());
+        engine.getFormulas().define("net = price × tax − discount", engine.getMathContext());
+        CalculatorEngine restored = new CalculatorEngine();
+        restored.getFormulas().define("stale = 1", restored.getMathContext());
+        StateSnapshot.fromBytes(StateSnapshot.capture(engine, "", 0).toBytes()).applyTo(restored);
+        assertArrayEquals(new String[]{"tax", "net"}, restored.getFormulas().getNames());
+        restored.formula("net", new BigDecimal("100"), new BigDecimal("5"));
+        assertEquals("110", restored.getDisplay());
+    }
+
+    @Test
+    public void snapshotKeepsMemoryValuesPastSixtyFourKilobytesOfText() {
+        // 100,001 digits at scale 0: more than writeUTF can hold.
+        BigDecimal huge = new BigDecimal("1E100000").setScale(0);
+        BigDecimal[] memory = new BigDecimal[MemoryBank.DEFAULT_SIZE];
+        memory[1] = huge;
+        memory[2] = huge.negate().movePointLeft(100_010);
+        String[] names = new String[memory.length];
+        for (int i = 0; i < names.length; i++) names[i] = "M" + (i + 1);
+        StateSnapshot saved = new StateSnapshot("0", "", "", true, Precision.DECIMAL128, false, "", 0,
+                1, names, memory, huge, 2, true, Rational.of(1, 3), null, new byte[0], new byte[0], "", -1);
+
+        StateSnapshot read = StateSnapshot.fromBytes(saved.toBytes());
+        assertEquals(saved, read);
+        assertEquals(huge, read.memory[1]);
+        assertEquals(100_010, read.memory[2].scale());
+        assertNull(read.memory[0]);
+        assertEquals(Rational.of(1, 3), read.displayExact);
+    }
+
+    @Test
+    public void snapshotKeepsThePendingExpression() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setExpressionMode(true);
+        engine.digit(2);
+        engine.operator('+');
+        engine.digit(3);
+        engine.operator('*');
+
+        CalculatorEngine restored = new CalculatorEngine();
+        StateSnapshot.fromBytes(StateSnapshot.capture(engine, "", 0).toBytes()).applyTo(restored);
+        assertEquals(engine.getPendingExpression(), restored.getPendingExpression());
+        // The operator just entered can still be replaced.
+        restored.operator('+');
+        restored.digit(4);
+        restored.equals();
+        assertEquals("9", restored.getDisplay());
+    }
+
+    @Test
+    public void snapshotKeepsEveryMemoryRegister() {
+        CalculatorEngine engine = new CalculatorEngine();
+        MemoryBank bank = engine.getMemoryBank();
+        bank.set(3, new BigDecimal("123456789012345678901234567890.5"));
+        bank.setName(3, "rent");
+        bank.tally(new BigDecimal("7.25"));
+        engine.selectMemoryRegister(3);
+
+        CalculatorEngine restored = new CalculatorEngine();
+        StateSnapshot.fromBytes(StateSnapshot.capture(engine, "", 0).toBytes()).applyTo(restored);
+        MemoryBank restoredBank = restored.getMemoryBank();
+        assertEquals(3, restored.getMemoryRegister());
+        assertEquals("rent", restoredBank.getName(3));
+        assertEquals(new BigDecimal("123456789012345678901234567890.5"), restoredBank.get(3));
+        assertFalse(restoredBank.isSet(0));
+        assertEquals(new BigDecimal("7.25"), restoredBank.getTally());
+        assertEquals(1, restoredBank.getTallyCount());
+    }
+
+    @Test
+    public void readsVersionOneSnapshots() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(StateSnapshot.MAGIC);
+        out.writeShort(1);
+        out.writeUTF("8");
+        out.writeUTF("*");
+        out.writeUTF("4");
+        out.writeBoolean(false);
+        out.writeDouble(0.1);
+        out.writeBoolean(true);
+        out.writeInt(34);
+        out.writeBoolean(false);
+        out.writeUTF("");
+        out.writeInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        CalculatorEngine engine = new CalculatorEngine();
+        StateSnapshot.fromBytes(bytes.toByteArray()).applyTo(engine);
+        assertEquals(Precision.DECIMAL128, engine.getPrecision());
+        assertEquals(new BigDecimal("0.1"), engine.getMemoryBank().get(0));
+        engine.equals();
+        assertEquals("32", engine.getDisplay());
+    }
+
+    @Test
+    public void rejectsCorruptOrNewerSnapshots() {
+        byte[] bytes = snapshot("5").toBytes();
+        bytes[12] ^= 1;
+        assertNull(StateSnapshot.fromBytes(bytes));
+        assertNull(StateSnapshot.fromBytes(new byte[3]));
+
+        byte[] newer = snapshot("5").toBytes();
+        newer[5] = StateSnapshot.VERSION + 1;
+        assertNull(StateSnapshot.fromBytes(newer));
+    }
+
+    @Test
+    public void readReturnsWhatWasSaved() throws Exception {
+        File file = new File(folder.getRoot(), "state.bin");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new StateStore(file, executor).save(snapshot("42"));
+            StateStore store = new StateStore(file, executor);
+            assertEquals(snapshot("42"), executor.submit(store::read).get());
+            // Equal to what is on disk, so nothing is written.
+            store.save(snapshot("42"));
+            executor.submit(() -> { }).get();
+            assertEquals(0, store.getWriteCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void savesQueuedBehindOtherWorkAreCoalesced() throws Exception {
+        File file = new File(folder.getRoot(), "state.bin");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {}
+        });
+        StateStore store = new StateStore(file, executor);
+        for (int i = 0; i < 100; i++) store.save(snapshot(String.valueOf(i)));
+        blocked.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, store.getWriteCount());
+        assertEquals(snapshot("99"), store.read());
+    }
+
+    @Test
+    public void missingOrGarbageFileReadsAsNull() throws IOException {
+        File file = new File(folder.getRoot(), "state.bin");
+        StateStore store = new StateStore(file, Executors.newSingleThreadExecutor());
+        assertNull(store.read());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a snapshot".getBytes("UTF-8"));
+        }
+        assertNull(store.read());
+    }
+
+    @Test
+    public void traceKeepsTheFirstMarkOfEachName() {
+        StartupTrace trace = new StartupTrace(0);
+        trace.mark("layout", 12_340_000);
+        trace.mark("layout", 99_000_000);
+        trace.mark("firstFrame", 40_000_000);
+        assertEquals(12_340_000, trace.elapsedNanos("layout"));
+        assertEquals(-1, trace.elapsedNanos("stateApplied"));
+        assertEquals("layout=12.3ms firstFrame=40.0ms", trace.toString());
+    }
+}
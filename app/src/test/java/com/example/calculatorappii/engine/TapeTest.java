@@ -0,0 +1,167 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TapeTest {
+
+    private static String text(Tape tape, int row) {
+        return tape.appendValue(new StringBuilder(), row).toString();
+    }
+
+    private static String running(Tape tape, int row) {
+        return tape.appendRunningTotal(new StringBuilder(), row).toString();
+    }
+
+    private static BigDecimal sumOf(Tape tape) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < tape.size(); i++) sum = sum.add(tape.get(i));
+        return sum;
+    }
+
+    @Test
+    public void keepsEachValueWithItsScale() {
+        Tape tape = new Tape();
+        tape.add(new BigDecimal("12.50"));
+        tape.add(new BigDecimal("0.005"));
+        tape.add(new BigDecimal("-3"));
+        tape.add(new BigDecimal("1E+3"));
+        assertEquals("12.50", text(tape, 0));
+        assertEquals("0.005", text(tape, 1));
+        assertEquals("-3", text(tape, 2));
+        assertEquals("1000", text(tape, 3));
+        assertEquals("12.505", running(tape, 1));
+        assertEquals("1009.505", running(tape, 3));
+        assertEquals(0, new BigDecimal("1009.505").compareTo(tape.getTotal()));
+        assertTrue(tape.isTotalExact());
+        assertEquals(0.005, tape.getDouble(1), 0);
+    }
+
+    @Test
+    public void editsMoveTheTotalByTheDifference() {
+        Tape tape = new Tape();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) tape.add(random.nextInt(1_000_000) - 500_000, 2);
+        assertEquals(sumOf(tape), tape.getTotal());
+        assertEquals(tape.getTotal(), tape.getRunningTotal(tape.size() - 1));
+
+        tape.set(500, new BigDecimal("0.125"));
+        tape.remove(20_000);
+        assertEquals(99_999, tape.size());
+        assertEquals(0, sumOf(tape).compareTo(tape.getTotal()));
+        assertEquals(0, tape.getTotal().compareTo(tape.getRunningTotal(tape.size() - 1)));
+        BigDecimal prefix = BigDecimal.ZERO;
+        for (int i = 0; i <= 600; i++) prefix = prefix.add(tape.get(i));
+        assertEquals(0, prefix.compareTo(tape.getRunningTotal(600)));
+    }
+
+    @Test
+    public void overflowCarriesAndFoldsBack() {
+        Tape tape = new Tape();
+        long big = Long.MAX_VALUE / 4;
+        for (int i = 0; i < 10; i++) tape.add(big, 0);
+        tape.add(1, 18);
+        BigDecimal expected = BigDecimal.valueOf(big).multiply(BigDecimal.TEN).add(new BigDecimal("1E-18"));
+        assertEquals(0, expected.compareTo(tape.getTotal()));
+        // Running totals past a long fall back to doubles; the total stays exact.
+        assertEquals(expected.doubleValue(), tape.getRunningTotal(10).doubleValue(), 1e4);
+        for (int i = 9; i >= 1; i--) tape.remove(i);
+        assertEquals(0, BigDecimal.valueOf(big).add(new BigDecimal("1E-18")).compareTo(tape.getTotal()));
+        tape.remove(1);
+        assertEquals("2305843009213693951", running(tape, 0));
+    }
+
+    @Test
+    public void valuesThatDoNotFitAreApproximate() {
+        Tape tape = new Tape();
+        tape.add(new BigDecimal("0.1"));
+        int row = tape.add(new BigDecimal("1E+40"));
+        tape.add(new BigDecimal("0.1234567890123456789012345678901234"));
+        assertFalse(tape.isExact(row));
+        assertFalse(tape.isExact(2));
+        assertFalse(tape.isTotalExact());
+        assertEquals(1e40, tape.getTotal().doubleValue(), 1e25);
+        tape.remove(2);
+        tape.remove(row);
+        assertTrue(tape.isTotalExact());
+        assertEquals(new BigDecimal("0.1"), tape.getTotal());
+        assertEquals("0.1", running(tape, 0));
+        try {
+            tape.add(new BigDecimal("1E+400"));
+            fail();
+        } catch (ArithmeticException expected) {
+            assertEquals(1, tape.size());
+        }
+        try {
+            tape.set(0, new BigDecimal("-1E+400"));
+            fail();
+        } catch (ArithmeticException expected) {
+            assertEquals(new BigDecimal("0.1"), tape.getTotal());
+        }
+    }
+
+    @Test
+    public void trailingZerosPastMaxScaleStayExact() {
+        Tape tape = new Tape();
+        tape.add(new BigDecimal("10.0000000000000000000"));
+        tape.add(new BigDecimal("100.0000000000000000000"));
+        tape.add(new BigDecimal("0.5"));
+        assertTrue(tape.isExact(0));
+        assertTrue(tape.isExact(1));
+        assertEquals(new BigDecimal("10"), tape.get(0));
+        assertEquals("100", tape.appendValue(new StringBuilder(), 1).toString());
+        assertTrue(tape.isTotalExact());
+        assertEquals(new BigDecimal("110.5"), tape.getTotal());
+        assertEquals("10", running(tape, 0));
+        assertEquals("110", running(tape, 1));
+        assertEquals("110.5", running(tape, 2));
+    }
+
+    @Test
+    public void exportsCsvWithRunningTotals() throws IOException {
+        Tape tape = new Tape();
+        tape.add(new BigDecimal("19.99"));
+        tape.add(new BigDecimal("-5"));
+        tape.add(new BigDecimal("0.01"));
+        StringBuilder csv = new StringBuilder();
+        tape.export(csv);
+        assertEquals("value,running total\n19.99,19.99\n-5,14.99\n0.01,15.00\n", csv.toString());
+    }
+
+    @Test
+    public void bytesRoundTrip() throws IOException {
+        Tape tape = new Tape();
+        tape.add(new BigDecimal("3.25"));
+        tape.add(new BigDecimal("1E+40"));
+        tape.add(new BigDecimal("-7"));
+        byte[] bytes = tape.toBytes();
+        assertEquals(8 + 9 * 3, bytes.length);
+        Tape read = Tape.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertEquals(3, read.size());
+        assertEquals(tape.getTotal(), read.getTotal());
+        assertEquals("3.25", text(read, 0));
+        assertFalse(read.isExact(1));
+        bytes[8] = 40;
+        try {
+            Tape.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void appendDecimalPadsAndSigns() {
+        assertEquals("0.05", Tape.appendDecimal(new StringBuilder(), 5, 2).toString());
+        assertEquals("-0.050", Tape.appendDecimal(new StringBuilder(), -50, 3).toString());
+        assertEquals("12.3", Tape.appendDecimal(new StringBuilder(), 123, 1).toString());
+        assertEquals("-92233720368547.75808",
+                Tape.appendDecimal(new StringBuilder(), Long.MIN_VALUE, 5).toString());
+    }
+}
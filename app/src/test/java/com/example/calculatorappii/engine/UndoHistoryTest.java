@@ -0,0 +1,138 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UndoHistoryTest {
+
+    private static void press(CalculatorEngine engine, UndoHistory history, String keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            Key.fromSymbol(keys.charAt(i)).press(engine);
+            history.record(engine);
+        }
+    }
+
+    /** Everything undo is meant to bring back, as text. */
+    private static String state(CalculatorEngine engine) {
+        return engine.getDisplay() + "|" + engine.getOperator() + "|" + engine.getFirstOperand()
+                + "|" + engine.isNewInput() + "|" + engine.isDecimalAdded()
+                + "|" + engine.isResultDisplayed() + "|" + engine.getPendingExpression()
+                + "|" + engine.keypadFlags() + "|" + engine.repeatOperand();
+    }
+
+    @Test
+    public void undoRestoresWhatClearAllDestroyed() {
+        CalculatorEngine engine = new CalculatorEngine();
+        UndoHistory history = new UndoHistory();
+        history.record(engine);
+        press(engine, history, "12+34");
+        String before = state(engine);
+        press(engine, history, "C");
+        assertEquals("0", engine.getDisplay());
+
+        assertTrue(history.undo(engine));
+        assertEquals(before, state(engine));
+        press(engine, history, "=");
+        assertEquals("46", engine.getDisplay());
+    }
+
+    @Test
+    public void redoReplaysUntilANewKeyIsRecorded() {
+        CalculatorEngine engine = new CalculatorEngine();
+        UndoHistory history = new UndoHistory();
+        history.record(engine);
+        press(engine, history, "7*6=");
+        assertEquals("42", engine.getDisplay());
+        assertTrue(history.undo(engine));
+        assertTrue(history.undo(engine));
+        assertEquals("*", engine.getOperator());
+        assertTrue(history.redo(engine));
+        assertTrue(history.redo(engine));
+        assertEquals("42", engine.getDisplay());
+        assertFalse(history.redo(engine));
+
+        history.undo(engine);
+        press(engine, history, "1");
+        assertFalse(history.canRedo());
+        press(engine, history, "=");
+        assertEquals("427", engine.getDisplay());
+    }
+
+    @Test
+    public void unchangedStateIsNotRecordedTwice() {
+        CalculatorEngine engine = new CalculatorEngine();
+        UndoHistory history = new UndoHistory();
+        history.record(engine);
+        press(engine, history, "5");
+        int size = history.size();
+        press(engine, history, "~~");
+        assertEquals(size + 2, history.size());
+        history.record(engine);
+        assertEquals(size + 2, history.size());
+        assertFalse(new UndoHistory().undo(engine));
+    }
+
+    @Test
+    public void undoWalksBackEveryStateOfRandomTyping() {
+        Random random = new Random(17);
+        String keys = "0123456789.+-*/=CE~%qsrcm";
+        for (int run = 0; run < 100; run++) {
+            CalculatorEngine engine = new CalculatorEngine();
+            engine.setExpressionMode(run % 3 == 0);
+            UndoHistory history = new UndoHistory();
+            history.record(engine);
+            List<String> states = new ArrayList<>();
+            states.add(state(engine));
+            for (int i = 0; i < 300; i++) {
+                char c = keys.charAt(random.nextInt(keys.length()));
+                Key.fromSymbol(c).press(engine);
+                history.record(engine);
+                String s = state(engine);
+                if (!s.equals(states.get(states.size() - 1))) states.add(s);
+            }
+            for (int i = states.size() - 1; i > 0; i--) {
+                assertEquals(states.get(i), state(engine));
+                assertTrue(history.undo(engine));
+            }
+            assertEquals(states.get(0), state(engine));
+            assertFalse(history.undo(engine));
+            while (history.redo(engine)) {}
+            assertEquals(states.get(states.size() - 1), state(engine));
+        }
+    }
+
+    @Test
+    public void digitsShareOneContext() {
+        CalculatorEngine engine = new CalculatorEngine();
+        UndoHistory history = new UndoHistory();
+        history.record(engine);
+        press(engine, history, "1+");
+        int contexts = history.contextCount();
+        for (int i = 0; i < 5000; i++) {
+            press(engine, history, "5");
+            press(engine, history, "E");
+        }
+        assertEquals(10003, history.size());
+        assertEquals(contexts, history.contextCount());
+    }
+
+    @Test
+    public void undoneContextsAreReleased() {
+        CalculatorEngine engine = new CalculatorEngine();
+        UndoHistory history = new UndoHistory();
+        history.record(engine);
+        press(engine, history, "1+2*3-4/");
+        int contexts = history.contextCount();
+        for (int i = 0; i < 4; i++) history.undo(engine);
+        press(engine, history, "9");
+        assertTrue(history.contextCount() < contexts);
+        history.clear();
+        assertEquals(0, history.size());
+        assertEquals(-1, history.getPosition());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.calculatorappii.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UnitConverterTest {
+
+    @Test
+    public void convertsWithExactDefinitions() {
+        assertEquals(2.54, UnitConverter.convert(1, Unit.INCH, Unit.CENTIMETRE), 0);
+        assertEquals(1.609344, UnitConverter.convert(1, Unit.MILE, Unit.KILOMETRE), 0);
+        assertEquals(100, UnitConverter.convert(27.7777777777777777, Unit.METRE_PER_SECOND, Unit.KILOMETRE_PER_HOUR), 1e-12);
+        assertEquals(2.20462262184878, UnitConverter.convert(1, Unit.KILOGRAM, Unit.POUND), 1e-14);
+        assertEquals(16, UnitConverter.convert(1, Unit.POUND, Unit.OUNCE), 0);
+    }
+
+    @Test
+    public void temperaturesUseOffsets() {
+        assertEquals(212, UnitConverter.convert(100, Unit.CELSIUS, Unit.FAHRENHEIT), 1e-12);
+        assertEquals(-40, UnitConverter.convert(-40, Unit.FAHRENHEIT, Unit.CELSIUS), 1e-12);
+        assertEquals(273.15, UnitConverter.convert(0, Unit.CELSIUS, Unit.KELVIN), 0);
+        assertEquals(0, UnitConverter.convert(32, Unit.FAHRENHEIT, Unit.CELSIUS), 1e-12);
+    }
+
+    @Test
+    public void rejectsMixedDimensions() {
+        try {
+            UnitConverter.convert(1, Unit.METRE, Unit.KILOGRAM);
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+
+    @Test
+    public void tablesMatchSingleConversions() {
+        UnitConverter lengths = UnitConverter.forDimension(Unit.Dimension.LENGTH);
+        Unit[] units = lengths.getUnits();
+        double[] values = {0, 1, 2.5, 1000, -3};
+        double[] table = lengths.table(values, Unit.FOOT, new double[values.length * lengths.size()]);
+        for (int r = 0; r < values.length; r++) {
+            for (int j = 0; j < units.length; j++) {
+                assertEquals(UnitConverter.convert(values[r], Unit.FOOT, units[j]), table[r * units.length + j], 0);
+            }
+        }
+
+        double[] batch = values.clone();
+        lengths.convert(batch, 0, batch.length, Unit.FOOT, Unit.METRE, batch, 0);
+        assertEquals(0.762, batch[2], 1e-15);
+        assertSame(lengths, UnitConverter.forDimension(Unit.Dimension.LENGTH));
+    }
+}
@@ -0,0 +1,34 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// The engine package is plain Java, so it is compiled straight from the app sources
+// instead of depending on the Android module.
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/example/calculatorappii/engine/**")
+        }
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // Allocation rate per operation (gc.alloc.rate.norm) next to ops/s.
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
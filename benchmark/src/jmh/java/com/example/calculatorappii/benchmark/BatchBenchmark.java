@@ -0,0 +1,55 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.BatchEvaluator;
+import com.example.calculatorappii.engine.BatchResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Batch throughput in rows per second, sequential against fork-join. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public BatchEvaluator.Mode mode;
+
+    private String[] inputs;
+    private BatchEvaluator evaluator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        String[] ops = {"+", "−", "×", "÷"};
+        inputs = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            inputs[i] = (random.nextInt(100000) / 100.0) + " " + ops[random.nextInt(4)] + " " + (1 + random.nextInt(999));
+        }
+        evaluator = new BatchEvaluator(mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        evaluator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchResult evaluate() {
+        return evaluator.evaluate(inputs);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.ScaledArithmetic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One binary operation at the engine's 15-digit precision, per operator, through BigDecimal and
+ * through the scaled-long fast path. {@code 2:3} divides to a repeating decimal, so its fast-path
+ * score includes the failed attempt before the BigDecimal fallback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CalculateBenchmark {
+
+    @Param({"+", "-", "*", "/"})
+    public String op;
+
+    @Param({"1234:56", "19.99:3", "2:3"})
+    public String operands;
+
+    private CalculatorEngine engine;
+    private char operator;
+    private BigDecimal first;
+    private BigDecimal second;
+    private long firstUnscaled;
+    private long secondUnscaled;
+    private final ScaledArithmetic.Result result = new ScaledArithmetic.Result();
+
+    @Setup
+    public void setUp() {
+        engine = new CalculatorEngine();
+        operator = op.charAt(0);
+        int colon = operands.indexOf(':');
+        first = new BigDecimal(operands.substring(0, colon));
+        second = new BigDecimal(operands.substring(colon + 1));
+        firstUnscaled = first.unscaledValue().longValue();
+        secondUnscaled = second.unscaledValue().longValue();
+    }
+
+    @Benchmark
+    public BigDecimal calculate() {
+        return engine.calculate(first, operator, second);
+    }
+
+    @Benchmark
+    public Object hybrid() {
+        if (ScaledArithmetic.apply(firstUnscaled, first.scale(), operator,
+                secondUnscaled, second.scale(), result)) {
+            return result;
+        }
+        return engine.calculate(first, operator, second);
+    }
+
+    @Benchmark
+    public String calculateAndFormat() {
+        return engine.formatResult(engine.calculate(first, operator, second));
+    }
+}
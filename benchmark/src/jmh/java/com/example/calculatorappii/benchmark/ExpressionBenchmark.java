@@ -0,0 +1,47 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.Expression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing a formula on every evaluation against evaluating a program compiled once. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExpressionBenchmark {
+
+    private static final String FORMULA = "(price × qty − discount) × (1 + tax%)";
+    private static final MathContext MC = new MathContext(15, RoundingMode.HALF_UP);
+
+    private Expression compiled;
+    private BigDecimal[] values;
+
+    @Setup
+    public void setUp() {
+        compiled = Expression.compile(FORMULA);
+        values = new BigDecimal[] {
+                new BigDecimal("19.99"), new BigDecimal("3"), new BigDecimal("5"), new BigDecimal("8.25")
+        };
+    }
+
+    @Benchmark
+    public BigDecimal compileAndEvaluate() {
+        return Expression.compile(FORMULA).evaluate(MC, values);
+    }
+
+    @Benchmark
+    public BigDecimal evaluateCompiled() {
+        return compiled.evaluate(MC, values);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.DisplayFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code formatResult} branches and the display's thousand grouping. The {@code formatter*} and
+ * {@code group*} methods write into a reused {@link DisplayFormatter}; {@code *StringFormat} is
+ * the old String.format grouping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FormatBenchmark {
+
+    private CalculatorEngine engine;
+    private DisplayFormatter formatter;
+    private BigDecimal plain;
+    private BigDecimal truncated;
+    private BigDecimal scientific;
+
+    @Setup
+    public void setUp() {
+        engine = new CalculatorEngine();
+        formatter = new DisplayFormatter();
+        MathContext mc = new MathContext(15, RoundingMode.HALF_UP);
+        plain = new BigDecimal("1234.5000");
+        truncated = BigDecimal.valueOf(2).divide(BigDecimal.valueOf(3), mc);
+        scientific = new BigDecimal("123456789").multiply(new BigDecimal("98765.4321"), mc);
+    }
+
+    @Benchmark
+    public String formatPlain() {
+        return engine.formatResult(plain);
+    }
+
+    @Benchmark
+    public String formatTruncated() {
+        return engine.formatResult(truncated);
+    }
+
+    @Benchmark
+    public String formatScientific() {
+        return engine.formatResult(scientific);
+    }
+
+    @Benchmark
+    public int formatterPlain() {
+        return formatter.formatResult(plain).length();
+    }
+
+    @Benchmark
+    public int formatterTruncated() {
+        return formatter.formatResult(truncated).length();
+    }
+
+    @Benchmark
+    public int formatterScientific() {
+        return formatter.formatResult(scientific).length();
+    }
+
+    @Benchmark
+    public int groupThousands() {
+        return formatter.group("123456789012345").length();
+    }
+
+    @Benchmark
+    public int groupSkipped() {
+        return formatter.group("1234.56").length();
+    }
+
+    @Benchmark
+    public String groupThousandsStringFormat() {
+        return KeystrokeBenchmark.stringFormatDisplayText("123456789012345");
+    }
+
+    @Benchmark
+    public String groupSkippedStringFormat() {
+        return KeystrokeBenchmark.stringFormatDisplayText("1234.56");
+    }
+}
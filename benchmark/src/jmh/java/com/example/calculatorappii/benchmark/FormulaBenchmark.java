@@ -0,0 +1,52 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.Expression;
+import com.example.calculatorappii.engine.FormulaRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calling a saved formula with new arguments. {@code call} runs the resident compiled formula;
+ * {@code parseEachCall} compiles the same source on every call, as a registry without the
+ * compiled cache would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormulaBenchmark {
+
+    private static final MathContext MC = new MathContext(15);
+    private static final String BODY = "price × tax − discount";
+
+    private final FormulaRegistry registry = new FormulaRegistry();
+    private final BigDecimal price = new BigDecimal("249.99");
+    private final BigDecimal discount = new BigDecimal("20");
+    private final BigDecimal tax = new BigDecimal("1.15");
+
+    @Setup
+    public void setUp() {
+        registry.defineConstant("tax", tax);
+        registry.define("net(price, discount) = " + BODY, MC);
+    }
+
+    @Benchmark
+    public BigDecimal call() {
+        return registry.call("net", MC, price, discount);
+    }
+
+    @Benchmark
+    public BigDecimal parseEachCall() {
+        Expression expression = Expression.compile(BODY);
+        return expression.evaluate(MC, price, tax, discount);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.DisplayFormatter;
+import com.example.calculatorappii.engine.Key;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full key sequences through the engine, including the display text and grouping that
+ * {@code MainActivity.updateDisplay()} renders after every press. Scores are per keystroke.
+ * The {@code *StringFormat} variants render with the old {@code String.format} grouping, as a
+ * baseline for {@link DisplayFormatter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KeystrokeBenchmark {
+
+    // "1234.56 + 789 = × 3 ="
+    private static final String CURRENCY = "1234.56+789=*3=";
+    // "2 ÷ 3 = 1/x √"
+    private static final String DIVISION = "2/3=rs";
+
+    private CalculatorEngine engine;
+    private DisplayFormatter formatter;
+
+    @Setup
+    public void setUp() {
+        engine = new CalculatorEngine();
+        formatter = new DisplayFormatter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(15)
+    public int currencySequence() {
+        return run(CURRENCY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int divisionSequence() {
+        return run(DIVISION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(15)
+    public String currencySequenceStringFormat() {
+        return runStringFormat(CURRENCY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public String divisionSequenceStringFormat() {
+        return runStringFormat(DIVISION);
+    }
+
+    private int run(String keys) {
+        engine.clearAll();
+        int length = 0;
+        for (int i = 0; i < keys.length(); i++) {
+            press(keys.charAt(i));
+            length += formatter.format(engine).length();
+        }
+        return length;
+    }
+
+    private String runStringFormat(String keys) {
+        engine.clearAll();
+        String display = null;
+        for (int i = 0; i < keys.length(); i++) {
+            press(keys.charAt(i));
+            display = stringFormatDisplayText(engine.getDisplay());
+        }
+        return display;
+    }
+
+    private void press(char c) {
+        // Same table lookup as MainActivity.onClick.
+        Key.fromSymbol(c).press(engine);
+    }
+
+    /** The grouping {@code updateDisplay()} did before DisplayFormatter. */
+    static String stringFormatDisplayText(String value) {
+        String displayText = value;
+        if (!displayText.contains("E") && !displayText.equals("Error") && !displayText.contains(".")) {
+            try {
+                long number = Long.parseLong(displayText);
+                if (Math.abs(number) > 999) {
+                    displayText = String.format("%,d", number);
+                }
+            } catch (NumberFormatException ignored) {}
+        }
+        return displayText;
+    }
+}
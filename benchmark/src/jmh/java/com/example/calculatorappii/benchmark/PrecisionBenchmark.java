@@ -0,0 +1,83 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.BigDecimalMath;
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.Precision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of each operation against the working precision. {@code sqrtDouble} is the old
+ * {@code Math.sqrt} round-trip, as a baseline for the correctly rounded {@code sqrt}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PrecisionBenchmark {
+
+    @Param({"15", "34", "100", "1000"})
+    public int digits;
+
+    private MathContext mc;
+    private CalculatorEngine engine;
+    private BigDecimal x;
+    private BigDecimal y;
+    private BigDecimal quotient;
+
+    @Setup
+    public void setUp() {
+        Precision precision = Precision.fromDigits(digits);
+        mc = precision.getMathContext();
+        engine = new CalculatorEngine();
+        engine.setPrecision(precision);
+        x = new BigDecimal("2.718281828459045");
+        y = new BigDecimal("3.141592653589793");
+        quotient = x.divide(y, mc);
+    }
+
+    @Benchmark
+    public BigDecimal add() {
+        return x.add(y, mc);
+    }
+
+    @Benchmark
+    public BigDecimal multiply() {
+        return x.multiply(y, mc);
+    }
+
+    @Benchmark
+    public BigDecimal divide() {
+        return x.divide(y, mc);
+    }
+
+    @Benchmark
+    public BigDecimal sqrt() {
+        return BigDecimalMath.sqrt(x, mc);
+    }
+
+    @Benchmark
+    public BigDecimal sqrtDouble() {
+        return new BigDecimal(Math.sqrt(x.doubleValue()));
+    }
+
+    @Benchmark
+    public BigDecimal reciprocal() {
+        return BigDecimalMath.reciprocal(quotient, mc);
+    }
+
+    @Benchmark
+    public String format() {
+        return engine.formatResult(quotient);
+    }
+}
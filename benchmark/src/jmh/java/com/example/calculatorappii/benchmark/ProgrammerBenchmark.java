@@ -0,0 +1,84 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.ProgrammerEngine;
+import com.example.calculatorappii.engine.RadixFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The programmer keypad: one keystroke and its display in every radix, and masking whole arrays
+ * with the batch API. {@code keystrokeStrings} is the allocating baseline via
+ * {@code Long.toString} and friends, without the grouping and binary padding of the display.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProgrammerBenchmark {
+
+    private static final int[] RADIXES = {16, 10, 8, 2};
+
+    @Param({"4096"})
+    public int rows;
+
+    private final ProgrammerEngine engine = new ProgrammerEngine();
+    private final RadixFormatter formatter = new RadixFormatter();
+    private long[] values;
+    private long[] masks;
+    private long[] out;
+    private int digit;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        values = new long[rows];
+        masks = new long[rows];
+        out = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = random.nextLong();
+            masks[i] = random.nextLong();
+        }
+    }
+
+    @Benchmark
+    public int keystroke() {
+        // A fresh operand every 16 digits keeps the value from filling up.
+        if ((++digit & 15) == 0) engine.clearEntry();
+        engine.digit(digit & 15);
+        int length = 0;
+        for (int radix : RADIXES) {
+            length += formatter.format(engine.getValue(), radix, engine.getWordSize()).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int keystrokeStrings() {
+        if ((++digit & 15) == 0) engine.clearEntry();
+        engine.digit(digit & 15);
+        long value = engine.getValue();
+        return Long.toHexString(value).length() + Long.toString(value).length()
+                + Long.toOctalString(value).length() + Long.toBinaryString(value).length();
+    }
+
+    @Benchmark
+    public long[] maskArrays() {
+        ProgrammerEngine.apply(ProgrammerEngine.AND, values, masks, out, rows, ProgrammerEngine.WordSize.DWORD);
+        return out;
+    }
+
+    @Benchmark
+    public long[] shiftArray() {
+        ProgrammerEngine.apply(ProgrammerEngine.SHIFT_RIGHT, values, 3, out, rows, ProgrammerEngine.WordSize.QWORD);
+        return out;
+    }
+}
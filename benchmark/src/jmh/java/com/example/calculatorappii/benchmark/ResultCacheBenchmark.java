@@ -0,0 +1,46 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.ResultCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/** A repeated repeating-decimal division, recomputed against served from the result cache. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResultCacheBenchmark {
+
+    private CalculatorEngine engine;
+    private ResultCache cache;
+    private BigDecimal first;
+    private BigDecimal second;
+
+    @Setup
+    public void setUp() {
+        engine = new CalculatorEngine();
+        cache = new ResultCache(256);
+        first = new BigDecimal("1234.5");
+        second = new BigDecimal("7");
+        cache.put(first, '/', second, engine.calculate(first, '/', second));
+    }
+
+    @Benchmark
+    public BigDecimal recompute() {
+        return engine.calculate(first, '/', second);
+    }
+
+    @Benchmark
+    public BigDecimal cached() {
+        return cache.get(first, '/', second);
+    }
+}
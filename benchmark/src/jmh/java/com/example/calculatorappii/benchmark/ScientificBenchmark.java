@@ -0,0 +1,109 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.Precision;
+import com.example.calculatorappii.engine.ScientificMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the scientific functions against the working precision, with the {@link Math}
+ * functions as baselines. At 15 digits {@code sinSmall} takes the double fast path, while
+ * {@code sin} of e is ill-conditioned enough to need the series; {@code sinLarge} adds a
+ * reduction by π at about 40 more digits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScientificBenchmark {
+
+    @Param({"15", "34", "100", "1000"})
+    public int digits;
+
+    private MathContext mc;
+    private BigDecimal x;
+    private BigDecimal y;
+    private BigDecimal small;
+    private BigDecimal large;
+    private double xDouble;
+    private double yDouble;
+
+    @Setup
+    public void setUp() {
+        mc = Precision.fromDigits(digits).getMathContext();
+        x = new BigDecimal("2.718281828459045");
+        y = new BigDecimal("3.141592653589793");
+        small = new BigDecimal("0.7");
+        large = new BigDecimal("1E+40");
+        xDouble = x.doubleValue();
+        yDouble = y.doubleValue();
+        // Warm the memoized constants so the first iteration is not an outlier.
+        ScientificMath.pi(mc);
+        ScientificMath.ln2(mc);
+    }
+
+    @Benchmark
+    public BigDecimal sin() {
+        return ScientificMath.sin(x, mc);
+    }
+
+    @Benchmark
+    public BigDecimal sinSmall() {
+        return ScientificMath.sin(small, mc);
+    }
+
+    @Benchmark
+    public BigDecimal sinLarge() {
+        return ScientificMath.sin(large, mc);
+    }
+
+    @Benchmark
+    public double sinDouble() {
+        return Math.sin(xDouble);
+    }
+
+    @Benchmark
+    public BigDecimal exp() {
+        return ScientificMath.exp(y, mc);
+    }
+
+    @Benchmark
+    public double expDouble() {
+        return Math.exp(yDouble);
+    }
+
+    @Benchmark
+    public BigDecimal ln() {
+        return ScientificMath.ln(y, mc);
+    }
+
+    @Benchmark
+    public double lnDouble() {
+        return Math.log(yDouble);
+    }
+
+    @Benchmark
+    public BigDecimal pow() {
+        return ScientificMath.pow(x, y, mc);
+    }
+
+    @Benchmark
+    public double powDouble() {
+        return Math.pow(xDouble, yDouble);
+    }
+
+    @Benchmark
+    public BigDecimal factorial() {
+        return ScientificMath.factorial(BigDecimal.valueOf(170), mc);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.RunningStatistics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarizing a list: one streaming pass, the same split across the common fork-join pool, and
+ * {@code sortedMedian}, the exact baseline that copies and sorts the list for its median.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        values = new double[size];
+        for (int i = 0; i < size; i++) values[i] = Math.exp(random.nextGaussian());
+    }
+
+    @Benchmark
+    public double streaming() {
+        RunningStatistics statistics = new RunningStatistics().add(values, 0, size);
+        return statistics.getStandardDeviation() + statistics.getMedian();
+    }
+
+    @Benchmark
+    public double parallel() {
+        RunningStatistics statistics = RunningStatistics.summarize(values, 0, size, ForkJoinPool.commonPool());
+        return statistics.getStandardDeviation() + statistics.getMedian();
+    }
+
+    @Benchmark
+    public double sortedMedian() {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[size / 2];
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.calculatorappii.benchmark;
+
+import com.example.calculatorappii.engine.Tape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Editing one row of a long tape and reading the new total. {@code editStrings} is the baseline
+ * this replaced in spirit: the values as a {@code List<String>}, re-parsed and re-summed after
+ * every edit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TapeBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private final Tape tape = new Tape();
+    private final List<String> strings = new ArrayList<>();
+    private BigDecimal[] edits;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < rows; i++) {
+            BigDecimal value = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            tape.add(value);
+            strings.add(value.toPlainString());
+        }
+        edits = new BigDecimal[1024];
+        for (int i = 0; i < edits.length; i++) edits[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+    }
+
+    @Benchmark
+    public BigDecimal edit() {
+        int i = next++ & 1023;
+        tape.set(i * 97 % rows, edits[i]);
+        return tape.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal editStrings() {
+        int i = next++ & 1023;
+        strings.set(i * 97 % rows, edits[i].toPlainString());
+        BigDecimal total = BigDecimal.ZERO;
+        for (String s : strings) total = total.add(new BigDecimal(s));
+        return total;
+    }
+}
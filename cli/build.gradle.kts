@@ -0,0 +1,35 @@
+plugins {
+    application
+}
+
+// Same arrangement as :benchmark: the plain-Java engine is compiled from the app sources.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/example/calculatorappii/engine/**", "com/example/calculatorappii/cli/**")
+        }
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+application {
+    mainClass.set("com.example.calculatorappii.cli.BatchCli")
+    applicationDefaultJvmArgs = listOf("-Xmx64m")
+}
+
+// ./gradlew :cli:fuzz --args="fuzz --seed 42 --keys 100000000"
+tasks.register<JavaExec>("fuzz") {
+    group = "verification"
+    description = "Replays or fuzzes keypad key sequences against the engine's invariants."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.calculatorappii.cli.ReplayCli")
+}
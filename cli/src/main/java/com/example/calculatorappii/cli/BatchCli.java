@@ -0,0 +1,197 @@
+package com.example.calculatorappii.cli;
+
+import com.example.calculatorappii.engine.BatchEvaluator;
+import com.example.calculatorappii.engine.Precision;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams a calculation file through {@link BatchEvaluator} and writes one CSV row per input.
+ *
+ * <p>Input lines are either {@code a op b} / expressions, or CSV rows {@code a,op,b}. The file is
+ * read line by line through a buffered NIO reader and evaluated in fixed-size chunks, so memory
+ * use does not grow with the file. Output rows are {@code expression,result,error}.
+ *
+ * <pre>
+ * BatchCli &lt;input&gt; &lt;output|-&gt; [--sequential] [--parallelism N] [--chunk N] [--skip-header]
+ *          [--precision 15|34|100|1000]
+ * </pre>
+ */
+public final class BatchCli {
+
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private BatchCli() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BatchCli <input> <output|-> [--sequential] [--parallelism N] "
+                    + "[--chunk N] [--skip-header] [--precision 15|34|100|1000]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        String output = args[1];
+        BatchEvaluator.Mode mode = BatchEvaluator.Mode.PARALLEL;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunk = 16384;
+        boolean skipHeader = false;
+        Precision precision = Precision.STANDARD;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sequential":
+                    mode = BatchEvaluator.Mode.SEQUENTIAL;
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(args[++i]);
+                    break;
+                case "--chunk":
+                    chunk = Integer.parseInt(args[++i]);
+                    break;
+                case "--skip-header":
+                    skipHeader = true;
+                    break;
+                case "--precision":
+                    int digits = Integer.parseInt(args[++i]);
+                    precision = Precision.fromDigits(digits);
+                    if (precision.getDigits() != digits) {
+                        System.err.println("Unsupported precision " + digits);
+                        System.exit(2);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        resetPeakHeap();
+        long start = System.nanoTime();
+        final long[] errors = new long[1];
+        long rows;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer writer = "-".equals(output)
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), WRITE_BUFFER)
+                     : new BufferedWriter(Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8), WRITE_BUFFER);
+             BatchEvaluator evaluator = new BatchEvaluator(mode, parallelism)) {
+            evaluator.setPrecision(precision);
+            if (skipHeader) reader.readLine();
+            final Writer out = writer;
+            try {
+                rows = evaluator.evaluate(new LineIterator(reader), new BatchEvaluator.Sink() {
+                    @Override
+                    public void accept(long index, String in, String value, String error) throws IOException {
+                        writeField(out, in);
+                        out.write(',');
+                        writeField(out, value);
+                        out.write(',');
+                        if (error != null) {
+                            writeField(out, error);
+                            errors[0]++;
+                        }
+                        out.write('\n');
+                    }
+                }, chunk);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.printf("rows=%d errors=%d time=%.3fs rate=%.0f rows/s peakHeap=%.1fMB mode=%s%n",
+                rows, errors[0], seconds, rows / Math.max(seconds, 1e-9), peakHeap() / 1048576.0, mode);
+    }
+
+    /** Turns a CSV row {@code a,op,b} into {@code a op b}; other lines pass through. */
+    static String toCalculation(String line) {
+        int c1 = line.indexOf(',');
+        if (c1 < 0) return line;
+        int c2 = line.indexOf(',', c1 + 1);
+        if (c2 < 0 || line.indexOf(',', c2 + 1) >= 0) return line;
+        return unquote(line.substring(0, c1)) + " " + unquote(line.substring(c1 + 1, c2)) + " "
+                + unquote(line.substring(c2 + 1));
+    }
+
+    private static String unquote(String field) {
+        String f = field.trim();
+        if (f.length() >= 2 && f.charAt(0) == '"' && f.charAt(f.length() - 1) == '"') {
+            f = f.substring(1, f.length() - 1).replace("\"\"", "\"").trim();
+        }
+        return f;
+    }
+
+    private static void writeField(Writer out, String field) throws IOException {
+        boolean quote = field.indexOf(',') >= 0 || field.indexOf('"') >= 0;
+        if (!quote) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /** Sum of per-pool heap peaks; an upper bound on the true simultaneous peak. */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /** Lazily reads lines; blank lines are skipped. */
+    private static final class LineIterator implements Iterator<String> {
+        private final BufferedReader reader;
+        private String next;
+
+        LineIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = reader.readLine();
+                    if (line == null) return false;
+                    if (!line.trim().isEmpty()) next = toCalculation(line);
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String line = next;
+            next = null;
+            return line;
+        }
+    }
+}
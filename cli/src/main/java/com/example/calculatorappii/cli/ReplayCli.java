@@ -0,0 +1,149 @@
+package com.example.calculatorappii.cli;
+
+import com.example.calculatorappii.engine.CalculatorEngine;
+import com.example.calculatorappii.engine.Key;
+import com.example.calculatorappii.engine.KeyFuzzer;
+import com.example.calculatorappii.engine.KeyReplay;
+import com.example.calculatorappii.engine.KeyScript;
+import com.example.calculatorappii.engine.Precision;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays key scripts such as {@code "1 ÷ 0 = M+ 2 ×"} against the keypad engine, or fuzzes it
+ * with random keys, checking {@link KeyReplay}'s invariants after every key.
+ *
+ * <pre>
+ * ReplayCli replay &lt;script|@file&gt; [--trace]
+ * ReplayCli fuzz [--seed N] [--keys N] [--length N] [--threads N] [--precision 15|34|100|1000]
+ *                [--expression]
+ * </pre>
+ *
+ * A file holds one script per line, each replayed on a fresh engine. The exit status is 1 when an
+ * invariant broke, so a nightly job can run {@code fuzz} with a new seed each night.
+ */
+public final class ReplayCli {
+
+    private ReplayCli() {}
+
+    public static void main(String[] args) throws Exception {
+        PrintStream out = utf8(System.out);
+        if (args.length >= 2 && args[0].equals("replay")) {
+            boolean trace = args.length > 2 && args[2].equals("--trace");
+            System.exit(replay(args[1], trace, out) ? 0 : 1);
+        } else if (args.length >= 1 && args[0].equals("fuzz")) {
+            System.exit(fuzz(args, out) ? 0 : 1);
+        }
+        System.err.println("usage: ReplayCli replay <script|@file> [--trace]\n"
+                + "       ReplayCli fuzz [--seed N] [--keys N] [--length N] [--threads N] "
+                + "[--precision 15|34|100|1000] [--expression]");
+        System.exit(2);
+    }
+
+    private static boolean replay(String source, boolean trace, PrintStream out) throws IOException {
+        List<String> scripts = new ArrayList<>();
+        if (source.startsWith("@")) {
+            for (String line : Files.readAllLines(Paths.get(source.substring(1)), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) scripts.add(line);
+            }
+        } else {
+            scripts.add(source);
+        }
+        boolean ok = true;
+        for (String script : scripts) {
+            Key[] keys = KeyScript.parse(script);
+            CalculatorEngine engine = new CalculatorEngine();
+            KeyReplay.Violation violation = null;
+            for (int i = 0; i < keys.length && violation == null; i++) {
+                violation = KeyReplay.replayChecked(engine, keys, i, i + 1);
+                if (trace) out.printf("%-4s %s%n", keys[i].getLabel(), engine.getDisplay());
+            }
+            if (violation != null) {
+                out.println("FAIL " + violation);
+                ok = false;
+            } else {
+                out.println(script + "  →  " + engine.getDisplay());
+            }
+        }
+        return ok;
+    }
+
+    private static boolean fuzz(String[] args, PrintStream out) throws Exception {
+        long seed = System.nanoTime();
+        long keys = 100_000_000L;
+        int length = 64;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Precision precision = Precision.STANDARD;
+        boolean expressionMode = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--keys":
+                    keys = Long.parseLong(args[++i]);
+                    break;
+                case "--length":
+                    length = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--precision":
+                    int digits = Integer.parseInt(args[++i]);
+                    precision = Precision.fromDigits(digits);
+                    if (precision.getDigits() != digits) {
+                        System.err.println("Unsupported precision " + digits);
+                        System.exit(2);
+                    }
+                    break;
+                case "--expression":
+                    expressionMode = true;
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        // One fuzzer per thread, each with its own seed so the threads cover different ground.
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<KeyReplay.Violation>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            KeyFuzzer fuzzer = new KeyFuzzer(seed + t)
+                    .setSequenceLength(length)
+                    .setPrecision(precision)
+                    .setExpressionMode(expressionMode);
+            long share = keys / threads;
+            results.add(executor.submit(() -> fuzzer.run(share)));
+        }
+        boolean ok = true;
+        for (Future<KeyReplay.Violation> result : results) {
+            KeyReplay.Violation violation = result.get();
+            if (violation != null) {
+                out.println("FAIL " + violation);
+                ok = false;
+            }
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("seed=%d keys=%d threads=%d time=%.3fs rate=%.1fM keys/s%n",
+                seed, keys, threads, seconds, keys / Math.max(seconds, 1e-9) / 1e6);
+        return ok;
+    }
+
+    private static PrintStream utf8(PrintStream stream) throws UnsupportedEncodingException {
+        return new PrintStream(stream, true, "UTF-8");
+    }
+}
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Calculator app II"
 include(":app")
+include(":benchmark")
+include(":cli")
  
\ No newline at end of file